@@ -0,0 +1,117 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.benchmark;
+
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.message.SourceType;
+import org.joyqueue.network.serializer.Serializer;
+import org.joyqueue.store.message.MessageParser;
+import org.joyqueue.store.utils.MessageUtils;
+import org.joyqueue.toolkit.io.Files;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 基准测试公共方法
+ * <br>
+ * 所有基准测试只依赖本地临时目录，不需要启动Broker和NameServer
+ */
+public final class BenchmarkUtils {
+
+    public static final String TOPIC = "benchmark_topic";
+    public static final String APP = "benchmark_app";
+
+    private BenchmarkUtils() {
+    }
+
+    /**
+     * 创建临时目录，测试结束后调用{@link #deleteDirectory(File)}删除
+     *
+     * @param prefix 目录前缀
+     * @return 临时目录
+     * @throws IOException 创建失败
+     */
+    public static File createTempDirectory(String prefix) throws IOException {
+        return java.nio.file.Files.createTempDirectory(prefix).toFile();
+    }
+
+    public static void deleteDirectory(File directory) {
+        if (directory != null) {
+            Files.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * 构造存储格式的消息
+     *
+     * @param count      条数
+     * @param bodyLength 消息体长度
+     * @return 消息
+     */
+    public static ByteBuffer[] buildStoreMessages(int count, int bodyLength) {
+        return MessageUtils.build(count, bodyLength).toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * 复制一条存储格式的消息并设置分区和索引序号，读取线程之间不共享缓冲区
+     */
+    public static ByteBuffer copyStoreMessage(ByteBuffer template, short partition, long index) {
+        ByteBuffer message = ByteBuffer.allocate(template.remaining());
+        message.put(template.duplicate());
+        message.flip();
+        MessageParser.setShort(message, MessageParser.PARTITION, partition);
+        MessageParser.setLong(message, MessageParser.INDEX, index);
+        return message;
+    }
+
+    public static BrokerMessage buildBrokerMessage(short partition, long index, int bodyLength) {
+        BrokerMessage message = new BrokerMessage();
+        message.setTopic(TOPIC);
+        message.setApp(APP);
+        message.setPartition(partition);
+        message.setMsgIndexNo(index);
+        message.setTerm(1);
+        message.setStartTime(System.currentTimeMillis());
+        message.setClientIp(new byte[16]);
+        message.setSource(SourceType.JOYQUEUE.getValue());
+        message.setBusinessId("business_" + index);
+        byte[] body = new byte[bodyLength];
+        Arrays.fill(body, (byte) (index % Byte.MAX_VALUE));
+        message.setBody(body);
+        return message;
+    }
+
+    /**
+     * 按Broker端的序列化方式编码消息，结果与存储中读出的消息格式一致
+     */
+    public static ByteBuffer serialize(BrokerMessage message) throws Exception {
+        ByteBuf buf = Unpooled.buffer(Serializer.sizeOf(message));
+        try {
+            Serializer.writeBrokerMessage(message, buf);
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            buf.release();
+        }
+    }
+}
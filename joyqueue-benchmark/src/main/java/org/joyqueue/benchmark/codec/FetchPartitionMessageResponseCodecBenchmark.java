@@ -0,0 +1,124 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.benchmark.codec;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.joyqueue.benchmark.BenchmarkUtils;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.network.codec.FetchPartitionMessageResponseCodec;
+import org.joyqueue.network.command.FetchPartitionMessageAckData;
+import org.joyqueue.network.command.FetchPartitionMessageResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拉取消息应答的编解码
+ * <br>
+ * 编码时消息直接以存储格式写出，解码时逐条反序列化，分别对应Broker和客户端的热点。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class FetchPartitionMessageResponseCodecBenchmark {
+
+    @Param({"4"})
+    private int partitions;
+
+    @Param({"32"})
+    private int messagesPerPartition;
+
+    @Param({"1024"})
+    private int bodyLength;
+
+    private final FetchPartitionMessageResponseCodec codec = new FetchPartitionMessageResponseCodec();
+    private List<List<ByteBuffer>> buffers;
+    private ByteBuf encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        buffers = new ArrayList<>(partitions);
+        for (short partition = 0; partition < partitions; partition++) {
+            List<ByteBuffer> partitionBuffers = new ArrayList<>(messagesPerPartition);
+            for (int i = 0; i < messagesPerPartition; i++) {
+                partitionBuffers.add(BenchmarkUtils.serialize(BenchmarkUtils.buildBrokerMessage(partition, i, bodyLength)));
+            }
+            buffers.add(partitionBuffers);
+        }
+        encoded = PooledByteBufAllocator.DEFAULT.buffer();
+        codec.encode(newResponse(), encoded);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encoded.release();
+    }
+
+    private FetchPartitionMessageResponse newResponse() {
+        Table<String, Short, FetchPartitionMessageAckData> data = HashBasedTable.create();
+        for (short partition = 0; partition < partitions; partition++) {
+            List<ByteBuffer> partitionBuffers = buffers.get(partition);
+            // 编码时会移动ByteBuffer的position，每次使用副本
+            List<ByteBuffer> duplicates = new ArrayList<>(partitionBuffers.size());
+            for (ByteBuffer buffer : partitionBuffers) {
+                duplicates.add(buffer.duplicate());
+            }
+            FetchPartitionMessageAckData ackData = new FetchPartitionMessageAckData(JoyQueueCode.SUCCESS);
+            ackData.setBuffers(duplicates);
+            data.put(BenchmarkUtils.TOPIC, partition, ackData);
+        }
+        FetchPartitionMessageResponse response = new FetchPartitionMessageResponse();
+        response.setData(data);
+        return response;
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer(encoded.readableBytes());
+        try {
+            codec.encode(newResponse(), buffer);
+            return buffer.readableBytes();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public FetchPartitionMessageResponse decode() throws Exception {
+        return codec.decode(null, encoded.duplicate());
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.benchmark.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.joyqueue.benchmark.BenchmarkUtils;
+import org.joyqueue.broker.kafka.KafkaCommandType;
+import org.joyqueue.broker.kafka.command.FetchRequest;
+import org.joyqueue.broker.kafka.command.FetchResponse;
+import org.joyqueue.broker.kafka.command.ProduceRequest;
+import org.joyqueue.broker.kafka.message.KafkaBrokerMessage;
+import org.joyqueue.broker.kafka.message.KafkaMessageSerializer;
+import org.joyqueue.broker.kafka.network.KafkaHeader;
+import org.joyqueue.broker.kafka.network.codec.FetchCodec;
+import org.joyqueue.broker.kafka.network.codec.ProduceCodec;
+import org.joyqueue.network.serializer.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka协议拉取、发送请求的编解码
+ * <br>
+ * fetch应答按v3(消息格式V1)编码，produce请求按v2解码。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class KafkaCodecBenchmark {
+
+    private static final short FETCH_VERSION = 3;
+    private static final short PRODUCE_VERSION = 2;
+
+    @Param({"4"})
+    private int partitions;
+
+    @Param({"32"})
+    private int messagesPerPartition;
+
+    @Param({"1024"})
+    private int bodyLength;
+
+    private final FetchCodec fetchCodec = new FetchCodec();
+    private final ProduceCodec produceCodec = new ProduceCodec();
+    private final KafkaHeader fetchHeader = new KafkaHeader(KafkaCommandType.FETCH.getCode(), FETCH_VERSION, 0);
+    private final KafkaHeader produceHeader = new KafkaHeader(KafkaCommandType.PRODUCE.getCode(), PRODUCE_VERSION, 0);
+
+    private FetchResponse fetchResponse;
+    private int fetchResponseSize;
+    private ByteBuf fetchRequest;
+    private ByteBuf produceRequest;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Map<String, List<FetchResponse.PartitionResponse>> partitionResponses = new HashMap<>();
+        List<FetchResponse.PartitionResponse> responses = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            FetchResponse.PartitionResponse response = new FetchResponse.PartitionResponse(partition, (short) 0, newMessages(partition));
+            response.setHighWater(messagesPerPartition);
+            responses.add(response);
+        }
+        partitionResponses.put(BenchmarkUtils.TOPIC, responses);
+        fetchResponse = new FetchResponse();
+        fetchResponse.setVersion(FETCH_VERSION);
+        fetchResponse.setPartitionResponses(partitionResponses);
+
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer();
+        fetchCodec.encode(fetchResponse, buffer);
+        fetchResponseSize = buffer.readableBytes();
+        buffer.release();
+
+        fetchRequest = PooledByteBufAllocator.DEFAULT.buffer();
+        fetchRequest.writeInt(-1); // replica_id
+        fetchRequest.writeInt(500); // max_wait
+        fetchRequest.writeInt(1); // min_bytes
+        fetchRequest.writeInt(1024 * 1024); // max_bytes
+        fetchRequest.writeInt(1);
+        Serializer.write(BenchmarkUtils.TOPIC, fetchRequest, Serializer.SHORT_SIZE);
+        fetchRequest.writeInt(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            fetchRequest.writeInt(partition);
+            fetchRequest.writeLong(0L);
+            fetchRequest.writeInt(1024 * 1024);
+        }
+
+        produceRequest = PooledByteBufAllocator.DEFAULT.buffer();
+        produceRequest.writeShort(1); // acks
+        produceRequest.writeInt(3000); // timeout
+        produceRequest.writeInt(1);
+        Serializer.write(BenchmarkUtils.TOPIC, produceRequest, Serializer.SHORT_SIZE);
+        produceRequest.writeInt(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            produceRequest.writeInt(partition);
+            int sizeIndex = produceRequest.writerIndex();
+            produceRequest.writeInt(0);
+            KafkaMessageSerializer.writeMessages(produceRequest, newMessages(partition), PRODUCE_VERSION);
+            produceRequest.setInt(sizeIndex, produceRequest.writerIndex() - sizeIndex - 4);
+        }
+    }
+
+    private List<KafkaBrokerMessage> newMessages(int partition) {
+        List<KafkaBrokerMessage> messages = new ArrayList<>(messagesPerPartition);
+        for (int i = 0; i < messagesPerPartition; i++) {
+            KafkaBrokerMessage message = new KafkaBrokerMessage();
+            message.setMagic((byte) 1);
+            message.setOffset(i);
+            message.setTimestamp(System.currentTimeMillis());
+            message.setKey(String.format("key_%d_%d", partition, i).getBytes());
+            byte[] value = new byte[bodyLength];
+            Arrays.fill(value, (byte) (i % Byte.MAX_VALUE));
+            message.setValue(value);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fetchRequest.release();
+        produceRequest.release();
+    }
+
+    @Benchmark
+    public int encodeFetchResponse() throws Exception {
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.buffer(fetchResponseSize);
+        try {
+            fetchCodec.encode(fetchResponse, buffer);
+            return buffer.readableBytes();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public FetchRequest decodeFetchRequest() throws Exception {
+        return fetchCodec.decode(fetchHeader, fetchRequest.duplicate());
+    }
+
+    @Benchmark
+    public ProduceRequest decodeProduceRequest() throws Exception {
+        return produceCodec.decode(produceHeader, produceRequest.duplicate());
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.benchmark.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.joyqueue.benchmark.BenchmarkUtils;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.network.serializer.Serializer;
+import org.joyqueue.store.message.MessageParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息的序列化和反序列化
+ * <br>
+ * 覆盖网络层(ByteBuf)、Broker层(ByteBuffer)两套序列化，以及存储层按偏移量解析字段的MessageParser。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageSerializerBenchmark {
+
+    @Param({"128", "1024", "16384"})
+    private int bodyLength;
+
+    private BrokerMessage message;
+    private ByteBuffer serialized;
+    private ByteBuf serializedBuf;
+    private int size;
+    private int brokerSize;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        message = BenchmarkUtils.buildBrokerMessage((short) 0, 100L, bodyLength);
+        serialized = BenchmarkUtils.serialize(message);
+        size = serialized.remaining();
+        brokerSize = org.joyqueue.broker.buffer.Serializer.sizeOf(message);
+        serializedBuf = PooledByteBufAllocator.DEFAULT.heapBuffer(size);
+        serializedBuf.writeBytes(serialized.duplicate());
+    }
+
+    @Benchmark
+    public int encodeByteBuf() throws Exception {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer(size);
+        try {
+            Serializer.writeBrokerMessage(message, buf);
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public BrokerMessage decodeByteBuf() throws Exception {
+        return Serializer.readBrokerMessage(serializedBuf.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuffer encodeByteBuffer() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(brokerSize);
+        org.joyqueue.broker.buffer.Serializer.write(message, buffer, brokerSize);
+        return buffer;
+    }
+
+    @Benchmark
+    public BrokerMessage decodeByteBuffer() throws Exception {
+        return org.joyqueue.broker.buffer.Serializer.readBrokerMessage(serialized.duplicate());
+    }
+
+    @Benchmark
+    public void parseHeader(Blackhole blackhole) {
+        ByteBuffer buffer = serialized.duplicate();
+        blackhole.consume(MessageParser.getShort(buffer, MessageParser.PARTITION));
+        blackhole.consume(MessageParser.getLong(buffer, MessageParser.INDEX));
+        blackhole.consume(MessageParser.getShort(buffer, MessageParser.FLAG));
+        blackhole.consume(MessageParser.getLong(buffer, MessageParser.CLIENT_TIMESTAMP));
+    }
+
+    @Benchmark
+    public ByteBuffer parseBody() {
+        return MessageParser.getByteBuffer(serialized.duplicate(), MessageParser.BODY);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.benchmark.store;
+
+import org.joyqueue.benchmark.BenchmarkUtils;
+import org.joyqueue.domain.QosLevel;
+import org.joyqueue.store.PartitionGroupStoreManager;
+import org.joyqueue.store.PartitionGroupStoreSupport;
+import org.joyqueue.store.QosStore;
+import org.joyqueue.store.ReadResult;
+import org.joyqueue.store.WriteRequest;
+import org.joyqueue.store.WriteResult;
+import org.joyqueue.store.file.PositioningStore;
+import org.joyqueue.store.utils.PreloadBufferPool;
+import org.joyqueue.toolkit.concurrent.LoopThread;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_ENQUEUE_TIMEOUT;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_FLUSH_INTERVAL_MS;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_MAX_DIRTY_SIZE;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_MAX_MESSAGE_LENGTH;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_WRITE_REQUEST_CACHE_SIZE;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_WRITE_TIMEOUT_MS;
+
+/**
+ * 分区组存储的写入和读取
+ * <br>
+ * write：写入一批消息并等待结果，RECEIVE只等入队，PERSISTENCE等刷盘；
+ * read：在预先写好的消息上顺序读取，覆盖索引查询和读缓存。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionGroupStoreBenchmark {
+
+    private static final int PARTITION_GROUP = 1;
+    private static final short[] PARTITIONS = new short[]{0, 1, 2, 3};
+    private static final int STORE_FILE_SIZE = 128 * 1024 * 1024;
+    private static final int INDEX_FILE_SIZE = 512 * 1024;
+    private static final int PRELOAD_MESSAGES = 100000;
+
+    @Param({"RECEIVE", "PERSISTENCE"})
+    private QosLevel qosLevel;
+
+    @Param({"1024"})
+    private int messageSize;
+
+    @Param({"10"})
+    private int batchSize;
+
+    private File base;
+    private PartitionGroupStoreManager storeManager;
+    private QosStore store;
+    private LoopThread commitThread;
+    private ByteBuffer[] messages;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        base = BenchmarkUtils.createTempDirectory("joyqueue-store-benchmark");
+        File groupBase = new File(base, String.format("%s/%d", BenchmarkUtils.TOPIC, PARTITION_GROUP));
+        PartitionGroupStoreSupport.init(groupBase, PARTITIONS);
+
+        PreloadBufferPool bufferPool = PreloadBufferPool.getInstance();
+        bufferPool.addPreLoad(STORE_FILE_SIZE, 2, 4);
+        bufferPool.addPreLoad(INDEX_FILE_SIZE, 2, 4);
+
+        PartitionGroupStoreManager.Config config = new PartitionGroupStoreManager.Config(DEFAULT_MAX_MESSAGE_LENGTH,
+                DEFAULT_WRITE_REQUEST_CACHE_SIZE, DEFAULT_FLUSH_INTERVAL_MS, DEFAULT_WRITE_TIMEOUT_MS, DEFAULT_MAX_DIRTY_SIZE,
+                0L, DEFAULT_ENQUEUE_TIMEOUT,
+                new PositioningStore.Config(STORE_FILE_SIZE),
+                new PositioningStore.Config(INDEX_FILE_SIZE));
+        storeManager = new PartitionGroupStoreManager(BenchmarkUtils.TOPIC, PARTITION_GROUP, groupBase, config, bufferPool);
+        storeManager.recover();
+        storeManager.start();
+        storeManager.enable();
+        store = new QosStore(storeManager, qosLevel);
+
+        // 单副本，写入即提交
+        commitThread = LoopThread.builder()
+                .name("BenchmarkCommitThread")
+                .doWork(() -> storeManager.commit(storeManager.rightPosition()))
+                .sleepTime(0L, 1L)
+                .build();
+        commitThread.start();
+
+        messages = BenchmarkUtils.buildStoreMessages(batchSize, messageSize);
+        preload();
+    }
+
+    private void preload() throws Exception {
+        short partition = PARTITIONS[0];
+        for (int i = 0; i < PRELOAD_MESSAGES; i += batchSize) {
+            store.asyncWrite(newRequests(partition)).get();
+        }
+        while (storeManager.getRightIndex(partition) < PRELOAD_MESSAGES) {
+            Thread.sleep(10L);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        commitThread.stop();
+        storeManager.disable();
+        storeManager.stop();
+        storeManager.close();
+        BenchmarkUtils.deleteDirectory(base);
+    }
+
+    private WriteRequest[] newRequests(short partition) {
+        WriteRequest[] requests = new WriteRequest[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            requests[i] = new WriteRequest(partition, messages[i].duplicate());
+        }
+        return requests;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public WriteResult write(ThreadState threadState) throws Exception {
+        // 写入其它分区，不影响读取的分区
+        Future<WriteResult> future = store.asyncWrite(newRequests(threadState.nextWritePartition()));
+        return future.get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ReadResult read(ThreadState threadState) throws Exception {
+        return store.read(PARTITIONS[0], threadState.nextReadIndex(batchSize), batchSize, 0);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private long readIndex;
+        private int writeCount;
+
+        long nextReadIndex(int count) {
+            if (readIndex + count > PRELOAD_MESSAGES) {
+                readIndex = 0;
+            }
+            long index = readIndex;
+            readIndex += count;
+            return index;
+        }
+
+        short nextWritePartition() {
+            return PARTITIONS[1 + (writeCount++ % (PARTITIONS.length - 1))];
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.benchmark.store;
+
+import org.joyqueue.benchmark.BenchmarkUtils;
+import org.joyqueue.store.file.PositioningStore;
+import org.joyqueue.store.file.StoreMessageSerializer;
+import org.joyqueue.store.utils.PreloadBufferPool;
+import org.joyqueue.toolkit.concurrent.LoopThread;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志文件的追加和读取
+ * <br>
+ * PositioningStore只允许单线程写入，append在单线程下测试；
+ * 每轮迭代使用新的目录，后台线程刷盘，避免脏页堆积占满缓存。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PositioningStoreBenchmark {
+
+    private static final int FILE_DATA_SIZE = 128 * 1024 * 1024;
+    private static final int MAX_MESSAGE_LENGTH = 4 * 1024 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+
+        @Param({"1024"})
+        private int messageSize;
+
+        private File base;
+        private PositioningStore<ByteBuffer> store;
+        private LoopThread flushThread;
+        private ByteBuffer message;
+
+        @Setup(Level.Iteration)
+        public void setup() throws Exception {
+            base = BenchmarkUtils.createTempDirectory("joyqueue-positioning-store-benchmark");
+            store = createStore(base);
+            flushThread = LoopThread.builder()
+                    .name("BenchmarkFlushThread")
+                    .doWork(() -> {
+                        while (store.flush()) {
+                            Thread.yield();
+                        }
+                    })
+                    .sleepTime(1L, 10L)
+                    .build();
+            flushThread.start();
+            message = BenchmarkUtils.buildStoreMessages(1, messageSize)[0];
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            flushThread.stop();
+            store.close();
+            BenchmarkUtils.deleteDirectory(base);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReadState {
+
+        @Param({"1024"})
+        private int messageSize;
+
+        @Param({"100000"})
+        private int messageCount;
+
+        private File base;
+        private PositioningStore<ByteBuffer> store;
+        private long[] positions;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            base = BenchmarkUtils.createTempDirectory("joyqueue-positioning-store-benchmark");
+            store = createStore(base);
+            ByteBuffer message = BenchmarkUtils.buildStoreMessages(1, messageSize)[0];
+            positions = new long[messageCount];
+            for (int i = 0; i < messageCount; i++) {
+                positions[i] = store.right();
+                store.append(message.duplicate());
+            }
+            while (store.flush()) {
+                Thread.yield();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            store.close();
+            BenchmarkUtils.deleteDirectory(base);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ReadCursor {
+        private int next;
+
+        int next(int count, int batch) {
+            if (next + batch > count) {
+                next = 0;
+            }
+            int current = next;
+            next += batch;
+            return current;
+        }
+    }
+
+    private static PositioningStore<ByteBuffer> createStore(File base) throws Exception {
+        PreloadBufferPool bufferPool = PreloadBufferPool.getInstance();
+        bufferPool.addPreLoad(FILE_DATA_SIZE, 2, 4);
+        PositioningStore<ByteBuffer> store = new PositioningStore<>(base, new PositioningStore.Config(FILE_DATA_SIZE),
+                bufferPool, new StoreMessageSerializer(MAX_MESSAGE_LENGTH));
+        store.recover();
+        return store;
+    }
+
+    @Benchmark
+    public long append(AppendState state) throws Exception {
+        return state.store.append(state.message.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuffer read(ReadState state, ReadCursor cursor) throws Exception {
+        return state.store.read(state.positions[cursor.next(state.messageCount, 1)]);
+    }
+
+    @Benchmark
+    public List<ByteBuffer> batchRead(ReadState state, ReadCursor cursor) throws Exception {
+        return state.store.batchRead(state.positions[cursor.next(state.messageCount, 10)], 10);
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.benchmark.store;
+
+import org.joyqueue.store.utils.BufferHolder;
+import org.joyqueue.store.utils.PreloadBufferPool;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 页缓存池的申请和归还
+ * <br>
+ * 多个线程同时申请、归还同一规格的缓存页，模拟多个分区组并发换页。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreloadBufferPoolBenchmark {
+
+    @Param({"524288", "8388608"})
+    private int bufferSize;
+
+    private PreloadBufferPool bufferPool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bufferPool = PreloadBufferPool.getInstance();
+        bufferPool.addPreLoad(bufferSize, 8, 16);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ByteBuffer allocateAndRelease(Holder holder) {
+        return allocateAndRelease0(holder);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ByteBuffer allocateAndReleaseContended(Holder holder) {
+        return allocateAndRelease0(holder);
+    }
+
+    private ByteBuffer allocateAndRelease0(Holder holder) {
+        holder.capacity = bufferSize;
+        ByteBuffer buffer = bufferPool.allocateDirect(holder);
+        bufferPool.releaseDirect(buffer, holder);
+        return buffer;
+    }
+
+    @State(Scope.Thread)
+    public static class Holder implements BufferHolder {
+        private int capacity;
+
+        @Override
+        public int capacity() {
+            return capacity;
+        }
+
+        @Override
+        public boolean isFree() {
+            return true;
+        }
+
+        @Override
+        public boolean evict() {
+            return false;
+        }
+
+        @Override
+        public boolean writable() {
+            return false;
+        }
+
+        @Override
+        public long lastAccessTime() {
+            return SystemClock.now();
+        }
+    }
+}
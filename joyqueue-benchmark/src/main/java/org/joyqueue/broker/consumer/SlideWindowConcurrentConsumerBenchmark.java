@@ -0,0 +1,195 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.consumer;
+
+import org.joyqueue.benchmark.BenchmarkUtils;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.consumer.model.PullResult;
+import org.joyqueue.broker.consumer.position.PositionManager;
+import org.joyqueue.broker.event.BrokerEventBus;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.message.MessageLocation;
+import org.joyqueue.network.session.Consumer;
+import org.joyqueue.store.PartitionGroupStore;
+import org.joyqueue.store.ReadResult;
+import org.joyqueue.store.StoreService;
+import org.joyqueue.store.message.MessageParser;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行消费滑动窗口在多个消费者下的拉取和应答
+ * <br>
+ * 存储、元数据和消费位置都是内存桩，只测量滑动窗口本身的并发开销；
+ * 每个线程保留inflight批未应答的消息，模拟乱序应答。
+ * 构造方法是包级可见的，所以基准放在同名包下。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlideWindowConcurrentConsumerBenchmark {
+
+    private static final int ACK_TIMEOUT = 60 * 1000;
+
+    @Param({"4"})
+    private int partitions;
+
+    @Param({"16"})
+    private int concurrent;
+
+    @Param({"10"})
+    private int batchSize;
+
+    @Param({"4"})
+    private int inflight;
+
+    private SlideWindowConcurrentConsumer concurrentConsumer;
+    private final ConcurrentMap<String, Long> ackIndexes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> pullIndexes = new ConcurrentHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<Short> partitionList = new ArrayList<>(partitions);
+        for (short partition = 0; partition < partitions; partition++) {
+            partitionList.add(partition);
+            ackIndexes.put(key(partition), 0L);
+        }
+        ByteBuffer template = BenchmarkUtils.buildStoreMessages(1, 256)[0];
+
+        ClusterManager clusterManager = Mockito.mock(ClusterManager.class);
+        Mockito.when(clusterManager.getLocalPartitions(Mockito.any(TopicName.class))).thenReturn(partitionList);
+        Mockito.when(clusterManager.getPartitionGroupId(Mockito.any(TopicName.class), Mockito.anyShort())).thenReturn(1);
+
+        PartitionGroupStore store = Mockito.mock(PartitionGroupStore.class);
+        Mockito.when(store.read(Mockito.anyShort(), Mockito.anyLong(), Mockito.anyInt(), Mockito.anyLong())).thenAnswer(invocation -> {
+            short partition = invocation.getArgument(0);
+            long index = invocation.getArgument(1);
+            int count = invocation.getArgument(2);
+            ByteBuffer[] messages = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                messages[i] = BenchmarkUtils.copyStoreMessage(template, partition, index + i);
+            }
+            ReadResult readResult = new ReadResult();
+            readResult.setCode(JoyQueueCode.SUCCESS);
+            readResult.setMessages(messages);
+            return readResult;
+        });
+        StoreService storeService = Mockito.mock(StoreService.class);
+        Mockito.when(storeService.getStore(Mockito.anyString(), Mockito.anyInt())).thenReturn(store);
+
+        PartitionManager partitionManager = Mockito.mock(PartitionManager.class);
+        Mockito.when(partitionManager.getPriorityPartition(Mockito.any(TopicName.class))).thenReturn(new ArrayList<>(0));
+        Mockito.when(partitionManager.isRetry(Mockito.any(Consumer.class))).thenReturn(false);
+        Mockito.when(partitionManager.selectPartitionIndex(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyLong())).thenAnswer(invocation -> {
+            int partitionSize = invocation.getArgument(0);
+            int partitionIndex = invocation.getArgument(1);
+            long accessTimes = invocation.getArgument(2);
+            return partitionIndex < 0 ? (int) (accessTimes % partitionSize) : partitionIndex % partitionSize;
+        });
+
+        concurrentConsumer = new SlideWindowConcurrentConsumer(clusterManager, storeService, partitionManager,
+                null, mockPositionManager(), null, null,
+                new ConsumeConfig(new Configuration()), Mockito.mock(BrokerEventBus.class));
+    }
+
+    private PositionManager mockPositionManager() throws Exception {
+        PositionManager positionManager = Mockito.mock(PositionManager.class);
+        Mockito.when(positionManager.getLastMsgAckIndex(Mockito.any(TopicName.class), Mockito.anyString(), Mockito.anyShort()))
+                .thenAnswer(invocation -> ackIndexes.getOrDefault(key(invocation.getArgument(2)), 0L));
+        Mockito.when(positionManager.getLastMsgPullIndex(Mockito.any(TopicName.class), Mockito.anyString(), Mockito.anyShort()))
+                .thenAnswer(invocation -> pullIndexes.getOrDefault(key(invocation.getArgument(2)), -1L));
+        Mockito.when(positionManager.updateLastMsgPullIndex(Mockito.any(TopicName.class), Mockito.anyString(), Mockito.anyShort(), Mockito.anyLong()))
+                .thenAnswer(invocation -> {
+                    pullIndexes.put(key(invocation.getArgument(2)), invocation.getArgument(3));
+                    return true;
+                });
+        Mockito.when(positionManager.updateLastMsgAckIndex(Mockito.any(TopicName.class), Mockito.anyString(), Mockito.anyShort(), Mockito.anyLong()))
+                .thenAnswer(invocation -> {
+                    ackIndexes.put(key(invocation.getArgument(2)), invocation.getArgument(3));
+                    return true;
+                });
+        Mockito.when(positionManager.updateLastMsgAckIndex(Mockito.any(TopicName.class), Mockito.anyString(), Mockito.anyShort(),
+                Mockito.anyLong(), Mockito.anyLong(), Mockito.anyBoolean()))
+                .thenAnswer(invocation -> ackIndexes.replace(key(invocation.getArgument(2)), invocation.getArgument(3), invocation.getArgument(4)));
+        return positionManager;
+    }
+
+    private static String key(short partition) {
+        return String.valueOf(partition);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean pullAndAck(ConsumerState state) throws Exception {
+        PullResult pullResult = concurrentConsumer.getMessage(state.consumer, batchSize, ACK_TIMEOUT, state.accessTimes++, concurrent);
+        if (pullResult != null && !pullResult.getBuffers().isEmpty()) {
+            state.pending.add(pullResult);
+        }
+        if (state.pending.size() <= inflight) {
+            return false;
+        }
+        PullResult acked = state.pending.poll();
+        List<ByteBuffer> buffers = acked.getBuffers();
+        MessageLocation[] locations = new MessageLocation[buffers.size()];
+        for (int i = 0; i < buffers.size(); i++) {
+            locations[i] = new MessageLocation(BenchmarkUtils.TOPIC, acked.getPartition(),
+                    MessageParser.getLong(buffers.get(i), MessageParser.INDEX));
+        }
+        return concurrentConsumer.acknowledge(locations, state.consumer, true);
+    }
+
+    @State(Scope.Thread)
+    public static class ConsumerState {
+        private final Queue<PullResult> pending = new ArrayDeque<>();
+        private Consumer consumer;
+        private long accessTimes;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            consumer = new Consumer();
+            consumer.setId(String.valueOf(Thread.currentThread().getId()));
+            consumer.setConnectionId(consumer.getId());
+            consumer.setTopic(BenchmarkUtils.TOPIC);
+            consumer.setApp(BenchmarkUtils.APP);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.polling;
+
+import org.joyqueue.benchmark.BenchmarkUtils;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.consumer.Consume;
+import org.joyqueue.broker.consumer.model.PullResult;
+import org.joyqueue.broker.monitor.SessionManager;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.network.session.Consumer;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 长轮询的挂起和唤醒
+ * <br>
+ * 多个消费线程不断挂起长轮询，一个线程模拟守护线程扫描队列，
+ * 一半的扫描认为有空闲分区并唤醒拉取。processHoldRequest是受保护的，所以基准放在同名包下。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Group)
+public class LongPollingManagerBenchmark {
+
+    private static final int PARTITIONS = 16;
+    private static final long LONG_POLLING_TIMEOUT = 5000L;
+
+    private LongPollingManager longPollingManager;
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong wakeups = new AtomicLong();
+
+    private final LongPollingCallback callback = new LongPollingCallback() {
+        @Override
+        public void onSuccess(Consumer consumer, PullResult pullResult) {
+            wakeups.incrementAndGet();
+        }
+
+        @Override
+        public void onExpire(Consumer consumer) {
+        }
+
+        @Override
+        public void onException(Consumer consumer, Throwable throwable) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<Short> partitions = new ArrayList<>(PARTITIONS);
+        for (short partition = 0; partition < PARTITIONS; partition++) {
+            partitions.add(partition);
+        }
+        ClusterManager clusterManager = Mockito.mock(ClusterManager.class);
+        Mockito.when(clusterManager.getLocalPartitions(Mockito.any(TopicName.class))).thenReturn(partitions);
+
+        SessionManager sessionManager = Mockito.mock(SessionManager.class);
+        Mockito.when(sessionManager.getConsumerById(Mockito.anyString())).thenAnswer(invocation -> newConsumer(invocation.getArgument(0)));
+
+        List<ByteBuffer> buffers = Collections.singletonList(BenchmarkUtils.buildStoreMessages(1, 256)[0]);
+        Consume consume = Mockito.mock(Consume.class);
+        Mockito.when(consume.hasFreePartition(Mockito.any(Consumer.class))).thenAnswer(invocation -> (probes.incrementAndGet() & 1) == 0);
+        Mockito.when(consume.getMessage(Mockito.any(Consumer.class), Mockito.anyInt(), Mockito.anyInt()))
+                .thenAnswer(invocation -> new PullResult((Consumer) invocation.getArgument(0), (short) 0, buffers));
+
+        longPollingManager = new LongPollingManager(sessionManager, clusterManager, consume, new Configuration());
+        longPollingManager.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        longPollingManager.stop();
+    }
+
+    private static Consumer newConsumer(String id) {
+        Consumer consumer = new Consumer();
+        consumer.setId(id);
+        consumer.setConnectionId(id);
+        consumer.setTopic(BenchmarkUtils.TOPIC);
+        consumer.setApp(BenchmarkUtils.APP);
+        return consumer;
+    }
+
+    @Benchmark
+    @Group("polling")
+    @GroupThreads(4)
+    public boolean suspend(ConsumerState state) {
+        return longPollingManager.suspend(new LongPolling(state.consumer, 10, 1000, LONG_POLLING_TIMEOUT, callback));
+    }
+
+    @Benchmark
+    @Group("polling")
+    @GroupThreads(1)
+    public long process() throws Exception {
+        longPollingManager.processHoldRequest();
+        return wakeups.get();
+    }
+
+    @State(Scope.Thread)
+    public static class ConsumerState {
+        private Consumer consumer;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            consumer = newConsumer(String.valueOf(Thread.currentThread().getId()));
+        }
+    }
+}
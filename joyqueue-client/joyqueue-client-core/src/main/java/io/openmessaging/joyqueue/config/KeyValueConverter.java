@@ -114,6 +114,8 @@ public class KeyValueConverter {
         consumerConfig.setMaxThread(KeyValueHelper.getInt(attributes, JoyQueueConsumerBuiltinKeys.MAX_THREAD, consumerConfig.getMaxThread()));
         consumerConfig.setFailover(attributes.getBoolean(JoyQueueConsumerBuiltinKeys.FAILOVER, consumerConfig.isFailover()));
         consumerConfig.setForceAck(attributes.getBoolean(JoyQueueConsumerBuiltinKeys.FORCE_ACK, consumerConfig.isForceAck()));
+        consumerConfig.setAckCoalesce(attributes.getBoolean(JoyQueueConsumerBuiltinKeys.ACK_COALESCE, consumerConfig.isAckCoalesce()));
+        consumerConfig.setAckCoalesceLinger(attributes.getLong(JoyQueueConsumerBuiltinKeys.ACK_COALESCE_LINGER, consumerConfig.getAckCoalesceLinger()));
         consumerConfig.setLoadBalance(attributes.getBoolean(JoyQueueConsumerBuiltinKeys.LOADBALANCE, consumerConfig.isLoadBalance()));
         consumerConfig.setLoadBalanceType(KeyValueHelper.getString(attributes, JoyQueueConsumerBuiltinKeys.LOADBALANCE_TYPE, consumerConfig.getLoadBalanceType()));
         consumerConfig.setBroadcastGroup(KeyValueHelper.getString(attributes, JoyQueueConsumerBuiltinKeys.BROADCAST_GROUP, consumerConfig.getBroadcastGroup()));
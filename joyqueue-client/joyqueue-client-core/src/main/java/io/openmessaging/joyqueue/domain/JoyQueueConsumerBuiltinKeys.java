@@ -51,6 +51,10 @@ public interface JoyQueueConsumerBuiltinKeys extends OMSBuiltinKeys {
 
     String FORCE_ACK = "CONSUMER_FORCE_ACK";
 
+    String ACK_COALESCE = "CONSUMER_ACK_COALESCE";
+
+    String ACK_COALESCE_LINGER = "CONSUMER_ACK_COALESCE_LINGER";
+
     String LOADBALANCE = "CONSUMER_LOADBALANCE";
 
     String LOADBALANCE_TYPE = "CONSUMER_LOADBALANCE_TYPE";
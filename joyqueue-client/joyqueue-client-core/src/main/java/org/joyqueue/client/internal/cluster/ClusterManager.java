@@ -19,9 +19,13 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.joyqueue.client.internal.cluster.domain.TopicMetadataHolder;
 import org.joyqueue.client.internal.metadata.MetadataManager;
+import org.joyqueue.client.internal.metadata.domain.PartitionGroupMetadata;
 import org.joyqueue.client.internal.metadata.domain.TopicMetadata;
 import org.joyqueue.client.internal.nameserver.NameServerConfig;
 import org.joyqueue.client.internal.nameserver.NameServerConfigChecker;
+import org.joyqueue.client.internal.transport.MetadataNotificationListener;
+import org.joyqueue.network.command.MetadataChange;
+import org.joyqueue.network.command.MetadataNotification;
 import com.google.common.base.Preconditions;
 import org.joyqueue.toolkit.service.Service;
 import org.apache.commons.collections.CollectionUtils;
@@ -37,7 +41,7 @@ import java.util.Map;
  * author: gaohaoxiang
  * date: 2018/11/28
  */
-public class ClusterManager extends Service {
+public class ClusterManager extends Service implements MetadataNotificationListener {
 
     protected static final Logger logger = LoggerFactory.getLogger(ClusterManager.class);
 
@@ -132,6 +136,34 @@ public class ClusterManager extends Service {
         return metadataUpdater.updateTopicMetadata(topics, app);
     }
 
+    /**
+     * 收到服务端推送的元数据变更后立即异步刷新相关主题，已经是最新leader的分区组忽略
+     */
+    @Override
+    public void onNotification(MetadataNotification notification) {
+        if (!isStarted() || notification.getChanges() == null) {
+            return;
+        }
+        for (MetadataChange change : notification.getChanges()) {
+            for (String app : metadataCacheManager.getApps(change.getTopic())) {
+                TopicMetadataHolder topicMetadataHolder = metadataCacheManager.getTopicMetadata(change.getTopic(), app);
+                if (topicMetadataHolder != null && isLatest(topicMetadataHolder.getTopicMetadata(), change)) {
+                    continue;
+                }
+                metadataUpdater.tryUpdateTopicMetadata(change.getTopic(), app);
+            }
+        }
+    }
+
+    protected boolean isLatest(TopicMetadata topicMetadata, MetadataChange change) {
+        if (topicMetadata == null || change.getGroup() == MetadataChange.NONE || change.getLeader() == MetadataChange.NONE) {
+            return false;
+        }
+        PartitionGroupMetadata partitionGroupMetadata = topicMetadata.getPartitionGroup(change.getGroup());
+        return partitionGroupMetadata != null && partitionGroupMetadata.getLeader() != null
+                && partitionGroupMetadata.getLeader().getId() == change.getLeader();
+    }
+
     @Override
     protected void validate() throws Exception {
         metadataCacheManager = new MetadataCacheManager(config);
@@ -25,6 +25,7 @@ import org.joyqueue.network.domain.BrokerNode;
 import org.joyqueue.toolkit.time.SystemClock;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -46,6 +47,16 @@ public class MetadataCacheManager {
         return Lists.newArrayList(getTopicMap(app).keySet());
     }
 
+    public List<String> getApps(String topic) {
+        List<String> result = Lists.newLinkedList();
+        for (Map.Entry<String, ConcurrentMap<String, TopicMetadataHolder>> entry : topicMetadataCache.entrySet()) {
+            if (entry.getValue().containsKey(topic)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
     public TopicMetadataHolder getTopicMetadata(String topic, String app) {
         return getTopicMap(app).get(topic);
     }
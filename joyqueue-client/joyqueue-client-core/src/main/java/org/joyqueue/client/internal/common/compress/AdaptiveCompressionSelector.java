@@ -0,0 +1,195 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.common.compress;
+
+import org.joyqueue.client.internal.common.compress.support.Lz4Compressor;
+import org.joyqueue.client.internal.common.compress.support.SnappyCompressor;
+import org.joyqueue.client.internal.common.compress.support.ZlibCompressor;
+import org.joyqueue.client.internal.common.compress.support.ZstdCompressor;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 自适应压缩，compressType设置为adaptive时使用
+ * <br>
+ * 按主题统计每种压缩算法和级别的压缩比和每字节耗时，每批消息选择
+ * "压缩耗时 + 压缩后数据的传输耗时" 最小的候选，不如不压缩时直接发送原始数据。
+ * 每隔一段时间轮流试用其他候选，使统计跟随消息内容的变化。
+ * 统计使用不可变对象和CAS更新，选择和记录都不加锁。
+ */
+public class AdaptiveCompressionSelector {
+
+    public static final String NAME = "adaptive";
+
+    /**
+     * 估算传输耗时使用的带宽，单位MB/s，默认10MB/s。
+     * 消息还要经过复制、落盘和多个消费者的拉取，按单个生产者分到的有效带宽估算，而不是网卡带宽。
+     */
+    public static final String BANDWIDTH = "joyqueue.compress.adaptive.bandwidth";
+    public static final double DEFAULT_BANDWIDTH = Double.parseDouble(System.getProperty(BANDWIDTH, "10")) * 1024 * 1024 / 1000 / 1000 / 1000;
+    // 每个候选至少试用的次数，冷启动时的前几次耗时偏高，不能只看一次
+    private static final int WARMUP_SAMPLES = 16;
+    private static final int EXPLORE_INTERVAL = 64;
+    private static final double ALPHA = 0.2;
+    // 单次耗时最多按当前估计值的倍数计入，避免GC停顿等偶发的毛刺
+    private static final double MAX_SPIKE = 4;
+
+    private static final ConcurrentMap<String, AdaptiveCompressionSelector> selectors = new ConcurrentHashMap<>();
+
+    private final double bandwidth;
+    private final Candidate[] candidates;
+    private final AtomicLong selectTimes = new AtomicLong();
+
+    public AdaptiveCompressionSelector() {
+        this(DEFAULT_BANDWIDTH, new Lz4Compressor(), new SnappyCompressor(), new ZstdCompressor(1),
+                new ZstdCompressor(), new ZlibCompressor());
+    }
+
+    /**
+     * @param bandwidth   带宽，字节/纳秒
+     * @param compressors 候选的压缩器
+     */
+    public AdaptiveCompressionSelector(double bandwidth, Compressor... compressors) {
+        this.bandwidth = bandwidth;
+        this.candidates = new Candidate[compressors.length];
+        for (int i = 0; i < compressors.length; i++) {
+            this.candidates[i] = new Candidate(this, compressors[i]);
+        }
+    }
+
+    public static AdaptiveCompressionSelector getSelector(String topic) {
+        return selectors.computeIfAbsent(topic, key -> new AdaptiveCompressionSelector());
+    }
+
+    /**
+     * 选择本批消息使用的压缩候选
+     *
+     * @return 候选，不压缩时返回null
+     */
+    public Candidate select() {
+        long times = selectTimes.incrementAndGet();
+        // 先把每个候选都轮流试用几次
+        for (int i = 0; i < candidates.length; i++) {
+            Candidate candidate = candidates[(int) ((times + i) % candidates.length)];
+            if (candidate.stats.get().samples < WARMUP_SAMPLES) {
+                return candidate;
+            }
+        }
+        if (times % EXPLORE_INTERVAL == 0) {
+            return candidates[(int) ((times / EXPLORE_INTERVAL) % candidates.length)];
+        }
+
+        Candidate best = null;
+        double bestCost = 1 / bandwidth;
+        for (Candidate candidate : candidates) {
+            double cost = candidate.cost();
+            if (cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveCompressionSelector{" +
+                "bandwidth=" + bandwidth +
+                ", candidates=" + Arrays.toString(candidates) +
+                '}';
+    }
+
+    public static class Candidate {
+        private final AdaptiveCompressionSelector selector;
+        private final Compressor compressor;
+        private final AtomicReference<Stats> stats = new AtomicReference<>(Stats.EMPTY);
+
+        Candidate(AdaptiveCompressionSelector selector, Compressor compressor) {
+            this.selector = selector;
+            this.compressor = compressor;
+        }
+
+        public Compressor getCompressor() {
+            return compressor;
+        }
+
+        /**
+         * 记录一次压缩的结果
+         *
+         * @param inputSize  压缩前大小
+         * @param outputSize 压缩后大小
+         * @param nanos      压缩耗时
+         */
+        public void record(int inputSize, int outputSize, long nanos) {
+            if (inputSize <= 0) {
+                return;
+            }
+            double currentRatio = (double) outputSize / inputSize;
+            Stats current;
+            Stats next;
+            do {
+                current = stats.get();
+                double currentNanosPerByte = (double) nanos / inputSize;
+                if (current.samples >= WARMUP_SAMPLES) {
+                    currentNanosPerByte = Math.min(currentNanosPerByte, current.nanosPerByte * MAX_SPIKE);
+                }
+                // 样本少时取算术平均，之后按指数加权平均
+                long samples = current.samples + 1;
+                double alpha = Math.max(ALPHA, 1.0 / samples);
+                next = new Stats(samples, current.ratio + (currentRatio - current.ratio) * alpha,
+                        current.nanosPerByte + (currentNanosPerByte - current.nanosPerByte) * alpha);
+            } while (!stats.compareAndSet(current, next));
+        }
+
+        /**
+         * @return 每个原始字节的压缩和传输耗时，纳秒
+         */
+        double cost() {
+            Stats current = stats.get();
+            return current.nanosPerByte + current.ratio / selector.bandwidth;
+        }
+
+        @Override
+        public String toString() {
+            Stats current = stats.get();
+            return "Candidate{" +
+                    "compressor=" + compressor.type() +
+                    (compressor instanceof ZstdCompressor ? "-" + ((ZstdCompressor) compressor).getLevel() : "") +
+                    ", samples=" + current.samples +
+                    ", ratio=" + current.ratio +
+                    ", nanosPerByte=" + current.nanosPerByte +
+                    '}';
+        }
+    }
+
+    private static class Stats {
+        static final Stats EMPTY = new Stats(0, 0, 0);
+
+        final long samples;
+        final double ratio;
+        final double nanosPerByte;
+
+        Stats(long samples, double ratio, double nanosPerByte) {
+            this.samples = samples;
+            this.ratio = ratio;
+            this.nanosPerByte = nanosPerByte;
+        }
+    }
+}
@@ -53,6 +53,16 @@ public class CompressUtils {
         }
     }
 
+    public static byte[] compress(String topic, byte[] bytes, Compressor compressor) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length);
+        try {
+            compressor.compress(topic, bytes, 0, bytes.length, bos);
+            return bos.toByteArray();
+        } finally {
+            bos.close();
+        }
+    }
+
     public static byte[] decompress(byte[] bytes, Compressor compressor) throws IOException {
         ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length * 4);
         try {
@@ -30,5 +30,12 @@ public interface Compressor extends Type<String> {
 
     void compress(byte[] bytes, int offset, int size, OutputStream out) throws IOException;
 
+    /**
+     * 按主题压缩，可以使用主题相关的字典等信息
+     */
+    default void compress(String topic, byte[] bytes, int offset, int size, OutputStream out) throws IOException {
+        compress(bytes, offset, size, out);
+    }
+
     void decompress(byte[] bytes, int offset, int size, OutputStream out) throws IOException;
 }
\ No newline at end of file
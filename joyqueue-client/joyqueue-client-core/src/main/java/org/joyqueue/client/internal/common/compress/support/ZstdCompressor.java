@@ -0,0 +1,83 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.common.compress.support;
+
+import org.joyqueue.client.internal.common.compress.Compressor;
+import org.joyqueue.toolkit.io.Zstd;
+import org.joyqueue.toolkit.io.ZstdDictionaries;
+import org.joyqueue.toolkit.io.ZstdDictionary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ZstdCompressor
+ * 主题有字典时使用字典压缩，字典ID写在帧头中，解压不需要主题信息。
+ * 字典压缩器按字典ID(即字典版本)缓存。
+ */
+public class ZstdCompressor implements Compressor {
+
+    public static final String NAME = "zstd";
+
+    private final int level;
+    private final Zstd zstd;
+    private final ConcurrentMap<Long /** dictionary id **/, Zstd> dictionaryZstds = new ConcurrentHashMap<>();
+
+    public ZstdCompressor() {
+        this(Zstd.DEFAULT_LEVEL);
+    }
+
+    public ZstdCompressor(int level) {
+        this.level = level;
+        this.zstd = new Zstd(level);
+    }
+
+    @Override
+    public void compress(byte[] bytes, int offset, int size, OutputStream out) throws IOException {
+        zstd.compress(bytes, offset, size, out);
+    }
+
+    @Override
+    public void compress(String topic, byte[] bytes, int offset, int size, OutputStream out) throws IOException {
+        ZstdDictionarySampler.sample(topic, bytes, offset, size);
+        ZstdDictionary dictionary = ZstdDictionaries.getByTopic(topic);
+        if (dictionary == null) {
+            zstd.compress(bytes, offset, size, out);
+        } else {
+            Zstd dictionaryZstd = dictionaryZstds.get(dictionary.getId());
+            if (dictionaryZstd == null) {
+                dictionaryZstd = dictionaryZstds.computeIfAbsent(dictionary.getId(), key -> new Zstd(level, dictionary));
+            }
+            dictionaryZstd.compress(bytes, offset, size, out);
+        }
+    }
+
+    @Override
+    public void decompress(byte[] bytes, int offset, int size, OutputStream out) throws IOException {
+        zstd.decompress(bytes, offset, size, out);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public String type() {
+        return NAME;
+    }
+}
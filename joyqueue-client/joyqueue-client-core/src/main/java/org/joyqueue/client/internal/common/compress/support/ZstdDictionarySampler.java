@@ -0,0 +1,146 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.common.compress.support;
+
+import com.google.common.collect.Lists;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.io.ZstdDictionaries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 从生产的消息中按主题采样并训练Zstd字典
+ * <br>
+ * 设置系统属性joyqueue.zstd.dictionary.train=true开启，没有字典的主题每10条消息采样1条，
+ * 采够样本后在后台训练。
+ * 字典文件保存到joyqueue.zstd.dictionary.train.path目录下，默认是joyqueue.zstd.dictionary.path下的trained子目录，
+ * 启动时不会加载这个目录。训练出的字典需要先分发到Broker和消费者的字典目录，
+ * 最后再复制到生产者的字典目录，生产者重启加载时才生效。
+ */
+class ZstdDictionarySampler {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ZstdDictionarySampler.class);
+
+    public static final String TRAIN_ENABLE = "joyqueue.zstd.dictionary.train";
+    public static final String TRAIN_PATH = "joyqueue.zstd.dictionary.train.path";
+    public static final String DEFAULT_TRAIN_DIRECTORY = "trained";
+
+    private static final int SAMPLE_INTERVAL = 10;
+    private static final int SAMPLE_COUNT = 1000;
+    private static final int MAX_SAMPLE_SIZE = 16 * 1024;
+    private static final int DICTIONARY_SIZE = 16 * 1024;
+
+    private static final File trainDirectory = getTrainDirectory(System.getProperty(ZstdDictionaries.DICTIONARY_PATH), System.getProperty(TRAIN_PATH));
+    private static final boolean enable = Boolean.parseBoolean(System.getProperty(TRAIN_ENABLE, "false")) && trainDirectory != null;
+    private static final ConcurrentMap<String, TopicSamples> samples = new ConcurrentHashMap<>();
+    private static volatile ExecutorService trainExecutor;
+
+    static void sample(String topic, byte[] bytes, int offset, int size) {
+        if (!enable || topic == null || size > MAX_SAMPLE_SIZE) {
+            return;
+        }
+        TopicSamples topicSamples = samples.get(topic);
+        if (topicSamples == null) {
+            topicSamples = samples.computeIfAbsent(topic, key -> new TopicSamples());
+        }
+        // 按固定间隔采样，未选中的消息只做一次计数
+        if (topicSamples.trained || topicSamples.count.getAndIncrement() % SAMPLE_INTERVAL != 0
+                || ZstdDictionaries.getByTopic(topic) != null) {
+            return;
+        }
+        List<byte[]> trainSamples = topicSamples.add(bytes, offset, size);
+        if (trainSamples != null) {
+            getTrainExecutor().execute(() -> train(topic, trainSamples));
+        }
+    }
+
+    private static void train(String topic, List<byte[]> trainSamples) {
+        try {
+            byte[] dictionary = ZstdDictionaries.train(trainSamples, DICTIONARY_SIZE);
+            if (dictionary == null) {
+                return;
+            }
+            File file = ZstdDictionaries.save(trainDirectory, topic, dictionary);
+            logger.info("zstd dictionary trained, topic: {}, samples: {}, file: {}, deploy it to brokers and consumers before producers",
+                    topic, trainSamples.size(), file.getAbsolutePath());
+        } catch (Exception e) {
+            logger.error("train zstd dictionary exception, topic: {}", topic, e);
+        }
+    }
+
+    /**
+     * 训练出的字典保存的目录，不能是启动时加载的字典目录，否则生产者重启后会直接使用其他节点还没有的字典
+     *
+     * @param dictionaryPath 字典目录
+     * @param trainPath      训练字典的保存目录
+     * @return 保存目录，没有配置或者和字典目录相同时返回null
+     */
+    static File getTrainDirectory(String dictionaryPath, String trainPath) {
+        if (trainPath == null || trainPath.isEmpty()) {
+            if (dictionaryPath == null || dictionaryPath.isEmpty()) {
+                return null;
+            }
+            return new File(dictionaryPath, DEFAULT_TRAIN_DIRECTORY);
+        }
+        File trainDirectory = new File(trainPath);
+        if (dictionaryPath != null && !dictionaryPath.isEmpty()
+                && trainDirectory.getAbsoluteFile().toPath().normalize().equals(new File(dictionaryPath).getAbsoluteFile().toPath().normalize())) {
+            logger.warn("zstd dictionary train path {} is the dictionary path, train disabled", trainPath);
+            return null;
+        }
+        return trainDirectory;
+    }
+
+    private static ExecutorService getTrainExecutor() {
+        if (trainExecutor == null) {
+            synchronized (ZstdDictionarySampler.class) {
+                if (trainExecutor == null) {
+                    trainExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("joyqueue-zstd-dictionary-trainer", true));
+                }
+            }
+        }
+        return trainExecutor;
+    }
+
+    private static class TopicSamples {
+        private final List<byte[]> samples = Lists.newArrayListWithCapacity(SAMPLE_COUNT);
+        private final AtomicLong count = new AtomicLong();
+        private volatile boolean trained;
+
+        synchronized List<byte[]> add(byte[] bytes, int offset, int size) {
+            if (trained) {
+                return null;
+            }
+            samples.add(Arrays.copyOfRange(bytes, offset, offset + size));
+            if (samples.size() < SAMPLE_COUNT) {
+                return null;
+            }
+            trained = true;
+            List<byte[]> result = Lists.newArrayList(samples);
+            samples.clear();
+            return result;
+        }
+    }
+}
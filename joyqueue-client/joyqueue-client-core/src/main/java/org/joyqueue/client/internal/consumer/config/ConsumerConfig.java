@@ -48,6 +48,9 @@ public class ConsumerConfig {
     private int maxThread = 50;
     private boolean failover = true;
     private boolean forceAck = false;
+    // 合并多个线程的应答，默认关闭，多线程并发应答较多时开启
+    private boolean ackCoalesce = false;
+    private long ackCoalesceLinger = 0;
 
     private boolean loadBalance = true;
     private String loadBalanceType = BindThreadBrokerLoadBalance.NAME;
@@ -78,6 +81,8 @@ public class ConsumerConfig {
         consumerConfig.setMaxThread(maxThread);
         consumerConfig.setFailover(failover);
         consumerConfig.setForceAck(forceAck);
+        consumerConfig.setAckCoalesce(ackCoalesce);
+        consumerConfig.setAckCoalesceLinger(ackCoalesceLinger);
         consumerConfig.setLoadBalance(loadBalance);
         consumerConfig.setLoadBalanceType(loadBalanceType);
         consumerConfig.setBroadcastGroup(broadcastGroup);
@@ -216,6 +221,22 @@ public class ConsumerConfig {
         return forceAck;
     }
 
+    public void setAckCoalesce(boolean ackCoalesce) {
+        this.ackCoalesce = ackCoalesce;
+    }
+
+    public boolean isAckCoalesce() {
+        return ackCoalesce;
+    }
+
+    public void setAckCoalesceLinger(long ackCoalesceLinger) {
+        this.ackCoalesceLinger = ackCoalesceLinger;
+    }
+
+    public long getAckCoalesceLinger() {
+        return ackCoalesceLinger;
+    }
+
     public void setLoadBalance(boolean loadBalance) {
         this.loadBalance = loadBalance;
     }
@@ -0,0 +1,224 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.consumer.support;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.client.internal.consumer.ConsumerIndexManager;
+import org.joyqueue.client.internal.consumer.domain.ConsumeReply;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ConsumerAckCoalescer
+ *
+ * 合并多个消费线程的应答，每次刷新按broker各发送一个CommitAckRequest。
+ * 上一次刷新进行中时到达的应答会合并到下一次刷新，linger大于0时额外等待linger毫秒收集应答。
+ * 停止时发送已经收到的应答，停止之后的应答直接返回失败。
+ */
+public class ConsumerAckCoalescer extends Service {
+
+    protected static final Logger logger = LoggerFactory.getLogger(ConsumerAckCoalescer.class);
+
+    private static final long POLL_INTERVAL = 100;
+
+    private ConsumerIndexManager delegate;
+    private long linger;
+
+    private BlockingQueue<AckRequest> ackQueue;
+    private ExecutorService flushThread;
+    // 停止后不再接收应答，和入队互斥，保证停止时取出剩余应答之后没有新的应答入队
+    private final Object closeLock = new Object();
+    private volatile boolean closed;
+
+    public ConsumerAckCoalescer(ConsumerIndexManager delegate, long linger) {
+        this.delegate = delegate;
+        this.linger = linger;
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        ackQueue = new LinkedBlockingQueue<>();
+        flushThread = Executors.newSingleThreadExecutor(new NamedThreadFactory("joyqueue-consumer-ack-coalescer", true));
+        synchronized (closeLock) {
+            closed = false;
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        flushThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                doFlushLoop();
+            }
+        });
+    }
+
+    @Override
+    protected void doStop() {
+        synchronized (closeLock) {
+            closed = true;
+        }
+        if (flushThread != null) {
+            flushThread.shutdownNow();
+        }
+        if (ackQueue != null) {
+            List<AckRequest> remaining = Lists.newLinkedList();
+            ackQueue.drainTo(remaining);
+            flush(remaining);
+        }
+    }
+
+    public JoyQueueCode commitReply(String topic, List<ConsumeReply> replyList, String app, long timeout) {
+        AckRequest ackRequest = new AckRequest(topic, replyList, app, timeout);
+        synchronized (closeLock) {
+            if (closed || ackQueue == null) {
+                logger.warn("ack coalescer is stopped, topic: {}, app: {}, replies: {}", topic, app, replyList);
+                return JoyQueueCode.CN_SERVICE_NOT_AVAILABLE;
+            }
+            ackQueue.offer(ackRequest);
+        }
+        try {
+            return ackRequest.getFuture().get(timeout + linger, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("commit ack timeout, topic: {}, app: {}, replies: {}", topic, app, replyList);
+            return JoyQueueCode.CN_REQUEST_TIMEOUT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return JoyQueueCode.CN_UNKNOWN_ERROR;
+        } catch (Exception e) {
+            logger.error("commit ack exception, topic: {}, app: {}, replies: {}", topic, app, replyList, e);
+            return JoyQueueCode.CN_UNKNOWN_ERROR;
+        }
+    }
+
+    protected void doFlushLoop() {
+        while (!closed) {
+            List<AckRequest> ackRequests = Lists.newLinkedList();
+            try {
+                AckRequest first = ackQueue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                ackRequests.add(first);
+                if (linger > 0) {
+                    long deadline = SystemClock.now() + linger;
+                    long remaining = linger;
+                    while (remaining > 0) {
+                        AckRequest next = ackQueue.poll(remaining, TimeUnit.MILLISECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        ackRequests.add(next);
+                        remaining = deadline - SystemClock.now();
+                    }
+                }
+                ackQueue.drainTo(ackRequests);
+                flush(ackRequests);
+            } catch (InterruptedException e) {
+                // 停止时把已经取出的应答发送完
+                flush(ackRequests);
+                break;
+            } catch (Throwable t) {
+                logger.error("flush ack exception", t);
+            }
+        }
+    }
+
+    protected void flush(List<AckRequest> ackRequests) {
+        if (ackRequests.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<AckRequest>> appAckRequests = Maps.newHashMap();
+        for (AckRequest ackRequest : ackRequests) {
+            appAckRequests.computeIfAbsent(ackRequest.getApp(), key -> Lists.newLinkedList()).add(ackRequest);
+        }
+
+        for (Map.Entry<String, List<AckRequest>> entry : appAckRequests.entrySet()) {
+            Map<String, List<ConsumeReply>> replyMap = Maps.newHashMap();
+            long timeout = 0;
+            for (AckRequest ackRequest : entry.getValue()) {
+                replyMap.computeIfAbsent(ackRequest.getTopic(), key -> Lists.newLinkedList()).addAll(ackRequest.getReplyList());
+                timeout = Math.max(timeout, ackRequest.getTimeout());
+            }
+
+            Map<String, JoyQueueCode> result = null;
+            try {
+                result = delegate.batchCommitReply(replyMap, entry.getKey(), timeout);
+            } catch (Exception e) {
+                logger.error("commit ack exception, app: {}, replies: {}", entry.getKey(), replyMap, e);
+            }
+
+            for (AckRequest ackRequest : entry.getValue()) {
+                JoyQueueCode code = (result == null ? null : result.get(ackRequest.getTopic()));
+                ackRequest.getFuture().complete(code == null ? JoyQueueCode.CN_UNKNOWN_ERROR : code);
+            }
+        }
+    }
+
+    protected static class AckRequest {
+
+        private final String topic;
+        private final List<ConsumeReply> replyList;
+        private final String app;
+        private final long timeout;
+        private final CompletableFuture<JoyQueueCode> future = new CompletableFuture<>();
+
+        public AckRequest(String topic, List<ConsumeReply> replyList, String app, long timeout) {
+            this.topic = topic;
+            this.replyList = replyList;
+            this.app = app;
+            this.timeout = timeout;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public List<ConsumeReply> getReplyList() {
+            return replyList;
+        }
+
+        public String getApp() {
+            return app;
+        }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public CompletableFuture<JoyQueueCode> getFuture() {
+            return future;
+        }
+    }
+}
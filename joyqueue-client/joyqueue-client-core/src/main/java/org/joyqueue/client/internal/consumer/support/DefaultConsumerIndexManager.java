@@ -29,18 +29,24 @@ import org.joyqueue.client.internal.exception.ClientException;
 import org.joyqueue.client.internal.metadata.domain.PartitionMetadata;
 import org.joyqueue.client.internal.metadata.domain.TopicMetadata;
 import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.exception.JoyQueueException;
 import org.joyqueue.network.command.CommitAckData;
 import org.joyqueue.network.command.CommitAckResponse;
 import org.joyqueue.network.command.CommitIndexResponse;
 import org.joyqueue.network.command.FetchIndexData;
 import org.joyqueue.network.command.FetchIndexResponse;
 import org.joyqueue.network.domain.BrokerNode;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.CommandCallback;
+import org.joyqueue.network.transport.exception.TransportException;
 import org.joyqueue.toolkit.service.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * DefaultConsumerIndexManager
@@ -98,11 +104,13 @@ public class DefaultConsumerIndexManager extends Service implements ConsumerInde
         }
 
         Map<BrokerNode, Map<String, List<Short>>> brokerFetchMap = buildFetchIndexParams(topicMap, app);
-        for (Map.Entry<BrokerNode, Map<String, List<Short>>> entry : brokerFetchMap.entrySet()) {
-            try {
-                ConsumerClient client = consumerClientManager.getOrCreateClient(entry.getKey());
-                FetchIndexResponse fetchIndexResponse = client.fetchIndex(entry.getValue(), app, timeout);
+        Map<BrokerNode, Object> brokerResponseMap = doBrokerRequests(brokerFetchMap, timeout,
+                (client, partitions, callback) -> client.asyncFetchIndex(partitions, app, timeout, callback));
 
+        for (Map.Entry<BrokerNode, Map<String, List<Short>>> entry : brokerFetchMap.entrySet()) {
+            Object response = brokerResponseMap.get(entry.getKey());
+            if (response instanceof FetchIndexResponse) {
+                FetchIndexResponse fetchIndexResponse = (FetchIndexResponse) response;
                 for (Map.Entry<String, Map<Short, FetchIndexData>> topicEntry : fetchIndexResponse.getData().rowMap().entrySet()) {
                     for (Map.Entry<Short, FetchIndexData> partitionEntry : topicEntry.getValue().entrySet()) {
                         FetchIndexData value = partitionEntry.getValue();
@@ -110,11 +118,12 @@ public class DefaultConsumerIndexManager extends Service implements ConsumerInde
                                 new org.joyqueue.client.internal.consumer.domain.FetchIndexData(value.getIndex(), value.getLeftIndex(), value.getRightIndex(), value.getCode()));
                     }
                 }
-            } catch (ClientException e) {
-                logger.error("fetchIndex exception, fetchMap: {}, app: {}", entry.getValue(), app, e);
+            } else {
+                JoyQueueCode code = convertErrorCode(response);
+                logger.error("fetchIndex exception, fetchMap: {}, app: {}, code: {}", entry.getValue(), app, code, response);
                 for (Map.Entry<String, List<Short>> topicEntry : entry.getValue().entrySet()) {
                     for (Short partition : topicEntry.getValue()) {
-                        result.put(topicEntry.getKey(), partition, new org.joyqueue.client.internal.consumer.domain.FetchIndexData(JoyQueueCode.valueOf(e.getCode())));
+                        result.put(topicEntry.getKey(), partition, new org.joyqueue.client.internal.consumer.domain.FetchIndexData(code));
                     }
                 }
             }
@@ -136,20 +145,27 @@ public class DefaultConsumerIndexManager extends Service implements ConsumerInde
     public Map<String, JoyQueueCode> batchCommitReply(Map<String, List<ConsumeReply>> replyMap, String app, long timeout) {
         Map<String, JoyQueueCode> result = Maps.newHashMap();
         Map<BrokerNode, Table<String, Short, List<CommitAckData>>> brokerCommitMap = buildCommitAckParams(replyMap, app);
-        for (Map.Entry<BrokerNode, Table<String, Short, List<CommitAckData>>> entry : brokerCommitMap.entrySet()) {
-            try {
-                ConsumerClient client = consumerClientManager.getOrCreateClient(entry.getKey());
-                CommitAckResponse commitAckResponse = client.commitAck(entry.getValue(), app, timeout);
+        Map<BrokerNode, Object> brokerResponseMap = doBrokerRequests(brokerCommitMap, timeout,
+                (client, data, callback) -> client.asyncCommitAck(data, app, timeout, callback));
 
+        for (Map.Entry<BrokerNode, Table<String, Short, List<CommitAckData>>> entry : brokerCommitMap.entrySet()) {
+            Object response = brokerResponseMap.get(entry.getKey());
+            if (response instanceof CommitAckResponse) {
+                CommitAckResponse commitAckResponse = (CommitAckResponse) response;
                 for (Map.Entry<String, Map<Short, JoyQueueCode>> resultEntry : commitAckResponse.getResult().rowMap().entrySet()) {
                     for (Map.Entry<Short, JoyQueueCode> ackEntry : resultEntry.getValue().entrySet()) {
-                        result.put(resultEntry.getKey(), ackEntry.getValue());
+                        // 同一主题的多个分区分布在不同broker上时，保留失败的结果
+                        JoyQueueCode current = result.get(resultEntry.getKey());
+                        if (current == null || current.equals(JoyQueueCode.SUCCESS)) {
+                            result.put(resultEntry.getKey(), ackEntry.getValue());
+                        }
                     }
                 }
-            } catch (ClientException e) {
-                logger.error("commit ack exception, commitMap: {}, app: {}", entry.getValue(), app, e);
+            } else {
+                JoyQueueCode code = convertErrorCode(response);
+                logger.error("commit ack exception, commitMap: {}, app: {}, code: {}", entry.getValue(), app, code, response);
                 for (Map.Entry<String, Map<Short, List<CommitAckData>>> topicEntry : entry.getValue().rowMap().entrySet()) {
-                    result.put(topicEntry.getKey(), JoyQueueCode.valueOf(e.getCode()));
+                    result.put(topicEntry.getKey(), code);
                 }
             }
         }
@@ -256,28 +272,30 @@ public class DefaultConsumerIndexManager extends Service implements ConsumerInde
 
         Map<Short, JoyQueueCode> result = Maps.newHashMap();
         Map<BrokerNode, Table<String, Short, Long>> brokerCommitMap = buildCommitIndexRequest(topic, app, indexes);
+        Map<BrokerNode, Object> brokerResponseMap = doBrokerRequests(brokerCommitMap, timeout,
+                (client, partitions, callback) -> client.asyncCommitIndex(partitions, app, timeout, callback));
 
         for (Map.Entry<BrokerNode, Table<String, Short, Long>> entry : brokerCommitMap.entrySet()) {
-            try {
-                ConsumerClient client = consumerClientManager.getOrCreateClient(entry.getKey());
-                CommitIndexResponse commitIndexResponse = client.commitIndex(entry.getValue(), app, timeout);
-
+            Object response = brokerResponseMap.get(entry.getKey());
+            if (response instanceof CommitIndexResponse) {
+                CommitIndexResponse commitIndexResponse = (CommitIndexResponse) response;
                 for (Map.Entry<String, Map<Short, JoyQueueCode>> resultEntry : commitIndexResponse.getResult().rowMap().entrySet()) {
                     for (Map.Entry<Short, JoyQueueCode> ackEntry : resultEntry.getValue().entrySet()) {
                         result.put(ackEntry.getKey(), ackEntry.getValue());
                     }
                 }
-            } catch (ClientException e) {
-                logger.error("commit index exception, commitMap: {}, app: {}", entry.getValue(), app, e);
+            } else {
+                JoyQueueCode code = convertErrorCode(response);
+                logger.error("commit index exception, commitMap: {}, app: {}, code: {}", entry.getValue(), app, code, response);
                 for (Map.Entry<String, Map<Short, Long>> topicEntry : entry.getValue().rowMap().entrySet()) {
                     for (Map.Entry<Short, Long> partitionEntry : topicEntry.getValue().entrySet()) {
-                        result.put(partitionEntry.getKey(), JoyQueueCode.valueOf(e.getCode()));
+                        result.put(partitionEntry.getKey(), code);
                     }
                 }
             }
         }
 
-        for (Map.Entry<Short, JoyQueueCode> entry : result.entrySet()) {
+        for (Map.Entry<Short, Long> entry : indexes.entrySet()) {
             if (result.containsKey(entry.getKey())) {
                 continue;
             }
@@ -291,7 +309,7 @@ public class DefaultConsumerIndexManager extends Service implements ConsumerInde
         TopicMetadata topicMetadata = clusterManager.fetchTopicMetadata(topic, app);
         if (topicMetadata == null) {
             logger.warn("topic {} metadata is null", topic);
-            return null;
+            return result;
         }
 
         for (Map.Entry<Short, Long> entry : indexes.entrySet()) {
@@ -314,4 +332,69 @@ public class DefaultConsumerIndexManager extends Service implements ConsumerInde
 
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 并发向各broker发送请求，等待全部返回或超时，总耗时取决于最慢的broker而不是所有broker之和
+     * @return broker对应的应答payload或异常，超时未返回的broker没有结果
+     */
+    protected <T> Map<BrokerNode, Object> doBrokerRequests(Map<BrokerNode, T> brokerParams, long timeout, BrokerRequestSender<T> sender) {
+        Map<BrokerNode, Object> result = Maps.newConcurrentMap();
+        if (MapUtils.isEmpty(brokerParams)) {
+            return result;
+        }
+
+        CountDownLatch latch = new CountDownLatch(brokerParams.size());
+        for (Map.Entry<BrokerNode, T> entry : brokerParams.entrySet()) {
+            BrokerNode brokerNode = entry.getKey();
+            try {
+                ConsumerClient client = consumerClientManager.getOrCreateClient(brokerNode);
+                sender.send(client, entry.getValue(), new CommandCallback() {
+                    @Override
+                    public void onSuccess(Command request, Command response) {
+                        result.put(brokerNode, response.getPayload());
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onException(Command request, Throwable cause) {
+                        result.put(brokerNode, cause);
+                        latch.countDown();
+                    }
+                });
+            } catch (Exception e) {
+                result.put(brokerNode, e);
+                latch.countDown();
+            }
+        }
+
+        try {
+            if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                logger.warn("broker requests timeout, brokers: {}, responses: {}", brokerParams.keySet(), result.keySet());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    protected JoyQueueCode convertErrorCode(Object response) {
+        if (response == null) {
+            return JoyQueueCode.CN_REQUEST_TIMEOUT;
+        }
+        if (response instanceof ClientException && ((ClientException) response).getCode() != JoyQueueCode.SUCCESS.getCode()) {
+            return JoyQueueCode.valueOf(((ClientException) response).getCode());
+        }
+        if (response instanceof JoyQueueException) {
+            return JoyQueueCode.valueOf(((JoyQueueException) response).getCode());
+        }
+        if (response instanceof TransportException.RequestTimeoutException) {
+            return JoyQueueCode.CN_REQUEST_TIMEOUT;
+        }
+        return JoyQueueCode.CN_UNKNOWN_ERROR;
+    }
+
+    protected interface BrokerRequestSender<T> {
+
+        void send(ConsumerClient client, T param, CommandCallback callback);
+    }
+}
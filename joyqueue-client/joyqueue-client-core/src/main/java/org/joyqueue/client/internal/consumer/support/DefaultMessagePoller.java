@@ -75,6 +75,7 @@ public class DefaultMessagePoller extends Service implements MessagePoller {
     private FetcherConfig fetcherConfig;
     private MessageFetcher messageFetcher;
     private ConsumerIndexManager consumerIndexManager;
+    private ConsumerAckCoalescer consumerAckCoalescer;
     private MessagePollerInner messagePollerInner;
     private ConcurrentMap<String, BrokerAssignmentsHolder> brokerAssignmentCacheMap = Maps.newConcurrentMap();
 
@@ -101,6 +102,9 @@ public class DefaultMessagePoller extends Service implements MessagePoller {
         fetcherConfig = new FetcherConfig();
         messageFetcher = new DefaultMessageFetcher(consumerClientManager, fetcherConfig);
         consumerIndexManager = new DefaultConsumerIndexManager(clusterManager, consumerClientManager);
+        if (config.isAckCoalesce()) {
+            consumerAckCoalescer = new ConsumerAckCoalescer(consumerIndexManager, config.getAckCoalesceLinger());
+        }
         messagePollerInner = new MessagePollerInner(config, nameServerConfig, clusterManager, consumerClientManager, messageFetcher);
     }
 
@@ -109,10 +113,16 @@ public class DefaultMessagePoller extends Service implements MessagePoller {
         messageFetcher.start();
         consumerCoordinator.start();
         messagePollerInner.start();
+        if (consumerAckCoalescer != null) {
+            consumerAckCoalescer.start();
+        }
     }
 
     @Override
     protected void doStop() {
+        if (consumerAckCoalescer != null) {
+            consumerAckCoalescer.stop();
+        }
         if (messagePollerInner != null) {
             messagePollerInner.stop();
         }
@@ -315,7 +325,28 @@ public class DefaultMessagePoller extends Service implements MessagePoller {
     }
 
     @Override
-    public synchronized JoyQueueCode reply(String topic, List<ConsumeReply> replyList) {
+    public JoyQueueCode reply(String topic, List<ConsumeReply> replyList) {
+        if (consumerAckCoalescer == null) {
+            return doReply(topic, replyList);
+        }
+
+        checkState();
+        Preconditions.checkArgument(StringUtils.isNotBlank(topic), "topic not blank");
+        TopicMetadata topicMetadata = messagePollerInner.getAndCheckTopicMetadata(topic);
+
+        if (CollectionUtils.isEmpty(replyList)) {
+            throw new IllegalArgumentException(String.format("topic %s reply is empty", topic));
+        }
+
+        // 多个线程的应答合并发送，不加锁
+        JoyQueueCode result = consumerAckCoalescer.commitReply(topicMetadata.getTopic(), replyList, config.getAppFullName(), config.getTimeout());
+        if (!result.equals(JoyQueueCode.SUCCESS)) {
+            logger.error("commit ack error, topic : {}, code: {}, replies: {}, error: {}", topic, result.getCode(), replyList, result.getMessage());
+        }
+        return result;
+    }
+
+    protected synchronized JoyQueueCode doReply(String topic, List<ConsumeReply> replyList) {
         checkState();
         Preconditions.checkArgument(StringUtils.isNotBlank(topic), "topic not blank");
         TopicMetadata topicMetadata = messagePollerInner.getAndCheckTopicMetadata(topic);
@@ -86,6 +86,13 @@ public class ConsumerClient {
         return (FetchIndexResponse) client.sync(new JoyQueueCommand(fetchIndexRequest), timeout).getPayload();
     }
 
+    public void asyncFetchIndex(Map<String, List<Short>> partitions, String app, long timeout, CommandCallback callback) {
+        FetchIndexRequest fetchIndexRequest = new FetchIndexRequest();
+        fetchIndexRequest.setPartitions(partitions);
+        fetchIndexRequest.setApp(app);
+        client.async(new JoyQueueCommand(fetchIndexRequest), timeout, callback);
+    }
+
     public CommitAckResponse commitAck(Table<String, Short, List<CommitAckData>> data, String app, long timeout) {
         CommitAckRequest commitAckRequest = new CommitAckRequest();
         commitAckRequest.setData(data);
@@ -93,6 +100,13 @@ public class ConsumerClient {
         return (CommitAckResponse) client.sync(new JoyQueueCommand(commitAckRequest), timeout).getPayload();
     }
 
+    public void asyncCommitAck(Table<String, Short, List<CommitAckData>> data, String app, long timeout, CommandCallback callback) {
+        CommitAckRequest commitAckRequest = new CommitAckRequest();
+        commitAckRequest.setData(data);
+        commitAckRequest.setApp(app);
+        client.async(new JoyQueueCommand(commitAckRequest), timeout, callback);
+    }
+
     public void asyncFetchTopicMessage(List<String> topics, String app, int count, long timeout, long ackTimeout, long longPollTimeout, CommandCallback callback) {
         FetchTopicMessageRequest fetchTopicMessageRequest = buildFetchTopicMessageCommand(topics, app, count, ackTimeout, longPollTimeout);
         client.async(new JoyQueueCommand(fetchTopicMessageRequest), timeout, callback);
@@ -131,6 +145,11 @@ public class ConsumerClient {
         return (CommitIndexResponse) client.sync(new JoyQueueCommand(commitIndexRequest), timeout).getPayload();
     }
 
+    public void asyncCommitIndex(Table<String, Short, Long> partitions, String app, long timeout, CommandCallback callback) {
+        CommitIndexRequest commitIndexRequest = buildCommitIndexCommand(partitions, app);
+        client.async(new JoyQueueCommand(commitIndexRequest), timeout, callback);
+    }
+
     public void addConsumers() {
         connectionState.handleAddConsumers();
     }
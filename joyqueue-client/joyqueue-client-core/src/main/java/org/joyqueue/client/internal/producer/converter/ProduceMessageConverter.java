@@ -16,6 +16,7 @@
 package org.joyqueue.client.internal.producer.converter;
 
 import com.google.common.collect.Lists;
+import org.joyqueue.client.internal.common.compress.AdaptiveCompressionSelector;
 import org.joyqueue.client.internal.common.compress.CompressUtils;
 import org.joyqueue.client.internal.common.compress.Compressor;
 import org.joyqueue.client.internal.common.compress.CompressorManager;
@@ -125,9 +126,24 @@ public class ProduceMessageConverter {
         if (compressThreshold > byteBody.length) {
             return;
         }
-        Compressor compressor = CompressorManager.getCompressor(compressType);
+        Compressor compressor;
+        AdaptiveCompressionSelector.Candidate candidate = null;
+        if (AdaptiveCompressionSelector.NAME.equalsIgnoreCase(compressType)) {
+            candidate = AdaptiveCompressionSelector.getSelector(brokerMessage.getTopic()).select();
+            if (candidate == null) {
+                return;
+            }
+            compressor = candidate.getCompressor();
+        } else {
+            compressor = CompressorManager.getCompressor(compressType);
+        }
         try {
-            brokerMessage.setBody(CompressUtils.compress(brokerMessage.getByteBody(), compressor));
+            long startTime = System.nanoTime();
+            byte[] compressedBody = CompressUtils.compress(brokerMessage.getTopic(), byteBody, compressor);
+            if (candidate != null) {
+                candidate.record(byteBody.length, compressedBody.length, System.nanoTime() - startTime);
+            }
+            brokerMessage.setBody(compressedBody);
         } catch (IOException e) {
             throw new ClientException(e);
         }
@@ -19,6 +19,7 @@ import org.joyqueue.client.internal.nameserver.NameServerConfig;
 import org.joyqueue.client.internal.transport.Client;
 import org.joyqueue.client.internal.transport.ClientGroup;
 import org.joyqueue.client.internal.transport.ClientManager;
+import org.joyqueue.client.internal.transport.MetadataNotificationListener;
 import org.joyqueue.client.internal.transport.config.TransportConfig;
 import org.joyqueue.network.domain.BrokerNode;
 import org.joyqueue.toolkit.service.Service;
@@ -88,6 +89,10 @@ public class ProducerClientManager extends Service {
         clientManager.closeClient(node);
     }
 
+    public void addMetadataNotificationListener(MetadataNotificationListener listener) {
+        clientManager.addMetadataNotificationListener(listener);
+    }
+
     @Override
     protected void validate() throws Exception {
         transportConfig = transportConfig.copy();
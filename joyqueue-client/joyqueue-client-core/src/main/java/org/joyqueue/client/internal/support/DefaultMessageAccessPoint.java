@@ -215,6 +215,7 @@ public class DefaultMessageAccessPoint extends Service implements MessageAccessP
         } catch (Exception e) {
             throw new ClientException(e);
         }
+        producerClientManager.addMetadataNotificationListener(getClusterManager());
         this.producerClientManager = producerClientManager;
         return producerClientManager;
     }
@@ -229,6 +230,7 @@ public class DefaultMessageAccessPoint extends Service implements MessageAccessP
         } catch (Exception e) {
             throw new ClientException(e);
         }
+        consumerClientManager.addMetadataNotificationListener(getClusterManager());
         this.consumerClientManager = consumerClientManager;
         return consumerClientManager;
     }
@@ -23,6 +23,8 @@ import org.joyqueue.client.internal.transport.config.TransportConfigChecker;
 import org.joyqueue.exception.JoyQueueCode;
 import org.joyqueue.network.domain.BrokerNode;
 import org.joyqueue.network.transport.TransportClient;
+import org.joyqueue.network.transport.codec.support.JoyQueueCodec;
+import org.joyqueue.network.transport.command.support.DefaultCommandHandlerFactory;
 import org.joyqueue.network.transport.config.ClientConfig;
 import org.joyqueue.network.transport.support.DefaultTransportClientFactory;
 import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
@@ -49,6 +51,7 @@ public class ClientManager extends Service {
     private NameServerConfig nameServerConfig;
     private TransportClient transportClient;
     private ClientGroupManager clientGroupManager;
+    private MetadataNotificationHandler metadataNotificationHandler = new MetadataNotificationHandler();
     private ScheduledExecutorService heartbeatThreadScheduler;
 
     public ClientManager(TransportConfig transportConfig, NameServerConfig nameServerConfig) {
@@ -66,7 +69,9 @@ public class ClientManager extends Service {
     protected void validate() throws Exception {
         transportConfig = transportConfig.copy();
         clientGroupManager = new ClientGroupManager(transportConfig);
-        transportClient = new DefaultTransportClientFactory().create(convertToClientConfig(transportConfig));
+        DefaultCommandHandlerFactory commandHandlerFactory = new DefaultCommandHandlerFactory();
+        commandHandlerFactory.register(metadataNotificationHandler);
+        transportClient = new DefaultTransportClientFactory(new JoyQueueCodec(), commandHandlerFactory).create(convertToClientConfig(transportConfig));
         heartbeatThreadScheduler = Executors.newScheduledThreadPool(1, new NamedThreadFactory("joyqueue-client-heartbeat"));
     }
 
@@ -90,6 +95,14 @@ public class ClientManager extends Service {
         }
     }
 
+    public void addMetadataNotificationListener(MetadataNotificationListener listener) {
+        metadataNotificationHandler.addListener(listener);
+    }
+
+    public void removeMetadataNotificationListener(MetadataNotificationListener listener) {
+        metadataNotificationHandler.removeListener(listener);
+    }
+
     public ClientGroup getClientGroup(BrokerNode node) {
         checkState();
         return clientGroupManager.getClientGroup(node);
@@ -178,6 +191,7 @@ public class ClientManager extends Service {
         clientConfig.setSocketBufferSize(transportConfig.getSocketBufferSize());
         clientConfig.setMaxOneway(transportConfig.getMaxOneway());
         clientConfig.setMaxAsync(transportConfig.getMaxAsync());
+        clientConfig.setMaxInflightPerTransport(transportConfig.getMaxInflightPerTransport());
         clientConfig.setRetryPolicy(transportConfig.getRetryPolicy());
         clientConfig.setNonBlockOneway(transportConfig.isNonBlockOneway());
         clientConfig.setIoThreadName(transportConfig.getIoThreadName());
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.transport;
+
+import org.joyqueue.network.command.JoyQueueCommandType;
+import org.joyqueue.network.command.MetadataNotification;
+import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.Type;
+import org.joyqueue.network.transport.command.handler.CommandHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 处理服务端推送的元数据变更通知，分发给注册的监听
+ */
+public class MetadataNotificationHandler implements CommandHandler, Type {
+
+    protected static final Logger logger = LoggerFactory.getLogger(MetadataNotificationHandler.class);
+
+    private List<MetadataNotificationListener> listeners = new CopyOnWriteArrayList<MetadataNotificationListener>();
+
+    public void addListener(MetadataNotificationListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(MetadataNotificationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public Command handle(Transport transport, Command command) {
+        MetadataNotification notification = (MetadataNotification) command.getPayload();
+        logger.debug("receive metadata notification, transport: {}, notification: {}", transport, notification);
+
+        for (MetadataNotificationListener listener : listeners) {
+            try {
+                listener.onNotification(notification);
+            } catch (Exception e) {
+                logger.warn("handle metadata notification exception, notification: {}", notification, e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int type() {
+        return JoyQueueCommandType.METADATA_NOTIFICATION.getCode();
+    }
+}
@@ -55,6 +55,8 @@ public class TransportConfig {
     private int maxOneway = 256;
     // 最大异步请求数
     private int maxAsync = 128;
+    // 每个连接最大在途异步请求数，超过时快速失败，0表示不限制
+    private int maxInflightPerTransport = 0;
     // 非阻塞oneway
     private boolean nonBlockOneway = false;
     // 重试
@@ -79,6 +81,7 @@ public class TransportConfig {
         transportConfig.setSocketBufferSize(socketBufferSize);
         transportConfig.setMaxOneway(maxOneway);
         transportConfig.setMaxAsync(maxAsync);
+        transportConfig.setMaxInflightPerTransport(maxInflightPerTransport);
         transportConfig.setRetryPolicy(retryPolicy);
         transportConfig.setNonBlockOneway(nonBlockOneway);
         transportConfig.setMaxIoThreads(maxIoThreads);
@@ -214,6 +217,14 @@ public class TransportConfig {
         this.maxAsync = maxAsync;
     }
 
+    public int getMaxInflightPerTransport() {
+        return maxInflightPerTransport;
+    }
+
+    public void setMaxInflightPerTransport(int maxInflightPerTransport) {
+        this.maxInflightPerTransport = maxInflightPerTransport;
+    }
+
     public void setNonBlockOneway(boolean nonBlockOneway) {
         this.nonBlockOneway = nonBlockOneway;
     }
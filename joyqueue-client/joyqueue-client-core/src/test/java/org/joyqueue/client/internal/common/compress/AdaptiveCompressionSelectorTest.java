@@ -0,0 +1,135 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.common.compress;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * AdaptiveCompressionSelectorTest
+ */
+public class AdaptiveCompressionSelectorTest {
+
+    // 10MB/s左右，字节/纳秒
+    private static final double BANDWIDTH = 0.01;
+
+    @Test
+    public void warmupTest() {
+        AdaptiveCompressionSelector selector = new AdaptiveCompressionSelector(BANDWIDTH, new TestCompressor("a"), new TestCompressor("b"));
+        int[] selected = new int[2];
+        for (int i = 0; i < 32; i++) {
+            AdaptiveCompressionSelector.Candidate candidate = selector.select();
+            selected[candidate.getCompressor().type().equals("a") ? 0 : 1]++;
+            candidate.record(1000, 500, 1000);
+        }
+        // 每个候选都先试用相同的次数
+        Assert.assertEquals(16, selected[0]);
+        Assert.assertEquals(16, selected[1]);
+    }
+
+    @Test
+    public void selectBestTest() {
+        AdaptiveCompressionSelector selector = new AdaptiveCompressionSelector(BANDWIDTH, new TestCompressor("fast"), new TestCompressor("slow"));
+        warmup(selector, 200, 1000, 100, 50000);
+
+        // 快的候选 1 + 0.2 / 0.01 = 21ns/B，慢的 50 + 0.1 / 0.01 = 60ns/B，不压缩 100ns/B
+        int fast = 0;
+        for (int i = 0; i < 100; i++) {
+            AdaptiveCompressionSelector.Candidate candidate = selector.select();
+            if (candidate != null && candidate.getCompressor().type().equals("fast")) {
+                fast++;
+            }
+        }
+        // 除了定期的试用，其他都选择快的候选
+        Assert.assertTrue(fast >= 95);
+    }
+
+    @Test
+    public void noCompressTest() {
+        AdaptiveCompressionSelector selector = new AdaptiveCompressionSelector(BANDWIDTH, new TestCompressor("fast"), new TestCompressor("slow"));
+        // 压不小的数据，压缩只增加耗时
+        warmup(selector, 1000, 1000, 1000, 1000);
+
+        int none = 0;
+        for (int i = 0; i < 100; i++) {
+            if (selector.select() == null) {
+                none++;
+            }
+        }
+        Assert.assertTrue(none >= 95);
+    }
+
+    @Test
+    public void concurrentRecordTest() throws Exception {
+        AdaptiveCompressionSelector selector = new AdaptiveCompressionSelector(BANDWIDTH, new TestCompressor("a"));
+        AdaptiveCompressionSelector.Candidate candidate = selector.select();
+        int threads = 8;
+        int times = 10000;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                for (int j = 0; j < times; j++) {
+                    candidate.record(1000, 500, 1000);
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+
+        // 并发记录不丢失样本，相同的输入得到相同的估计值
+        Assert.assertTrue(candidate.toString().contains("samples=" + threads * times));
+        Assert.assertEquals(1 + 0.5 / BANDWIDTH, candidate.cost(), 0.0001);
+    }
+
+    /**
+     * 按固定的压缩结果预热，每次输入1000字节
+     */
+    protected void warmup(AdaptiveCompressionSelector selector, int fastOutput, long fastNanos, int slowOutput, long slowNanos) {
+        for (int i = 0; i < 32; i++) {
+            AdaptiveCompressionSelector.Candidate candidate = selector.select();
+            if (candidate.getCompressor().type().equals("fast")) {
+                candidate.record(1000, fastOutput, fastNanos);
+            } else {
+                candidate.record(1000, slowOutput, slowNanos);
+            }
+        }
+    }
+
+    protected static class TestCompressor implements Compressor {
+
+        private final String type;
+
+        TestCompressor(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public void compress(byte[] bytes, int offset, int size, OutputStream out) {
+        }
+
+        @Override
+        public void decompress(byte[] bytes, int offset, int size, OutputStream out) {
+        }
+
+        @Override
+        public String type() {
+            return type;
+        }
+    }
+}
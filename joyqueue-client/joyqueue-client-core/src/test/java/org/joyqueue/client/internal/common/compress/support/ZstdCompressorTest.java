@@ -0,0 +1,93 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.common.compress.support;
+
+import org.joyqueue.toolkit.io.ZstdDictionaries;
+import org.joyqueue.toolkit.io.ZstdDictionary;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ZstdCompressorTest
+ */
+public class ZstdCompressorTest {
+
+    private static final String TOPIC = "zstd_compressor_test";
+
+    @Test
+    public void dictionaryTest() throws Exception {
+        ZstdCompressor compressor = new ZstdCompressor();
+        byte[] body = message(0, "order").getBytes(StandardCharsets.UTF_8);
+
+        ZstdDictionary dictionary = ZstdDictionaries.register(TOPIC, train("order"));
+        byte[] compressed = compress(compressor, body);
+        Assert.assertEquals(dictionary.getId(), com.github.luben.zstd.Zstd.getDictIdFromFrame(compressed));
+        // 再次压缩使用缓存的字典压缩器，结果不变
+        Assert.assertArrayEquals(compressed, compress(compressor, body));
+        Assert.assertArrayEquals(body, decompress(compressor, compressed));
+
+        // 注册新版本的字典后按新的字典ID压缩，旧字典压缩的数据仍然可以解压
+        ZstdDictionary newDictionary = ZstdDictionaries.register(TOPIC, train("refund"));
+        Assert.assertNotEquals(dictionary.getId(), newDictionary.getId());
+        byte[] newCompressed = compress(compressor, body);
+        Assert.assertEquals(newDictionary.getId(), com.github.luben.zstd.Zstd.getDictIdFromFrame(newCompressed));
+        Assert.assertArrayEquals(body, decompress(compressor, newCompressed));
+        Assert.assertArrayEquals(body, decompress(compressor, compressed));
+    }
+
+    @Test
+    public void noDictionaryTest() throws Exception {
+        ZstdCompressor compressor = new ZstdCompressor();
+        byte[] body = message(0, "order").getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compressor.compress(TOPIC + "_none", body, 0, body.length, out);
+        Assert.assertEquals(0, com.github.luben.zstd.Zstd.getDictIdFromFrame(out.toByteArray()));
+        Assert.assertArrayEquals(body, decompress(compressor, out.toByteArray()));
+    }
+
+    protected byte[] train(String type) {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(message(i, type).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] dictionary = ZstdDictionaries.train(samples, 4 * 1024);
+        Assert.assertNotNull(dictionary);
+        return dictionary;
+    }
+
+    protected String message(int index, String type) {
+        return "{\"id\":" + index + ",\"type\":\"" + type + "\",\"user\":\"user_" + (index % 97)
+                + "\",\"amount\":" + (index * 31 % 1000) + ",\"status\":\"" + (index % 3 == 0 ? "created" : "paid") + "\"}";
+    }
+
+    protected byte[] compress(ZstdCompressor compressor, byte[] body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compressor.compress(TOPIC, body, 0, body.length, out);
+        return out.toByteArray();
+    }
+
+    protected byte[] decompress(ZstdCompressor compressor, byte[] compressed) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compressor.decompress(compressed, 0, compressed.length, out);
+        return out.toByteArray();
+    }
+}
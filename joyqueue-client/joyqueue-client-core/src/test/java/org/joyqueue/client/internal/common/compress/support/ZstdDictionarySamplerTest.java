@@ -0,0 +1,42 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.common.compress.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * ZstdDictionarySamplerTest
+ */
+public class ZstdDictionarySamplerTest {
+
+    @Test
+    public void trainDirectoryTest() {
+        String dictionaryPath = "/export/joyqueue/dictionary";
+
+        // 默认保存到字典目录的子目录，不会被启动时加载
+        Assert.assertEquals(new File(dictionaryPath, ZstdDictionarySampler.DEFAULT_TRAIN_DIRECTORY),
+                ZstdDictionarySampler.getTrainDirectory(dictionaryPath, null));
+        Assert.assertEquals(new File("/export/joyqueue/trained"),
+                ZstdDictionarySampler.getTrainDirectory(dictionaryPath, "/export/joyqueue/trained"));
+        // 不能直接保存到字典目录
+        Assert.assertNull(ZstdDictionarySampler.getTrainDirectory(dictionaryPath, "/export/joyqueue/dictionary/"));
+        Assert.assertNull(ZstdDictionarySampler.getTrainDirectory(dictionaryPath, "/export/joyqueue/trained/../dictionary"));
+        Assert.assertNull(ZstdDictionarySampler.getTrainDirectory(null, null));
+    }
+}
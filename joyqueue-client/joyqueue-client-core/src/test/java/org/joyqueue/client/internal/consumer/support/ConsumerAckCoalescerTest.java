@@ -0,0 +1,113 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.client.internal.consumer.support;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.client.internal.consumer.ConsumerIndexManager;
+import org.joyqueue.client.internal.consumer.domain.ConsumeReply;
+import org.joyqueue.exception.JoyQueueCode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ConsumerAckCoalescerTest
+ */
+public class ConsumerAckCoalescerTest {
+
+    private static final String APP = "test_app";
+    private static final long TIMEOUT = 1000 * 5;
+
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger replies = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ConsumerAckCoalescer coalescer;
+
+    @After
+    public void after() {
+        if (coalescer != null) {
+            coalescer.stop();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void coalesceTest() throws Exception {
+        coalescer = new ConsumerAckCoalescer(newDelegate(), 200);
+        coalescer.start();
+
+        List<Future<JoyQueueCode>> results = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            String topic = "test_topic_" + (i % 2);
+            short partition = (short) i;
+            results.add(executor.submit(() -> coalescer.commitReply(topic, Lists.newArrayList(new ConsumeReply(partition, 0)), APP, TIMEOUT)));
+        }
+        for (Future<JoyQueueCode> result : results) {
+            Assert.assertEquals(JoyQueueCode.SUCCESS, result.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+        // 等待期间到达的应答合并成一次请求
+        Assert.assertEquals(4, replies.get());
+        Assert.assertTrue(batches.get() < 4);
+    }
+
+    @Test
+    public void stopTest() throws Exception {
+        coalescer = new ConsumerAckCoalescer(newDelegate(), TIMEOUT);
+        coalescer.start();
+
+        // 等待合并中的应答在停止时发送
+        Future<JoyQueueCode> pending = executor.submit(() -> coalescer.commitReply("test_topic", Lists.newArrayList(new ConsumeReply((short) 0, 0)), APP, TIMEOUT));
+        Thread.sleep(300);
+        Assert.assertFalse(pending.isDone());
+        coalescer.stop();
+        Assert.assertEquals(JoyQueueCode.SUCCESS, pending.get(1000, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, replies.get());
+
+        // 停止之后的应答直接失败
+        long startTime = System.currentTimeMillis();
+        JoyQueueCode result = coalescer.commitReply("test_topic", Lists.newArrayList(new ConsumeReply((short) 0, 1)), APP, TIMEOUT);
+        Assert.assertEquals(JoyQueueCode.CN_SERVICE_NOT_AVAILABLE, result);
+        Assert.assertTrue(System.currentTimeMillis() - startTime < TIMEOUT);
+        Assert.assertEquals(1, replies.get());
+    }
+
+    protected ConsumerIndexManager newDelegate() {
+        return (ConsumerIndexManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {ConsumerIndexManager.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("batchCommitReply")) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, List<ConsumeReply>> replyMap = (Map<String, List<ConsumeReply>>) args[0];
+            batches.incrementAndGet();
+            Map<String, JoyQueueCode> result = Maps.newHashMap();
+            for (Map.Entry<String, List<ConsumeReply>> entry : replyMap.entrySet()) {
+                replies.addAndGet(entry.getValue().size());
+                result.put(entry.getKey(), JoyQueueCode.SUCCESS);
+            }
+            return result;
+        });
+    }
+}
@@ -25,6 +25,7 @@ public interface JoyQueueLog {
     byte TYPE_TX_PREPARE = (byte) 3;
     byte TYPE_TX_COMMIT = (byte) 4;
     byte TYPE_TX_ROLLBACK = (byte) 5;
+    byte TYPE_TX_COMMIT_PROGRESS = (byte) 7;
 
     int getStoreTime();
 
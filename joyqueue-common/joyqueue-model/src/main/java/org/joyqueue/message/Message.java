@@ -15,10 +15,14 @@
  */
 package org.joyqueue.message;
 
+import org.joyqueue.toolkit.io.Compressor;
 import org.joyqueue.toolkit.io.Compressors;
+import org.joyqueue.toolkit.io.Lz4;
 import org.joyqueue.toolkit.io.Snappy;
 import org.joyqueue.toolkit.io.Zip;
 import org.joyqueue.toolkit.io.Zlib;
+import org.joyqueue.toolkit.io.Zstd;
+import org.joyqueue.toolkit.security.Checksums;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,7 +33,6 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.zip.CRC32;
 
 /**
  *
@@ -295,9 +298,7 @@ public class Message implements Serializable {
 
     public void setBody(byte[] body) {
         this.body = body;
-        CRC32 crc32 = new CRC32();
-        crc32.update(body);
-        this.bodyCRC = crc32.getValue();
+        this.bodyCRC = Checksums.crc32(body);
     }
 
     public void setBody(byte[] data, int offset, int length) {
@@ -321,19 +322,9 @@ public class Message implements Serializable {
             try {
                 if (compressed) {
                     byte[] data = null;
-                    switch (compressionType) {
-                        case Zip: {
-                            data = Compressors.decompress(body, 0, body.length, Zip.INSTANCE);
-                            break;
-                        }
-                        case ZLIB: {
-                            data = Compressors.decompress(body, 0, body.length, Zlib.INSTANCE);
-                            break;
-                        }
-                        case Snappy: {
-                            data = Compressors.decompress(body, 0, body.length, Snappy.INSTANCE);
-                            break;
-                        }
+                    Compressor compressor = getCompressor(compressionType);
+                    if (compressor != null) {
+                        data = Compressors.decompress(body, 0, body.length, compressor);
                     }
                     text = new String(data, Charset.forName("UTF-8"));
                 } else {
@@ -355,21 +346,11 @@ public class Message implements Serializable {
     public byte[] getDecompressedBody() {
         try {
             if (compressed) {
-                switch (compressionType) {
-                    case none: {
-                        return body;
-                    }
-                    case Zip: {
-                        return Compressors.decompress(body, 0, body.length, Zip.INSTANCE);
-                    }
-                    case Snappy: {
-                        return Compressors.decompress(body, 0, body.length, Snappy.INSTANCE);
-                    }
-                    case ZLIB: {
-                        return Compressors.decompress(body, 0, body.length, Zlib.INSTANCE);
-                    }
+                Compressor compressor = getCompressor(compressionType);
+                if (compressor == null) {
+                    return body;
                 }
-                return body;
+                return Compressors.decompress(body, 0, body.length, compressor);
             } else {
                 return body;
             }
@@ -379,6 +360,29 @@ public class Message implements Serializable {
         }
     }
 
+    protected static Compressor getCompressor(CompressionType compressionType) {
+        switch (compressionType) {
+            case Zip: {
+                return Zip.INSTANCE;
+            }
+            case ZLIB: {
+                return Zlib.INSTANCE;
+            }
+            case Snappy: {
+                return Snappy.INSTANCE;
+            }
+            case LZ4: {
+                return Lz4.INSTANCE;
+            }
+            case ZSTD: {
+                return Zstd.INSTANCE;
+            }
+            default: {
+                return null;
+            }
+        }
+    }
+
     @Deprecated
     public void setText(String text) {
         this.text = text;
@@ -528,6 +532,10 @@ public class Message implements Serializable {
 
         Snappy(3),
 
+        LZ4(4),
+
+        ZSTD(5),
+
         ;
 
         private int type;
@@ -546,6 +554,10 @@ public class Message implements Serializable {
                     return ZLIB;
                 case 3:
                     return Snappy;
+                case 4:
+                    return LZ4;
+                case 5:
+                    return ZSTD;
                 default: {
                     throw new UnsupportedOperationException("unsupported type, type: " + value);
                 }
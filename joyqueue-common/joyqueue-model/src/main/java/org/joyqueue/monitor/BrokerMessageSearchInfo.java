@@ -0,0 +1,79 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.monitor;
+
+import java.util.List;
+
+/**
+ * 分区消息检索结果，nextIndex为下次继续检索的起始索引
+ */
+public class BrokerMessageSearchInfo extends BaseMonitorInfo {
+
+    private short partition;
+    private long index;
+    private long nextIndex;
+    private long rightIndex;
+    private boolean finished;
+    private List<BrokerMessageInfo> messages;
+
+    public short getPartition() {
+        return partition;
+    }
+
+    public void setPartition(short partition) {
+        this.partition = partition;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public long getNextIndex() {
+        return nextIndex;
+    }
+
+    public void setNextIndex(long nextIndex) {
+        this.nextIndex = nextIndex;
+    }
+
+    public long getRightIndex() {
+        return rightIndex;
+    }
+
+    public void setRightIndex(long rightIndex) {
+        this.rightIndex = rightIndex;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public List<BrokerMessageInfo> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<BrokerMessageInfo> messages) {
+        this.messages = messages;
+    }
+}
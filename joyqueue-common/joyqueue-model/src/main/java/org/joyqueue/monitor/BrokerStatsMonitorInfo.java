@@ -0,0 +1,52 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.monitor;
+
+import java.util.List;
+
+/**
+ * broker上所有主题、应用的生产消费监控信息，用于管理端一次性批量拉取
+ */
+public class BrokerStatsMonitorInfo extends BaseMonitorInfo {
+
+    private long timestamp;
+    private List<ProducerMonitorInfo> producers;
+    private List<ConsumerMonitorInfo> consumers;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<ProducerMonitorInfo> getProducers() {
+        return producers;
+    }
+
+    public void setProducers(List<ProducerMonitorInfo> producers) {
+        this.producers = producers;
+    }
+
+    public List<ConsumerMonitorInfo> getConsumers() {
+        return consumers;
+    }
+
+    public void setConsumers(List<ConsumerMonitorInfo> consumers) {
+        this.consumers = consumers;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.monitor;
+
+/**
+ * 存储数据目录（磁盘）的监控信息
+ */
+public class DiskMonitorInfo {
+
+    // 数据目录
+    private String path;
+    private long totalSpaceBytes;
+    private long usableSpaceBytes;
+    // 目录上的分区组数量
+    private int partitionGroups;
+    // 目录上分区组的数据大小
+    private long storeSizeBytes;
+    // 最近一段时间的写入速度
+    private long writeBytesPerSecond;
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getTotalSpaceBytes() {
+        return totalSpaceBytes;
+    }
+
+    public void setTotalSpaceBytes(long totalSpaceBytes) {
+        this.totalSpaceBytes = totalSpaceBytes;
+    }
+
+    public long getUsableSpaceBytes() {
+        return usableSpaceBytes;
+    }
+
+    public void setUsableSpaceBytes(long usableSpaceBytes) {
+        this.usableSpaceBytes = usableSpaceBytes;
+    }
+
+    public int getPartitionGroups() {
+        return partitionGroups;
+    }
+
+    public void setPartitionGroups(int partitionGroups) {
+        this.partitionGroups = partitionGroups;
+    }
+
+    public long getStoreSizeBytes() {
+        return storeSizeBytes;
+    }
+
+    public void setStoreSizeBytes(long storeSizeBytes) {
+        this.storeSizeBytes = storeSizeBytes;
+    }
+
+    public long getWriteBytesPerSecond() {
+        return writeBytesPerSecond;
+    }
+
+    public void setWriteBytesPerSecond(long writeBytesPerSecond) {
+        this.writeBytesPerSecond = writeBytesPerSecond;
+    }
+}
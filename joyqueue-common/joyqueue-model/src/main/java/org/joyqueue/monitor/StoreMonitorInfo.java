@@ -15,6 +15,8 @@
  */
 package org.joyqueue.monitor;
 
+import java.util.List;
+
 /**
  * StoreMonitorInfo
  *
@@ -29,6 +31,8 @@ public class StoreMonitorInfo {
     private String freeSpace;
     private long totalSpaceBytes;
     private long freeSpaceBytes;
+    // 各数据目录的监控信息
+    private List<DiskMonitorInfo> disks;
 
     public void setStarted(boolean started) {
         this.started = started;
@@ -69,4 +73,12 @@ public class StoreMonitorInfo {
     public void setFreeSpaceBytes(long freeSpaceBytes) {
         this.freeSpaceBytes = freeSpaceBytes;
     }
-}
\ No newline at end of file
+
+    public List<DiskMonitorInfo> getDisks() {
+        return disks;
+    }
+
+    public void setDisks(List<DiskMonitorInfo> disks) {
+        this.disks = disks;
+    }
+}
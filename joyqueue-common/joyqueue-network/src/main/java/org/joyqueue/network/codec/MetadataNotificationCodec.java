@@ -0,0 +1,65 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.network.codec;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import org.joyqueue.network.command.JoyQueueCommandType;
+import org.joyqueue.network.command.MetadataChange;
+import org.joyqueue.network.command.MetadataNotification;
+import org.joyqueue.network.serializer.Serializer;
+import org.joyqueue.network.transport.codec.JoyQueueHeader;
+import org.joyqueue.network.transport.codec.PayloadCodec;
+import org.joyqueue.network.transport.command.Type;
+
+import java.util.List;
+
+/**
+ * MetadataNotificationCodec
+ */
+public class MetadataNotificationCodec implements PayloadCodec<JoyQueueHeader, MetadataNotification>, Type {
+
+    @Override
+    public MetadataNotification decode(JoyQueueHeader header, ByteBuf buffer) throws Exception {
+        int size = buffer.readInt();
+        List<MetadataChange> changes = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            MetadataChange change = new MetadataChange();
+            change.setTopic(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+            change.setGroup(buffer.readInt());
+            change.setLeader(buffer.readInt());
+            change.setTerm(buffer.readInt());
+            changes.add(change);
+        }
+        return new MetadataNotification(changes);
+    }
+
+    @Override
+    public void encode(MetadataNotification payload, ByteBuf buffer) throws Exception {
+        buffer.writeInt(payload.getChanges().size());
+        for (MetadataChange change : payload.getChanges()) {
+            Serializer.write(change.getTopic(), buffer, Serializer.SHORT_SIZE);
+            buffer.writeInt(change.getGroup());
+            buffer.writeInt(change.getLeader());
+            buffer.writeInt(change.getTerm());
+        }
+    }
+
+    @Override
+    public int type() {
+        return JoyQueueCommandType.METADATA_NOTIFICATION.getCode();
+    }
+}
@@ -51,6 +51,10 @@ public class CommandType {
     public static final int RAFT_VOTE_REQUEST = 43;
     // raft选举投票请求命令响应
     public static final int RAFT_VOTE_RESPONSE = -43;
+    // raft安装快照命令
+    public static final int RAFT_INSTALL_SNAPSHOT_REQUEST = 44;
+    // raft安装快照命令响应
+    public static final int RAFT_INSTALL_SNAPSHOT_RESPONSE = -44;
     // raft复制添加记录命令
     public static final int RAFT_APPEND_ENTRIES_REQUEST = 45;
     // raft复制添加记录命令响应
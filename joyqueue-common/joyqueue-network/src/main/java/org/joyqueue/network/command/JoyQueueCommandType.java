@@ -44,6 +44,7 @@ public enum JoyQueueCommandType {
     // 集群相关
     FETCH_CLUSTER_REQUEST(10),
     FETCH_CLUSTER_RESPONSE(-10),
+    METADATA_NOTIFICATION(11),
 
     // 协调者相关
     FIND_COORDINATOR_REQUEST(20),
@@ -46,6 +46,7 @@ import org.joyqueue.network.codec.FindCoordinatorResponseCodec;
 import org.joyqueue.network.codec.GetTopicsAckCodec;
 import org.joyqueue.network.codec.GetTopicsCodec;
 import org.joyqueue.network.codec.HeartbeatRequestCodec;
+import org.joyqueue.network.codec.MetadataNotificationCodec;
 import org.joyqueue.network.codec.ProduceMessageCommitRequestCodec;
 import org.joyqueue.network.codec.ProduceMessageCommitResponseCodec;
 import org.joyqueue.network.codec.ProduceMessagePrepareRequestCodec;
@@ -90,6 +91,7 @@ public class JoyQueuePayloadCodecRegistry {
         // 集群相关
         payloadCodecFactory.register(new FetchClusterRequestCodec());
         payloadCodecFactory.register(new FetchClusterResponseCodec());
+        payloadCodecFactory.register(new MetadataNotificationCodec());
 
         // 协调者相关
         payloadCodecFactory.register(new FindCoordinatorRequestCodec());
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.network.command;
+
+/**
+ * 元数据变更
+ * <br>
+ * group为{@link #NONE}时表示主题级别的变更，leader为{@link #NONE}时表示leader未知
+ */
+public class MetadataChange {
+
+    public static final int NONE = -1;
+
+    private String topic;
+    private int group = NONE;
+    private int leader = NONE;
+    private int term;
+
+    public MetadataChange() {
+    }
+
+    public MetadataChange(String topic) {
+        this.topic = topic;
+    }
+
+    public MetadataChange(String topic, int group, int leader, int term) {
+        this.topic = topic;
+        this.group = group;
+        this.leader = leader;
+        this.term = term;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public int getGroup() {
+        return group;
+    }
+
+    public void setGroup(int group) {
+        this.group = group;
+    }
+
+    public int getLeader() {
+        return leader;
+    }
+
+    public void setLeader(int leader) {
+        this.leader = leader;
+    }
+
+    public int getTerm() {
+        return term;
+    }
+
+    public void setTerm(int term) {
+        this.term = term;
+    }
+
+    @Override
+    public String toString() {
+        return "MetadataChange{" +
+                "topic='" + topic + '\'' +
+                ", group=" + group +
+                ", leader=" + leader +
+                ", term=" + term +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.network.command;
+
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+import java.util.List;
+
+/**
+ * 服务端推送的元数据变更通知
+ * <br>
+ * 客户端收到后立即刷新相关主题的元数据，不必等到定时更新或请求失败
+ */
+public class MetadataNotification extends JoyQueuePayload {
+
+    private List<MetadataChange> changes;
+
+    public MetadataNotification() {
+    }
+
+    public MetadataNotification(List<MetadataChange> changes) {
+        this.changes = changes;
+    }
+
+    @Override
+    public int type() {
+        return JoyQueueCommandType.METADATA_NOTIFICATION.getCode();
+    }
+
+    public void setChanges(List<MetadataChange> changes) {
+        this.changes = changes;
+    }
+
+    public List<MetadataChange> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "MetadataNotification{" +
+                "changes=" + changes +
+                '}';
+    }
+}
@@ -302,11 +302,13 @@ public class Serializer extends AbstractSerializer {
 
         message.setStartTime(in.readLong());
         message.setStoreTime(in.readInt());
-        message.setBodyCRC(in.readLong());
+        long bodyCRC = in.readLong();
         message.setFlag(in.readShort());
 
         int bodyLength = in.readInt();
         message.setBody(readBytes(in, bodyLength));
+        // setBody会按消息体重新计算CRC，保留报文中的CRC，由接收方校验
+        message.setBodyCRC(bodyCRC);
         message.setBusinessId(readString(in));
         message.setAttributes(toStringMap(readString(in, 2)));
 
@@ -58,6 +58,8 @@ public class Connection {
     private boolean isSystem;
     // 是否认证
     private boolean isAuth;
+    // 是否接收元数据变更通知
+    private boolean metadataNotification;
 
     public Connection() {
     }
@@ -262,4 +264,12 @@ public class Connection {
     public boolean isAuth() {
         return isAuth;
     }
+
+    public void setMetadataNotification(boolean metadataNotification) {
+        this.metadataNotification = metadataNotification;
+    }
+
+    public boolean isMetadataNotification() {
+        return metadataNotification;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.network.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按请求ID保存未完成的请求
+ * <br>
+ * 请求ID是递增分配的，按 requestId &amp; mask 直接定位槽位，存取都只需要一次CAS，不加锁。
+ * 槽位被更早的、仍未完成的请求占用时，放入溢出表。
+ */
+class InflightRequests {
+    private static final int MAX_CAPACITY = 1 << 20;
+
+    private final AtomicReferenceArray<ResponseFuture> slots;
+    private final int mask;
+    private final Map<Integer, ResponseFuture> overflow = new ConcurrentHashMap<>();
+
+    InflightRequests(int capacity) {
+        int size = 1;
+        while (size < capacity && size < MAX_CAPACITY) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    ResponseFuture get(int requestId) {
+        ResponseFuture future = slots.get(requestId & mask);
+        if (future != null && future.getRequestId() == requestId) {
+            return future;
+        }
+        return overflow.isEmpty() ? null : overflow.get(requestId);
+    }
+
+    void put(int requestId, ResponseFuture future) {
+        int index = requestId & mask;
+        while (true) {
+            ResponseFuture current = slots.get(index);
+            if (current != null && current.getRequestId() != requestId) {
+                overflow.put(requestId, future);
+                return;
+            }
+            if (slots.compareAndSet(index, current, future)) {
+                return;
+            }
+        }
+    }
+
+    ResponseFuture remove(int requestId) {
+        int index = requestId & mask;
+        ResponseFuture future = slots.get(index);
+        if (future != null && future.getRequestId() == requestId && slots.compareAndSet(index, future, null)) {
+            return future;
+        }
+        return overflow.isEmpty() ? null : overflow.remove(requestId);
+    }
+
+    /**
+     * @return 当前所有未完成请求的快照
+     */
+    List<ResponseFuture> values() {
+        List<ResponseFuture> values = new ArrayList<>(overflow.values());
+        for (int i = 0; i < slots.length(); i++) {
+            ResponseFuture future = slots.get(i);
+            if (future != null) {
+                values.add(future);
+            }
+        }
+        return values;
+    }
+}
@@ -18,16 +18,13 @@ package org.joyqueue.network.transport;
 import org.joyqueue.network.transport.config.TransportConfig;
 import org.joyqueue.network.transport.exception.TransportException;
 import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.delay.Timer;
+import org.joyqueue.toolkit.delay.TimerTask;
 import org.joyqueue.toolkit.network.IpUtil;
 import org.joyqueue.toolkit.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
@@ -36,11 +33,20 @@ import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * RequestBarrier
+ * <br>
+ * 未完成的请求按请求ID保存在无锁的槽位表中，异步请求的超时由时间轮触发，不再定期扫描。
  * Created by hexiaofeng on 16-6-23.
  */
 public class RequestBarrier {
 
     protected static Logger logger = LoggerFactory.getLogger(RequestBarrier.class);
+    // 时间轮的刻度和每层的槽数
+    private static final int TIMER_TICK_MS = 10;
+    private static final int TIMER_WHEEL_SIZE = 128;
+    // 推进时间轮时最长的等待时间
+    private static final long TIMER_ADVANCE_MS = 200L;
+    // 请求表的最小槽位数
+    private static final int MIN_INFLIGHT_CAPACITY = 1024;
 
     private TransportConfig config;
     // 单向信号量
@@ -48,9 +54,12 @@ public class RequestBarrier {
     // 异步信号量
     private Semaphore asyncSemaphore;
     // 存放同步和异步命令应答
-    private Map<Integer, ResponseFuture> futures = new ConcurrentHashMap<Integer, ResponseFuture>(200);
-    // 清理时钟
-    private AtomicReference<Timer> clearTimer = new AtomicReference<>();
+    private InflightRequests futures;
+    // 异步请求超时时间轮
+    private Timer timeoutTimer;
+    // 推进时间轮的线程
+    private AtomicReference<Thread> timerThread = new AtomicReference<>();
+    private volatile boolean closed;
     private ExecutorService asyncThreadPool;
 
     public RequestBarrier(TransportConfig config) {
@@ -58,6 +67,8 @@ public class RequestBarrier {
         this.onewaySemaphore = config.getMaxOneway() > 0 ? new Semaphore(config.getMaxOneway(), true) : null;
         this.asyncSemaphore = config.getMaxAsync() > 0 ? new Semaphore(config.getMaxAsync(), true) : null;
         this.asyncThreadPool = Executors.newFixedThreadPool(config.getCallbackThreads(), new NamedThreadFactory("joyqueue-async-callback"));
+        this.futures = new InflightRequests(Math.max(Math.max(config.getMaxAsync(), config.getMaxOneway()), MIN_INFLIGHT_CAPACITY));
+        this.timeoutTimer = new Timer(asyncThreadPool, TIMER_TICK_MS, TIMER_WHEEL_SIZE, SystemClock.now());
     }
 
     /**
@@ -87,7 +98,10 @@ public class RequestBarrier {
      */
     public void putAsyncFuture(final int requestId, final ResponseFuture future) {
         futures.put(requestId, future);
-        startClearTimerIfNecessary();
+        startTimerIfNecessary();
+        TimeoutTask timeoutTask = new TimeoutTask(future);
+        future.setTimeoutTask(timeoutTask);
+        timeoutTimer.add(timeoutTask);
     }
 
     /**
@@ -100,20 +114,17 @@ public class RequestBarrier {
         futures.put(requestId, future);
     }
 
-    protected void startClearTimerIfNecessary() {
-        if (this.clearTimer.get() != null) {
+    protected void startTimerIfNecessary() {
+        if (this.timerThread.get() != null || closed) {
             return;
         }
-        Timer clearTimer = new Timer("joyqueue-barrier-clear-timer");
-        if (this.clearTimer.compareAndSet(null, clearTimer)) {
-            clearTimer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    evict();
-                }
-            }, config.getClearInterval(), config.getClearInterval());
-        } else {
-            clearTimer.cancel();
+        Thread thread = new NamedThreadFactory("joyqueue-barrier-timeout-timer", true).newThread(() -> {
+            while (!closed) {
+                timeoutTimer.advanceClock(TIMER_ADVANCE_MS);
+            }
+        });
+        if (this.timerThread.compareAndSet(null, thread)) {
+            thread.start();
         }
     }
 
@@ -124,42 +135,52 @@ public class RequestBarrier {
      * @return 异步调用
      */
     public ResponseFuture remove(final int requestId) {
-        return futures.remove(requestId);
+        ResponseFuture future = futures.remove(requestId);
+        if (future != null && future.getTimeoutTask() != null) {
+            future.getTimeoutTask().cancel();
+        }
+        return future;
     }
 
     /**
-     * 清理所有超时的请求
+     * 清理所有超时的请求，异步请求由时间轮自动清理，这里用于兜底
      */
     public void evict() {
-        Iterator<Map.Entry<Integer, ResponseFuture>> iterator = futures.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Integer, ResponseFuture> entry = iterator.next();
-            ResponseFuture future = entry.getValue();
-            long timeout = future.getBeginTime() + future.getTimeout() + config.getClearInterval();
+        long now = SystemClock.now();
+        for (ResponseFuture future : futures.values()) {
+            if (future.getBeginTime() + future.getTimeout() + config.getClearInterval() <= now) {
+                expire(future);
+            }
+        }
+    }
 
-            if (timeout <= SystemClock.now() && future.getResponse() == null) {
-                iterator.remove();
-                if (future.release()) {
-                    try {
-                        future.onFailed(TransportException.RequestTimeoutException
-                                .build(IpUtil.toAddress(future.getTransport().remoteAddress())));
-                    } catch (Throwable e) {
-                        logger.error("clear timeout response exception", e);
-                    }
-                }
-                logger.info("remove timeout request id={} begin={} timeout={}", future.getRequestId(),
-                        future.getBeginTime(), timeout);
+    /**
+     * 请求超时，仍未收到应答时以超时失败回调
+     */
+    protected void expire(ResponseFuture future) {
+        if (future.getResponse() != null || futures.get(future.getRequestId()) != future) {
+            return;
+        }
+        remove(future.getRequestId());
+        if (future.release()) {
+            try {
+                future.onFailed(TransportException.RequestTimeoutException
+                        .build(IpUtil.toAddress(future.getTransport().remoteAddress())));
+            } catch (Throwable e) {
+                logger.error("clear timeout response exception", e);
             }
         }
+        logger.info("remove timeout request id={} begin={} timeout={}", future.getRequestId(),
+                future.getBeginTime(), future.getTimeout());
     }
 
     /**
      * 释放所有的异步调用
      */
     public void clear() {
-        ResponseFuture future;
-        for (Map.Entry<Integer, ResponseFuture> entry : futures.entrySet()) {
-            future = entry.getValue();
+        closed = true;
+        for (ResponseFuture future : futures.values()) {
+            futures.remove(future.getRequestId());
             if (future.release()) {
                 try {
                     future.onFailed(TransportException.RequestTimeoutException
@@ -168,10 +189,9 @@ public class RequestBarrier {
                 }
             }
         }
-        futures.clear();
-        if (clearTimer.get() != null) {
-            clearTimer.get().cancel();
-            clearTimer.set(null);
+        Thread thread = timerThread.getAndSet(null);
+        if (thread != null) {
+            thread.interrupt();
         }
         asyncThreadPool.shutdown();
     }
@@ -241,6 +261,23 @@ public class RequestBarrier {
         return config;
     }
 
+    /**
+     * 异步请求的超时任务
+     */
+    private class TimeoutTask extends TimerTask {
+        private final ResponseFuture future;
+
+        TimeoutTask(ResponseFuture future) {
+            this.future = future;
+            this.delayMs = future.getBeginTime() + future.getTimeout();
+        }
+
+        @Override
+        public void run() {
+            expire(future);
+        }
+    }
+
     /**
      * 信号量类型
      */
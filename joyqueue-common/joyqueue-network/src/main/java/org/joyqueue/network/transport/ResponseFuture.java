@@ -17,6 +17,7 @@ package org.joyqueue.network.transport;
 
 import org.joyqueue.network.transport.command.Command;
 import org.joyqueue.network.transport.command.CommandCallback;
+import org.joyqueue.toolkit.delay.TimerTask;
 import org.joyqueue.toolkit.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +28,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ResponseFuture
@@ -65,6 +67,10 @@ public class ResponseFuture implements Future {
     private volatile boolean isDone = false;
     // 是否取消
     private volatile boolean isCancel = false;
+    // 超时任务
+    private volatile TimerTask timeoutTask;
+    // 所属通道的在途请求数
+    private AtomicInteger inflight;
 
     /**
      * 异步调用构造函数
@@ -142,6 +148,23 @@ public class ResponseFuture implements Future {
         return transport;
     }
 
+    public TimerTask getTimeoutTask() {
+        return timeoutTask;
+    }
+
+    public void setTimeoutTask(TimerTask timeoutTask) {
+        this.timeoutTask = timeoutTask;
+    }
+
+    /**
+     * 设置所属通道的在途请求计数，释放时减一
+     *
+     * @param inflight 在途请求数
+     */
+    public void setInflight(AtomicInteger inflight) {
+        this.inflight = inflight;
+    }
+
     /**
      * 是否超时
      *
@@ -254,6 +277,9 @@ public class ResponseFuture implements Future {
             if (semaphoreType != null) {
                 requestBarrier.release(semaphoreType);
             }
+            if (inflight != null) {
+                inflight.decrementAndGet();
+            }
             // 唤醒同步等待线程
             if (latch != null) {
                 latch.countDown();
@@ -35,8 +35,10 @@ public class JoyQueueHeader implements Header {
     public static final byte VERSION_V2 = 2;
     public static final byte VERSION_V3 = 3;
     public static final byte VERSION_V4 = 4;
+    // 客户端可以接收服务端推送的元数据变更通知
+    public static final byte VERSION_V5 = 5;
 
-    public static final byte CURRENT_VERSION = VERSION_V4;
+    public static final byte CURRENT_VERSION = VERSION_V5;
 
     public static final int MAGIC = 0xCAFEBEBE;
 
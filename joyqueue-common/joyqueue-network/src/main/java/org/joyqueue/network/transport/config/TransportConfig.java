@@ -64,6 +64,8 @@ public class TransportConfig {
     private boolean fastfailAsync = false;
     // 最大异步请求数
     private  int maxAsync = 10240;
+    // 每个通道最大在途异步请求数，超过时快速失败，0表示不限制
+    private int maxInflightPerTransport = 0;
     // 异步回调线程数量
     private int callbackThreads = Systems.getCores();
     // 默认发送数据包超时时间
@@ -207,6 +209,14 @@ public class TransportConfig {
         this.maxAsync = maxAsync;
     }
 
+    public int getMaxInflightPerTransport() {
+        return maxInflightPerTransport;
+    }
+
+    public void setMaxInflightPerTransport(int maxInflightPerTransport) {
+        this.maxInflightPerTransport = maxInflightPerTransport;
+    }
+
     public int getCallbackThreads() {
         return callbackThreads;
     }
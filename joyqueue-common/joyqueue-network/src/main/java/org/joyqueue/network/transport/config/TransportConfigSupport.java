@@ -92,6 +92,8 @@ public class TransportConfigSupport {
                     transportConfig.setMaxOneway(property.getInteger());
                 } else if (fullKey.equals(keyPrefix + TRANSPORT_MAX_ASYNC)) {
                     transportConfig.setMaxAsync(property.getInteger());
+                } else if (fullKey.equals(keyPrefix + TRANSPORT_MAX_INFLIGHT_PER_TRANSPORT)) {
+                    transportConfig.setMaxInflightPerTransport(property.getInteger());
                 } else if (fullKey.equals(keyPrefix + TRANSPORT_CALL_BACK_THREADS)) {
                     transportConfig.setCallbackThreads(property.getInteger());
                 } else if (fullKey.equals(keyPrefix + TRANSPORT_CALL_NON_BLOCK_ONEWAY)) {
@@ -131,6 +133,7 @@ public class TransportConfigSupport {
     public static final String TRANSPORT_BACKLOG = "transport.backlog";
     public static final String TRANSPORT_MAX_ONEWAY = "transport.maxOneWay";
     public static final String TRANSPORT_MAX_ASYNC = "transport.maxAsync";
+    public static final String TRANSPORT_MAX_INFLIGHT_PER_TRANSPORT = "transport.maxInflightPerTransport";
     public static final String TRANSPORT_CALL_BACK_THREADS = "transport.callbackThreads";
     public static final String TRANSPORT_CALL_NON_BLOCK_ONEWAY = "transport.nonBlockOneway";
     public static final String TRANSPORT_CALL_NON_BLOCK_ASYNC = "transport.nonBlockAsync";
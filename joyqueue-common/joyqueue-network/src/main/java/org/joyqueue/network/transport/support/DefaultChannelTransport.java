@@ -40,6 +40,7 @@ import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * DefaultChannelTransport
@@ -56,6 +57,8 @@ public class DefaultChannelTransport implements ChannelTransport {
     private RequestBarrier barrier;
     private TransportConfig config;
     private SocketAddress address;
+    // 在途的异步请求数
+    private final AtomicInteger inflight = new AtomicInteger();
 
     public DefaultChannelTransport(Channel channel, RequestBarrier barrier) {
         this.channel = channel;
@@ -166,6 +169,18 @@ public class DefaultChannelTransport implements ChannelTransport {
             }
         }
 
+        // 通道的在途请求数达到上限时不再等待，直接失败由调用方退避
+        int maxInflight = config.getMaxInflightPerTransport();
+        if (maxInflight > 0 && inflight.incrementAndGet() > maxInflight) {
+            inflight.decrementAndGet();
+            if (!config.isNonBlockAsync()) {
+                barrier.release(RequestBarrier.SemaphoreType.ASYNC);
+            }
+            callback.onException(command, TransportException.RequestExcessiveException.build());
+            return;
+        }
+
+        ResponseFuture future = null;
         try {
             long time = SystemClock.now();
             time = SystemClock.now() - time;
@@ -173,8 +188,10 @@ public class DefaultChannelTransport implements ChannelTransport {
             sendTimeout = sendTimeout < 0 ? 0 : sendTimeout;
 
             // 发送请求
-            ResponseFuture future =
-                    new ResponseFuture(this, command, sendTimeout, callback, barrier, RequestBarrier.SemaphoreType.ASYNC, null);
+            future = new ResponseFuture(this, command, sendTimeout, callback, barrier, RequestBarrier.SemaphoreType.ASYNC, null);
+            if (maxInflight > 0) {
+                future.setInflight(inflight);
+            }
             if (barrier.get(command.getHeader().getRequestId()) != null) {
                 logger.warn("async command(type {}, request id {}) already exist",
                         command.getHeader().getType(), command.getHeader().getRequestId());
@@ -185,11 +202,19 @@ public class DefaultChannelTransport implements ChannelTransport {
 
         } catch (Throwable th) {
             logger.warn("Default channel transport async fail, command type is {}", command.getHeader().getType(), th);
-            if (!config.isNonBlockAsync()) {
-                barrier.release(RequestBarrier.SemaphoreType.ASYNC);
-            }
             barrier.remove(command.getHeader().getRequestId());
-            command.release();
+            if (future != null) {
+                // 释放信号量、在途计数和命令
+                future.release();
+            } else {
+                if (!config.isNonBlockAsync()) {
+                    barrier.release(RequestBarrier.SemaphoreType.ASYNC);
+                }
+                if (maxInflight > 0) {
+                    inflight.decrementAndGet();
+                }
+                command.release();
+            }
             throw th;
         }
     }
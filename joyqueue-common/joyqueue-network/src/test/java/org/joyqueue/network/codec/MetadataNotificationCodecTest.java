@@ -0,0 +1,64 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.network.codec;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.network.command.MetadataChange;
+import org.joyqueue.network.command.MetadataNotification;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * MetadataNotificationCodecTest
+ */
+public class MetadataNotificationCodecTest {
+
+    @Test
+    public void codecTest() throws Exception {
+        List<MetadataChange> changes = Lists.newArrayList(
+                new MetadataChange("test_topic", 1, 2, 3),
+                new MetadataChange("namespace.test_topic", 0, MetadataChange.NONE, 0),
+                new MetadataChange("removed_topic"));
+
+        MetadataNotificationCodec codec = new MetadataNotificationCodec();
+        ByteBuf buffer = Unpooled.buffer();
+        codec.encode(new MetadataNotification(changes), buffer);
+        MetadataNotification decoded = codec.decode(null, buffer);
+
+        Assert.assertEquals(0, buffer.readableBytes());
+        Assert.assertEquals(changes.size(), decoded.getChanges().size());
+        for (int i = 0; i < changes.size(); i++) {
+            MetadataChange expected = changes.get(i);
+            MetadataChange actual = decoded.getChanges().get(i);
+            Assert.assertEquals(expected.getTopic(), actual.getTopic());
+            Assert.assertEquals(expected.getGroup(), actual.getGroup());
+            Assert.assertEquals(expected.getLeader(), actual.getLeader());
+            Assert.assertEquals(expected.getTerm(), actual.getTerm());
+        }
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        MetadataNotificationCodec codec = new MetadataNotificationCodec();
+        ByteBuf buffer = Unpooled.buffer();
+        codec.encode(new MetadataNotification(Lists.newArrayList()), buffer);
+        Assert.assertTrue(codec.decode(null, buffer).getChanges().isEmpty());
+    }
+}
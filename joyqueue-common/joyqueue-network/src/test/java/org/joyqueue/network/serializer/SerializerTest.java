@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.network.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.toolkit.security.Checksums;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SerializerTest
+ */
+public class SerializerTest {
+
+    @Test
+    public void bodyCRCTest() throws Exception {
+        byte[] body = "test message body".getBytes(StandardCharsets.UTF_8);
+        BrokerMessage message = new BrokerMessage();
+        message.setClientIp(new byte[]{127, 0, 0, 1, 0, 0});
+        message.setBody(body);
+        message.setApp("test_app");
+
+        ByteBuf buffer = Unpooled.buffer();
+        Serializer.writeBrokerMessage(message, buffer);
+        BrokerMessage decoded = Serializer.readBrokerMessage(buffer);
+        Assert.assertEquals(Checksums.crc32(body), decoded.getBodyCRC());
+
+        // 报文中的消息体被改写，解析后保留原CRC，与消息体不一致
+        buffer = Unpooled.buffer();
+        Serializer.writeBrokerMessage(message, buffer);
+        int bodyIndex = indexOf(buffer, body);
+        buffer.setByte(bodyIndex, body[0] + 1);
+        decoded = Serializer.readBrokerMessage(buffer);
+        Assert.assertEquals(Checksums.crc32(body), decoded.getBodyCRC());
+        Assert.assertNotEquals(decoded.getBodyCRC(), Checksums.crc32(decoded.getByteBody()));
+    }
+
+    private int indexOf(ByteBuf buffer, byte[] bytes) {
+        for (int i = buffer.readerIndex(); i <= buffer.writerIndex() - bytes.length; i++) {
+            boolean match = true;
+            for (int j = 0; j < bytes.length && match; j++) {
+                match = buffer.getByte(i + j) == bytes[j];
+            }
+            if (match) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("bytes not found");
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * LZ4块压缩，格式为4字节原始长度 + LZ4块。
+ * 压缩和解压速度远高于zlib，适合CPU敏感的生产者。
+ */
+public class Lz4 implements Compressor {
+    public static final Compressor INSTANCE = new Lz4();
+
+    private static final int LENGTH_SIZE = 4;
+
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    public Lz4() {
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public void compress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (null == buf || out == null) {
+            return;
+        }
+        byte[] dest = new byte[LENGTH_SIZE + compressor.maxCompressedLength(size)];
+        dest[0] = (byte) (size >>> 24);
+        dest[1] = (byte) (size >>> 16);
+        dest[2] = (byte) (size >>> 8);
+        dest[3] = (byte) size;
+        int length = compressor.compress(buf, offset, size, dest, LENGTH_SIZE, dest.length - LENGTH_SIZE);
+        out.write(dest, 0, LENGTH_SIZE + length);
+    }
+
+    @Override
+    public void decompress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || buf.length == 0 || size <= 0 || offset >= buf.length || out == null) {
+            return;
+        }
+        if (size < LENGTH_SIZE) {
+            throw new IOException("invalid lz4 block, size: " + size);
+        }
+        int length = ((buf[offset] & 0xFF) << 24) | ((buf[offset + 1] & 0xFF) << 16)
+                | ((buf[offset + 2] & 0xFF) << 8) | (buf[offset + 3] & 0xFF);
+        if (length < 0) {
+            throw new IOException("invalid lz4 block, length: " + length);
+        }
+        byte[] dest = new byte[length];
+        try {
+            int read = decompressor.decompress(buf, offset + LENGTH_SIZE, dest, 0, length);
+            if (read != size - LENGTH_SIZE) {
+                throw new IOException(String.format("invalid lz4 block, size: %d, read: %d", size - LENGTH_SIZE, read));
+            }
+        } catch (LZ4Exception e) {
+            throw new IOException(e);
+        }
+        out.write(dest);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Zstd压缩，使用标准的Zstd帧格式。
+ * 使用字典压缩时，字典ID写在帧头中，解压时根据帧头的字典ID从{@link ZstdDictionaries}中查找字典，
+ * 字典的版本不需要额外的字段记录。
+ */
+public class Zstd implements Compressor {
+    public static final int DEFAULT_LEVEL = 3;
+    public static final Compressor INSTANCE = new Zstd(DEFAULT_LEVEL);
+
+    private final int level;
+    private final ZstdDictionary dictionary;
+
+    public Zstd(int level) {
+        this(level, null);
+    }
+
+    /**
+     * @param level      压缩级别
+     * @param dictionary 字典，为null时不使用字典
+     */
+    public Zstd(int level, ZstdDictionary dictionary) {
+        this.level = level;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void compress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (null == buf || out == null) {
+            return;
+        }
+        byte[] dest = new byte[(int) com.github.luben.zstd.Zstd.compressBound(size)];
+        long length;
+        if (dictionary == null) {
+            length = com.github.luben.zstd.Zstd.compressByteArray(dest, 0, dest.length, buf, offset, size, level);
+        } else {
+            length = com.github.luben.zstd.Zstd.compressFastDict(dest, 0, buf, offset, size, dictionary.getCompressDictionary(level));
+        }
+        if (com.github.luben.zstd.Zstd.isError(length)) {
+            throw new IOException(com.github.luben.zstd.Zstd.getErrorName(length));
+        }
+        out.write(dest, 0, (int) length);
+    }
+
+    @Override
+    public void decompress(final byte[] buf, final int offset, final int size, final OutputStream out) throws
+            IOException {
+        if (buf == null || buf.length == 0 || size <= 0 || offset >= buf.length || out == null) {
+            return;
+        }
+        byte[] src = offset == 0 && size == buf.length ? buf : Arrays.copyOfRange(buf, offset, offset + size);
+        long length = com.github.luben.zstd.Zstd.decompressedSize(src);
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("invalid zstd frame, decompressed size: " + length);
+        }
+        byte[] dest = new byte[(int) length];
+
+        long dictionaryId = com.github.luben.zstd.Zstd.getDictIdFromFrame(src);
+        long result;
+        if (dictionaryId == 0) {
+            result = com.github.luben.zstd.Zstd.decompressByteArray(dest, 0, dest.length, src, 0, src.length);
+        } else {
+            ZstdDictionary frameDictionary = ZstdDictionaries.get(dictionaryId);
+            if (frameDictionary == null) {
+                throw new IOException("zstd dictionary not found, id: " + dictionaryId);
+            }
+            result = com.github.luben.zstd.Zstd.decompressFastDict(dest, 0, src, 0, src.length, frameDictionary.getDecompressDictionary());
+        }
+        if (com.github.luben.zstd.Zstd.isError(result)) {
+            throw new IOException(com.github.luben.zstd.Zstd.getErrorName(result));
+        }
+        out.write(dest, 0, (int) result);
+    }
+}
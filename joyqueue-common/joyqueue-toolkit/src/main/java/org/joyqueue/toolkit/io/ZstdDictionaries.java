@@ -0,0 +1,192 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按主题管理的Zstd字典
+ * <br>
+ * 字典文件命名为 主题@字典ID.dict，放在系统属性joyqueue.zstd.dictionary.path指定的目录下，
+ * 生产者、Broker和消费者启动时加载同一份目录，只加载目录下的文件，不包括子目录。
+ * 同一主题有多个字典时，最后修改的字典用于压缩，所有字典都可以用于解压，
+ * 因此更换字典时先把新字典分发到所有节点，再在生产者上生效即可。
+ */
+public class ZstdDictionaries {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZstdDictionaries.class);
+
+    public static final String DICTIONARY_PATH = "joyqueue.zstd.dictionary.path";
+    public static final String DICTIONARY_SUFFIX = ".dict";
+    public static final char TOPIC_SEPARATOR = '@';
+
+    private static final ConcurrentMap<Long, ZstdDictionary> dictionaries = new ConcurrentHashMap<Long, ZstdDictionary>();
+    private static final ConcurrentMap<String, ZstdDictionary> topicDictionaries = new ConcurrentHashMap<String, ZstdDictionary>();
+
+    static {
+        String path = System.getProperty(DICTIONARY_PATH);
+        if (path != null && !path.isEmpty()) {
+            load(new File(path));
+        }
+    }
+
+    /**
+     * 根据字典ID获取字典
+     *
+     * @param id 字典ID
+     * @return 字典，不存在返回null
+     */
+    public static ZstdDictionary get(long id) {
+        return dictionaries.get(id);
+    }
+
+    /**
+     * 获取主题用于压缩的字典
+     *
+     * @param topic 主题
+     * @return 字典，不存在返回null
+     */
+    public static ZstdDictionary getByTopic(String topic) {
+        return topic == null ? null : topicDictionaries.get(topic);
+    }
+
+    /**
+     * 注册字典，并作为主题用于压缩的字典
+     *
+     * @param topic      主题
+     * @param dictionary 字典内容
+     * @return 字典
+     */
+    public static ZstdDictionary register(String topic, byte[] dictionary) {
+        ZstdDictionary zstdDictionary = new ZstdDictionary(topic, dictionary);
+        dictionaries.put(zstdDictionary.getId(), zstdDictionary);
+        topicDictionaries.put(topic, zstdDictionary);
+        return zstdDictionary;
+    }
+
+    /**
+     * 加载目录下所有的字典文件，按修改时间从旧到新注册
+     *
+     * @param directory 字典目录
+     */
+    public static void load(File directory) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(DICTIONARY_SUFFIX) && name.indexOf(TOPIC_SEPARATOR) > 0;
+            }
+        });
+        if (files == null) {
+            logger.warn("zstd dictionary directory {} not found", directory.getAbsolutePath());
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for (File file : files) {
+            String name = file.getName();
+            String topic = name.substring(0, name.lastIndexOf(TOPIC_SEPARATOR));
+            try {
+                ZstdDictionary dictionary = register(topic, read(file));
+                logger.info("zstd dictionary loaded, {}, file: {}", dictionary, file.getAbsolutePath());
+            } catch (Exception e) {
+                logger.error("load zstd dictionary exception, file: {}", file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * 从采样的消息中训练字典
+     *
+     * @param samples        样本
+     * @param dictionarySize 字典大小
+     * @return 字典内容，样本不足时返回null
+     */
+    public static byte[] train(List<byte[]> samples, int dictionarySize) {
+        int sampleSize = 0;
+        for (byte[] sample : samples) {
+            sampleSize += sample.length;
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer(sampleSize, dictionarySize);
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        try {
+            return trainer.trainSamples();
+        } catch (Exception e) {
+            logger.warn("train zstd dictionary failed, samples: {}, size: {}", samples.size(), sampleSize, e);
+            return null;
+        }
+    }
+
+    /**
+     * 保存字典文件
+     *
+     * @param directory  字典目录
+     * @param topic      主题
+     * @param dictionary 字典内容
+     * @return 字典文件
+     * @throws IOException 写入失败时抛出
+     */
+    public static File save(File directory, String topic, byte[] dictionary) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("create directory failed, " + directory.getAbsolutePath());
+        }
+        long id = com.github.luben.zstd.Zstd.getDictIdFromDict(dictionary);
+        File file = new File(directory, topic + TOPIC_SEPARATOR + id + DICTIONARY_SUFFIX);
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(dictionary);
+        } finally {
+            fos.close();
+        }
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            int position = 0;
+            while (position < data.length) {
+                int read = fis.read(data, position, data.length - position);
+                if (read < 0) {
+                    throw new IOException("unexpected end of file " + file.getAbsolutePath());
+                }
+                position += read;
+            }
+        } finally {
+            fis.close();
+        }
+        return data;
+    }
+}
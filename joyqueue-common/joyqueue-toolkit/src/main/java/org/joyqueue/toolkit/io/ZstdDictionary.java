@@ -0,0 +1,88 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.io;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Zstd字典，ID由训练时生成，同时作为字典的版本号写入每个压缩帧的帧头。
+ */
+public class ZstdDictionary {
+
+    private final long id;
+    private final String topic;
+    private final byte[] dictionary;
+    // 压缩字典与压缩级别绑定，按级别缓存
+    private final ConcurrentMap<Integer, ZstdDictCompress> compressDictionaries = new ConcurrentHashMap<Integer, ZstdDictCompress>();
+    private volatile ZstdDictDecompress decompressDictionary;
+
+    public ZstdDictionary(String topic, byte[] dictionary) {
+        this.id = com.github.luben.zstd.Zstd.getDictIdFromDict(dictionary);
+        if (id == 0) {
+            throw new IllegalArgumentException("invalid zstd dictionary, topic: " + topic);
+        }
+        this.topic = topic;
+        this.dictionary = dictionary;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public byte[] getDictionary() {
+        return dictionary;
+    }
+
+    ZstdDictCompress getCompressDictionary(int level) {
+        ZstdDictCompress compressDictionary = compressDictionaries.get(level);
+        if (compressDictionary == null) {
+            compressDictionary = new ZstdDictCompress(dictionary, level);
+            ZstdDictCompress previous = compressDictionaries.putIfAbsent(level, compressDictionary);
+            if (previous != null) {
+                compressDictionary = previous;
+            }
+        }
+        return compressDictionary;
+    }
+
+    ZstdDictDecompress getDecompressDictionary() {
+        if (decompressDictionary == null) {
+            synchronized (this) {
+                if (decompressDictionary == null) {
+                    decompressDictionary = new ZstdDictDecompress(dictionary);
+                }
+            }
+        }
+        return decompressDictionary;
+    }
+
+    @Override
+    public String toString() {
+        return "ZstdDictionary{" +
+                "id=" + id +
+                ", topic='" + topic + '\'' +
+                ", size=" + dictionary.length +
+                '}';
+    }
+}
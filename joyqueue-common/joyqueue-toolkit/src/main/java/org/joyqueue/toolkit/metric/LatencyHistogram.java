@@ -0,0 +1,129 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.metric;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定内存的延迟直方图
+ * <br>
+ * 以微秒为单位按2的幂分桶，第i个桶记录[2^(i-1), 2^i)微秒的样本，
+ * 分位数取所在桶的上界，误差不超过一倍，适合长期统计刷盘这类毫秒级的延迟。
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0);
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        long current;
+        while (micros > (current = max.get()) && !max.compareAndSet(current, micros)) {
+        }
+    }
+
+    /**
+     * 取快照并清零，快照期间的并发写入可能计入下一个周期
+     *
+     * @return 快照
+     */
+    public Snapshot snapshotAndReset() {
+        long[] values = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = buckets.getAndSet(i, 0);
+        }
+        return new Snapshot(values, count.getAndSet(0), sum.getAndSet(0), max.getAndSet(0));
+    }
+
+    public Snapshot snapshot() {
+        long[] values = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = buckets.get(i);
+        }
+        return new Snapshot(values, count.get(), sum.get(), max.get());
+    }
+
+    public static class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return 平均值，微秒
+         */
+        public long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * @return 最大值，微秒
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param quantile 分位，(0, 1]
+         * @return 分位数的上界，微秒
+         */
+        public long getQuantile(double quantile) {
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(total * quantile);
+            long accumulated = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                accumulated += buckets[i];
+                if (accumulated >= threshold) {
+                    return Math.min(i == 0 ? 0 : 1L << i, max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count: %d, mean: %dus, tp50: %dus, tp90: %dus, tp99: %dus, tp999: %dus, max: %dus",
+                    count, getMean(), getQuantile(0.5), getQuantile(0.9), getQuantile(0.99), getQuantile(0.999), max);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.security;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * 统一的校验和工具，直接在堆内或堆外（包括映射文件）的ByteBuffer上计算，不复制数据。
+ * CRC32使用JDK的{@link CRC32}，由JVM内建指令加速；
+ * CRC32C在JDK9及以上使用java.util.zip.CRC32C，否则退化为{@link Crc32C}。
+ */
+public class Checksums {
+
+    private static final MethodHandle CRC32C_CONSTRUCTOR;
+    private static final MethodHandle CRC32C_UPDATE;
+
+    static {
+        MethodHandle constructor = null;
+        MethodHandle update = null;
+        try {
+            Class<?> type = Class.forName("java.util.zip.CRC32C");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Checksum.class));
+            update = lookup.findVirtual(type, "update", MethodType.methodType(void.class, ByteBuffer.class))
+                    .asType(MethodType.methodType(void.class, Checksum.class, ByteBuffer.class));
+        } catch (Throwable ignored) {
+            constructor = null;
+            update = null;
+        }
+        CRC32C_CONSTRUCTOR = constructor;
+        CRC32C_UPDATE = update;
+    }
+
+    private static final ThreadLocal<CRC32> CRC32_HOLDER = ThreadLocal.withInitial(CRC32::new);
+    private static final ThreadLocal<Checksum> CRC32C_HOLDER = ThreadLocal.withInitial(Checksums::newCrc32C);
+
+    /**
+     * 当前JVM是否提供了硬件加速的CRC32C
+     */
+    public static boolean isCrc32CIntrinsic() {
+        return CRC32C_CONSTRUCTOR != null;
+    }
+
+    /**
+     * 创建CRC32C实例，优先使用JDK实现
+     */
+    public static Checksum newCrc32C() {
+        if (CRC32C_CONSTRUCTOR != null) {
+            try {
+                return (Checksum) CRC32C_CONSTRUCTOR.invokeExact();
+            } catch (Throwable ignored) {
+            }
+        }
+        return new Crc32C();
+    }
+
+    public static long crc32(byte[] bytes) {
+        return crc32(bytes, 0, bytes.length);
+    }
+
+    public static long crc32(byte[] bytes, int offset, int length) {
+        CRC32 crc32 = CRC32_HOLDER.get();
+        crc32.reset();
+        crc32.update(bytes, offset, length);
+        return crc32.getValue();
+    }
+
+    /**
+     * 计算buffer中position到limit之间数据的CRC32，不改变buffer的position
+     */
+    public static long crc32(ByteBuffer buffer) {
+        CRC32 crc32 = CRC32_HOLDER.get();
+        crc32.reset();
+        int position = buffer.position();
+        crc32.update(buffer);
+        buffer.position(position);
+        return crc32.getValue();
+    }
+
+    public static long crc32c(byte[] bytes) {
+        return crc32c(bytes, 0, bytes.length);
+    }
+
+    public static long crc32c(byte[] bytes, int offset, int length) {
+        Checksum crc32c = CRC32C_HOLDER.get();
+        crc32c.reset();
+        crc32c.update(bytes, offset, length);
+        return crc32c.getValue();
+    }
+
+    /**
+     * 计算buffer中position到limit之间数据的CRC32C，不改变buffer的position
+     */
+    public static long crc32c(ByteBuffer buffer) {
+        Checksum crc32c = CRC32C_HOLDER.get();
+        crc32c.reset();
+        int position = buffer.position();
+        update(crc32c, buffer);
+        buffer.position(position);
+        return crc32c.getValue();
+    }
+
+    private static void update(Checksum checksum, ByteBuffer buffer) {
+        if (checksum instanceof Crc32C) {
+            ((Crc32C) checksum).update(buffer);
+            return;
+        }
+        try {
+            CRC32C_UPDATE.invokeExact(checksum, buffer);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
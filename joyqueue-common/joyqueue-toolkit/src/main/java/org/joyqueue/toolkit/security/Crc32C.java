@@ -15,6 +15,7 @@
  */
 package org.joyqueue.toolkit.security;
 
+import java.nio.ByteBuffer;
 import java.util.zip.Checksum;
 
 /**
@@ -112,6 +113,43 @@ public class Crc32C implements Checksum {
         crc = localCrc;
     }
 
+    /**
+     * Updates checksum with the remaining bytes of the buffer, the position is advanced to the limit.
+     * Direct buffers are read in place without copying.
+     *
+     * @param buffer the buffer to update the checksum with
+     */
+    public void update(final ByteBuffer buffer) {
+        int off = buffer.position();
+        int len = buffer.remaining();
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + off, len);
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        int localCrc = crc;
+        while (len > 7) {
+            int c0 = buffer.get(off++) ^ localCrc;
+            int c1 = buffer.get(off++) ^ (localCrc >>>= 8);
+            int c2 = buffer.get(off++) ^ (localCrc >>>= 8);
+            int c3 = buffer.get(off++) ^ (localCrc >>>= 8);
+            localCrc = (T8_7[c0 & 0xff] ^ T8_6[c1 & 0xff]) ^ (T8_5[c2 & 0xff] ^ T8_4[c3 & 0xff]);
+
+            localCrc ^= (T8_3[buffer.get(off++) & 0xff] ^ T8_2[buffer.get(off++) & 0xff])
+                    ^ (T8_1[buffer.get(off++) & 0xff] ^ T8_0[buffer.get(off++) & 0xff]);
+
+            len -= 8;
+        }
+        while (len > 0) {
+            localCrc = (localCrc >>> 8) ^ T8_0[(localCrc ^ buffer.get(off++)) & 0xff];
+            len--;
+        }
+
+        crc = localCrc;
+        buffer.position(buffer.limit());
+    }
+
     @Override
     public void update(final int b) {
         crc = (crc >>> 8) ^ T8_0[(crc ^ b) & 0xff];
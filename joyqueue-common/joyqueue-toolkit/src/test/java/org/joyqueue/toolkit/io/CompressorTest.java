@@ -25,6 +25,8 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by hexiaofeng on 16-5-6.
@@ -34,7 +36,7 @@ public class CompressorTest {
     @Test
     public void testCompress() throws IOException {
         String test = "中国人民122Addf";
-        Compressor[] compressors = new Compressor[]{Zip.INSTANCE, Zlib.INSTANCE, Snappy.INSTANCE};
+        Compressor[] compressors = new Compressor[]{Zip.INSTANCE, Zlib.INSTANCE, Snappy.INSTANCE, Lz4.INSTANCE, Zstd.INSTANCE};
         for (Compressor compressor : compressors) {
             byte[] data = Compressors.compress(test, compressor);
             String result = Compressors.decompress(data, Charsets.UTF_8, compressor);
@@ -54,4 +56,24 @@ public class CompressorTest {
         }
     }
 
+    @Test
+    public void testZstdDictionary() throws IOException {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(String.format("{\"orderId\":%d,\"userId\":%d,\"status\":\"CREATED\",\"amount\":%d.%02d}",
+                    1000000 + i, i % 97, i % 1000, i % 100).getBytes(Charsets.UTF_8));
+        }
+        byte[] dictionary = ZstdDictionaries.train(samples, 4 * 1024);
+        Assert.assertNotNull(dictionary);
+        ZstdDictionary zstdDictionary = ZstdDictionaries.register("test_topic", dictionary);
+        Assert.assertSame(zstdDictionary, ZstdDictionaries.getByTopic("test_topic"));
+
+        Compressor compressor = new Zstd(Zstd.DEFAULT_LEVEL, zstdDictionary);
+        byte[] sample = samples.get(10);
+        byte[] data = Compressors.compress(sample, compressor);
+        Assert.assertTrue(data.length < Compressors.compress(sample, Zstd.INSTANCE).length);
+        // 解压时从帧头中取字典ID
+        Assert.assertArrayEquals(sample, Compressors.decompress(data, Zstd.INSTANCE));
+    }
+
 }
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.toolkit.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * ChecksumsTest
+ */
+public class ChecksumsTest {
+
+    @Test
+    public void testCrc32C() {
+        // RFC 3720 B.4 的标准测试向量
+        byte[] bytes = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(0xE3069283L, Checksums.crc32c(bytes));
+        Assert.assertEquals(0xE3069283L, Checksums.crc32c(ByteBuffer.wrap(bytes)));
+
+        Crc32C crc32c = new Crc32C();
+        crc32c.update(bytes);
+        Assert.assertEquals(0xE3069283L, crc32c.getValue());
+    }
+
+    @Test
+    public void testBuffer() {
+        byte[] bytes = new byte[1027];
+        new Random(1).nextBytes(bytes);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 10);
+        direct.position(10);
+        direct.put(bytes);
+        direct.position(10);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        Assert.assertEquals(crc32.getValue(), Checksums.crc32(bytes));
+        Assert.assertEquals(crc32.getValue(), Checksums.crc32(direct));
+        Assert.assertEquals(10, direct.position());
+
+        long expected = Checksums.crc32c(bytes);
+        Assert.assertEquals(expected, Checksums.crc32c(direct));
+        Assert.assertEquals(10, direct.position());
+
+        Crc32C crc32c = new Crc32C();
+        crc32c.update(direct.duplicate());
+        Assert.assertEquals(expected, crc32c.getValue());
+
+        ByteBuffer heap = ByteBuffer.wrap(bytes, 3, bytes.length - 3).slice();
+        Assert.assertEquals(Checksums.crc32c(bytes, 3, bytes.length - 3), Checksums.crc32c(heap));
+    }
+}
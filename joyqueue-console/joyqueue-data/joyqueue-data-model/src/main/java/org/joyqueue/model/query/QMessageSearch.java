@@ -0,0 +1,98 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.model.query;
+
+import org.joyqueue.model.domain.Subscribe;
+
+import java.util.Map;
+
+/**
+ * broker端消息检索条件，indexes为各分区上次检索返回的nextIndex，用于翻页
+ */
+public class QMessageSearch {
+    private Subscribe subscribe;
+    private long startTime;
+    private long endTime;
+    private String businessId;
+    private String property;
+    private String keyword;
+    private int count = 10;
+    private Map<Short, Long> indexes;
+
+    public Subscribe getSubscribe() {
+        return subscribe;
+    }
+
+    public void setSubscribe(Subscribe subscribe) {
+        this.subscribe = subscribe;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getBusinessId() {
+        return businessId;
+    }
+
+    public void setBusinessId(String businessId) {
+        this.businessId = businessId;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public void setProperty(String property) {
+        this.property = property;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public Map<Short, Long> getIndexes() {
+        return indexes;
+    }
+
+    public void setIndexes(Map<Short, Long> indexes) {
+        this.indexes = indexes;
+    }
+}
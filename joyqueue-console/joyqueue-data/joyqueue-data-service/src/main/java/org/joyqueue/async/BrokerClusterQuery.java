@@ -112,6 +112,17 @@ public interface BrokerClusterQuery<C> {
      **/
     Future<Map<String,String>> asyncQueryOnPartitionGroup(C condition, RetrieveProvider<C> provider, String pathKey, String logKey);
 
+    /**
+     * 向各分区的leader broker并发查询，provider返回的path为null时跳过该分区
+     * @param condition  查询条件
+     * @param provider   provider path and result key
+     * @param pathKey    获取路径的key, 用于从 urlMappingService 查询 path template
+     * @param logKey     for log trace
+     * @return  a map with String,String,partition 维度
+     *
+     **/
+    Future<Map<String,String>> asyncQueryOnPartition(C condition, RetrieveProvider<C> provider, String pathKey, String logKey);
+
 
     /**
      * 阻塞 ,等待请求返回或者 超时
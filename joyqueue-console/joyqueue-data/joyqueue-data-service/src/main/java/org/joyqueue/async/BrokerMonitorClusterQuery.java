@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -221,6 +222,35 @@ public class BrokerMonitorClusterQuery implements BrokerClusterQuery<Subscribe>
         return new DefaultBrokerInfoFuture(latch, resultMap, logKey);
     }
 
+    @Override
+    public Future<Map<String, String>> asyncQueryOnPartition(Subscribe condition, RetrieveProvider<Subscribe> provider, String pathKey, String logKey) {
+        List<Map.Entry<PartitionGroup, Broker>> partitionGroupLeaderBroker = leaderService.findPartitionGroupLeaderBrokerDetail(condition.getTopic().getCode(), condition.getNamespace().getCode());
+        String pathTemplate = urlMappingService.pathTemplate(pathKey);
+        if (NullUtil.isEmpty(partitionGroupLeaderBroker) || NullUtil.isEmpty(pathTemplate)) {
+            throw new IllegalArgumentException("partition group leader broker or rest path not found");
+        }
+        Map<String/*url*/, String/*request key*/> requests = new HashMap<>();
+        for (Map.Entry<PartitionGroup, Broker> partitionGroupBrokerEntry : partitionGroupLeaderBroker) {
+            for (Short partition : partitionGroupBrokerEntry.getKey().getPartitions()) {
+                String path = provider.getPath(pathTemplate, partitionGroupBrokerEntry.getKey(), partition, condition);
+                if (path == null) {
+                    continue;
+                }
+                requests.put(urlMappingService.monitorUrl(partitionGroupBrokerEntry.getValue()) + path,
+                        provider.getKey(partitionGroupBrokerEntry.getValue(), partitionGroupBrokerEntry.getKey(), partition, condition));
+            }
+        }
+        CountDownLatch latch = new CountDownLatch(requests.size());
+        Map<String/*request key*/, String/*response*/> resultMap = new ConcurrentHashMap(requests.size() * 2);
+        // 遍历请求partition
+        for (Map.Entry<String, String> request : requests.entrySet()) {
+            logger.info(String.format("start sync request on partition,%s", request.getKey()));
+            AsyncHttpClient.AsyncRequest(new HttpGet(request.getKey()), new AsyncHttpClient.ConcurrentHttpResponseHandler(request.getKey(),
+                    SystemClock.now(), latch, request.getValue(), resultMap));
+        }
+        return new DefaultBrokerInfoFuture(latch, resultMap, logKey);
+    }
+
     /**
      *
      *  block until all asyncQueryOnBroker back or timeout
@@ -0,0 +1,245 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.async;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.joyqueue.model.domain.Broker;
+import org.joyqueue.monitor.BrokerStatsMonitorInfo;
+import org.joyqueue.monitor.RestResponse;
+import org.joyqueue.service.BrokerRestUrlMappingService;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.joyqueue.util.HttpUtil;
+import org.joyqueue.util.JSONParser;
+import org.joyqueue.util.NullUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 批量查询broker上所有主题、应用的生产消费监控信息
+ * 并发度有上限，每个broker有独立超时；相同broker的并发查询合并为一次请求，结果短时间缓存
+ * 查询失败的broker在短时间内直接返回失败，不再重复请求
+ **/
+@Service("brokerStatsQuery")
+public class BrokerStatsQuery {
+    private Logger logger = LoggerFactory.getLogger(BrokerStatsQuery.class);
+    private static final String PATH_KEY = "brokerStats";
+
+    @Autowired
+    private BrokerRestUrlMappingService urlMappingService;
+
+    // 同时查询的broker数上限
+    @Value("${monitor.stats.parallelism:8}")
+    private int parallelism;
+    // 单个broker的查询超时(ms)
+    @Value("${monitor.stats.timeout:3000}")
+    private int timeout;
+    // 结果缓存时间(ms)
+    @Value("${monitor.stats.cache.expire:5000}")
+    private long cacheExpire;
+    // 失败结果缓存时间(ms)
+    @Value("${monitor.stats.failure.expire:3000}")
+    private long failureExpire;
+
+    private ExecutorService executor;
+    private RequestConfig requestConfig;
+    private final ConcurrentMap<String/*ip:monitorPort*/, CompletableFuture<BrokerStatsMonitorInfo>> inflight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String/*ip:monitorPort*/, BrokerStatsMonitorInfo> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String/*ip:monitorPort*/, Failure> failures = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("joyqueue-broker-stats-query", true));
+        requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 并发查询多个broker，超时或失败的broker不出现在结果中
+     *
+     * @param brokers broker列表
+     * @return broker到监控信息的映射
+     */
+    public Map<Broker, BrokerStatsMonitorInfo> query(List<Broker> brokers) {
+        Map<Broker, CompletableFuture<BrokerStatsMonitorInfo>> futures = new HashMap<>(brokers.size());
+        for (Broker broker : brokers) {
+            futures.put(broker, queryAsync(broker));
+        }
+        Map<Broker, BrokerStatsMonitorInfo> result = new HashMap<>(brokers.size());
+        long deadline = SystemClock.now() + timeout;
+        for (Map.Entry<Broker, CompletableFuture<BrokerStatsMonitorInfo>> entry : futures.entrySet()) {
+            try {
+                BrokerStatsMonitorInfo stats = entry.getValue().get(Math.max(deadline - SystemClock.now(), 0), TimeUnit.MILLISECONDS);
+                if (stats != null) {
+                    result.put(entry.getKey(), stats);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (TimeoutException e) {
+                // 请求仍在途，记为超时，后续查询不再等待该broker
+                failures.put(keyOf(entry.getKey()), new Failure(SystemClock.now(), true));
+                logger.warn(String.format("query stats on broker %s:%s timeout", entry.getKey().getIp(), entry.getKey().getMonitorPort()));
+            } catch (Exception e) {
+                logger.warn(String.format("query stats on broker %s:%s failed, %s", entry.getKey().getIp(), entry.getKey().getMonitorPort(), e.toString()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 是否刚查询超时，超时的broker在失败缓存时间内不必再逐个查询
+     *
+     * @param broker broker
+     * @return 是否超时
+     */
+    public boolean isTimeout(Broker broker) {
+        Failure failure = getFailure(keyOf(broker));
+        return failure != null && failure.isTimeout();
+    }
+
+    /**
+     * 异步查询单个broker，命中缓存直接返回，最近失败过直接返回失败，已有相同查询在途时复用其结果
+     *
+     * @param broker broker
+     * @return 监控信息future
+     */
+    public CompletableFuture<BrokerStatsMonitorInfo> queryAsync(Broker broker) {
+        String key = keyOf(broker);
+        BrokerStatsMonitorInfo cached = cache.get(key);
+        if (cached != null && SystemClock.now() - cached.getTimestamp() < cacheExpire) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<BrokerStatsMonitorInfo> created = new CompletableFuture<>();
+        if (getFailure(key) != null) {
+            created.completeExceptionally(new IllegalStateException(String.format("query stats on broker %s failed recently", key)));
+            return created;
+        }
+        CompletableFuture<BrokerStatsMonitorInfo> future = inflight.putIfAbsent(key, created);
+        if (future != null) {
+            return future;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    BrokerStatsMonitorInfo stats = doQuery(broker);
+                    if (stats != null) {
+                        // 以管理端时间计算缓存有效期，避免broker时钟偏差
+                        stats.setTimestamp(SystemClock.now());
+                        cache.put(key, stats);
+                        failures.remove(key);
+                    }
+                    inflight.remove(key, created);
+                    created.complete(stats);
+                } catch (Throwable e) {
+                    failures.put(key, new Failure(SystemClock.now(), isTimeout(e)));
+                    inflight.remove(key, created);
+                    created.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            inflight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private String keyOf(Broker broker) {
+        return broker.getIp() + ":" + broker.getMonitorPort();
+    }
+
+    private Failure getFailure(String key) {
+        Failure failure = failures.get(key);
+        if (failure == null) {
+            return null;
+        }
+        if (SystemClock.now() - failure.getTimestamp() >= failureExpire) {
+            failures.remove(key, failure);
+            return null;
+        }
+        return failure;
+    }
+
+    /**
+     * 连接、读取超时都以InterruptedIOException抛出
+     */
+    private boolean isTimeout(Throwable e) {
+        while (e != null) {
+            if (e instanceof InterruptedIOException) {
+                return true;
+            }
+            e = e.getCause();
+        }
+        return false;
+    }
+
+    private BrokerStatsMonitorInfo doQuery(Broker broker) {
+        String pathTemplate = urlMappingService.pathTemplate(PATH_KEY);
+        if (NullUtil.isEmpty(pathTemplate)) {
+            throw new IllegalStateException("broker stats rest path not found");
+        }
+        String url = urlMappingService.monitorUrl(broker) + pathTemplate;
+        String response = HttpUtil.request(new HttpGet(url), requestConfig);
+        RestResponse<BrokerStatsMonitorInfo> restResponse = JSONParser.parse(response, RestResponse.class, BrokerStatsMonitorInfo.class, false);
+        return restResponse == null ? null : restResponse.getData();
+    }
+
+    private static class Failure {
+        private final long timestamp;
+        private final boolean timeout;
+
+        Failure(long timestamp, boolean timeout) {
+            this.timestamp = timestamp;
+            this.timeout = timeout;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        boolean isTimeout() {
+            return timeout;
+        }
+    }
+}
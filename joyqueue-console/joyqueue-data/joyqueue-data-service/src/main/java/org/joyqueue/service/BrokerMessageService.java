@@ -20,8 +20,10 @@ import org.joyqueue.model.domain.ProducerSendMessage;
 import org.joyqueue.model.domain.SimplifiedBrokeMessage;
 import org.joyqueue.model.domain.Subscribe;
 import org.joyqueue.monitor.BrokerMessageInfo;
+import org.joyqueue.monitor.BrokerMessageSearchInfo;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -61,6 +63,20 @@ public interface BrokerMessageService {
     List<BrokerMessageInfo> viewMessage(Subscribe subscribe,String messageDecodeType , String partition, String index, int count);
 
     Long getPartitionIndexByTime(Subscribe subscribe,String partition, String timestamp);
+
+    /**
+     * 在broker端检索消息，并发查询各分区leader，只返回命中的消息
+     * @param indexes   各分区继续检索的起始索引，取上次结果的nextIndex；为空时从startTime开始检索所有分区
+     * @param startTime 开始时间，小于等于0不限制
+     * @param endTime   结束时间，小于等于0不限制
+     * @param businessId 业务id
+     * @param property  属性，key或key=value
+     * @param keyword   消息体包含的字符串
+     * @param count     每个分区最多返回的消息数
+     * @return 各分区的检索结果
+     **/
+    List<BrokerMessageSearchInfo> searchMessage(Subscribe subscribe, String messageDecodeType, Map<Short, Long> indexes, long startTime, long endTime,
+                                                String businessId, String property, String keyword, int count);
     /**
      *  下载消息
      *  @param indexOffset  第几条消息
@@ -44,6 +44,7 @@ import org.joyqueue.model.domain.SimplifiedBrokeMessage;
 import org.joyqueue.model.domain.Subscribe;
 import org.joyqueue.model.domain.SubscribeType;
 import org.joyqueue.monitor.BrokerMessageInfo;
+import org.joyqueue.monitor.BrokerMessageSearchInfo;
 import org.joyqueue.monitor.RestResponse;
 import org.joyqueue.monitor.RestResponseCode;
 import org.joyqueue.nsr.AppTokenNameServerService;
@@ -66,6 +67,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -169,6 +171,56 @@ public class BrokerMessageServiceImpl implements BrokerMessageService {
         return null;
     }
 
+    @Override
+    public List<BrokerMessageSearchInfo> searchMessage(Subscribe subscribe, String messageDecodeType, Map<Short, Long> indexes, long startTime, long endTime,
+                                                       String businessId, String property, String keyword, int count) {
+        String app = subscribe.getType() == SubscribeType.PRODUCER ? subscribe.getApp().getCode() :
+                CodeConverter.convertApp(subscribe.getApp(), subscribe.getSubscribeGroup());
+        Future<Map<String, String>> resultFuture = brokerClusterQuery.asyncQueryOnPartition(subscribe, new RetrieveProvider<Subscribe>() {
+            @Override
+            public String getKey(Broker broker, PartitionGroup partitionGroup, short partition, Subscribe condition) {
+                return String.valueOf(partition);
+            }
+            @Override
+            public String getPath(String pathTemplate, PartitionGroup partitionGroup, short partition, Subscribe condition) {
+                long index = -1;
+                if (indexes != null && !indexes.isEmpty()) {
+                    // 翻页时只检索未结束的分区
+                    Long nextIndex = indexes.get(partition);
+                    if (nextIndex == null) {
+                        return null;
+                    }
+                    index = nextIndex;
+                }
+                return String.format(pathTemplate, UrlEncoderUtil.encodeParam(CodeConverter.convertTopic(subscribe.getNamespace(), subscribe.getTopic()).getFullName(),
+                        app, String.valueOf(partition), String.valueOf(index), String.valueOf(startTime), String.valueOf(endTime),
+                        StringUtils.defaultString(businessId), StringUtils.defaultString(property), StringUtils.defaultString(keyword), String.valueOf(count)));
+            }
+        }, "searchPartitionMessage", "search message on partition");
+        Map<String/*request key*/, String/*response*/> resultMap = brokerClusterQuery.get(resultFuture, TIMEOUT, TimeUnit.MILLISECONDS);
+        List<BrokerMessageSearchInfo> result = new ArrayList<>(resultMap.size());
+        JavaType restSearchType = mapper.getTypeFactory().constructParametricType(RestResponse.class, BrokerMessageSearchInfo.class);
+        try {
+            for (Map.Entry<String, String> response : resultMap.entrySet()) {
+                RestResponse<BrokerMessageSearchInfo> searchResponse = mapper.readValue(response.getValue(), restSearchType);
+                if (searchResponse.getCode() == RestResponseCode.SUCCESS.getCode() && searchResponse.getData() != null) {
+                    BrokerMessageSearchInfo searchInfo = searchResponse.getData();
+                    if (!NullUtil.isEmpty(searchInfo.getMessages())) {
+                        decodeBrokerMessage(searchInfo.getMessages(), messageDecodeType);
+                    }
+                    result.add(searchInfo);
+                } else {
+                    logger.info(String.format("partition %s search message request failed", response.getKey()));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("parse broker message error", e);
+            throw new ServiceException(INTERNAL_SERVER_ERROR, "Message can't be parse", e);
+        }
+        result.sort(Comparator.comparingInt(BrokerMessageSearchInfo::getPartition));
+        return result;
+    }
+
     /**
      * decode message by type
      * @param decodeType  decode type
@@ -22,6 +22,7 @@ import com.google.common.base.Preconditions;
 import org.apache.commons.lang3.StringUtils;
 import org.joyqueue.async.BrokerClusterQuery;
 import org.joyqueue.async.BrokerMonitorClusterQuery;
+import org.joyqueue.async.BrokerStatsQuery;
 import org.joyqueue.async.RetrieveProvider;
 import org.joyqueue.convert.CodeConverter;
 import org.joyqueue.domain.PartitionGroup;
@@ -39,6 +40,7 @@ import org.joyqueue.model.domain.Subscribe;
 import org.joyqueue.model.domain.SubscribeType;
 import org.joyqueue.model.domain.TopicPartitionGroup;
 import org.joyqueue.monitor.ArchiveMonitorInfo;
+import org.joyqueue.monitor.BrokerStatsMonitorInfo;
 import org.joyqueue.monitor.Client;
 import org.joyqueue.monitor.ConnectionMonitorDetailInfo;
 import org.joyqueue.monitor.ConnectionMonitorInfo;
@@ -98,6 +100,9 @@ public class BrokerMonitorServiceImpl implements BrokerMonitorService {
     @Autowired
     private BrokerRestUrlMappingService urlMappingService;
 
+    @Autowired
+    private BrokerStatsQuery brokerStatsQuery;
+
     @Override
     public boolean removeBrokerMonitorConnections(Subscribe subscribe,Integer brokerId) {
         this.checkArgument(subscribe);
@@ -137,6 +142,10 @@ public class BrokerMonitorServiceImpl implements BrokerMonitorService {
     @Override
     public List<BrokerMonitorRecord> findMonitorOnBroker(Subscribe subscribe) {
         this.checkArgument(subscribe);
+        List<BrokerMonitorRecord> statsRecords = findMonitorOnBrokerStats(subscribe);
+        if (statsRecords != null) {
+            return statsRecords;
+        }
         List<BrokerMonitorRecord> monitorRecords=new ArrayList<>();
         List<Broker> brokers=new ArrayList<>();
         Future<Map<String,String >> resultFuture= brokerCluster.asyncQueryOnBroker(subscribe, new RetrieveProvider<Subscribe>() {
@@ -199,6 +208,73 @@ public class BrokerMonitorServiceImpl implements BrokerMonitorService {
         return monitorRecords;
     }
 
+    /**
+     * 通过broker批量监控接口查询，结果有缓存且相同broker的并发查询会合并
+     * 刚查询超时的broker直接忽略，逐个查询同样会超时
+     * @return 其他broker批量信息缺失时返回null，由调用方退回逐个查询
+     **/
+    private List<BrokerMonitorRecord> findMonitorOnBrokerStats(Subscribe subscribe) {
+        List<Broker> brokers = leaderService.findLeaderBroker(subscribe.getTopic().getCode(), subscribe.getNamespace().getCode());
+        if (NullUtil.isEmpty(brokers)) {
+            return null;
+        }
+        Map<Broker, BrokerStatsMonitorInfo> statsMap = brokerStatsQuery.query(brokers);
+        String topic = CodeConverter.convertTopic(subscribe.getNamespace(), subscribe.getTopic()).getFullName();
+        String app = subscribe.getType() == SubscribeType.PRODUCER ? subscribe.getApp().getCode() :
+                CodeConverter.convertApp(subscribe.getApp(), subscribe.getSubscribeGroup());
+        List<BrokerMonitorRecord> monitorRecords = new ArrayList<>(brokers.size());
+        for (Broker b : brokers) {
+            BrokerStatsMonitorInfo stats = statsMap.get(b);
+            if (stats == null) {
+                if (!brokerStatsQuery.isTimeout(b)) {
+                    return null;
+                }
+                logger.info(String.format("ignore %s monitor on timeout broker %s ", JSON.toJSON(subscribe), b.getIp()));
+                continue;
+            }
+            BrokerMonitorRecord record = new BrokerMonitorRecord();
+            record.setIp(b.getIp() + ":" + b.getPort());
+            switch (subscribe.getType().value()) {
+                case CONSUMER_TYPE:
+                    ConsumerMonitorInfo consumerMonitorInfo = null;
+                    if (stats.getConsumers() != null) {
+                        for (ConsumerMonitorInfo consumer : stats.getConsumers()) {
+                            if (topic.equals(consumer.getTopic()) && app.equals(consumer.getApp())) {
+                                consumerMonitorInfo = consumer;
+                                break;
+                            }
+                        }
+                    }
+                    if (consumerMonitorInfo == null) {
+                        return null;
+                    }
+                    record.setConnections(consumerMonitorInfo.getConnections());
+                    record.setRetry(consumerMonitorInfo.getRetry());
+                    record.setDeQuence(consumerMonitorInfo.getDeQueue());
+                    record.setPending(consumerMonitorInfo.getPending());
+                    break;
+                case PRODUCER_TYPE:
+                    ProducerMonitorInfo producerMonitorInfo = null;
+                    if (stats.getProducers() != null) {
+                        for (ProducerMonitorInfo producer : stats.getProducers()) {
+                            if (topic.equals(producer.getTopic()) && app.equals(producer.getApp())) {
+                                producerMonitorInfo = producer;
+                                break;
+                            }
+                        }
+                    }
+                    if (producerMonitorInfo == null) {
+                        return null;
+                    }
+                    record.setConnections(producerMonitorInfo.getConnections());
+                    record.setEnQuence(producerMonitorInfo.getEnQueue());
+                    break;
+            }
+            monitorRecords.add(record);
+        }
+        return monitorRecords;
+    }
+
     @Override
     public BrokerMonitorRecord find(Subscribe subscribe, boolean active) {
         if(active){
@@ -43,6 +43,7 @@ public class BrokerRestUrlMappingServiceImpl implements BrokerRestUrlMappingServ
 
     private String lastestMessagePath="/manage/topic/%s/app/%s/message/last";
     private String partitoinMessagePath="/manage/topic/%s/app/%s/partition/%d/message";
+    private String searchPartitionMessagePath="/manage/topic/%s/app/%s/partition/%s/message/search?index=%s&startTime=%s&endTime=%s&businessId=%s&property=%s&keyword=%s&count=%s";
 
     /** monitor path */
     private String appMonitorPath="/monitor/topic/%s/app/%s/%s"; // topic|app|type{producer/consumer}
@@ -63,6 +64,7 @@ public class BrokerRestUrlMappingServiceImpl implements BrokerRestUrlMappingServ
     private String partitiongroupIndexPath="/manage/topic/%s/partitionGroup/%s/store/metric";
     private String consumerInfosPath = "/monitor/consumers?page=%s&pageSize=%s";
     private String producerInfosPath = "/monitor/producers?page=%s&pageSize=%s";
+    private String brokerStatsPath = "/monitor/stats";
 
     /** offset management*/
     private String removeProducersConnectionsPath= "/manage/topic/%s/app/%s/producers";
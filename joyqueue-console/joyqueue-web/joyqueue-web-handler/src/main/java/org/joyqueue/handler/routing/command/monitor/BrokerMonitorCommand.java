@@ -42,9 +42,11 @@ import org.joyqueue.model.domain.ProducerSendMessage;
 import org.joyqueue.model.domain.SimplifiedBrokeMessage;
 import org.joyqueue.model.domain.Subscribe;
 import org.joyqueue.model.domain.User;
+import org.joyqueue.model.query.QMessageSearch;
 import org.joyqueue.model.query.QMonitor;
 import org.joyqueue.model.query.QPartitionGroupMonitor;
 import org.joyqueue.monitor.BrokerMessageInfo;
+import org.joyqueue.monitor.BrokerMessageSearchInfo;
 import org.joyqueue.monitor.BrokerMonitorInfo;
 import org.joyqueue.monitor.BrokerStartupInfo;
 import org.joyqueue.monitor.Client;
@@ -330,6 +332,18 @@ public class BrokerMonitorCommand implements Command<Response>, Poolable {
         return Responses.success(messages);
     }
 
+    /**
+     * 在broker端按时间、业务id、属性、消息体检索消息，翻页时传入上次结果中各分区的nextIndex
+     *
+     **/
+    @Path("searchMessage")
+    public Response searchMessage(@Body QMessageSearch messageSearch, @QueryParam("messageDecodeType") String messageDecodeType){
+        List<BrokerMessageSearchInfo> result = brokerMessageService.searchMessage(messageSearch.getSubscribe(), messageDecodeType, messageSearch.getIndexes(),
+                messageSearch.getStartTime(), messageSearch.getEndTime(), messageSearch.getBusinessId(), messageSearch.getProperty(),
+                messageSearch.getKeyword(), messageSearch.getCount());
+        return Responses.success(result);
+    }
+
     /**
      * 指定 broker archive汇总信息
      * @param broker  target broker
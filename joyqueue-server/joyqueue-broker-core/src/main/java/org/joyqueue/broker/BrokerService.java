@@ -25,6 +25,7 @@ import org.joyqueue.broker.config.Configuration;
 import org.joyqueue.broker.config.ConfigurationManager;
 import org.joyqueue.broker.config.scan.ClassScanner;
 import org.joyqueue.broker.consumer.Consume;
+import org.joyqueue.broker.consumer.ConsumeConfig;
 import org.joyqueue.broker.consumer.MessageConvertSupport;
 import org.joyqueue.broker.coordinator.CoordinatorService;
 import org.joyqueue.broker.election.ElectionService;
@@ -176,7 +177,7 @@ public class BrokerService extends Service {
         this.coordinatorService = new CoordinatorService(configuration, clusterManager, nameService);
         this.brokerContext.coordinnatorService(this.coordinatorService);
 
-        this.messageConvertSupport = new MessageConvertSupport();
+        this.messageConvertSupport = new MessageConvertSupport(new ConsumeConfig(configuration));
         this.brokerContext.messageConvertSupport(this.messageConvertSupport);
 
         // build produce
@@ -15,6 +15,7 @@
  */
 package org.joyqueue.broker.buffer;
 
+import org.joyqueue.message.BrokerCommit;
 import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.BrokerPrepare;
 import org.joyqueue.message.JoyQueueLog;
@@ -170,6 +171,73 @@ public class Serializer extends AbstractSerializer {
         return length;
     }
 
+    /**
+     * 写入事务提交标记，标记之后的恢复需要继续完成提交
+     */
+    public static ByteBuffer writeBrokerCommit(BrokerCommit commit, ByteBuffer out) {
+        // length + magic + type + startTime
+        out.putInt(sizeOfBrokerCommit());
+        out.putShort(BrokerMessage.MAGIC_LOG_CODE);
+        out.put(commit.getType());
+        out.putLong(commit.getStartTime());
+        commit.setSize(sizeOfBrokerCommit());
+        return out;
+    }
+
+    public static int sizeOfBrokerCommit() {
+        return 4 + 2 + 1 + 8;
+    }
+
+    /**
+     * 判断事务存储中的一条记录是否是提交标记，消息的长度总是大于提交标记
+     */
+    public static boolean isBrokerCommit(ByteBuffer in) {
+        int position = in.position();
+        return in.remaining() == sizeOfBrokerCommit()
+                && in.getInt(position) == sizeOfBrokerCommit()
+                && in.getShort(position + 4) == BrokerMessage.MAGIC_LOG_CODE
+                && in.get(position + 6) == JoyQueueLog.TYPE_TX_COMMIT;
+    }
+
+    /**
+     * 写入事务提交进度，记录分区组中从start开始的count条事务消息已经写入，重试提交时跳过这些消息
+     */
+    public static ByteBuffer writeBrokerCommitProgress(int group, int start, int count, ByteBuffer out) {
+        // length + magic + type + group + start + count
+        out.putInt(sizeOfBrokerCommitProgress());
+        out.putShort(BrokerMessage.MAGIC_LOG_CODE);
+        out.put(JoyQueueLog.TYPE_TX_COMMIT_PROGRESS);
+        out.putInt(group);
+        out.putInt(start);
+        out.putInt(count);
+        return out;
+    }
+
+    public static int sizeOfBrokerCommitProgress() {
+        return 4 + 2 + 1 + 4 + 4 + 4;
+    }
+
+    /**
+     * 判断事务存储中的一条记录是否是提交进度
+     */
+    public static boolean isBrokerCommitProgress(ByteBuffer in) {
+        int position = in.position();
+        return in.remaining() == sizeOfBrokerCommitProgress()
+                && in.getInt(position) == sizeOfBrokerCommitProgress()
+                && in.getShort(position + 4) == BrokerMessage.MAGIC_LOG_CODE
+                && in.get(position + 6) == JoyQueueLog.TYPE_TX_COMMIT_PROGRESS;
+    }
+
+    /**
+     * 读取提交进度
+     *
+     * @return 分区组、起始序号、条数
+     */
+    public static int[] readBrokerCommitProgress(ByteBuffer in) {
+        int position = in.position();
+        return new int[] {in.getInt(position + 7), in.getInt(position + 11), in.getInt(position + 15)};
+    }
+
     @Deprecated
     public static ByteBuf serialize(JoyQueueLog log, ByteBuf out) throws Exception {
 
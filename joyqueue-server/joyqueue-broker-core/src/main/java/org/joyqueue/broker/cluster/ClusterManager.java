@@ -63,6 +63,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -84,6 +86,8 @@ public class ClusterManager extends Service {
     private volatile Broker broker;
     // 元数据管理
     private NameService nameService;
+    // 元数据监听和包装后注册到nameService的监听，用于移除
+    private final ConcurrentMap<EventListener<MetaEvent>, EventListener<NameServerEvent>> metaEventListeners = new ConcurrentHashMap<>();
 
     private BrokerContext brokerContext;
     private ClusterNameService clusterNameService;
@@ -154,14 +158,30 @@ public class ClusterManager extends Service {
      * @param listener 事件监听
      */
     public void addListener(EventListener<MetaEvent> listener) {
-        nameService.addListener(new EventListener<NameServerEvent>() {
-            @Override
-            public void onEvent(NameServerEvent event) {
-                listener.onEvent(event.getMetaEvent());
-            }
+        metaEventListeners.computeIfAbsent(listener, key -> {
+            EventListener<NameServerEvent> nameServerListener = new EventListener<NameServerEvent>() {
+                @Override
+                public void onEvent(NameServerEvent event) {
+                    listener.onEvent(event.getMetaEvent());
+                }
+            };
+            nameService.addListener(nameServerListener);
+            return nameServerListener;
         });
     }
 
+    /**
+     * 移除元数据变更的事件监听
+     *
+     * @param listener 事件监听
+     */
+    public void removeListener(EventListener<MetaEvent> listener) {
+        EventListener<NameServerEvent> nameServerListener = metaEventListeners.remove(listener);
+        if (nameServerListener != null) {
+            nameService.removeListener(nameServerListener);
+        }
+    }
+
     /**
      * 获取数据中心
      *
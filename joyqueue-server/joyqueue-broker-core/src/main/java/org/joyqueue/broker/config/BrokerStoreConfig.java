@@ -35,6 +35,13 @@ public class BrokerStoreConfig {
     public static final boolean DEFAULT_KEEP_UNCONSUMED = true;
     public static final int DEFAULT_STORE_DISK_USAGE_MAX= 80;
     public static final int DEFAULT_STORE_DISK_USAGE_SAFE=75;
+    public static final int DEFAULT_RECOVER_THREADS_PER_DISK = 8;
+    public static final boolean DEFAULT_COMPACTION_ENABLE = false;
+    public static final long DEFAULT_COMPACTION_TOMBSTONE_RETENTION = 1000 * 60 * 60 * 24;  // 1day
+    public static final long DEFAULT_COMPACTION_MIN_LAG = 1000 * 60 * 10;  // 10min
+    public static final String COMPACTION_ENABLE_PARAM = "compaction.enable";
+    public static final String COMPACTION_KEY_PARAM = "compaction.key";
+    public static final String COMPACTION_TOMBSTONE_RETENTION_PARAM = "compaction.tombstone.retention";
     private PropertySupplier propertySupplier;
 
 
@@ -57,6 +64,10 @@ public class BrokerStoreConfig {
         STORE_PHYSICAL_CLEAN_SCHEDULE_BEGIN("store.physical.clean.schedule.begin",DEFAULT_STORE_PHYSICAL_CLEAN_SCHEDULE_BEGIN,Type.INT),
         STORE_PHYSICAL_CLEAN_SCHEDULE_END("store.physical.clean.schedule.end",DEFAULT_STORE_PHYSICAL_CLEAN_SCHEDULE_END,Type.INT),
         STORE_PHYSICAL_CLEAN_INTERVAL("store.physical.clean.interval",DEFAULT_STORE_PHYSICAL_CLEAN_INTERNAL,Type.INT),
+        RECOVER_THREADS_PER_DISK("store.recover.threads.per.disk", DEFAULT_RECOVER_THREADS_PER_DISK, Type.INT),
+        COMPACTION_ENABLE_TOPIC_PREFIX("store.compaction.enable.", null, Type.STRING),
+        COMPACTION_TOMBSTONE_RETENTION("store.compaction.tombstone.retention", DEFAULT_COMPACTION_TOMBSTONE_RETENTION, Type.LONG),
+        COMPACTION_MIN_LAG("store.compaction.min.lag", DEFAULT_COMPACTION_MIN_LAG, Type.LONG),
 
         ;
         private String name;
@@ -179,5 +190,35 @@ public class BrokerStoreConfig {
     public int getStorePhysicalCleanInterval() {
         return PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.STORE_PHYSICAL_CLEAN_INTERVAL, DEFAULT_STORE_PHYSICAL_CLEAN_INTERNAL);
     }
+
+    /**
+     * 启动时每块磁盘上并行恢复分区组的线程数
+     */
+    public int getRecoverThreadsPerDisk() {
+        return PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.RECOVER_THREADS_PER_DISK, DEFAULT_RECOVER_THREADS_PER_DISK);
+    }
+
+    /**
+     * Topic是否开启按消息键压缩，默认不开启
+     */
+    public boolean isCompactionEnable(String topic) {
+        String enable = PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.COMPACTION_ENABLE_TOPIC_PREFIX.getName() + topic,
+                BrokerStoreConfigKey.COMPACTION_ENABLE_TOPIC_PREFIX.getType(), BrokerStoreConfigKey.COMPACTION_ENABLE_TOPIC_PREFIX.getValue());
+        return enable == null ? DEFAULT_COMPACTION_ENABLE : Boolean.valueOf(enable);
+    }
+
+    /**
+     * 压缩时墓碑消息（消息体为空）的保留时间
+     */
+    public long getCompactionTombstoneRetention() {
+        return PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.COMPACTION_TOMBSTONE_RETENTION, DEFAULT_COMPACTION_TOMBSTONE_RETENTION);
+    }
+
+    /**
+     * 只压缩最后一次写入早于这个时长的文件
+     */
+    public long getCompactionMinLag() {
+        return PropertySupplier.getValue(propertySupplier, BrokerStoreConfigKey.COMPACTION_MIN_LAG, DEFAULT_COMPACTION_MIN_LAG);
+    }
 }
 
@@ -321,6 +321,16 @@ public class CasPartitionManager implements PartitionManager {
         return isFree;
     }
 
+    /**
+     * 消费者当前占用的分区数
+     *
+     * @param clientId 消费者ID
+     * @return 占用分区数
+     */
+    protected int getOccupyTimes(String clientId) {
+        return counterService.getOccupyTimes(clientId);
+    }
+
     @Override
     public void close() {
         cleanUpExecutor.shutdown();
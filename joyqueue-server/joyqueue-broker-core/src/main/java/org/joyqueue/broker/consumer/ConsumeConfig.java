@@ -106,4 +106,24 @@ public class ConsumeConfig {
     public int getPartitionSelectRetryMax() {
         return propertySupplier.getValue(ConsumeConfigKey.PARTITION_SELECT_RETRY_MAX);
     }
+
+    public boolean usePartitionLease() {
+        return propertySupplier.getValue(ConsumeConfigKey.PARTITION_LEASE_ENABLE);
+    }
+
+    public int getPartitionLeaseTimeout() {
+        return propertySupplier.getValue(ConsumeConfigKey.PARTITION_LEASE_TIMEOUT);
+    }
+
+    public boolean getConvertCacheEnable() {
+        return propertySupplier.getValue(ConsumeConfigKey.CONVERT_CACHE_ENABLE);
+    }
+
+    public long getConvertCacheCapacity() {
+        return propertySupplier.getValue(ConsumeConfigKey.CONVERT_CACHE_CAPACITY);
+    }
+
+    public int getConvertCacheExpireTime() {
+        return propertySupplier.getValue(ConsumeConfigKey.CONVERT_CACHE_EXPIRE_TIME);
+    }
 }
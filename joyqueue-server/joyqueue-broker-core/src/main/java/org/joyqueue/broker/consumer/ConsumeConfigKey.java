@@ -42,6 +42,18 @@ public enum ConsumeConfigKey implements PropertyDef {
 
     PARTITION_SELECT_RETRY_MAX("consume.partition.select.retry.max", 20, Type.INT),
 
+    // 是否按租约分配分区，开启后消费者只从分配给自己的分区拉取
+    PARTITION_LEASE_ENABLE("consume.partition.lease.enable", false, Type.BOOLEAN),
+    // 分区租约超时时间，消费者超过该时间没有拉取则收回其租约
+    PARTITION_LEASE_TIMEOUT("consume.partition.lease.timeout", 1000 * 30, Type.INT),
+
+    // 是否缓存跨协议消费时的消息转换结果
+    CONVERT_CACHE_ENABLE("consume.convert.cache.enable", true, Type.BOOLEAN),
+    // 转换缓存容量，按消息体字节数计算
+    CONVERT_CACHE_CAPACITY("consume.convert.cache.capacity", 1024L * 1024 * 64, Type.LONG),
+    // 转换缓存的过期时间，超过该时间没有被读取则淘汰
+    CONVERT_CACHE_EXPIRE_TIME("consume.convert.cache.expire.time", 1000 * 60, Type.INT),
+
     ;
     private String name;
     private Object value;
@@ -166,8 +166,13 @@ public class ConsumeManager extends Service implements Consume, BrokerContextAwa
             logger.warn("archive manager is null.");
         }
         this.filterMessageSupport = new FilterMessageSupport(clusterManager);
-        this.partitionManager = consumeConfig.useLegacyPartitionManager() ?
-                new LegacyPartitionManager(clusterManager, sessionManager): new CasPartitionManager(clusterManager, sessionManager);
+        if (consumeConfig.useLegacyPartitionManager()) {
+            this.partitionManager = new LegacyPartitionManager(clusterManager, sessionManager);
+        } else if (consumeConfig.usePartitionLease()) {
+            this.partitionManager = new LeasePartitionManager(clusterManager, sessionManager, consumeConfig.getPartitionLeaseTimeout());
+        } else {
+            this.partitionManager = new CasPartitionManager(clusterManager, sessionManager);
+        }
         this.positionManager = new PositionManager(clusterManager, storeService, consumeConfig);
         this.brokerContext.positionManager(positionManager);
         this.partitionConsumption = new PartitionConsumption(clusterManager, storeService, partitionManager, positionManager, messageRetry, filterMessageSupport, archiveManager, consumeConfig);
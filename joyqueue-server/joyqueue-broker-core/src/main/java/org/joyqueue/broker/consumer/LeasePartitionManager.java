@@ -0,0 +1,299 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.consumer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.monitor.SessionManager;
+import org.joyqueue.domain.Partition;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.network.session.Consumer;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按租约分配分区的分区管理器
+ * <br>
+ * 同一主题和应用下的消费者按最高随机权重哈希(rendezvous hashing)瓜分本机的分区，
+ * 消费者加入或离开时只有它赢得或失去的分区会迁移。
+ * 消费者每次拉取都会续约，超过租约时间没有拉取或会话断开时收回其分区。
+ * 拉取时只遍历租给自己的分区，不再逐个分区CAS试探；
+ * 分区上的在途占用(应答超时前不重复投递)仍沿用{@link CasPartitionManager}的逻辑。
+ */
+public class LeasePartitionManager extends CasPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasePartitionManager.class);
+
+    private final ClusterManager clusterManager;
+    private final long leaseTimeout;
+    // topic + app -> 租约表
+    private final ConcurrentMap<String, LeaseGroup> leaseGroups = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService expireExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("LeasePartitionManagerExpireExecutor", true));
+
+    public LeasePartitionManager(ClusterManager clusterManager, SessionManager sessionManager, long leaseTimeout) {
+        super(clusterManager, sessionManager);
+        this.clusterManager = clusterManager;
+        this.leaseTimeout = leaseTimeout;
+
+        sessionManager.addListener(new LeaseListener());
+        long interval = Math.max(leaseTimeout / 2, 1000);
+        expireExecutor.scheduleWithFixedDelay(this::expire, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<Short> getConsumablePartitions(Consumer consumer, List<Short> partitions) {
+        if (consumer.getId() == null || partitions.isEmpty()) {
+            return partitions;
+        }
+        LeaseGroup leaseGroup = getOrCreateLeaseGroup(consumer.getTopic(), consumer.getApp());
+        Lease lease = leaseGroup.renew(consumer.getId());
+
+        List<Short> result = Lists.newArrayListWithCapacity(Math.min(partitions.size(), lease.partitions.size() + 1));
+        Map<Short, String> owners = leaseGroup.owners;
+        for (Short partition : partitions) {
+            // 重试分区和尚未参与分配的分区(如刚成为leader)不受租约限制
+            if (partition == Partition.RETRY_PARTITION_ID || !owners.containsKey(partition)
+                    || consumer.getId().equals(owners.get(partition))) {
+                result.add(partition);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasFreePartition(Consumer consumer) {
+        LeaseGroup leaseGroup = leaseGroups.get(getLeaseKey(consumer.getTopic(), consumer.getApp()));
+        if (leaseGroup == null) {
+            return super.hasFreePartition(consumer);
+        }
+        Lease lease = leaseGroup.leases.get(consumer.getId());
+        if (lease == null) {
+            // 还没有加入，需要拉取一次才能分到分区
+            return true;
+        }
+        return lease.partitions.size() > getOccupyTimes(consumer.getId());
+    }
+
+    /**
+     * 消费者当前租到的分区
+     *
+     * @param consumer 消费者
+     * @return 分区列表
+     */
+    public List<Short> getLeasedPartitions(Consumer consumer) {
+        LeaseGroup leaseGroup = leaseGroups.get(getLeaseKey(consumer.getTopic(), consumer.getApp()));
+        if (leaseGroup == null) {
+            return Collections.emptyList();
+        }
+        Lease lease = leaseGroup.leases.get(consumer.getId());
+        return lease == null ? Collections.emptyList() : lease.partitions;
+    }
+
+    /**
+     * 收回超时的租约，并在分区变化后重新分配
+     */
+    protected void expire() {
+        try {
+            long now = SystemClock.now();
+            for (Map.Entry<String, LeaseGroup> entry : leaseGroups.entrySet()) {
+                LeaseGroup leaseGroup = entry.getValue();
+                leaseGroup.expire(now);
+                if (leaseGroup.leases.isEmpty()) {
+                    leaseGroups.remove(entry.getKey(), leaseGroup);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("expire partition lease exception", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        expireExecutor.shutdown();
+        leaseGroups.clear();
+        super.close();
+    }
+
+    protected LeaseGroup getOrCreateLeaseGroup(String topic, String app) {
+        String key = getLeaseKey(topic, app);
+        LeaseGroup leaseGroup = leaseGroups.get(key);
+        if (leaseGroup == null) {
+            leaseGroup = new LeaseGroup(topic, app);
+            LeaseGroup oldLeaseGroup = leaseGroups.putIfAbsent(key, leaseGroup);
+            if (oldLeaseGroup != null) {
+                leaseGroup = oldLeaseGroup;
+            }
+        }
+        return leaseGroup;
+    }
+
+    protected String getLeaseKey(String topic, String app) {
+        return topic + "@" + app;
+    }
+
+    /**
+     * 分区得分，得分最高的消费者持有该分区
+     */
+    protected static int score(String clientId, short partition) {
+        int hash = clientId.hashCode() ^ (partition * 0x9E3779B9);
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * 消费者租约
+     */
+    protected static class Lease {
+        // 最近一次续约时间
+        private volatile long renewTime = SystemClock.now();
+        // 分配到的分区，只读
+        private volatile List<Short> partitions = Collections.emptyList();
+    }
+
+    /**
+     * 同一主题和应用的租约表
+     * <br>
+     * 分配结果整体替换，拉取路径无锁读取
+     */
+    protected class LeaseGroup {
+        private final String topic;
+        private final String app;
+        private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+        // 分区 -> 持有者，只读
+        private volatile Map<Short, String> owners = Collections.emptyMap();
+        // 参与分配的分区
+        private volatile List<Short> partitions = Collections.emptyList();
+
+        LeaseGroup(String topic, String app) {
+            this.topic = topic;
+            this.app = app;
+        }
+
+        Lease renew(String clientId) {
+            Lease lease = leases.get(clientId);
+            if (lease != null) {
+                lease.renewTime = SystemClock.now();
+                return lease;
+            }
+            synchronized (this) {
+                lease = leases.get(clientId);
+                if (lease == null) {
+                    lease = new Lease();
+                    leases.put(clientId, lease);
+                    rebalance();
+                }
+            }
+            return lease;
+        }
+
+        synchronized void revoke(String clientId) {
+            if (leases.remove(clientId) != null) {
+                rebalance();
+            }
+        }
+
+        synchronized void expire(long now) {
+            boolean changed = leases.entrySet().removeIf(entry -> now - entry.getValue().renewTime > leaseTimeout);
+            List<Short> currentPartitions = clusterManager.getLocalPartitions(TopicName.parse(topic));
+            if (changed || !Objects.equals(currentPartitions, partitions)) {
+                rebalance();
+            }
+        }
+
+        /**
+         * 重新分配分区，调用方持有锁
+         */
+        protected void rebalance() {
+            List<Short> currentPartitions = clusterManager.getLocalPartitions(TopicName.parse(topic));
+            if (currentPartitions == null) {
+                currentPartitions = Collections.emptyList();
+            }
+            Map<Short, String> newOwners = Maps.newHashMapWithExpectedSize(currentPartitions.size());
+            Map<String, List<Short>> newAssignments = Maps.newHashMapWithExpectedSize(leases.size());
+            for (String clientId : leases.keySet()) {
+                newAssignments.put(clientId, Lists.newArrayList());
+            }
+
+            if (!leases.isEmpty()) {
+                for (Short partition : currentPartitions) {
+                    String owner = null;
+                    int maxScore = 0;
+                    for (String clientId : leases.keySet()) {
+                        int score = score(clientId, partition);
+                        if (owner == null || score > maxScore || (score == maxScore && clientId.compareTo(owner) < 0)) {
+                            owner = clientId;
+                            maxScore = score;
+                        }
+                    }
+                    newOwners.put(partition, owner);
+                    newAssignments.get(owner).add(partition);
+                }
+            }
+
+            for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+                entry.getValue().partitions = Collections.unmodifiableList(newAssignments.get(entry.getKey()));
+            }
+            this.partitions = currentPartitions;
+            this.owners = Collections.unmodifiableMap(newOwners);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Rebalance partition lease, topic: {}, app: {}, assignments: {}", topic, app, newAssignments);
+            }
+        }
+    }
+
+    /**
+     * 监听会话事件，消费者断开时收回租约，新消费者加入已有租约表时立即重新分配
+     */
+    class LeaseListener implements EventListener<SessionManager.SessionEvent> {
+
+        @Override
+        public void onEvent(SessionManager.SessionEvent event) {
+            Consumer consumer = event.getConsumer();
+            if (consumer == null || consumer.getId() == null) {
+                return;
+            }
+            LeaseGroup leaseGroup = leaseGroups.get(getLeaseKey(consumer.getTopic(), consumer.getApp()));
+            if (leaseGroup == null) {
+                return;
+            }
+            if (event.getType() == SessionManager.SessionEventType.RemoveConsumer) {
+                leaseGroup.revoke(consumer.getId());
+            } else if (event.getType() == SessionManager.SessionEventType.AddConsumer) {
+                leaseGroup.renew(consumer.getId());
+            }
+        }
+    }
+}
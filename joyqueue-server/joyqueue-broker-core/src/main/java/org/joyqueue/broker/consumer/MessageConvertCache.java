@@ -0,0 +1,129 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.consumer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.joyqueue.message.BrokerMessage;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协议转换结果缓存
+ * <br>
+ * 同一条存储消息被多个不同协议的消费者拉取时，解压和转换只做一次。
+ * 按(主题, 分区, 索引, 目标协议)缓存转换后的消息，按消息体大小限制总容量，
+ * 存储清理后由{@link #invalidate(String, short, long)}淘汰已删除的索引。
+ * 缓存中的消息会被多个请求共享，调用方只能读不能改。
+ */
+public class MessageConvertCache {
+
+    // 每条消息除消息体以外的估算开销
+    private static final int MESSAGE_OVERHEAD = 128;
+
+    private final Cache<Key, List<BrokerMessage>> cache;
+
+    public MessageConvertCache(long capacity, long expireTime) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(capacity)
+                .weigher((Key key, List<BrokerMessage> messages) -> weigh(messages))
+                .expireAfterAccess(expireTime, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public List<BrokerMessage> get(BrokerMessage message, byte target) {
+        return cache.getIfPresent(new Key(message, target));
+    }
+
+    public void put(BrokerMessage message, byte target, List<BrokerMessage> convertedMessages) {
+        cache.put(new Key(message, target), convertedMessages);
+    }
+
+    /**
+     * 淘汰分区中小于minIndex的转换结果
+     *
+     * @param topic    主题
+     * @param partition 分区
+     * @param minIndex 分区当前的最小索引
+     */
+    public void invalidate(String topic, short partition, long minIndex) {
+        cache.asMap().keySet().removeIf(key -> key.partition == partition && key.index < minIndex && key.topic.equals(topic));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static int weigh(List<BrokerMessage> messages) {
+        long weight = 0;
+        for (BrokerMessage message : messages) {
+            byte[] body = message.getByteBody();
+            weight += MESSAGE_OVERHEAD + (body == null ? 0 : body.length);
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 主题和分区确定了分区组，term和startTime用来区分主从切换回滚后同一索引上重新写入的消息
+     */
+    private static class Key {
+        private final String topic;
+        private final short partition;
+        private final long index;
+        private final byte target;
+        private final int term;
+        private final long startTime;
+
+        Key(BrokerMessage message, byte target) {
+            this.topic = message.getTopic();
+            this.partition = message.getPartition();
+            this.index = message.getMsgIndexNo();
+            this.target = target;
+            this.term = message.getTerm();
+            this.startTime = message.getStartTime();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return partition == key.partition && index == key.index && target == key.target
+                    && term == key.term && startTime == key.startTime && topic.equals(key.topic);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topic, partition, index, target);
+        }
+    }
+}
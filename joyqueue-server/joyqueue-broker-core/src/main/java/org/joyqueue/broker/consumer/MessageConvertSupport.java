@@ -23,6 +23,7 @@ import org.joyqueue.message.BrokerMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -36,11 +37,19 @@ public class MessageConvertSupport {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     private Table<Byte /** type **/, Byte /** target **/, MessageConverter> converterTable;
+    private MessageConvertCache convertCache;
 
     public MessageConvertSupport() {
         this.converterTable = loadConverters();
     }
 
+    public MessageConvertSupport(ConsumeConfig config) {
+        this();
+        if (config.getConvertCacheEnable()) {
+            this.convertCache = new MessageConvertCache(config.getConvertCacheCapacity(), config.getConvertCacheExpireTime());
+        }
+    }
+
     protected Table<Byte, Byte, MessageConverter> loadConverters() {
         Table<Byte, Byte, MessageConverter> result = HashBasedTable.create();
         Iterable<MessageConverter> iterable = Plugins.MESSAGE_CONVERTER.extensions();
@@ -52,46 +61,65 @@ public class MessageConvertSupport {
 
     public List<BrokerMessage> convert(BrokerMessage message, byte target) {
         List<BrokerMessage> result = Lists.newLinkedList();
-        if (message.isBatch()) {
-            List<BrokerMessage> convertedMessages = doConvertBatch(message, target);
-            if (convertedMessages != null) {
-                result.addAll(convertedMessages);
-            } else {
-                result.add(message);
-            }
-        } else {
-            BrokerMessage convertedMessage = doConvert(message, target);
-            if (convertedMessage != null) {
-                result.add(convertedMessage);
-            } else {
-                result.add(message);
-            }
-        }
+        doConvert(message, target, result);
         return result;
     }
 
     public List<BrokerMessage> convert(List<BrokerMessage> messages, byte target) {
         List<BrokerMessage> result = Lists.newLinkedList();
         for (BrokerMessage message : messages) {
-            if (message.isBatch()) {
-                List<BrokerMessage> convertedMessages = doConvertBatch(message, target);
-                if (convertedMessages != null) {
-                    result.addAll(convertedMessages);
-                } else {
-                    result.add(message);
-                }
-            } else {
-                BrokerMessage convertedMessage = doConvert(message, target);
-                if (convertedMessage != null) {
-                    result.add(convertedMessage);
-                } else {
-                    result.add(message);
-                }
-            }
+            doConvert(message, target, result);
         }
         return result;
     }
 
+    /**
+     * 淘汰已被清理的消息的转换结果
+     *
+     * @param topic     主题
+     * @param partition 分区
+     * @param minIndex  分区当前的最小索引
+     */
+    public void invalidate(String topic, short partition, long minIndex) {
+        if (convertCache != null) {
+            convertCache.invalidate(topic, partition, minIndex);
+        }
+    }
+
+    public MessageConvertCache getConvertCache() {
+        return convertCache;
+    }
+
+    protected void doConvert(BrokerMessage message, byte target, List<BrokerMessage> result) {
+        // 需要转换的消息才走缓存，同协议的消息原样返回
+        boolean cacheable = convertCache != null && message.getTopic() != null
+                && converterTable.contains(message.getSource(), target);
+        if (cacheable) {
+            List<BrokerMessage> cachedMessages = convertCache.get(message, target);
+            if (cachedMessages != null) {
+                result.addAll(cachedMessages);
+                return;
+            }
+        }
+
+        List<BrokerMessage> convertedMessages;
+        if (message.isBatch()) {
+            convertedMessages = doConvertBatch(message, target);
+        } else {
+            BrokerMessage convertedMessage = doConvert(message, target);
+            convertedMessages = (convertedMessage != null ? Collections.singletonList(convertedMessage) : null);
+        }
+
+        if (convertedMessages == null) {
+            result.add(message);
+            return;
+        }
+        if (cacheable) {
+            convertCache.put(message, target, convertedMessages);
+        }
+        result.addAll(convertedMessages);
+    }
+
     protected BrokerMessage doConvert(BrokerMessage message, byte target) {
         MessageConverter messageConverter = converterTable.get(message.getSource(), target);
         if (messageConverter == null) {
@@ -175,6 +175,7 @@ class PartitionConsumption extends Service {
      * @return
      */
     private PullResult getFromPartition(Consumer consumer, List<Short> partitionList, int count, long ackTimeout, long accessTimes) throws JoyQueueException {
+        partitionList = partitionManager.getConsumablePartitions(consumer, partitionList);
         int partitionSize = partitionList.size();
         int listIndex = -1;
 
@@ -482,6 +483,29 @@ class PartitionConsumption extends Service {
         return locations;
     }
 
+    /**
+     * 应答序号与之前应答序号之间的消息是否都已经被压缩，读取时会跳过这些消息
+     */
+    private boolean isCompactedGap(Consumer consumer, short partition, long lastMsgAckIndex, long startIndex) {
+        if (lastMsgAckIndex < 0 || lastMsgAckIndex >= startIndex) {
+            return false;
+        }
+        try {
+            int partitionGroup = clusterManager.getPartitionGroupId(TopicName.parse(consumer.getTopic()), partition);
+            PartitionGroupStore store = storeService.getStore(consumer.getTopic(), partitionGroup);
+            if (store == null) {
+                return false;
+            }
+            ReadResult readResult = store.read(partition, lastMsgAckIndex, 1, 0);
+            ByteBuffer[] messages = readResult.getMessages();
+            return readResult.getCode() == JoyQueueCode.SUCCESS && messages != null && messages.length > 0
+                    && Serializer.readIndex(messages[0]) == startIndex;
+        } catch (Exception e) {
+            logger.debug("check compacted ack gap failed, partition: {}, lastMsgAckIndex: {}, consumer: {}", partition, lastMsgAckIndex, consumer, e);
+            return false;
+        }
+    }
+
     /**
      * 应答
      *
@@ -510,7 +534,7 @@ class PartitionConsumption extends Service {
         if (indexArr != null) {
             long lastMsgAckIndex = positionManager.getLastMsgAckIndex(TopicName.parse(topic), app, partition);
             // 如果应答的序号与之前应答序号连续，则更新应答序号
-            if (lastMsgAckIndex == indexArr[0]) {
+            if (lastMsgAckIndex == indexArr[0] || isCompactedGap(consumer, partition, lastMsgAckIndex, indexArr[0])) {
                 long curIndex = indexArr[1];
                 // 将当前序号向后移动一位
                 long updateMsgAckIndex = curIndex + 1;
@@ -56,5 +56,16 @@ public interface PartitionManager {
 
     boolean hasFreePartition(Consumer consumer);
 
+    /**
+     * 从候选分区中筛选出消费者可以拉取的分区
+     *
+     * @param consumer   消费者
+     * @param partitions 候选分区
+     * @return 可以拉取的分区
+     */
+    default List<Short> getConsumablePartitions(Consumer consumer, List<Short> partitions) {
+        return partitions;
+    }
+
     default void close() {}
 }
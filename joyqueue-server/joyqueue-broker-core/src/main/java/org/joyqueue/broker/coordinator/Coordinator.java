@@ -73,6 +73,19 @@ public class Coordinator {
         return coordinatorResolver.getCoordinatorDetail(group, config.getGroupTopic(namespace));
     }
 
+    public TopicName getGroupTopic() {
+        return config.getGroupTopic();
+    }
+
+    public TopicConfig getGroupTopicConfig() {
+        return nameService.getTopicConfig(config.getGroupTopic());
+    }
+
+    public PartitionGroup getGroupPartitionGroup(String group) {
+        String namespace = resolveGroupNamespace(group);
+        return coordinatorResolver.resolveCoordinatorPartitionGroup(group, config.getGroupTopic(namespace));
+    }
+
     protected String resolveGroupNamespace(String group) {
         List<Consumer> consumers = nameService.getConsumersByApp(group);
         if (CollectionUtils.isEmpty(consumers)) {
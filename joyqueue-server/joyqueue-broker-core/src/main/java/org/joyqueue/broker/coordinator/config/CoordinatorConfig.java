@@ -58,6 +58,10 @@ public class CoordinatorConfig {
         return PropertySupplier.getValue(propertySupplier, CoordinatorConfigKey.GROUP_EXPIRE_TIME);
     }
 
+    public String getGroupLogApp() {
+        return PropertySupplier.getValue(propertySupplier, CoordinatorConfigKey.GROUP_LOG_APP);
+    }
+
     public TopicName getTransactionTopic() {
         String topic = PropertySupplier.getValue(propertySupplier, CoordinatorConfigKey.TRANSACTION_TOPIC_CODE);
         return TopicName.parse(topic);
@@ -31,6 +31,8 @@ public enum CoordinatorConfigKey implements PropertyDef {
     GROUP_TOPIC_PARTITIONS("coordinator.group.topic.partitions", (short) 10, Type.SHORT),
     // 协调者过期时间
     GROUP_EXPIRE_TIME("coordinator.group.expire.time", 1000 * 60 * 60 * 1, Type.INT),
+    // 组日志app
+    GROUP_LOG_APP("coordinator.group.log.app", "__group_log", Type.STRING),
 
     // 事务协调者主题
     TRANSACTION_TOPIC_CODE("coordinator.transaction.topic.code", "__transaction_coordinators", Type.STRING),
@@ -65,7 +65,8 @@ public class CoordinatorInitializer extends Service {
     }
 
     protected boolean initGroupTopic() {
-        return initCoordinatorTopic(config.getGroupTopic(), config.getGroupTopicPartitions());
+        return initCoordinatorTopic(config.getGroupTopic(), config.getGroupTopicPartitions())
+                && initCoordinatorSubscribe(config.getGroupTopic(), config.getGroupLogApp());
     }
 
     protected boolean initTransactionTopic() {
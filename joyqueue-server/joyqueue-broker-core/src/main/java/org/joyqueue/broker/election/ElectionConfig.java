@@ -169,6 +169,34 @@ public class ElectionConfig {
         return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.ENABLE_REPLICATE_POSITION_V3_PROTOCOL);
     }
 
+    public int getDrainLeaderConcurrency() {
+        return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.DRAIN_LEADER_CONCURRENCY);
+    }
+
+    public int getDrainLeaderBatchSize() {
+        return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.DRAIN_LEADER_BATCH_SIZE);
+    }
+
+    public int getDrainLeaderCheckInterval() {
+        return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.DRAIN_LEADER_CHECK_INTERVAL);
+    }
+
+    public int getDrainLeaderCatchUpTimeout() {
+        return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.DRAIN_LEADER_CATCH_UP_TIMEOUT);
+    }
+
+    public long getSnapshotThreshold() {
+        return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.SNAPSHOT_THRESHOLD);
+    }
+
+    public long getSnapshotRate() {
+        return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.SNAPSHOT_RATE);
+    }
+
+    public boolean enableVerifyChecksum() {
+        return PropertySupplier.getValue(propertySupplier, ElectionConfigKey.VERIFY_CHECKSUM);
+    }
+
     public void setListenPort(String port) {
         listenPort = Integer.valueOf(port);
     }
@@ -52,6 +52,13 @@ public enum ElectionConfigKey implements PropertyDef {
     CONNECTION_RETRY_DELAY("election.connection.retryDelay", 1000 * 10, Type.INT),
     ENABLE_SHARED_HEARTBEAT("election.enable.shared.heartbeat", false, Type.BOOLEAN),
     ENABLE_REPLICATE_POSITION_V3_PROTOCOL("election.enable.replicate.position.v3.protocol", false, Type.BOOLEAN),
+    DRAIN_LEADER_CONCURRENCY("election.drain.leader.concurrency", 64, Type.INT),
+    DRAIN_LEADER_BATCH_SIZE("election.drain.leader.batch.size", 16, Type.INT),
+    DRAIN_LEADER_CHECK_INTERVAL("election.drain.leader.check.interval", 100, Type.INT),
+    DRAIN_LEADER_CATCH_UP_TIMEOUT("election.drain.leader.catchup.timeout", 1000 * 30, Type.INT),
+    SNAPSHOT_THRESHOLD("election.snapshot.threshold", 1024 * 1024 * 1024L, Type.LONG),
+    SNAPSHOT_RATE("election.snapshot.rate", 50 * 1024 * 1024L, Type.LONG),
+    VERIFY_CHECKSUM("election.verify.checksum", true, Type.BOOLEAN),
 
     ;
 
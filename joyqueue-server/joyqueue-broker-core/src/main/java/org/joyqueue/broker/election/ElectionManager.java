@@ -82,6 +82,7 @@ public class ElectionManager extends Service implements ElectionService, BrokerC
     private EventBus<ElectionEvent> electionEventManager = new EventBus<>("LeaderElectionEvent");
     private ElectionMetadataManager electionMetadataManager;
     private ReplicationManager replicationManager;
+    private LeaderDrainer leaderDrainer;
 
     private StoreService storeService;
     private Consume consume;
@@ -167,6 +168,8 @@ public class ElectionManager extends Service implements ElectionService, BrokerC
         replicationManager = new ReplicationManager(electionConfig, brokerConfig, storeService, consume, brokerMonitor);
         replicationManager.start();
 
+        leaderDrainer = new LeaderDrainer(this, electionConfig, electionTimerExecutor);
+
 		Thread.sleep(1000);
 
         electionMetadataManager = new ElectionMetadataManager(electionConfig.getMetadataPath());
@@ -185,6 +188,10 @@ public class ElectionManager extends Service implements ElectionService, BrokerC
     public void doStop() {
         logger.info("Election manager stop");
 
+        if (leaderDrainer != null) {
+            leaderDrainer.cancel();
+        }
+
         for (TopicPartitionGroup topicPartitionGroup : leaderElections.keySet()) {
             LeaderElection leaderElection = getLeaderElection(topicPartitionGroup.getTopic(),
                     topicPartitionGroup.getPartitionGroupId());
@@ -498,6 +505,29 @@ public class ElectionManager extends Service implements ElectionService, BrokerC
         electionMetadataManager.updateTerm(topic, partitionGroup, term);
     }
 
+    @Override
+    public LeaderDrainStatus drainLeaders() {
+        return leaderDrainer.drain();
+    }
+
+    @Override
+    public LeaderDrainStatus getLeaderDrainStatus() {
+        return leaderDrainer.status();
+    }
+
+    @Override
+    public void cancelLeaderDrain() {
+        leaderDrainer.cancel();
+    }
+
+    /**
+     * 是否正在转移本节点的全部leader，转移期间不做leader均衡
+     * @return 是否正在转移
+     */
+    boolean isDrainingLeaders() {
+        return leaderDrainer != null && leaderDrainer.isDraining();
+    }
+
     /**
      * 向目标节点发送命令，采用异步方式
      *
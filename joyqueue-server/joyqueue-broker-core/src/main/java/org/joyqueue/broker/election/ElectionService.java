@@ -146,4 +146,21 @@ public interface ElectionService {
      * @param term new term
      */
     void updateTerm(String topic, int partitionGroup, int term);
+
+    /**
+     * Transfer leadership of all partition groups led by local broker to other replicas
+     * @return drain status
+     */
+    LeaderDrainStatus drainLeaders();
+
+    /**
+     * Get status of the latest leadership drain
+     * @return drain status
+     */
+    LeaderDrainStatus getLeaderDrainStatus();
+
+    /**
+     * Cancel the running leadership drain
+     */
+    void cancelLeaderDrain();
 }
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.election;
+
+import java.util.List;
+
+/**
+ * Progress of a broker level leadership drain
+ */
+public class LeaderDrainStatus {
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        FINISHED,
+        CANCELLED
+    }
+
+    private State state = State.IDLE;
+    private int total;
+    private int waiting;
+    private int catchingUp;
+    private int transferring;
+    private int transferred;
+    private int failed;
+    private long startTime;
+    private long finishTime;
+    private List<String> failedPartitionGroups;
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public void setWaiting(int waiting) {
+        this.waiting = waiting;
+    }
+
+    public int getCatchingUp() {
+        return catchingUp;
+    }
+
+    public void setCatchingUp(int catchingUp) {
+        this.catchingUp = catchingUp;
+    }
+
+    public int getTransferring() {
+        return transferring;
+    }
+
+    public void setTransferring(int transferring) {
+        this.transferring = transferring;
+    }
+
+    public int getTransferred() {
+        return transferred;
+    }
+
+    public void setTransferred(int transferred) {
+        this.transferred = transferred;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    public void setFinishTime(long finishTime) {
+        this.finishTime = finishTime;
+    }
+
+    public List<String> getFailedPartitionGroups() {
+        return failedPartitionGroups;
+    }
+
+    public void setFailedPartitionGroups(List<String> failedPartitionGroups) {
+        this.failedPartitionGroups = failedPartitionGroups;
+    }
+
+    @Override
+    public String toString() {
+        return "LeaderDrainStatus{" +
+                "state=" + state +
+                ", total=" + total +
+                ", waiting=" + waiting +
+                ", catchingUp=" + catchingUp +
+                ", transferring=" + transferring +
+                ", transferred=" + transferred +
+                ", failed=" + failed +
+                ", startTime=" + startTime +
+                ", finishTime=" + finishTime +
+                '}';
+    }
+}
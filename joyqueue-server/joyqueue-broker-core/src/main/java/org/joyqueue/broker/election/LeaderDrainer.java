@@ -0,0 +1,255 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.election;
+
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move leadership of all partition groups led by local broker to other replicas,
+ * used to drain a broker before restart.
+ *
+ * 1. 按lag选择目标副本，最多同时追赶concurrency个分区组
+ * 2. 目标副本追上后，每次检查批量转移batchSize个分区组的leader
+ * 3. 转移超时或者失败的分区组换一个目标副本重试一次
+ */
+class LeaderDrainer {
+    private static Logger logger = LoggerFactory.getLogger(LeaderDrainer.class);
+
+    private static final int MAX_ATTEMPTS = 2;
+    private static final int MAX_FAILED_REPORT = 100;
+
+    private ElectionManager electionManager;
+    private ElectionConfig electionConfig;
+    private ScheduledExecutorService executor;
+
+    private LinkedList<DrainTask> waitingTasks = new LinkedList<>();
+    private List<DrainTask> inFlightTasks = new LinkedList<>();
+    private List<String> failedPartitionGroups = new LinkedList<>();
+    private ScheduledFuture drainFuture;
+
+    private volatile LeaderDrainStatus.State state = LeaderDrainStatus.State.IDLE;
+    private int total;
+    private int transferred;
+    private int failed;
+    private long startTime;
+    private long finishTime;
+
+    LeaderDrainer(ElectionManager electionManager, ElectionConfig electionConfig, ScheduledExecutorService executor) {
+        this.electionManager = electionManager;
+        this.electionConfig = electionConfig;
+        this.executor = executor;
+    }
+
+    /**
+     * Start draining leaders, nothing happens if a drain is already running
+     * @return drain status
+     */
+    synchronized LeaderDrainStatus drain() {
+        if (state == LeaderDrainStatus.State.RUNNING) {
+            return status();
+        }
+
+        waitingTasks.clear();
+        inFlightTasks.clear();
+        failedPartitionGroups.clear();
+        for (LeaderElection leaderElection : electionManager.getLeaderElections()) {
+            if (leaderElection instanceof RaftLeaderElection && leaderElection.isLeader()) {
+                waitingTasks.add(new DrainTask((RaftLeaderElection) leaderElection));
+            }
+        }
+
+        total = waitingTasks.size();
+        transferred = 0;
+        failed = 0;
+        startTime = SystemClock.now();
+        finishTime = 0;
+        state = LeaderDrainStatus.State.RUNNING;
+
+        logger.info("Start drain leaders, {} partition groups to transfer, concurrency is {}, batch size is {}",
+                total, electionConfig.getDrainLeaderConcurrency(), electionConfig.getDrainLeaderBatchSize());
+
+        drainFuture = executor.scheduleWithFixedDelay(this::checkDrain, 0,
+                electionConfig.getDrainLeaderCheckInterval(), TimeUnit.MILLISECONDS);
+        return status();
+    }
+
+    /**
+     * Cancel a running drain, transfers already sent are not rolled back
+     */
+    synchronized void cancel() {
+        if (state != LeaderDrainStatus.State.RUNNING) {
+            return;
+        }
+        logger.info("Cancel drain leaders, transferred {}/{}", transferred, total);
+        finish(LeaderDrainStatus.State.CANCELLED);
+    }
+
+    boolean isDraining() {
+        return state == LeaderDrainStatus.State.RUNNING;
+    }
+
+    synchronized LeaderDrainStatus status() {
+        int catchingUp = 0;
+        int transferring = 0;
+        for (DrainTask task : inFlightTasks) {
+            if (task.transferTime > 0) {
+                transferring++;
+            } else {
+                catchingUp++;
+            }
+        }
+
+        LeaderDrainStatus status = new LeaderDrainStatus();
+        status.setState(state);
+        status.setTotal(total);
+        status.setWaiting(waitingTasks.size());
+        status.setCatchingUp(catchingUp);
+        status.setTransferring(transferring);
+        status.setTransferred(transferred);
+        status.setFailed(failed);
+        status.setStartTime(startTime);
+        status.setFinishTime(finishTime);
+        status.setFailedPartitionGroups(new ArrayList<>(failedPartitionGroups));
+        return status;
+    }
+
+    private synchronized void checkDrain() {
+        if (state != LeaderDrainStatus.State.RUNNING) {
+            return;
+        }
+
+        try {
+            long now = SystemClock.now();
+            int batch = 0;
+
+            Iterator<DrainTask> iterator = inFlightTasks.iterator();
+            while (iterator.hasNext()) {
+                DrainTask task = iterator.next();
+                if (!task.election.isStarted() || !task.election.isLeader()) {
+                    iterator.remove();
+                    transferred++;
+                    continue;
+                }
+
+                if (task.transferTime > 0) {
+                    if (now - task.transferTime > electionConfig.getTransferLeaderTimeout()
+                            && task.election.state() == ElectionNode.State.LEADER) {
+                        iterator.remove();
+                        retryOrFail(task, "transfer timeout");
+                    }
+                    continue;
+                }
+
+                long lag = task.election.getReplicaGroup().lagLength(task.transferee);
+                if (lag != ElectionNode.INVALID_LAG_LENGTH && lag <= electionConfig.getTransferLeaderMinLag()) {
+                    if (batch >= electionConfig.getDrainLeaderBatchSize()) {
+                        continue;
+                    }
+                    try {
+                        task.election.setLeaderId(task.transferee);
+                        task.transferTime = now;
+                        batch++;
+                    } catch (Exception e) {
+                        logger.warn("Drain leaders, partition group {} transfer leader to {} fail",
+                                task.election.getTopicPartitionGroup(), task.transferee, e);
+                        iterator.remove();
+                        retryOrFail(task, e.getMessage());
+                    }
+                } else if (now - task.catchUpTime > electionConfig.getDrainLeaderCatchUpTimeout()) {
+                    iterator.remove();
+                    retryOrFail(task, "catch up timeout, lag is " + lag);
+                }
+            }
+
+            while (inFlightTasks.size() < electionConfig.getDrainLeaderConcurrency() && !waitingTasks.isEmpty()) {
+                DrainTask task = waitingTasks.poll();
+                if (!task.election.isStarted() || !task.election.isLeader()) {
+                    transferred++;
+                    continue;
+                }
+                task.transferee = task.election.getReplicaGroup().findTheLeastLagCandidate();
+                if (task.transferee == ElectionNode.INVALID_NODE_ID) {
+                    fail(task, "no candidate");
+                    continue;
+                }
+                task.attempts++;
+                task.catchUpTime = now;
+                task.transferTime = 0;
+                inFlightTasks.add(task);
+            }
+
+            if (inFlightTasks.isEmpty() && waitingTasks.isEmpty()) {
+                logger.info("Finish drain leaders, transferred {}/{}, failed {}, elapse {} ms",
+                        transferred, total, failed, now - startTime);
+                finish(LeaderDrainStatus.State.FINISHED);
+            }
+        } catch (Throwable t) {
+            logger.warn("Drain leaders check fail", t);
+        }
+    }
+
+    private void retryOrFail(DrainTask task, String reason) {
+        if (task.attempts < MAX_ATTEMPTS) {
+            logger.info("Drain leaders, partition group {} transfer to {} fail, reason is {}, retry",
+                    task.election.getTopicPartitionGroup(), task.transferee, reason);
+            waitingTasks.add(task);
+        } else {
+            fail(task, reason);
+        }
+    }
+
+    private void fail(DrainTask task, String reason) {
+        logger.warn("Drain leaders, partition group {} transfer leader fail, reason is {}",
+                task.election.getTopicPartitionGroup(), reason);
+        failed++;
+        if (failedPartitionGroups.size() < MAX_FAILED_REPORT) {
+            failedPartitionGroups.add(task.election.getTopicPartitionGroup() + ": " + reason);
+        }
+    }
+
+    private void finish(LeaderDrainStatus.State state) {
+        this.state = state;
+        this.finishTime = SystemClock.now();
+        waitingTasks.clear();
+        inFlightTasks.clear();
+        if (drainFuture != null) {
+            drainFuture.cancel(false);
+            drainFuture = null;
+        }
+    }
+
+    private static class DrainTask {
+        private RaftLeaderElection election;
+        private int transferee = ElectionNode.INVALID_NODE_ID;
+        private int attempts;
+        private long catchUpTime;
+        private long transferTime;
+
+        DrainTask(RaftLeaderElection election) {
+            this.election = election;
+        }
+    }
+}
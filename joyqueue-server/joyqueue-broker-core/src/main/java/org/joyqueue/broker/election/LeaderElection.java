@@ -17,6 +17,7 @@ package org.joyqueue.broker.election;
 
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.election.command.AppendEntriesRequest;
+import org.joyqueue.broker.election.command.InstallSnapshotRequest;
 import org.joyqueue.broker.replication.ReplicaGroup;
 import org.joyqueue.domain.TopicName;
 import org.joyqueue.network.transport.command.Command;
@@ -135,6 +136,15 @@ public abstract class LeaderElection extends Service {
      */
     public abstract Command handleAppendEntriesRequest(AppendEntriesRequest request);
 
+    /**
+     * 处理安装快照请求
+     * @param request 安装快照请求
+     * @return 返回命令
+     */
+    public Command handleInstallSnapshotRequest(InstallSnapshotRequest request) {
+        return replicaGroup.installSnapshot(request);
+    }
+
 	public void stepDown(int term){}
 
     public int getLocalNodeId() {
@@ -19,6 +19,8 @@ import com.alibaba.fastjson.JSON;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.election.command.AppendEntriesRequest;
 import org.joyqueue.broker.election.command.AppendEntriesResponse;
+import org.joyqueue.broker.election.command.InstallSnapshotRequest;
+import org.joyqueue.broker.election.command.InstallSnapshotResponse;
 import org.joyqueue.broker.election.command.TimeoutNowRequest;
 import org.joyqueue.broker.election.command.TimeoutNowResponse;
 import org.joyqueue.broker.election.command.VoteRequest;
@@ -812,6 +814,36 @@ public class RaftLeaderElection extends LeaderElection  {
         }
     }
 
+    /**
+     * 处理安装快照请求，与添加记录请求一样检查任期并重置选举定时器。
+     * 安装快照耗时较长，不持有选举的锁。
+     * @param request 安装快照请求
+     * @return 返回命令
+     */
+    @Override
+    public Command handleInstallSnapshotRequest(InstallSnapshotRequest request) {
+        synchronized (this) {
+            if (!isStarted() || !allNodes.containsKey(request.getLeaderId())) {
+                logger.warn("Partition group {}/node{} receive install snapshot request from {}, election not started " +
+                                "or unknown leader", topicPartitionGroup, localNode, request.getLeaderId());
+                return null;
+            }
+
+            if (request.getTerm() < currentTerm) {
+                logger.info("Partition group {}/node {} receive install snapshot request from {}, current term {} " +
+                                "is bigger than request term {}",
+                        topicPartitionGroup, localNode, request.getLeaderId(), currentTerm, request.getTerm());
+                return new Command(new JoyQueueHeader(Direction.RESPONSE, CommandType.RAFT_INSTALL_SNAPSHOT_RESPONSE),
+                        new InstallSnapshotResponse(currentTerm, false, replicableStore.rightPosition(), localNodeId));
+            }
+
+            checkStepDown(request.getTerm(), request.getLeaderId());
+
+            resetElectionTimer();
+        }
+        return replicaGroup.installSnapshot(request);
+    }
+
     /**
      * 开始新一轮心跳，向Follower节点发送心跳命令，重置心跳定时器
      */
@@ -1287,7 +1319,7 @@ public class RaftLeaderElection extends LeaderElection  {
     }
 
     private boolean shouldRebalanceLeader(int recommendLeader) {
-        if (!electionConfig.enableRebalanceLeader()) {
+        if (!electionConfig.enableRebalanceLeader() || electionManager.isDrainingLeaders()) {
             return false;
         }
         if (!isLeader()) {
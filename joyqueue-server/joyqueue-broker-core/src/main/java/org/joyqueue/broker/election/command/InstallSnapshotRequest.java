@@ -0,0 +1,172 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.election.command;
+
+import org.joyqueue.broker.election.TopicPartitionGroup;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LEADER 向落后太多的副本分块发送快照文件
+ */
+public class InstallSnapshotRequest extends JoyQueuePayload {
+    private TopicPartitionGroup topicPartitionGroup;
+
+    private int term;
+    private int leaderId;
+
+    // left position of the snapshot
+    private long left;
+    // right position of the snapshot, the follower continues replicating from here
+    private long right;
+
+    // file path relative to the partition group directory
+    private String path;
+    // offset of the data in the file
+    private long offset;
+    private ByteBuffer data;
+    // crc32 of the data
+    private long checksum;
+
+    // the first chunk of the snapshot, follower should clear the unfinished snapshot
+    private boolean first;
+    // the last chunk of the snapshot, follower should install the snapshot
+    private boolean done;
+
+    public TopicPartitionGroup getTopicPartitionGroup() {
+        return topicPartitionGroup;
+    }
+
+    public void setTopicPartitionGroup(TopicPartitionGroup topicPartitionGroup) {
+        this.topicPartitionGroup = topicPartitionGroup;
+    }
+
+    public String getTopic() {
+        return topicPartitionGroup.getTopic();
+    }
+
+    public int getPartitionGroup() {
+        return topicPartitionGroup.getPartitionGroupId();
+    }
+
+    public int getTerm() {
+        return term;
+    }
+
+    public void setTerm(int term) {
+        this.term = term;
+    }
+
+    public int getLeaderId() {
+        return leaderId;
+    }
+
+    public void setLeaderId(int leaderId) {
+        this.leaderId = leaderId;
+    }
+
+    public long getLeft() {
+        return left;
+    }
+
+    public void setLeft(long left) {
+        this.left = left;
+    }
+
+    public long getRight() {
+        return right;
+    }
+
+    public void setRight(long right) {
+        this.right = right;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    public void setData(ByteBuffer data) {
+        this.data = data;
+    }
+
+    public int getDataLength() {
+        return data == null ? 0 : data.remaining();
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(long checksum) {
+        this.checksum = checksum;
+    }
+
+    public boolean isFirst() {
+        return first;
+    }
+
+    public void setFirst(boolean first) {
+        this.first = first;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public void setDone(boolean done) {
+        this.done = done;
+    }
+
+    @Override
+    public int type() {
+        return CommandType.RAFT_INSTALL_SNAPSHOT_REQUEST;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("installSnapshotRequest:{")
+                .append("topic:").append(getTopic())
+                .append(", partitionGroup:").append(getPartitionGroup())
+                .append(", term:").append(term)
+                .append(", leaderId:").append(leaderId)
+                .append(", left:").append(left)
+                .append(", right:").append(right)
+                .append(", path:").append(path)
+                .append(", offset:").append(offset)
+                .append(", length:").append(getDataLength())
+                .append(", first:").append(first)
+                .append(", done:").append(done)
+                .append("}").toString();
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.election.command;
+
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.command.JoyQueuePayload;
+
+/**
+ * 安装快照命令的响应
+ */
+public class InstallSnapshotResponse extends JoyQueuePayload {
+    private int term;
+    private boolean success;
+    // write position of the replica
+    private long writePosition;
+    private int replicaId;
+
+    public InstallSnapshotResponse(int term, boolean success, long writePosition, int replicaId) {
+        this.term = term;
+        this.success = success;
+        this.writePosition = writePosition;
+        this.replicaId = replicaId;
+    }
+
+    public int getTerm() {
+        return term;
+    }
+
+    public void setTerm(int term) {
+        this.term = term;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    public void setWritePosition(long writePosition) {
+        this.writePosition = writePosition;
+    }
+
+    public int getReplicaId() {
+        return replicaId;
+    }
+
+    public void setReplicaId(int replicaId) {
+        this.replicaId = replicaId;
+    }
+
+    @Override
+    public int type() {
+        return CommandType.RAFT_INSTALL_SNAPSHOT_RESPONSE;
+    }
+
+    @Override
+    public String toString() {
+        return "installSnapshotResponse:{" +
+                "term:" + term +
+                ", success:" + success +
+                ", writePosition:" + writePosition +
+                ", replicaId:" + replicaId +
+                "}";
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.election.handler;
+
+import com.google.common.base.Preconditions;
+import org.joyqueue.broker.BrokerContext;
+import org.joyqueue.broker.election.ElectionManager;
+import org.joyqueue.broker.election.LeaderElection;
+import org.joyqueue.broker.election.command.InstallSnapshotRequest;
+import org.joyqueue.broker.election.command.InstallSnapshotResponse;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.codec.JoyQueueHeader;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.Direction;
+import org.joyqueue.network.transport.command.Type;
+import org.joyqueue.network.transport.command.handler.CommandHandler;
+import org.joyqueue.network.transport.exception.TransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 处理LEADER发送的安装快照请求
+ */
+public class InstallSnapshotRequestHandler implements CommandHandler, Type {
+    private static Logger logger = LoggerFactory.getLogger(InstallSnapshotRequestHandler.class);
+
+    private ElectionManager electionManager;
+
+    public InstallSnapshotRequestHandler(BrokerContext brokerContext) {
+        Preconditions.checkArgument(brokerContext != null, "broker context is null");
+        Preconditions.checkArgument(brokerContext.getElectionService() != null, "election service is null");
+
+        if (!(brokerContext.getElectionService() instanceof ElectionManager)) {
+            logger.info("Install snapshot request handler, election service {} not election manager",
+                    brokerContext.getElectionService());
+            throw new IllegalArgumentException();
+        }
+        this.electionManager = (ElectionManager) brokerContext.getElectionService();
+    }
+
+    @Override
+    public Command handle(Transport transport, Command command) throws TransportException {
+        if (!(command.getPayload() instanceof InstallSnapshotRequest)) {
+            throw new IllegalArgumentException();
+        }
+
+        InstallSnapshotRequest request = (InstallSnapshotRequest) command.getPayload();
+        if (request == null) {
+            logger.warn("Receive install snapshot request from {}, request is null", transport.remoteAddress());
+            throw new TransportException("Install snapshot request payload is null",
+                    JoyQueueCode.CT_MESSAGE_BODY_NULL.getCode());
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Receive install snapshot request {} from {}", request, transport.remoteAddress());
+        }
+
+        Command response = null;
+        try {
+            LeaderElection leaderElection = electionManager.getLeaderElection(request.getTopic(),
+                    request.getPartitionGroup());
+            if (leaderElection == null) {
+                logger.warn("Handle install snapshot request of topic {} partition group {} election is null",
+                        request.getTopic(), request.getPartitionGroup());
+            } else {
+                response = leaderElection.handleInstallSnapshotRequest(request);
+            }
+        } catch (Exception e) {
+            logger.warn("Handle install snapshot request of topic {} partition group {} fail",
+                    request.getTopic(), request.getPartitionGroup(), e);
+        }
+        if (null == response) {
+            response = new Command(new JoyQueueHeader(Direction.RESPONSE, CommandType.RAFT_INSTALL_SNAPSHOT_RESPONSE),
+                    new InstallSnapshotResponse(0, false, -1L, 0));
+        }
+        return response;
+    }
+
+    @Override
+    public int type() {
+        return CommandType.RAFT_INSTALL_SNAPSHOT_REQUEST;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.election.network.codec;
+
+import io.netty.buffer.ByteBuf;
+import org.joyqueue.broker.election.TopicPartitionGroup;
+import org.joyqueue.broker.election.command.InstallSnapshotRequest;
+import org.joyqueue.network.command.CommandType;
+import org.joyqueue.network.serializer.Serializer;
+import org.joyqueue.network.transport.codec.JoyQueueHeader;
+import org.joyqueue.network.transport.codec.PayloadDecoder;
+import org.joyqueue.network.transport.command.Type;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 安装快照请求解码器
+ */
+public class InstallSnapshotRequestDecoder implements PayloadDecoder<JoyQueueHeader>, Type {
+    @Override
+    public Object decode(final JoyQueueHeader header, final ByteBuf buffer) throws Exception {
+        InstallSnapshotRequest request = new InstallSnapshotRequest();
+
+        String topic = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+        int partitionGroupId = buffer.readInt();
+        request.setTopicPartitionGroup(new TopicPartitionGroup(topic, partitionGroupId));
+        request.setTerm(buffer.readInt());
+        request.setLeaderId(buffer.readInt());
+
+        request.setLeft(buffer.readLong());
+        request.setRight(buffer.readLong());
+
+        request.setPath(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        request.setOffset(buffer.readLong());
+        request.setChecksum(buffer.readLong());
+        request.setFirst(buffer.readBoolean());
+        request.setDone(buffer.readBoolean());
+
+        int length = buffer.readInt();
+        byte[] bytes = new byte[length];
+        buffer.readBytes(bytes, 0, length);
+        request.setData(ByteBuffer.wrap(bytes));
+        return request;
+    }
+
+    @Override
+    public int type() {
+        return CommandType.RAFT_INSTALL_SNAPSHOT_REQUEST;
+    }
+}
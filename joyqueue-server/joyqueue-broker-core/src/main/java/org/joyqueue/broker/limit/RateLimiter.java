@@ -32,4 +32,10 @@ public interface RateLimiter {
     boolean tryAcquireRequire();
 
     boolean releaseRequire();
+
+    /**
+     * 被限流后，预计需要等待的时间
+     * @return wait time in millis
+     */
+    long getWaitTime();
 }
\ No newline at end of file
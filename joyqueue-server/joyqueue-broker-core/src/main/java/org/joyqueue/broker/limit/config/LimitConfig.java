@@ -56,4 +56,32 @@ public class LimitConfig {
     public String getRejectedStrategy() {
         return propertySupplier.getValue(LimitConfigKey.REJECTED_STRATEGY);
     }
+
+    public int getBurst() {
+        return propertySupplier.getValue(LimitConfigKey.BURST);
+    }
+
+    public int getBrokerTps(String type) {
+        return getPrefixValue(LimitConfigKey.BROKER_TPS_PREFIX, type);
+    }
+
+    public int getBrokerTraffic(String type) {
+        return getPrefixValue(LimitConfigKey.BROKER_TRAFFIC_PREFIX, type);
+    }
+
+    public int getTopicTps(String type, String topic) {
+        return getPrefixValue(LimitConfigKey.TOPIC_TPS_PREFIX, type + "." + topic);
+    }
+
+    public int getTopicTraffic(String type, String topic) {
+        return getPrefixValue(LimitConfigKey.TOPIC_TRAFFIC_PREFIX, type + "." + topic);
+    }
+
+    public int getAppWeight(String app) {
+        return getPrefixValue(LimitConfigKey.APP_WEIGHT_PREFIX, app);
+    }
+
+    protected int getPrefixValue(LimitConfigKey key, String suffix) {
+        return PropertySupplier.getValue(propertySupplier, key.getName() + suffix, key.getType(), key.getValue());
+    }
 }
\ No newline at end of file
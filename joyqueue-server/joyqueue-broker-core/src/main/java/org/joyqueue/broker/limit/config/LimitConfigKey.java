@@ -28,9 +28,8 @@ public enum LimitConfigKey implements PropertyDef {
     // 是否启用
     ENABLE("limit.enable", true, PropertyDef.Type.BOOLEAN),
 
-    // 限流后延时
-//    DELAY("limit.delay", LimitConfig.DELAY_DYNAMIC, PropertyDef.Type.INT),
-    DELAY("limit.delay", 1000, PropertyDef.Type.INT),
+    // 限流后延时，默认按令牌桶预计等待时间延时
+    DELAY("limit.delay", LimitConfig.DELAY_DYNAMIC, PropertyDef.Type.INT),
 
     // 最大延时
     MAX_DELAY("limit.delay.max", 1000, PropertyDef.Type.INT),
@@ -42,6 +41,20 @@ public enum LimitConfigKey implements PropertyDef {
     // 拒绝策略
     REJECTED_STRATEGY("limit.rejected.strategy", "delay", PropertyDef.Type.STRING),
 
+    // 令牌桶突发容量，单位毫秒
+    BURST("limit.burst", 1000, PropertyDef.Type.INT),
+
+    // broker级限流，后面拼接限流类型，例如limit.broker.tps.produce
+    BROKER_TPS_PREFIX("limit.broker.tps.", 0, PropertyDef.Type.INT),
+    BROKER_TRAFFIC_PREFIX("limit.broker.traffic.", 0, PropertyDef.Type.INT),
+
+    // topic级限流，后面拼接限流类型和主题，例如limit.topic.tps.produce.test_topic
+    TOPIC_TPS_PREFIX("limit.topic.tps.", 0, PropertyDef.Type.INT),
+    TOPIC_TRAFFIC_PREFIX("limit.topic.traffic.", 0, PropertyDef.Type.INT),
+
+    // 应用权重，百分比，上级限流器拥塞时权重低的应用先被限流，例如limit.app.weight.test_app
+    APP_WEIGHT_PREFIX("limit.app.weight.", 100, PropertyDef.Type.INT),
+
     ;
 
     private String name;
@@ -26,6 +26,8 @@ import org.joyqueue.broker.limit.config.LimitConfig;
 import org.joyqueue.broker.limit.domain.LimitContext;
 import org.joyqueue.broker.limit.support.DefaultRateLimiterManager;
 import org.joyqueue.broker.network.traffic.Traffic;
+import org.joyqueue.broker.network.traffic.TrafficPayload;
+import org.joyqueue.broker.network.traffic.TrafficType;
 import org.joyqueue.network.transport.Transport;
 import org.joyqueue.network.transport.command.Command;
 import org.joyqueue.network.transport.command.handler.filter.CommandHandlerInvocation;
@@ -100,12 +102,38 @@ public class LimitFilter extends AbstractLimitFilter implements BrokerContextAwa
         }
         int delay = config.getDelay();
         if (delay == LimitConfig.DELAY_DYNAMIC) {
-            int dynamicDelay = (int) (1000 - (SystemClock.now() % 1000));
-            delay = Math.min(dynamicDelay, config.getMaxDelay());
+            long waitTime = getWaitTime(request, response);
+            if (waitTime > 0) {
+                delay = (int) Math.max(Math.min(waitTime, config.getMaxDelay()), config.getMinDelay());
+            } else {
+                int dynamicDelay = (int) (1000 - (SystemClock.now() % 1000));
+                delay = Math.min(dynamicDelay, config.getMaxDelay());
+            }
         }
         return delay;
     }
 
+    protected long getWaitTime(Command request, Command response) {
+        TrafficPayload trafficPayload = getResponseTrafficPayload(request, response);
+        if (trafficPayload == null) {
+            trafficPayload = getRequestTrafficPayload(request);
+        }
+        if (!(trafficPayload instanceof TrafficType) || trafficPayload.getTraffic() == null) {
+            return 0;
+        }
+
+        Traffic traffic = trafficPayload.getTraffic();
+        String type = ((TrafficType) trafficPayload).getTrafficType();
+        long waitTime = 0;
+        for (String topic : traffic.getTopics()) {
+            RateLimiter rateLimiter = rateLimiterManager.getRateLimiter(topic, traffic.getApp(), type);
+            if (rateLimiter != null) {
+                waitTime = Math.max(waitTime, rateLimiter.getWaitTime());
+            }
+        }
+        return waitTime;
+    }
+
     @Override
     public void setBrokerContext(BrokerContext brokerContext) {
         this.config = new LimitConfig(brokerContext.getPropertySupplier());
@@ -96,6 +96,10 @@ public abstract class AbstractRateLimiterManager implements RateLimitManager {
         rateLimiterMapper.remove(topic);
     }
 
+    protected void removeAllRateLimiter() {
+        rateLimiterMapper.clear();
+    }
+
     protected abstract LimiterConfig getLimiterConfig(String topic, String app, String type);
 
 }
\ No newline at end of file
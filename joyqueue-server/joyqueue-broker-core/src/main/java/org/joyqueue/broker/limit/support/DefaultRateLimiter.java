@@ -17,33 +17,50 @@ package org.joyqueue.broker.limit.support;
 
 import org.joyqueue.broker.limit.RateLimiter;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * RateLimiter
  *
+ * 基于无锁令牌桶，可以指定上级限流器组成broker -> topic -> app的层级限流，
+ * 需要同时通过本级和所有上级才算获取成功。
+ * weight表示可以使用上级突发容量的比例，上级拥塞时权重低的先被限流。
+ *
  * author: gaohaoxiang
  * date: 2019/5/16
  */
 public class DefaultRateLimiter implements RateLimiter {
 
+    public static final int DEFAULT_BURST = 1000;
+
     private int tps;
     private int traffic;
 
-    private com.google.common.util.concurrent.RateLimiter tpsRateLimiter;
-    private com.google.common.util.concurrent.RateLimiter trafficRateLimiter;
-    private Semaphore semaphore = new Semaphore(1);
+    private TokenBucket tpsBucket;
+    private TokenBucket trafficBucket;
+    private DefaultRateLimiter parent;
+    private double weight = 1.0;
+    private AtomicBoolean required;
 
     public DefaultRateLimiter(int tps) {
-        this.tps = tps;
-        this.tpsRateLimiter = com.google.common.util.concurrent.RateLimiter.create(tps);
+        this(tps, Integer.MAX_VALUE);
     }
 
     public DefaultRateLimiter(int tps, int traffic) {
+        this(tps, traffic, DEFAULT_BURST, null);
+    }
+
+    public DefaultRateLimiter(int tps, int traffic, int burst, DefaultRateLimiter parent) {
         this.tps = tps;
         this.traffic = traffic;
-        this.tpsRateLimiter = com.google.common.util.concurrent.RateLimiter.create(tps);
-        this.trafficRateLimiter = com.google.common.util.concurrent.RateLimiter.create(traffic);
+        this.parent = parent;
+        this.required = new AtomicBoolean();
+        if (tps > 0 && tps != Integer.MAX_VALUE) {
+            this.tpsBucket = new TokenBucket(tps, burst);
+        }
+        if (traffic > 0 && traffic != Integer.MAX_VALUE) {
+            this.trafficBucket = new TokenBucket(traffic, burst);
+        }
     }
 
     @Override
@@ -53,31 +70,98 @@ public class DefaultRateLimiter implements RateLimiter {
 
     @Override
     public boolean tryAcquireTps(int tps) {
+        return tryAcquireTps(tps, 1.0);
+    }
+
+    @Override
+    public boolean tryAcquireTraffic(int traffic) {
+        return tryAcquireTraffic(traffic, 1.0);
+    }
+
+    protected boolean tryAcquireTps(int tps, double credit) {
         if (tps <= 0) {
             return true;
         }
-        return tpsRateLimiter.tryAcquire(Math.min(tps, this.tps));
+        if (tpsBucket != null && !tpsBucket.tryAcquire(tps, credit)) {
+            return false;
+        }
+        if (parent != null && !parent.tryAcquireTps(tps, weight)) {
+            if (tpsBucket != null) {
+                tpsBucket.release(tps);
+            }
+            return false;
+        }
+        return true;
     }
 
-    @Override
-    public boolean tryAcquireTraffic(int traffic) {
+    protected boolean tryAcquireTraffic(int traffic, double credit) {
         if (traffic <= 0) {
             return true;
         }
-        return trafficRateLimiter.tryAcquire(Math.min(traffic, this.traffic));
+        if (trafficBucket != null && !trafficBucket.tryAcquire(traffic, credit)) {
+            return false;
+        }
+        if (parent != null && !parent.tryAcquireTraffic(traffic, weight)) {
+            if (trafficBucket != null) {
+                trafficBucket.release(traffic);
+            }
+            return false;
+        }
+        return true;
     }
 
     @Override
     public boolean tryAcquireRequire() {
-        return semaphore.tryAcquire();
+        if (required == null) {
+            return true;
+        }
+        return required.compareAndSet(false, true);
     }
 
     @Override
     public boolean releaseRequire() {
-        semaphore.release();
+        if (required != null) {
+            required.set(false);
+        }
         return true;
     }
 
+    @Override
+    public long getWaitTime() {
+        long waitTime = 0;
+        if (tpsBucket != null) {
+            waitTime = tpsBucket.getWaitTime();
+        }
+        if (trafficBucket != null) {
+            waitTime = Math.max(waitTime, trafficBucket.getWaitTime());
+        }
+        if (parent != null) {
+            waitTime = Math.max(waitTime, parent.getWaitTime());
+        }
+        return waitTime;
+    }
+
+    /**
+     * Disable the concurrent request limit, used by limiters without their own policy
+     */
+    public void disableRequire() {
+        this.required = null;
+    }
+
+    public void setWeight(double weight) {
+        if (weight > 0 && weight <= 1.0) {
+            this.weight = weight;
+        }
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public DefaultRateLimiter getParent() {
+        return parent;
+    }
+
     public int getTps() {
         return tps;
     }
@@ -85,4 +169,4 @@ public class DefaultRateLimiter implements RateLimiter {
     public int getTraffic() {
         return traffic;
     }
-}
\ No newline at end of file
+}
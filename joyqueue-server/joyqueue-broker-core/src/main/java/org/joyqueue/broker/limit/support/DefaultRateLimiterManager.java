@@ -15,20 +15,28 @@
  */
 package org.joyqueue.broker.limit.support;
 
+import org.apache.commons.lang3.StringUtils;
 import org.joyqueue.broker.BrokerContext;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.limit.LimitType;
+import org.joyqueue.broker.limit.RateLimiter;
+import org.joyqueue.broker.limit.config.LimitConfig;
+import org.joyqueue.broker.limit.config.LimitConfigKey;
 import org.joyqueue.broker.limit.config.LimiterConfig;
+import org.joyqueue.domain.Config;
 import org.joyqueue.domain.Consumer;
 import org.joyqueue.domain.Producer;
 import org.joyqueue.domain.TopicName;
 import org.joyqueue.event.MetaEvent;
+import org.joyqueue.nsr.event.AddConfigEvent;
 import org.joyqueue.nsr.event.AddConsumerEvent;
 import org.joyqueue.nsr.event.AddProducerEvent;
 import org.joyqueue.nsr.event.AddTopicEvent;
+import org.joyqueue.nsr.event.RemoveConfigEvent;
 import org.joyqueue.nsr.event.RemoveConsumerEvent;
 import org.joyqueue.nsr.event.RemoveProducerEvent;
 import org.joyqueue.nsr.event.RemoveTopicEvent;
+import org.joyqueue.nsr.event.UpdateConfigEvent;
 import org.joyqueue.nsr.event.UpdateConsumerEvent;
 import org.joyqueue.nsr.event.UpdateProducerEvent;
 import org.joyqueue.nsr.event.UpdateTopicEvent;
@@ -36,6 +44,10 @@ import org.joyqueue.toolkit.concurrent.EventListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * DefaultRateLimiterManager
  *
@@ -47,12 +59,114 @@ public class DefaultRateLimiterManager extends AbstractRateLimiterManager implem
     protected static final Logger logger = LoggerFactory.getLogger(DefaultRateLimiterManager.class);
 
     private ClusterManager clusterManager;
+    private LimitConfig config;
+
+    private ConcurrentMap<String /** type **/, Optional<DefaultRateLimiter>> brokerRateLimiterMapper = new ConcurrentHashMap<>();
+    private ConcurrentMap<String /** topic **/, ConcurrentMap<String /** type **/, Optional<DefaultRateLimiter>>> topicRateLimiterMapper = new ConcurrentHashMap<>();
 
     public DefaultRateLimiterManager(BrokerContext brokerContext) {
         this.clusterManager = brokerContext.getClusterManager();
+        this.config = new LimitConfig(brokerContext.getPropertySupplier());
         this.clusterManager.addListener(this);
     }
 
+    @Override
+    protected RateLimiter newRateLimiter(String topic, String app, String type) {
+        DefaultRateLimiter topicRateLimiter = getTopicRateLimiter(topic, type);
+        LimiterConfig limiterConfig = getLimiterConfig(topic, app, type);
+        if (topicRateLimiter == null) {
+            if (limiterConfig == null) {
+                return super.newRateLimiter(topic, app, type);
+            }
+            return newRateLimiter(topic, app, type, limiterConfig);
+        }
+
+        DefaultRateLimiter rateLimiter;
+        if (limiterConfig == null) {
+            rateLimiter = new DefaultRateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, config.getBurst(), topicRateLimiter);
+            rateLimiter.disableRequire();
+        } else {
+            rateLimiter = new DefaultRateLimiter(limiterConfig.getTps(), limiterConfig.getTraffic(), config.getBurst(), topicRateLimiter);
+        }
+        rateLimiter.setWeight(config.getAppWeight(app) / 100.0);
+        return rateLimiter;
+    }
+
+    @Override
+    protected RateLimiter newRateLimiter(String topic, String app, String type, LimiterConfig limiterConfig) {
+        return new DefaultRateLimiter(limiterConfig.getTps(), limiterConfig.getTraffic(), config.getBurst(), null);
+    }
+
+    protected DefaultRateLimiter getTopicRateLimiter(String topic, String type) {
+        ConcurrentMap<String, Optional<DefaultRateLimiter>> typeMapper =
+                topicRateLimiterMapper.computeIfAbsent(topic, key -> new ConcurrentHashMap<>());
+        return typeMapper.computeIfAbsent(type, key -> {
+            DefaultRateLimiter brokerRateLimiter = getBrokerRateLimiter(type);
+            int tps = config.getTopicTps(type, topic);
+            int traffic = config.getTopicTraffic(type, topic);
+            if (tps <= 0 && traffic <= 0) {
+                return Optional.ofNullable(brokerRateLimiter);
+            }
+            logger.info("create topic rate limiter, topic: {}, type: {}, tps: {}, traffic: {}", topic, type, tps, traffic);
+            DefaultRateLimiter rateLimiter = new DefaultRateLimiter(tps, traffic, config.getBurst(), brokerRateLimiter);
+            rateLimiter.disableRequire();
+            return Optional.of(rateLimiter);
+        }).orElse(null);
+    }
+
+    protected DefaultRateLimiter getBrokerRateLimiter(String type) {
+        return brokerRateLimiterMapper.computeIfAbsent(type, key -> {
+            int tps = config.getBrokerTps(type);
+            int traffic = config.getBrokerTraffic(type);
+            if (tps <= 0 && traffic <= 0) {
+                return Optional.empty();
+            }
+            logger.info("create broker rate limiter, type: {}, tps: {}, traffic: {}", type, tps, traffic);
+            DefaultRateLimiter rateLimiter = new DefaultRateLimiter(tps, traffic, config.getBurst(), null);
+            rateLimiter.disableRequire();
+            return Optional.of(rateLimiter);
+        }).orElse(null);
+    }
+
+    @Override
+    protected void removeTopicRateLimiter(String topic) {
+        topicRateLimiterMapper.remove(topic);
+        super.removeTopicRateLimiter(topic);
+    }
+
+    @Override
+    protected void removeAllRateLimiter() {
+        brokerRateLimiterMapper.clear();
+        topicRateLimiterMapper.clear();
+        super.removeAllRateLimiter();
+    }
+
+    /**
+     * 限流配置变更后删除受影响的限流器，下次获取时按新配置创建。
+     * broker级配置是所有限流器的上级，突发容量和应用权重在创建时读取，变更时全部重建
+     */
+    protected void onConfigChanged(Config config) {
+        String key = config.getKey();
+        if (StringUtils.isBlank(key)) {
+            return;
+        }
+        if (key.startsWith(LimitConfigKey.TOPIC_TPS_PREFIX.getName()) || key.startsWith(LimitConfigKey.TOPIC_TRAFFIC_PREFIX.getName())) {
+            // 格式为：[prefix][type].[topic]
+            String suffix = key.startsWith(LimitConfigKey.TOPIC_TPS_PREFIX.getName()) ?
+                    key.substring(LimitConfigKey.TOPIC_TPS_PREFIX.getName().length()) :
+                    key.substring(LimitConfigKey.TOPIC_TRAFFIC_PREFIX.getName().length());
+            int index = suffix.indexOf('.');
+            if (index > 0 && index < suffix.length() - 1) {
+                logger.info("topic rate limit config changed, key: {}, value: {}", key, config.getValue());
+                removeTopicRateLimiter(suffix.substring(index + 1));
+            }
+        } else if (key.startsWith(LimitConfigKey.BROKER_TPS_PREFIX.getName()) || key.startsWith(LimitConfigKey.BROKER_TRAFFIC_PREFIX.getName())
+                || key.startsWith(LimitConfigKey.APP_WEIGHT_PREFIX.getName()) || key.equals(LimitConfigKey.BURST.getName())) {
+            logger.info("broker rate limit config changed, key: {}, value: {}", key, config.getValue());
+            removeAllRateLimiter();
+        }
+    }
+
     @Override
     protected LimiterConfig getLimiterConfig(String topic, String app, String type) {
         Integer tps = null;
@@ -139,6 +253,18 @@ public class DefaultRateLimiterManager extends AbstractRateLimiterManager implem
                 removeTopicRateLimiter(topicEvent.getTopic().getName().getFullName());
                 break;
             }
+            case ADD_CONFIG: {
+                onConfigChanged(((AddConfigEvent) event).getConfig());
+                break;
+            }
+            case UPDATE_CONFIG: {
+                onConfigChanged(((UpdateConfigEvent) event).getNewConfig());
+                break;
+            }
+            case REMOVE_CONFIG: {
+                onConfigChanged(((RemoveConfigEvent) event).getConfig());
+                break;
+            }
         }
     }
 }
\ No newline at end of file
@@ -49,4 +49,9 @@ public class NoneRateLimiter implements RateLimiter {
     public boolean releaseRequire() {
         return true;
     }
+
+    @Override
+    public long getWaitTime() {
+        return 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free token bucket
+ *
+ * 以GCRA方式实现，只维护一个理论到达时间，通过CAS更新。
+ * burst为桶容量对应的时间，空闲时最多累积burst时长的令牌。
+ */
+public class TokenBucket {
+
+    private final int rate;
+    private final double nanosPerPermit;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    public TokenBucket(int rate, int burstMillis) {
+        this.rate = rate;
+        this.nanosPerPermit = (double) TimeUnit.SECONDS.toNanos(1) / rate;
+        this.burstNanos = TimeUnit.MILLISECONDS.toNanos(burstMillis);
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire(int permits) {
+        return tryAcquire(permits, 1.0);
+    }
+
+    /**
+     * Acquire permits if the bucket is not in debt beyond the given share of its burst.
+     * A request larger than the bucket is admitted when the bucket is full and paid back later.
+     *
+     * @param permits permits
+     * @param credit share of burst the caller may use, (0, 1]
+     * @return acquired
+     */
+    public boolean tryAcquire(int permits, double credit) {
+        if (permits <= 0) {
+            return true;
+        }
+        long cost = cost(permits);
+        long tolerance = (long) (burstNanos * credit);
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrivalTime.get();
+            if (current - now > tolerance) {
+                return false;
+            }
+            long next = Math.max(current, now) + cost;
+            if (theoreticalArrivalTime.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return permits acquired but not used, e.g. rejected by a parent bucket
+     * @param permits permits
+     */
+    public void release(int permits) {
+        if (permits <= 0) {
+            return;
+        }
+        theoreticalArrivalTime.addAndGet(-cost(permits));
+    }
+
+    /**
+     * Time to wait until the bucket admits requests again
+     * @return wait time in millis
+     */
+    public long getWaitTime() {
+        long wait = theoreticalArrivalTime.get() - System.nanoTime() - burstNanos;
+        return wait <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait) + 1;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    protected long cost(int permits) {
+        return (long) (Math.min(permits, rate) * nanosPerPermit);
+    }
+}
@@ -126,7 +126,7 @@ public class BrokerManageServiceManager extends Service {
 
     protected BrokerManageService newBrokerManageService() {
         ConnectionManageService connectionManageService = new DefaultConnectionManageService(brokerMonitor.getSessionManager());
-        DefaultMessageManageService messageManageService = new DefaultMessageManageService(consume, storeManagementService, messageConvertSupport);
+        DefaultMessageManageService messageManageService = new DefaultMessageManageService(consume, storeManagementService, storeService, messageConvertSupport);
         DefaultStoreManageService storeManageService = new DefaultStoreManageService(storeManagementService);
         DefaultConsumerManageService consumerManageService = new DefaultConsumerManageService(consume, storeManagementService, storeService, clusterManager,brokerMonitor);
         DefaultCoordinatorManageService coordinatorManageService = new DefaultCoordinatorManageService(coordinatorService);
@@ -15,6 +15,8 @@
  */
 package org.joyqueue.broker.manage.service;
 
+import org.joyqueue.broker.election.LeaderDrainStatus;
+
 public interface ElectionManageService {
 
     /**
@@ -54,4 +56,21 @@ public interface ElectionManageService {
      * @return
      */
     boolean addReplicaTask(String topic, int partitionGroup, int replicaId);
+
+    /**
+     * 转移本节点所有分区组的leader
+     * @return 转移进度
+     */
+    LeaderDrainStatus drainLeaders();
+
+    /**
+     * 查询leader转移进度
+     * @return 转移进度
+     */
+    LeaderDrainStatus getLeaderDrainStatus();
+
+    /**
+     * 取消leader转移
+     */
+    void cancelLeaderDrain();
 }
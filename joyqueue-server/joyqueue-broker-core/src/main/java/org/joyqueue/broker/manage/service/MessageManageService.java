@@ -16,6 +16,7 @@
 package org.joyqueue.broker.manage.service;
 
 import org.joyqueue.monitor.BrokerMessageInfo;
+import org.joyqueue.monitor.BrokerMessageSearchInfo;
 
 import java.util.List;
 
@@ -68,4 +69,23 @@ public interface MessageManageService {
      * @return 消息列表
      */
     List<BrokerMessageInfo> viewMessage(String topic, String app, int count);
+
+    /**
+     * 在broker端检索分区消息，只返回命中条件的消息
+     * 单次检索的消息数有上限，未检索完时从返回的nextIndex继续
+     *
+     * @param topic 主题
+     * @param app 应用
+     * @param partition 分区
+     * @param index 起始索引，小于0时按startTime定位
+     * @param startTime 开始时间，小于等于0不限制
+     * @param endTime 结束时间，小于等于0不限制
+     * @param businessId 业务id，为空不限制
+     * @param property 属性，key或key=value，为空不限制
+     * @param keyword 消息体包含的字符串，为空不限制
+     * @param count 最多返回的消息数
+     * @return 检索结果
+     */
+    BrokerMessageSearchInfo searchPartitionMessage(String topic, String app, short partition, long index, long startTime, long endTime,
+                                                   String businessId, String property, String keyword, int count);
 }
\ No newline at end of file
@@ -15,6 +15,7 @@
  */
 package org.joyqueue.broker.manage.service.support;
 
+import org.joyqueue.broker.election.LeaderDrainStatus;
 import org.joyqueue.broker.manage.service.BrokerManageService;
 import org.joyqueue.broker.manage.service.ConnectionManageService;
 import org.joyqueue.broker.manage.service.ConsumerManageService;
@@ -28,6 +29,7 @@ import org.joyqueue.manage.PartitionGroupMetric;
 import org.joyqueue.manage.PartitionMetric;
 import org.joyqueue.manage.TopicMetric;
 import org.joyqueue.monitor.BrokerMessageInfo;
+import org.joyqueue.monitor.BrokerMessageSearchInfo;
 import org.joyqueue.monitor.PartitionAckMonitorInfo;
 import org.joyqueue.toolkit.io.Directory;
 import org.slf4j.Logger;
@@ -127,6 +129,12 @@ public class DefaultBrokerManageService implements BrokerManageService {
         return messageManageService.getPartitionMessage(topic, app, partition, index, count);
     }
 
+    @Override
+    public BrokerMessageSearchInfo searchPartitionMessage(String topic, String app, short partition, long index, long startTime, long endTime,
+                                                          String businessId, String property, String keyword, int count) {
+        return messageManageService.searchPartitionMessage(topic, app, partition, index, startTime, endTime, businessId, property, keyword, count);
+    }
+
     @Override
     public List<BrokerMessageInfo> getPendingMessage(String topic, String app, int count) {
         return messageManageService.getPendingMessage(topic, app, count);
@@ -258,6 +266,21 @@ public class DefaultBrokerManageService implements BrokerManageService {
         return electionManageService.addReplicaTask(topic, partitionGroup, replicaId);
     }
 
+    @Override
+    public LeaderDrainStatus drainLeaders() {
+        return electionManageService.drainLeaders();
+    }
+
+    @Override
+    public LeaderDrainStatus getLeaderDrainStatus() {
+        return electionManageService.getLeaderDrainStatus();
+    }
+
+    @Override
+    public void cancelLeaderDrain() {
+        electionManageService.cancelLeaderDrain();
+    }
+
     @Override
     public Directory storeTreeView(boolean recursive) {
         return storeManageService.storeTreeView(recursive);
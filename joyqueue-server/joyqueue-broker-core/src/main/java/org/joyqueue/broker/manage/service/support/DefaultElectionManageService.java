@@ -16,6 +16,7 @@
 package org.joyqueue.broker.manage.service.support;
 
 import org.joyqueue.broker.election.ElectionService;
+import org.joyqueue.broker.election.LeaderDrainStatus;
 import org.joyqueue.broker.election.LeaderElection;
 import org.joyqueue.broker.election.RaftLeaderElection;
 import org.joyqueue.broker.manage.service.ElectionManageService;
@@ -56,4 +57,19 @@ public class DefaultElectionManageService implements ElectionManageService {
         }
         return leaderElection.getReplicaGroup().addReplicaTask(replicaId);
     }
+
+    @Override
+    public LeaderDrainStatus drainLeaders() {
+        return electionService.drainLeaders();
+    }
+
+    @Override
+    public LeaderDrainStatus getLeaderDrainStatus() {
+        return electionService.getLeaderDrainStatus();
+    }
+
+    @Override
+    public void cancelLeaderDrain() {
+        electionService.cancelLeaderDrain();
+    }
 }
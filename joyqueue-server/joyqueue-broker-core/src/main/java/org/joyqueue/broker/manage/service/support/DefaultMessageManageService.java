@@ -18,6 +18,7 @@ package org.joyqueue.broker.manage.service.support;
 import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.joyqueue.broker.buffer.Serializer;
 import org.joyqueue.broker.consumer.Consume;
 import org.joyqueue.broker.consumer.MessageConvertSupport;
@@ -26,11 +27,16 @@ import org.joyqueue.broker.manage.service.MessageManageService;
 import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.SourceType;
 import org.joyqueue.monitor.BrokerMessageInfo;
+import org.joyqueue.monitor.BrokerMessageSearchInfo;
 import org.joyqueue.network.session.Consumer;
+import org.joyqueue.store.PartitionGroupStore;
 import org.joyqueue.store.StoreManagementService;
+import org.joyqueue.store.StoreService;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * MessageManageService
@@ -40,13 +46,20 @@ import java.util.List;
  */
 public class DefaultMessageManageService implements MessageManageService {
 
+    // 检索时每次从存储读取的消息数
+    private static final int SEARCH_BATCH_SIZE = 100;
+    // 单次检索最多扫描的消息数
+    private static final int SEARCH_MAX_SCAN = 10000;
+
     private Consume consume;
     private StoreManagementService storeManagementService;
+    private StoreService storeService;
     private MessageConvertSupport messageConvertSupport;
 
-    public DefaultMessageManageService(Consume consume, StoreManagementService storeManagementService, MessageConvertSupport messageConvertSupport) {
+    public DefaultMessageManageService(Consume consume, StoreManagementService storeManagementService, StoreService storeService, MessageConvertSupport messageConvertSupport) {
         this.consume = consume;
         this.storeManagementService = storeManagementService;
+        this.storeService = storeService;
         this.messageConvertSupport = messageConvertSupport;
     }
 
@@ -172,4 +185,108 @@ public class DefaultMessageManageService implements MessageManageService {
         }
         return getLastMessage(topic, app, count);
     }
+
+    @Override
+    public BrokerMessageSearchInfo searchPartitionMessage(String topic, String app, short partition, long index, long startTime, long endTime,
+                                                          String businessId, String property, String keyword, int count) {
+        try {
+            StoreManagementService.PartitionMetric partitionMetric = null;
+            int partitionGroup = -1;
+            StoreManagementService.TopicMetric topicMetric = storeManagementService.topicMetric(topic);
+            for (StoreManagementService.PartitionGroupMetric partitionGroupMetric : topicMetric.getPartitionGroupMetrics()) {
+                for (StoreManagementService.PartitionMetric metric : partitionGroupMetric.getPartitionMetrics()) {
+                    if (metric.getPartition() == partition) {
+                        partitionMetric = metric;
+                        partitionGroup = partitionGroupMetric.getPartitionGroup();
+                    }
+                }
+            }
+            if (partitionMetric == null) {
+                throw new ManageException(String.format("partition not exist, topic: %s, partition: %s", topic, partition));
+            }
+
+            // 按时间通过索引定位起始位置，跳过开始时间之前的消息
+            if (index < 0 && startTime > 0) {
+                PartitionGroupStore store = storeService.getStore(topic, partitionGroup);
+                index = store.getIndex(partition, startTime);
+            }
+            index = Math.max(index, partitionMetric.getLeftIndex());
+
+            String[] propertyMatch = StringUtils.isBlank(property) ? null : StringUtils.split(property, "=", 2);
+            List<BrokerMessageInfo> result = Lists.newArrayListWithCapacity(count);
+            long nextIndex = index;
+            long rightIndex = partitionMetric.getRightIndex();
+            int scanned = 0;
+            boolean finished = false;
+
+            while (result.size() < count && scanned < SEARCH_MAX_SCAN && !finished) {
+                if (nextIndex >= rightIndex) {
+                    finished = true;
+                    break;
+                }
+                byte[][] bytes = storeManagementService.readMessages(topic, partition, nextIndex, SEARCH_BATCH_SIZE);
+                if (ArrayUtils.isEmpty(bytes)) {
+                    finished = true;
+                    break;
+                }
+                for (byte[] message : bytes) {
+                    BrokerMessage brokerMessage = Serializer.readBrokerMessage(ByteBuffer.wrap(message));
+                    if (endTime > 0 && brokerMessage.getStartTime() + brokerMessage.getStoreTime() > endTime) {
+                        finished = true;
+                        break;
+                    }
+                    nextIndex = brokerMessage.getMsgIndexNo() + (brokerMessage.isBatch() ? brokerMessage.getFlag() : 1);
+                    scanned++;
+
+                    List<BrokerMessage> brokerMessages = messageConvertSupport.convert(Lists.newArrayList(brokerMessage), SourceType.INTERNAL.getValue());
+                    for (BrokerMessage convertedMessage : brokerMessages) {
+                        if (isMatch(convertedMessage, startTime, businessId, propertyMatch, keyword)) {
+                            result.add(new BrokerMessageInfo(convertedMessage));
+                        }
+                    }
+                    if (result.size() >= count || scanned >= SEARCH_MAX_SCAN) {
+                        break;
+                    }
+                }
+            }
+
+            BrokerMessageSearchInfo searchInfo = new BrokerMessageSearchInfo();
+            searchInfo.setPartition(partition);
+            searchInfo.setIndex(index);
+            searchInfo.setNextIndex(nextIndex);
+            searchInfo.setRightIndex(rightIndex);
+            searchInfo.setFinished(finished);
+            searchInfo.setMessages(result);
+            return searchInfo;
+        } catch (ManageException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ManageException(e);
+        }
+    }
+
+    protected boolean isMatch(BrokerMessage message, long startTime, String businessId, String[] propertyMatch, String keyword) {
+        if (startTime > 0 && message.getStartTime() + message.getStoreTime() < startTime) {
+            return false;
+        }
+        if (StringUtils.isNotBlank(businessId) && !businessId.equals(message.getBusinessId())) {
+            return false;
+        }
+        if (propertyMatch != null) {
+            Map<String, String> attributes = message.getAttributes();
+            if (attributes == null || !attributes.containsKey(propertyMatch[0])) {
+                return false;
+            }
+            if (propertyMatch.length > 1 && !propertyMatch[1].equals(attributes.get(propertyMatch[0]))) {
+                return false;
+            }
+        }
+        if (StringUtils.isNotEmpty(keyword)) {
+            byte[] body = message.getDecompressedBody();
+            if (body == null || !new String(body, StandardCharsets.UTF_8).contains(keyword)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
\ No newline at end of file
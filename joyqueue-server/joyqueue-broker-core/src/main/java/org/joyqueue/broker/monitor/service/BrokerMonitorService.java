@@ -15,6 +15,8 @@
  */
 package org.joyqueue.broker.monitor.service;
 
+import org.joyqueue.monitor.BrokerStatsMonitorInfo;
+
 /**
  * broker监控服务
  *
@@ -24,4 +26,10 @@ package org.joyqueue.broker.monitor.service;
 public interface BrokerMonitorService extends BrokerMonitorInternalService, ConnectionMonitorService, ConsumerMonitorService, ProducerMonitorService,
         TopicMonitorService, PartitionMonitorService, CoordinatorMonitorService, ArchiveMonitorService, MetadataMonitorService {
 
+    /**
+     * 获取broker上所有主题、应用的生产消费监控信息，一次请求返回全部
+     *
+     * @return 生产消费监控信息
+     */
+    BrokerStatsMonitorInfo getBrokerStats();
 }
\ No newline at end of file
@@ -39,6 +39,13 @@ public interface ConsumerMonitorService {
      */
     Pager<ConsumerMonitorInfo> getConsumerInfos(int page, int pageSize);
 
+    /**
+     * 获取broker上所有消费监控信息
+     *
+     * @return 消费监控信息列表
+     */
+    List<ConsumerMonitorInfo> getAllConsumerInfos();
+
     /**
      * 获取主题下应用的消费监控信息
      *
@@ -39,6 +39,13 @@ public interface ProducerMonitorService {
      */
     Pager<ProducerMonitorInfo> getProduceInfos(int page, int pageSize);
 
+    /**
+     * 获取broker上所有生产监控信息
+     *
+     * @return 生产监控信息列表
+     */
+    List<ProducerMonitorInfo> getAllProduceInfos();
+
     /**
      * 获取主题下应用的生产监控信息
      *
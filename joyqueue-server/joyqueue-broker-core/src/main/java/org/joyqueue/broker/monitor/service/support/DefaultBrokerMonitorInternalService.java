@@ -118,6 +118,7 @@ public class DefaultBrokerMonitorInternalService implements BrokerMonitorInterna
         storeMonitorInfo.setTotalSpace(Format.formatSize(storeManagementService.totalSpace()));
         storeMonitorInfo.setFreeSpaceBytes(storeManagementService.freeSpace());
         storeMonitorInfo.setTotalSpaceBytes(storeManagementService.totalSpace());
+        storeMonitorInfo.setDisks(storeService.diskMonitorInfo());
 
         NameServerMonitorInfo nameServerMonitorInfo = new NameServerMonitorInfo();
         nameServerMonitorInfo.setStarted(nameService.isStarted());
@@ -40,6 +40,7 @@ import org.joyqueue.monitor.ArchiveMonitorInfo;
 import org.joyqueue.monitor.BrokerMonitorInfo;
 import org.joyqueue.monitor.BrokerMonitorInfoExt;
 import org.joyqueue.monitor.BrokerStartupInfo;
+import org.joyqueue.monitor.BrokerStatsMonitorInfo;
 import org.joyqueue.monitor.ConnectionMonitorDetailInfo;
 import org.joyqueue.monitor.ConnectionMonitorInfo;
 import org.joyqueue.monitor.ConsumerMonitorInfo;
@@ -52,6 +53,7 @@ import org.joyqueue.monitor.ProducerPartitionGroupMonitorInfo;
 import org.joyqueue.monitor.ProducerPartitionMonitorInfo;
 import org.joyqueue.monitor.TopicMonitorInfo;
 import org.joyqueue.response.BooleanResponse;
+import org.joyqueue.toolkit.time.SystemClock;
 import org.joyqueue.toolkit.vm.GCEventListener;
 
 import java.util.List;
@@ -154,6 +156,11 @@ public class DefaultBrokerMonitorService implements BrokerMonitorService {
         return consumerMonitorService.getConsumerInfos(page, pageSize);
     }
 
+    @Override
+    public List<ConsumerMonitorInfo> getAllConsumerInfos() {
+        return consumerMonitorService.getAllConsumerInfos();
+    }
+
     @Override
     public ConsumerMonitorInfo getConsumerInfoByTopicAndApp(String topic, String app) {
         return consumerMonitorService.getConsumerInfoByTopicAndApp(topic, app);
@@ -224,6 +231,20 @@ public class DefaultBrokerMonitorService implements BrokerMonitorService {
         return producerMonitorService.getProduceInfos(page, pageSize);
     }
 
+    @Override
+    public List<ProducerMonitorInfo> getAllProduceInfos() {
+        return producerMonitorService.getAllProduceInfos();
+    }
+
+    @Override
+    public BrokerStatsMonitorInfo getBrokerStats() {
+        BrokerStatsMonitorInfo brokerStatsMonitorInfo = new BrokerStatsMonitorInfo();
+        brokerStatsMonitorInfo.setTimestamp(SystemClock.now());
+        brokerStatsMonitorInfo.setProducers(producerMonitorService.getAllProduceInfos());
+        brokerStatsMonitorInfo.setConsumers(consumerMonitorService.getAllConsumerInfos());
+        return brokerStatsMonitorInfo;
+    }
+
     @Override
     public ProducerMonitorInfo getProducerInfoByTopicAndApp(String topic, String app) {
         return producerMonitorService.getProducerInfoByTopicAndApp(topic, app);
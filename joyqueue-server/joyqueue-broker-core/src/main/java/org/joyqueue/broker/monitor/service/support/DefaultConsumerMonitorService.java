@@ -72,8 +72,18 @@ public class DefaultConsumerMonitorService implements ConsumerMonitorService {
         int startIndex = (page - 1) * pageSize;
         int endIndex = startIndex + pageSize;
         int index = 0;
-        List<ConsumerMonitorInfo> data = Lists.newArrayListWithCapacity(pageSize);
+        List<ConsumerMonitorInfo> data = getAllConsumerInfos();
 
+        Collections.sort(data, (o1, o2) -> {
+            return Long.compare(o2.getPending().getCount(), o1.getPending().getCount());
+        });
+
+        return new Pager<>(page, pageSize, total, data);
+    }
+
+    @Override
+    public List<ConsumerMonitorInfo> getAllConsumerInfos() {
+        List<ConsumerMonitorInfo> data = Lists.newArrayList();
         for (TopicConfig topic : clusterManager.getTopics()) {
             List<org.joyqueue.domain.Consumer> consumers = clusterManager.getLocalConsumersByTopic(topic.getName());
             for (org.joyqueue.domain.Consumer consumer : consumers) {
@@ -81,12 +91,7 @@ public class DefaultConsumerMonitorService implements ConsumerMonitorService {
                 data.add(convertConsumerMonitorInfo(appStat.getConsumerStat()));
             }
         }
-
-        Collections.sort(data, (o1, o2) -> {
-            return Long.compare(o2.getPending().getCount(), o1.getPending().getCount());
-        });
-
-        return new Pager<>(page, pageSize, total, data);
+        return data;
     }
 
     @Override
@@ -58,8 +58,18 @@ public class DefaultProducerMonitorService implements ProducerMonitorService {
         int startIndex = (page - 1) * pageSize;
         int endIndex = startIndex + pageSize;
         int index = 0;
-        List<ProducerMonitorInfo> data = Lists.newArrayListWithCapacity(pageSize);
+        List<ProducerMonitorInfo> data = getAllProduceInfos();
 
+        Collections.sort(data, (o1, o2) -> {
+            return Long.compare(o2.getEnQueue().getCount(), o1.getEnQueue().getCount());
+        });
+
+        return new Pager<>(page, pageSize, total, data);
+    }
+
+    @Override
+    public List<ProducerMonitorInfo> getAllProduceInfos() {
+        List<ProducerMonitorInfo> data = Lists.newArrayList();
         for (TopicConfig topic : clusterManager.getTopics()) {
             List<org.joyqueue.domain.Producer> producers = clusterManager.getLocalProducersByTopic(topic.getName());
             for (org.joyqueue.domain.Producer producer : producers) {
@@ -67,12 +77,7 @@ public class DefaultProducerMonitorService implements ProducerMonitorService {
                 data.add(convertProducerMonitorInfo(appStat.getProducerStat()));
             }
         }
-
-        Collections.sort(data, (o1, o2) -> {
-            return Long.compare(o2.getEnQueue().getCount(), o1.getEnQueue().getCount());
-        });
-
-        return new Pager<>(page, pageSize, total, data);
+        return data;
     }
 
     @Override
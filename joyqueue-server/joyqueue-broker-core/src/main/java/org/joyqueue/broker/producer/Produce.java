@@ -17,6 +17,7 @@ package org.joyqueue.broker.producer;
 
 import org.joyqueue.domain.QosLevel;
 import org.joyqueue.exception.JoyQueueException;
+import org.joyqueue.message.BrokerCommit;
 import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.message.JoyQueueLog;
 import org.joyqueue.network.session.Producer;
@@ -25,6 +26,7 @@ import org.joyqueue.store.WriteResult;
 import org.joyqueue.toolkit.concurrent.EventListener;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface Produce {
 
@@ -79,6 +81,16 @@ public interface Produce {
      */
     TransactionId putTransactionMessage(Producer producer, JoyQueueLog tx) throws JoyQueueException;
 
+    /**
+     * 异步提交事务，各分区组并行写入，全部写入完成后结束
+     *
+     * @param producer 会话相关的producer
+     * @param commit   提交命令
+     * @return 提交结果，失败时以JoyQueueException结束
+     * @throws JoyQueueException 事务不存在或写入提交标记失败
+     */
+    CompletableFuture<TransactionId> commitTransactionAsync(Producer producer, BrokerCommit commit) throws JoyQueueException;
+
     /**
      * 获取事务id
      * @param producer
@@ -61,6 +61,10 @@ public class ProduceConfig {
         return PropertySupplier.getValue(propertySupplier, ProducerConfigKey.TRANSACTION_EXPIRE_TIME);
     }
 
+    public int getTransactionCommitBatchSize() {
+        return PropertySupplier.getValue(propertySupplier, ProducerConfigKey.TRANSACTION_COMMIT_BATCH_SIZE);
+    }
+
     public int getFixThreadPoolNThreads() {
         return PropertySupplier.getValue(propertySupplier, ProducerConfigKey.FIX_THREAD_POOL_THREADS);
     }
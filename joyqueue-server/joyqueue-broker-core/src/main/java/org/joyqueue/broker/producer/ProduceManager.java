@@ -54,6 +54,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -577,6 +578,11 @@ public class ProduceManager extends Service implements Produce, BrokerContextAwa
         }
     }
 
+    @Override
+    public CompletableFuture<TransactionId> commitTransactionAsync(Producer producer, BrokerCommit commit) throws JoyQueueException {
+        return transactionManager.commitAsync(producer, commit);
+    }
+
     @Override
     public TransactionId getTransaction(Producer producer, String txId) {
         return transactionManager.getTransaction(producer.getTopic(), producer.getApp(), txId);
@@ -24,6 +24,8 @@ public enum ProducerConfigKey implements PropertyDef {
     TRANSACTION_EXPIRE_TIME("produce.transaction.expire.time", 1000 * 60 * 60 * 24 * 1, Type.INT),
     TRANSACTION_CLEAR_INTERVAL("produce.transaction.expire.clear.interval", 1000 * 60 * 10, Type.INT),
     TRANSACTION_MAX_UNCOMPLETE("produce.transaction.max.uncomplete", 10240, Type.INT),
+    // 事务提交时每个分区组单批写入的最大字节数
+    TRANSACTION_COMMIT_BATCH_SIZE("produce.transaction.commit.batch.size", 1024 * 1024 * 4, Type.INT),
     BROKER_QOS_LEVEL("broker.qos.level", -1, Type.INT),
     TOPIC_QOS_LEVEL_PREFIX("produce.topic.qos.level.", -1, Type.INT),
     APP_QOS_LEVEL_PREFIX("produce.app.qos.level.", -1, Type.INT),
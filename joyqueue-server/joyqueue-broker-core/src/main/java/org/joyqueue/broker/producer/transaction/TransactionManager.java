@@ -18,6 +18,7 @@ package org.joyqueue.broker.producer.transaction;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.joyqueue.broker.buffer.Serializer;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.monitor.BrokerMonitor;
@@ -48,10 +49,13 @@ import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -74,6 +78,7 @@ public class TransactionManager extends Service {
     private UnCompletedTransactionManager unCompletedTransactionManager;
     private TransactionRecover transactionRecover;
     private TransactionCleaner transactionCleaner;
+    private final Set<TransactionId> committingTransactions = Sets.newConcurrentHashSet();
 
     public TransactionManager(ProduceConfig config, StoreService store, ClusterManager clusterManager, BrokerMonitor brokerMonitor) {
         this.config = config;
@@ -131,6 +136,33 @@ public class TransactionManager extends Service {
     }
 
     public TransactionId commit(final Producer producer, final BrokerCommit commit) throws JoyQueueException {
+        CompletableFuture<TransactionId> future = commitAsync(producer, commit);
+        try {
+            int timeout = getTimeout(producer);
+            if (timeout == 0) {
+                return future.get();
+            } else {
+                return future.get(timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            throw new JoyQueueException(JoyQueueCode.SE_DISK_FLUSH_SLOW);
+        } catch (TimeoutException e) {
+            throw new JoyQueueException(JoyQueueCode.SE_WRITE_TIMEOUT);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JoyQueueException) {
+                throw (JoyQueueException) e.getCause();
+            }
+            throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR);
+        }
+    }
+
+    /**
+     * 异步提交事务，先写入提交标记，再并行写入各分区组，全部写入完成后删除暂存的事务
+     *
+     * @return 提交结果，失败时以JoyQueueException结束
+     * @throws JoyQueueException 事务不存在或写入提交标记失败
+     */
+    public CompletableFuture<TransactionId> commitAsync(final Producer producer, final BrokerCommit commit) throws JoyQueueException {
         TransactionStore transactionStore = store.getTransactionStore(producer.getTopic());
         if (transactionStore == null) {
             logger.error("transaction store not exist, topic: {}", producer.getTopic());
@@ -143,53 +175,39 @@ public class TransactionManager extends Service {
             throw new JoyQueueException(JoyQueueCode.CN_TRANSACTION_NOT_EXISTS);
         }
 
-        BrokerPrepare brokerPrepare = null;
-        Map<Integer, List<WriteRequest>> writeRequestMap = Maps.newHashMap();
-        int messageSize = 0;
+        if (!committingTransactions.add(transactionId)) {
+            logger.warn("transaction is committing, topic: {}, app: {}, txId: {}", commit.getTopic(), commit.getApp(), commit.getTxId());
+            throw new JoyQueueException(JoyQueueCode.CN_TRANSACTION_EXECUTE_ERROR);
+        }
 
         try {
-            int index = 0;
-            Iterator<ByteBuffer> readIterator = transactionStore.readIterator(transactionId.getStoreId());
-            while (readIterator.hasNext()) {
-                ByteBuffer byteBuffer = readIterator.next();
-                if (index == 0) {
-                    brokerPrepare = Serializer.readBrokerPrepare(byteBuffer);
-                } else {
-                    short currentPartition = dispatchPartition(byteBuffer, (short) 0);
-                    PartitionGroup partitionGroup = clusterManager.getPartitionGroup(TopicName.parse(producer.getTopic()), currentPartition);
-                    if (partitionGroup == null) {
-                        throw new JoyQueueException(JoyQueueCode.SE_WRITE_FAILED);
-                    }
-                    List<WriteRequest> writeRequests = writeRequestMap.get(partitionGroup.getGroup());
-                    if (writeRequests == null) {
-                        writeRequests = Lists.newLinkedList();
-                        writeRequestMap.put(partitionGroup.getGroup(), writeRequests);
-                    }
-                    writeRequests.add(new WriteRequest(currentPartition, byteBuffer, 1));
-                    messageSize += byteBuffer.limit();
-                }
-                index++;
-            }
+            // 提交标记落盘后再写入分区组，部分分区组写入后宕机，恢复时可以继续完成提交
+            ByteBuffer buffer = ByteBuffer.allocate(Serializer.sizeOfBrokerCommit());
+            Serializer.writeBrokerCommit(commit, buffer);
+            buffer.flip();
 
-            try {
-                for (Map.Entry<Integer, List<WriteRequest>> entry : writeRequestMap.entrySet()) {
-                    PartitionGroupStore partitionStoreService = store.getStore(commit.getTopic(), entry.getKey(), QosLevel.REPLICATION);
-                    long startTime = SystemClock.now();
-                    Future<WriteResult> future = partitionStoreService.asyncWrite(entry.getValue().toArray(new WriteRequest[0]));
-                    waitFuture(producer, future);
-                    long endTime = SystemClock.now();
-
-                    for (WriteRequest writeRequest : entry.getValue()) {
-                        brokerMonitor.onPutMessage(producer.getTopic(), producer.getApp(), entry.getKey(), writeRequest.getPartition(), 1, messageSize, endTime - startTime);
-                    }
+            // 在提交标记的写入回调中继续提交，不阻塞处理线程
+            CompletableFuture<TransactionId> future = new CompletableFuture<>();
+            transactionStore.asyncWrite(writeResult -> {
+                if (writeResult.getCode() != JoyQueueCode.SUCCESS) {
+                    committingTransactions.remove(transactionId);
+                    logger.error("write transaction commit failed, topic: {}, app: {}, txId: {}, code: {}",
+                            commit.getTopic(), commit.getApp(), commit.getTxId(), writeResult.getCode());
+                    future.completeExceptionally(new JoyQueueException(writeResult.getCode()));
+                    return;
                 }
-            } catch (Exception e) {
-                logger.warn("write transaction message exception, topic: {}, app: {}, txId: {}", brokerPrepare.getTopic(), brokerPrepare.getApp(), brokerPrepare.getTxId(), e);
-                throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR);
-            }
-
-            unCompletedTransactionManager.removeTransaction(transactionId);
+                new TransactionCommitter(producer.getTopic(), producer.getApp(), transactionStore, transactionId).commit()
+                        .whenComplete((result, t) -> {
+                            if (t != null) {
+                                future.completeExceptionally(t);
+                            } else {
+                                future.complete(result);
+                            }
+                        });
+            }, transactionId.getStoreId(), buffer);
+            return future;
         } catch (Exception e) {
+            committingTransactions.remove(transactionId);
             logger.error("write transaction message exception, topic: {}, app: {}, txId: {}", commit.getTopic(), commit.getApp(), commit.getTxId(), e);
             if (e instanceof JoyQueueException) {
                 throw (JoyQueueException) e;
@@ -197,7 +215,32 @@ public class TransactionManager extends Service {
                 throw new JoyQueueException(JoyQueueCode.SE_IO_ERROR);
             }
         }
-        return transactionId;
+    }
+
+    /**
+     * 恢复时继续完成已写入提交标记的事务，失败的事务保留，等待客户端重新提交或补偿
+     */
+    protected void recoverCommit(TransactionId transactionId) {
+        TransactionStore transactionStore = store.getTransactionStore(transactionId.getTopic());
+        if (transactionStore == null || !committingTransactions.add(transactionId)) {
+            return;
+        }
+        try {
+            new TransactionCommitter(transactionId.getTopic(), transactionId.getApp(), transactionStore, transactionId).commit()
+                    .whenComplete((result, t) -> {
+                        if (t != null) {
+                            logger.error("recover commit transaction exception, topic: {}, app: {}, txId: {}",
+                                    transactionId.getTopic(), transactionId.getApp(), transactionId.getTxId(), t);
+                        } else {
+                            logger.info("recover commit transaction, topic: {}, app: {}, txId: {}",
+                                    transactionId.getTopic(), transactionId.getApp(), transactionId.getTxId());
+                        }
+                    });
+        } catch (Exception e) {
+            committingTransactions.remove(transactionId);
+            logger.error("recover commit transaction exception, topic: {}, app: {}, txId: {}",
+                    transactionId.getTopic(), transactionId.getApp(), transactionId.getTxId(), e);
+        }
     }
 
     protected short dispatchPartition(ByteBuffer msg, short defaultPartition) {
@@ -205,14 +248,13 @@ public class TransactionManager extends Service {
         return partition < 0 ? defaultPartition : partition;
     }
 
-    protected void waitFuture(Producer producer, Future<WriteResult> future) throws JoyQueueException {
+    protected WriteResult waitFuture(Producer producer, Future<WriteResult> future) throws JoyQueueException {
         try {
-            org.joyqueue.domain.Producer.ProducerPolicy producerPolicy = clusterManager.tryGetProducerPolicy(TopicName.parse(producer.getTopic()), producer.getApp());
-            int configTimeOut = (producerPolicy == null ? 0 : producerPolicy.getTimeOut());
+            int configTimeOut = getTimeout(producer);
             if (configTimeOut == 0) {
-                future.get();
+                return future.get();
             } else {
-                future.get(configTimeOut, TimeUnit.MILLISECONDS);
+                return future.get(configTimeOut, TimeUnit.MILLISECONDS);
             }
         } catch (InterruptedException e) {
             throw new JoyQueueException(JoyQueueCode.SE_DISK_FLUSH_SLOW);
@@ -223,6 +265,11 @@ public class TransactionManager extends Service {
         }
     }
 
+    protected int getTimeout(Producer producer) {
+        org.joyqueue.domain.Producer.ProducerPolicy producerPolicy = clusterManager.tryGetProducerPolicy(TopicName.parse(producer.getTopic()), producer.getApp());
+        return (producerPolicy == null ? 0 : producerPolicy.getTimeOut());
+    }
+
     public TransactionId rollback(final Producer producer, final BrokerRollback rollback) throws JoyQueueException {
         TransactionStore transactionStore = store.getTransactionStore(producer.getTopic());
         if (transactionStore == null) {
@@ -275,6 +322,9 @@ public class TransactionManager extends Service {
     @Override
     protected void doStart() throws Exception {
         transactionRecover.recover();
+        for (TransactionId transactionId : transactionRecover.getCommittedTransactions()) {
+            recoverCommit(transactionId);
+        }
         transactionCleaner.start();
     }
 
@@ -284,4 +334,210 @@ public class TransactionManager extends Service {
             transactionCleaner.stop();
         }
     }
+
+    /**
+     * 流式读取暂存的事务消息，按分区组攒批后立即异步写入，各分区组并行写入。
+     * 每批写入成功后在事务存储中追加提交进度，重试或恢复提交时跳过已经写入的消息，保证不重复写入。
+     */
+    private class TransactionCommitter {
+
+        private final String topic;
+        private final String app;
+        private final TransactionStore transactionStore;
+        private final TransactionId transactionId;
+        private final CompletableFuture<TransactionId> future = new CompletableFuture<>();
+        // 读取过程本身占用一个计数，读取完成后释放
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final Map<Integer, List<WriteRequest>> batches = Maps.newHashMap();
+        private final Map<Integer, Integer> batchSizes = Maps.newHashMap();
+        // 各分区组当前批次第一条消息的序号
+        private final Map<Integer, Integer> batchStarts = Maps.newHashMap();
+        // 各分区组已读取的消息条数，用于给分区组内的消息编号
+        private final Map<Integer, Integer> sequences = Maps.newHashMap();
+        // 之前的提交已经写入的消息序号区间，key为分区组
+        private final Map<Integer, List<int[]>> committed = Maps.newHashMap();
+        private final Map<Short, Integer> partitionGroups = Maps.newHashMap();
+        private volatile JoyQueueCode failure;
+
+        TransactionCommitter(String topic, String app, TransactionStore transactionStore, TransactionId transactionId) {
+            this.topic = topic;
+            this.app = app;
+            this.transactionStore = transactionStore;
+            this.transactionId = transactionId;
+        }
+
+        CompletableFuture<TransactionId> commit() {
+            try {
+                loadProgress();
+                Iterator<ByteBuffer> readIterator = transactionStore.readIterator(transactionId.getStoreId());
+                if (readIterator == null) {
+                    throw new JoyQueueException(JoyQueueCode.CN_TRANSACTION_NOT_EXISTS);
+                }
+
+                // 第一条是prepare
+                if (readIterator.hasNext()) {
+                    readIterator.next();
+                }
+                while (readIterator.hasNext()) {
+                    ByteBuffer byteBuffer = readIterator.next();
+                    if (Serializer.isBrokerCommit(byteBuffer) || Serializer.isBrokerCommitProgress(byteBuffer)) {
+                        continue;
+                    }
+                    short partition = dispatchPartition(byteBuffer, (short) 0);
+                    int group = getPartitionGroup(partition);
+                    int sequence = sequences.merge(group, 1, Integer::sum) - 1;
+
+                    // 已经写入的消息跳过，批次在这里断开，保证每批的序号连续
+                    if (isCommitted(group, sequence)) {
+                        flush(group);
+                        continue;
+                    }
+                    List<WriteRequest> writeRequests = batches.computeIfAbsent(group, key -> Lists.newArrayList());
+                    if (writeRequests.isEmpty()) {
+                        batchStarts.put(group, sequence);
+                    }
+                    writeRequests.add(new WriteRequest(partition, byteBuffer, 1));
+                    int batchSize = batchSizes.merge(group, byteBuffer.remaining(), Integer::sum);
+                    if (batchSize >= config.getTransactionCommitBatchSize()) {
+                        flush(group);
+                    }
+                }
+
+                for (Integer group : Lists.newArrayList(batches.keySet())) {
+                    flush(group);
+                }
+            } catch (Exception e) {
+                logger.warn("write transaction message exception, topic: {}, app: {}, txId: {}", topic, app, transactionId.getTxId(), e);
+                failure = (e instanceof JoyQueueException ? JoyQueueCode.valueOf(((JoyQueueException) e).getCode()) : JoyQueueCode.SE_IO_ERROR);
+            }
+            release();
+            return future;
+        }
+
+        /**
+         * 读取之前的提交记录的进度
+         */
+        private void loadProgress() throws Exception {
+            Iterator<ByteBuffer> readIterator = transactionStore.readIterator(transactionId.getStoreId());
+            if (readIterator == null) {
+                throw new JoyQueueException(JoyQueueCode.CN_TRANSACTION_NOT_EXISTS);
+            }
+            while (readIterator.hasNext()) {
+                ByteBuffer byteBuffer = readIterator.next();
+                if (Serializer.isBrokerCommitProgress(byteBuffer)) {
+                    int[] progress = Serializer.readBrokerCommitProgress(byteBuffer);
+                    committed.computeIfAbsent(progress[0], key -> Lists.newArrayList()).add(new int[] {progress[1], progress[1] + progress[2]});
+                }
+            }
+            if (!committed.isEmpty()) {
+                logger.info("resume committing transaction, topic: {}, app: {}, txId: {}", topic, app, transactionId.getTxId());
+            }
+        }
+
+        private boolean isCommitted(int group, int sequence) {
+            List<int[]> ranges = committed.get(group);
+            if (ranges != null) {
+                for (int[] range : ranges) {
+                    if (sequence >= range[0] && sequence < range[1]) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private int getPartitionGroup(short partition) throws JoyQueueException {
+            Integer group = partitionGroups.get(partition);
+            if (group == null) {
+                PartitionGroup partitionGroup = clusterManager.getPartitionGroup(TopicName.parse(topic), partition);
+                if (partitionGroup == null) {
+                    throw new JoyQueueException(JoyQueueCode.SE_WRITE_FAILED);
+                }
+                group = partitionGroup.getGroup();
+                partitionGroups.put(partition, group);
+            }
+            return group;
+        }
+
+        private void flush(int group) throws JoyQueueException {
+            List<WriteRequest> writeRequests = batches.remove(group);
+            batchSizes.remove(group);
+            if (writeRequests == null || writeRequests.isEmpty()) {
+                return;
+            }
+            write(group, batchStarts.get(group), writeRequests);
+        }
+
+        private void write(int group, int start, List<WriteRequest> writeRequests) throws JoyQueueException {
+            PartitionGroupStore partitionGroupStore = store.getStore(topic, group, QosLevel.REPLICATION);
+            if (partitionGroupStore == null) {
+                throw new JoyQueueException(JoyQueueCode.SE_WRITE_FAILED);
+            }
+            long startTime = SystemClock.now();
+            pending.incrementAndGet();
+            try {
+                partitionGroupStore.asyncWrite(writeResult -> onWritten(group, start, writeRequests, startTime, writeResult),
+                        writeRequests.toArray(new WriteRequest[0]));
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+
+        private void onWritten(int group, int start, List<WriteRequest> writeRequests, long startTime, WriteResult writeResult) {
+            if (writeResult.getCode() == JoyQueueCode.SUCCESS) {
+                long time = SystemClock.now() - startTime;
+                for (WriteRequest writeRequest : writeRequests) {
+                    brokerMonitor.onPutMessage(topic, app, group, writeRequest.getPartition(), 1, writeRequest.getBuffer().limit(), time);
+                }
+                writeProgress(group, start, writeRequests.size());
+            } else {
+                logger.warn("write transaction message failed, topic: {}, app: {}, txId: {}, group: {}, code: {}",
+                        topic, app, transactionId.getTxId(), group, writeResult.getCode());
+                failure = writeResult.getCode();
+            }
+            release();
+        }
+
+        /**
+         * 追加提交进度，进度写入完成前占用一个计数，避免删除事务后进度写入，或者重试时读不到进度
+         */
+        private void writeProgress(int group, int start, int count) {
+            ByteBuffer progress = ByteBuffer.allocate(Serializer.sizeOfBrokerCommitProgress());
+            Serializer.writeBrokerCommitProgress(group, start, count, progress);
+            progress.flip();
+            pending.incrementAndGet();
+            try {
+                transactionStore.asyncWrite(writeResult -> {
+                    if (writeResult.getCode() != JoyQueueCode.SUCCESS) {
+                        logger.warn("write transaction commit progress failed, topic: {}, app: {}, txId: {}, code: {}",
+                                topic, app, transactionId.getTxId(), writeResult.getCode());
+                    }
+                    release();
+                }, transactionId.getStoreId(), progress);
+            } catch (RuntimeException e) {
+                logger.warn("write transaction commit progress exception, topic: {}, app: {}, txId: {}", topic, app, transactionId.getTxId(), e);
+                release();
+            }
+        }
+
+        private void release() {
+            if (pending.decrementAndGet() != 0) {
+                return;
+            }
+            try {
+                if (failure != null) {
+                    future.completeExceptionally(new JoyQueueException(failure));
+                    return;
+                }
+                unCompletedTransactionManager.removeTransaction(transactionId);
+                transactionStore.remove(transactionId.getStoreId());
+                future.complete(transactionId);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                committingTransactions.remove(transactionId);
+            }
+        }
+    }
 }
@@ -21,6 +21,7 @@ import org.joyqueue.message.BrokerPrepare;
 import org.joyqueue.network.session.TransactionId;
 import org.joyqueue.store.StoreService;
 import org.joyqueue.store.transaction.TransactionStore;
+import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,7 @@ public class TransactionRecover {
     private ProduceConfig config;
     private UnCompletedTransactionManager unCompletedTransactionManager;
     private StoreService store;
+    private List<TransactionId> committedTransactions = Lists.newLinkedList();
 
     public TransactionRecover(ProduceConfig config, UnCompletedTransactionManager unCompletedTransactionManager, StoreService store) {
         this.config = config;
@@ -87,6 +89,12 @@ public class TransactionRecover {
                 } else {
                     unCompletedTransactionManager.putTransaction(transactionId);
                     logger.info("recover transaction, topic: {}, app: {}, txId: {}", brokerPrepare.getTopic(), brokerPrepare.getApp(), brokerPrepare.getTxId());
+
+                    // 已写入提交标记，需要继续完成提交
+                    if (isCommitted(readIterator)) {
+                        committedTransactions.add(transactionId);
+                        logger.info("recover committed transaction, topic: {}, app: {}, txId: {}", brokerPrepare.getTopic(), brokerPrepare.getApp(), brokerPrepare.getTxId());
+                    }
                 }
             }
 
@@ -97,4 +105,20 @@ public class TransactionRecover {
             logger.error("recover transaction exception, store: {}, storeId: {}", transactionStore, storeId, e);
         }
     }
-}
\ No newline at end of file
+
+    protected boolean isCommitted(Iterator<ByteBuffer> readIterator) {
+        while (readIterator.hasNext()) {
+            if (Serializer.isBrokerCommit(readIterator.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 恢复出的已写入提交标记但未完成提交的事务
+     */
+    public List<TransactionId> getCommittedTransactions() {
+        return committedTransactions;
+    }
+}
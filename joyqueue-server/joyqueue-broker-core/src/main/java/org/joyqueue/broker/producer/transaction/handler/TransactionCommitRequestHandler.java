@@ -31,6 +31,10 @@ import org.joyqueue.network.transport.command.handler.CommandHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * TransactionCommitRequestHandler
  *
@@ -51,36 +55,74 @@ public class TransactionCommitRequestHandler implements CommandHandler, Type {
     public Command handle(Transport transport, Command command) {
         TransactionCommitRequest transactionCommitRequest = (TransactionCommitRequest) command.getPayload();
         Producer producer = new Producer(transactionCommitRequest.getTopic(), transactionCommitRequest.getTopic(), transactionCommitRequest.getApp(), Producer.ProducerType.JOYQUEUE);
-        int code = JoyQueueCode.SUCCESS.getCode();
+        List<String> txIds = transactionCommitRequest.getTxIds();
+        TransactionCommitAck ack = new TransactionCommitAck(transport, command, txIds.size());
 
-        for (String txId : transactionCommitRequest.getTxIds()) {
+        // 各事务并行提交，全部完成后应答
+        for (String txId : txIds) {
             BrokerCommit brokerCommit = new BrokerCommit();
             brokerCommit.setTopic(transactionCommitRequest.getTopic());
             brokerCommit.setApp(transactionCommitRequest.getApp());
             brokerCommit.setTxId(txId);
 
             try {
-                produce.putTransactionMessage(producer, brokerCommit);
-            } catch (JoyQueueException e) {
-                if (e.getCode() == JoyQueueCode.CN_TRANSACTION_NOT_EXISTS.getCode()) {
-                    logger.error("commit transaction error, transaction not exists, topic: {}, app: {}, txId: {}", transactionCommitRequest.getTopic(), transactionCommitRequest.getApp(), txId);
-                } else {
-                    logger.error("commit transaction exception, topic: {}, app: {}, txId: {}", transactionCommitRequest.getTopic(), transactionCommitRequest.getApp(), txId, e);
-                }
-                if (e.getCode() != JoyQueueCode.SUCCESS.getCode()) {
-                    code = e.getCode();
-                }
+                produce.commitTransactionAsync(producer, brokerCommit).whenComplete((transactionId, t) ->
+                        ack.complete(t == null ? JoyQueueCode.SUCCESS.getCode() : getCode(transactionCommitRequest, txId, t)));
             } catch (Exception e) {
-                logger.error("commit transaction exception, topic: {}, app: {}, txId: {}", transactionCommitRequest.getTopic(), transactionCommitRequest.getApp(), txId, e);
-                code = JoyQueueCode.CN_UNKNOWN_ERROR.getCode();
+                ack.complete(getCode(transactionCommitRequest, txId, e));
             }
         }
+        return null;
+    }
 
-        return BooleanAck.build(code);
+    protected int getCode(TransactionCommitRequest transactionCommitRequest, String txId, Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof JoyQueueException) {
+            JoyQueueException e = (JoyQueueException) t;
+            if (e.getCode() == JoyQueueCode.CN_TRANSACTION_NOT_EXISTS.getCode()) {
+                logger.error("commit transaction error, transaction not exists, topic: {}, app: {}, txId: {}", transactionCommitRequest.getTopic(), transactionCommitRequest.getApp(), txId);
+            } else {
+                logger.error("commit transaction exception, topic: {}, app: {}, txId: {}", transactionCommitRequest.getTopic(), transactionCommitRequest.getApp(), txId, e);
+            }
+            return e.getCode();
+        }
+        logger.error("commit transaction exception, topic: {}, app: {}, txId: {}", transactionCommitRequest.getTopic(), transactionCommitRequest.getApp(), txId, t);
+        return JoyQueueCode.CN_UNKNOWN_ERROR.getCode();
     }
 
     @Override
     public int type() {
         return CommandType.TRANSACTION_COMMIT_REQUEST;
     }
-}
\ No newline at end of file
+
+    /**
+     * 汇总各事务的提交结果，保留最后一个失败码
+     */
+    protected static class TransactionCommitAck {
+
+        private final Transport transport;
+        private final Command request;
+        private final AtomicInteger remaining;
+        private volatile int code = JoyQueueCode.SUCCESS.getCode();
+
+        TransactionCommitAck(Transport transport, Command request, int count) {
+            this.transport = transport;
+            this.request = request;
+            this.remaining = new AtomicInteger(count);
+            if (count == 0) {
+                transport.acknowledge(request, BooleanAck.build(code));
+            }
+        }
+
+        void complete(int code) {
+            if (code != JoyQueueCode.SUCCESS.getCode()) {
+                this.code = code;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                transport.acknowledge(request, BooleanAck.build(this.code));
+            }
+        }
+    }
+}
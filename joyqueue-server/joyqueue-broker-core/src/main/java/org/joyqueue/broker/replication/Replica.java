@@ -53,6 +53,9 @@ public class Replica {
 
     private long lastAppendTime;
 
+    // snapshot transfer in progress, null if replicating logs
+    private volatile SnapshotTransfer snapshotTransfer;
+
     Replica(int replicaId, String address) {
         this.replicaId = replicaId;
         this.address = address;
@@ -151,6 +154,14 @@ public class Replica {
         this.lastAppendTime = lastAppendTime;
     }
 
+    SnapshotTransfer snapshotTransfer() {
+        return snapshotTransfer;
+    }
+
+    void snapshotTransfer(SnapshotTransfer snapshotTransfer) {
+        this.snapshotTransfer = snapshotTransfer;
+    }
+
     @Override
     public String toString() {
         return new StringBuilder("Replica:{").append("replicaId:").append(replicaId)
@@ -28,6 +28,8 @@ import org.joyqueue.broker.election.LeaderElection;
 import org.joyqueue.broker.election.TopicPartitionGroup;
 import org.joyqueue.broker.election.command.AppendEntriesRequest;
 import org.joyqueue.broker.election.command.AppendEntriesResponse;
+import org.joyqueue.broker.election.command.InstallSnapshotRequest;
+import org.joyqueue.broker.election.command.InstallSnapshotResponse;
 import org.joyqueue.broker.election.command.ReplicateConsumePosRequest;
 import org.joyqueue.broker.election.command.ReplicateConsumePosResponse;
 import org.joyqueue.broker.election.command.TimeoutNowRequest;
@@ -41,13 +43,17 @@ import org.joyqueue.network.transport.command.Command;
 import org.joyqueue.network.transport.command.CommandCallback;
 import org.joyqueue.network.transport.command.Direction;
 import org.joyqueue.network.transport.exception.TransportException;
+import org.joyqueue.store.message.MessageParser;
 import org.joyqueue.store.replication.ReplicableStore;
+import org.joyqueue.store.replication.Snapshot;
+import org.joyqueue.toolkit.security.Checksums;
 import org.joyqueue.toolkit.service.Service;
 import org.joyqueue.toolkit.time.SystemClock;
 import org.joyqueue.toolkit.validate.annotation.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
@@ -272,14 +278,6 @@ public class ReplicaGroup extends Service {
         return true;
     }
 
-    /**
-     * 是否需要复制，kafka的coordinators不需要复制
-     * @return if topic need replicate
-     */
-    private boolean neednotReplicate() {
-        return topicPartitionGroup.getTopic().equalsIgnoreCase("__group_coordinators");
-    }
-
     /**
      * Get lag length of the replica to leader
      * @param replicaId replica id
@@ -307,6 +305,7 @@ public class ReplicaGroup extends Service {
         replicas.forEach(r -> {
             r.nextPosition(writePosition);
             r.setMatch(false);
+            r.snapshotTransfer(null);
         });
 
         state = LEADER;
@@ -358,10 +357,6 @@ public class ReplicaGroup extends Service {
                         continue;
                     }
 
-                    if (neednotReplicate()) {
-                        return;
-                    }
-
                     DelayedCommand command = replicateResponseQueue.take();
                     if (command.replicaId() == localReplicaId) {
                         replicateLocal();
@@ -433,6 +428,10 @@ public class ReplicaGroup extends Service {
                 try {
                     long startTimeUs = usTime();
 
+                    if (replicateSnapshot(replica)) {
+                        return;
+                    }
+
                     AppendEntriesRequest request = generateAppendEntriesRequest(replica);
                     if (request == null) {
                         if (SystemClock.now() - replica.getLastAppendTime() >= electionConfig.getElectionTimeout()) {
@@ -469,6 +468,159 @@ public class ReplicaGroup extends Service {
         }
     }
 
+    /**
+     * 副本落后超过阈值，或者需要的数据已经被压缩时，分块复制LEADER的快照文件，代替逐条复制日志。
+     * 快照复制完成后从快照的结束位置继续复制日志。
+     * @param replica 副本
+     * @return 是否发送了快照数据
+     * @throws Exception 异常
+     */
+    private boolean replicateSnapshot(Replica replica) throws Exception {
+        SnapshotTransfer transfer = replica.snapshotTransfer();
+        if (transfer == null) {
+            long threshold = electionConfig.getSnapshotThreshold();
+            long startPosition = Math.max(replica.nextPosition(), replicableStore.leftPosition());
+            // 副本需要的数据已经被压缩时只能复制快照
+            boolean compacted = startPosition < replicableStore.entryLeftPosition();
+            if (!compacted && (threshold <= 0 || replicableStore.rightPosition() - startPosition <= threshold)) {
+                return false;
+            }
+            Snapshot snapshot = replicableStore.snapshot();
+            if (snapshot == null || snapshot.getRight() <= startPosition) {
+                return false;
+            }
+            transfer = new SnapshotTransfer(snapshot);
+            replica.snapshotTransfer(transfer);
+            logger.info("Partition group {}/node {} start replicating snapshot to node {}, next position is {}, " +
+                            "snapshot is {}, size is {}",
+                    topicPartitionGroup, localReplicaId, replica.replicaId(), replica.nextPosition(),
+                    snapshot, snapshot.size());
+        }
+
+        Snapshot.Segment segment = transfer.segment();
+        int length = (int) Math.min(electionConfig.getMaxReplicateLength(), segment.getLength() - transfer.offset());
+        ByteBuffer data;
+        try {
+            data = replicableStore.readSnapshot(segment.getPath(), transfer.offset(), length);
+            if (data.remaining() != length) {
+                throw new IOException(String.format("Snapshot file %s truncated, offset: %d, expected length: %d, actual length: %d",
+                        segment.getPath(), transfer.offset(), length, data.remaining()));
+            }
+        } catch (IOException e) {
+            // 快照文件在LEADER上已经被删除，放弃这个快照，下次重新生成
+            replica.snapshotTransfer(null);
+            throw e;
+        }
+        InstallSnapshotRequest request = new InstallSnapshotRequest();
+        request.setTopicPartitionGroup(topicPartitionGroup);
+        request.setTerm(currentTerm);
+        request.setLeaderId(leaderId);
+        request.setLeft(transfer.snapshot().getLeft());
+        request.setRight(transfer.snapshot().getRight());
+        request.setPath(segment.getPath());
+        request.setOffset(transfer.offset());
+        request.setData(data);
+        request.setChecksum(Checksums.crc32(data));
+        request.setFirst(transfer.isFirst());
+        request.setDone(transfer.isLast(length));
+
+        if (logger.isDebugEnabled() || request.isFirst() || request.isDone()) {
+            logger.info("Partition group {}/node {} send install snapshot request {} to node {}",
+                    topicPartitionGroup, localReplicaId, request, replica.replicaId());
+        }
+
+        replica.setLastAppendTime(SystemClock.now());
+        this.sendCommand(replica.getAddress(),
+                new Command(new JoyQueueHeader(Direction.REQUEST, CommandType.RAFT_INSTALL_SNAPSHOT_REQUEST), request),
+                electionConfig.getSendCommandTimeout(), new InstallSnapshotRequestCallback(replica, transfer, length));
+        return true;
+    }
+
+    /**
+     * Callback of install snapshot request
+     */
+    private class InstallSnapshotRequestCallback implements CommandCallback {
+        private Replica replica;
+        private SnapshotTransfer transfer;
+        private int length;
+
+        InstallSnapshotRequestCallback(Replica replica, SnapshotTransfer transfer, int length) {
+            this.replica = replica;
+            this.transfer = transfer;
+            this.length = length;
+        }
+
+        @Override
+        public void onSuccess(Command request, Command response) {
+            long delayTimeNs = ONE_SECOND_NANO;
+            try {
+                if (!(request.getPayload() instanceof InstallSnapshotRequest)
+                        || !(response.getPayload() instanceof InstallSnapshotResponse)
+                        || replica.snapshotTransfer() != transfer) {
+                    return;
+                }
+
+                InstallSnapshotRequest installSnapshotRequest = (InstallSnapshotRequest) request.getPayload();
+                InstallSnapshotResponse installSnapshotResponse = (InstallSnapshotResponse) response.getPayload();
+
+                if (installSnapshotRequest.getTerm() != currentTerm) {
+                    logger.info("Partition group {}/node {} install snapshot request term {} not equals current term {}",
+                            topicPartitionGroup, localReplicaId, installSnapshotRequest.getTerm(), currentTerm);
+                    return;
+                }
+                if (installSnapshotResponse.getTerm() > currentTerm) {
+                    logger.info("Partition group {}/node {} install snapshot response term {} not equals current term {}",
+                            topicPartitionGroup, localReplicaId, installSnapshotResponse.getTerm(), currentTerm);
+                    leaderElection.stepDown(installSnapshotResponse.getTerm());
+                    return;
+                }
+
+                // 最后一块的响应超时后重发时，副本可能已经安装完成
+                boolean installed = installSnapshotRequest.isDone() &&
+                        installSnapshotResponse.getWritePosition() == transfer.snapshot().getRight();
+                if (installSnapshotResponse.isSuccess() || installed) {
+                    if (installSnapshotRequest.isDone()) {
+                        replica.nextPosition(transfer.snapshot().getRight());
+                        replica.setMatch(false);
+                        replica.snapshotTransfer(null);
+                        delayTimeNs = 0;
+                        logger.info("Partition group {}/node {} replicate snapshot {} to node {} finished",
+                                topicPartitionGroup, localReplicaId, transfer.snapshot(), replica.replicaId());
+                    } else {
+                        transfer.advance(length);
+                        long rate = electionConfig.getSnapshotRate();
+                        delayTimeNs = rate > 0 ? length * ONE_SECOND_NANO / rate : 0;
+                    }
+                    brokerMonitor.onReplicateMessage(topicPartitionGroup.getTopic(), topicPartitionGroup.getPartitionGroupId(),
+                            0, length, 0);
+                } else if (!transfer.retry()) {
+                    logger.warn("Partition group {}/node {} replicate snapshot {} to node {} failed, {}",
+                            topicPartitionGroup, localReplicaId, transfer, replica.replicaId(), installSnapshotResponse);
+                    replica.snapshotTransfer(null);
+                }
+            } catch (Exception e) {
+                logger.info("Partition group {}/node {} process install snapshot response fail",
+                        topicPartitionGroup, localReplicaId, e);
+            } finally {
+                replicateResponseQueue.put(new DelayedCommand(delayTimeNs, replica.replicaId()));
+            }
+        }
+
+        @Override
+        public void onException(Command request, Throwable cause) {
+            try {
+                logger.error("Partition group {}/node {} send install snapshot request to {} failed, snapshot is {}, " +
+                                "current term is {}",
+                        topicPartitionGroup, localReplicaId, replica.replicaId(), transfer, currentTerm, cause);
+                if (replica.snapshotTransfer() == transfer && !transfer.retry()) {
+                    replica.snapshotTransfer(null);
+                }
+            } finally {
+                replicateResponseQueue.put(new DelayedCommand(ONE_SECOND_NANO, replica.replicaId()));
+            }
+        }
+    }
+
     /**
      * 构造复制消息请求
      * @param replica 副本
@@ -741,6 +893,77 @@ public class ReplicaGroup extends Service {
         }
     }
 
+    /**
+     * 接收LEADER发送的快照数据，全部接收完成后安装快照
+     * @param request 安装快照请求
+     * @return 返回命令
+     */
+    public Command installSnapshot(InstallSnapshotRequest request) {
+        boolean success = false;
+        try {
+            if (state != FOLLOWER) {
+                logger.info("Partition group {}/node {} receive install snapshot request {}, state is {}",
+                        topicPartitionGroup, localReplicaId, request, state);
+            } else {
+                if (Checksums.crc32(request.getData()) != request.getChecksum()) {
+                    logger.warn("Partition group {}/node {} receive install snapshot request {}, checksum mismatch",
+                            topicPartitionGroup, localReplicaId, request);
+                } else {
+                    if (request.isFirst()) {
+                        logger.info("Partition group {}/node {} start receiving snapshot from {}, left position is {}, " +
+                                        "right position is {}, write position is {}",
+                                topicPartitionGroup, localReplicaId, request.getLeaderId(), request.getLeft(),
+                                request.getRight(), replicableStore.rightPosition());
+                        replicableStore.prepareSnapshot();
+                    }
+                    replicableStore.writeSnapshot(request.getPath(), request.getOffset(), request.getData());
+                    if (request.isDone()) {
+                        long startTimeUs = usTime();
+                        replicableStore.installSnapshot(request.getRight());
+                        logger.info("Partition group {}/node {} snapshot installed, left position is {}, " +
+                                        "write position is {}, elapse {} us",
+                                topicPartitionGroup, localReplicaId, replicableStore.leftPosition(),
+                                replicableStore.rightPosition(), usTime() - startTimeUs);
+                    }
+                    success = true;
+                }
+            }
+        } catch (Throwable t) {
+            logger.warn("Partition group {}/node {} install snapshot {} fail",
+                    topicPartitionGroup, localReplicaId, request, t);
+        }
+
+        return new Command(new JoyQueueHeader(Direction.RESPONSE, CommandType.RAFT_INSTALL_SNAPSHOT_RESPONSE),
+                new InstallSnapshotResponse(currentTerm, success, replicableStore.rightPosition(), localReplicaId));
+    }
+
+    /**
+     * 校验复制数据中每条消息的CRC，直接在请求的buffer上计算
+     * @param entries 若干条完整的消息
+     * @return 全部校验通过返回true
+     */
+    public static boolean verifyEntries(ByteBuffer entries) {
+        ByteBuffer buffer = entries.slice();
+        int position = 0;
+        try {
+            while (position < buffer.limit()) {
+                int length = buffer.getInt(position);
+                if (length < MessageParser.getFixedAttributesLength() || length > buffer.limit() - position) {
+                    return false;
+                }
+                ByteBuffer message = buffer.duplicate();
+                message.limit(position + length).position(position);
+                if (!MessageParser.checkCRC(message)) {
+                    return false;
+                }
+                position += length;
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Append entries to store
      * @param request 添加记录请求
@@ -768,6 +991,13 @@ public class ReplicaGroup extends Service {
 
                 long startTimeUs = usTime();
 
+                if (electionConfig.enableVerifyChecksum() && !verifyEntries(request.getEntries())) {
+                    logger.warn("Partition group {}/node {} receive append entries request {}, checksum mismatch",
+                            topicPartitionGroup, localReplicaId, request);
+                    success = false;
+                    break;
+                }
+
                 if (!matchPosition(request.getStartPosition(), request.getLeftPosition(), request.getPrevTerm(),
                         request.getPrevPosition(), request.isMatch())) {
                     if (request.getStartPosition() > replicableStore.rightPosition()) {
@@ -938,6 +1168,28 @@ public class ReplicaGroup extends Service {
         return candidateId;
     }
 
+    /**
+     * Find the voting follower with the minimal lag length, followers which never matched
+     * the leader's log are skipped. This is used by leadership drain
+     * @return candidate id, or -1 if no follower can take over leadership
+     */
+    public synchronized int findTheLeastLagCandidate() {
+        long rightPosition = replicableStore.rightPosition();
+        long minLag = Long.MAX_VALUE;
+        int candidateId = ElectionNode.INVALID_NODE_ID;
+        for (Replica replica : replicasWithoutLearners) {
+            if (replica.replicaId() == localReplicaId || !replica.isMatch()) {
+                continue;
+            }
+            long lag = rightPosition - replica.writePosition();
+            if (lag < minLag) {
+                minLag = lag;
+                candidateId = replica.replicaId();
+            }
+        }
+        return candidateId;
+    }
+
     /**
      * Transfer leadership to transferee
      * Timeout now request will be send to transferee when transferee catch up to leader
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.replication;
+
+import org.joyqueue.store.replication.Snapshot;
+
+/**
+ * 向一个副本复制快照的进度，当前文件发送到哪里，下一块从哪里开始。
+ */
+class SnapshotTransfer {
+    private static final int MAX_RETRIES = 3;
+
+    private final Snapshot snapshot;
+    private int segment = 0;
+    private long offset = 0L;
+    private int retries = 0;
+
+    SnapshotTransfer(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    Snapshot.Segment segment() {
+        return snapshot.getSegments().get(segment);
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    boolean isFirst() {
+        return segment == 0 && offset == 0L;
+    }
+
+    /**
+     * 长度为length的数据块是否是整个快照的最后一块
+     */
+    boolean isLast(int length) {
+        return segment == snapshot.getSegments().size() - 1 && offset + length >= segment().getLength();
+    }
+
+    /**
+     * 当前数据块发送成功，移动到下一块
+     */
+    void advance(int length) {
+        retries = 0;
+        offset += length;
+        if (offset >= segment().getLength() && segment < snapshot.getSegments().size() - 1) {
+            segment++;
+            offset = 0L;
+        }
+    }
+
+    /**
+     * 当前数据块发送失败，重发同一块
+     * @return 是否还可以重试
+     */
+    boolean retry() {
+        return ++retries <= MAX_RETRIES;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot + ", segment: " + segment + "/" + snapshot.getSegments().size() + ", offset: " + offset;
+    }
+}
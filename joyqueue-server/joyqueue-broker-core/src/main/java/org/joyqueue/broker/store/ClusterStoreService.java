@@ -12,6 +12,7 @@ import org.joyqueue.broker.election.LeaderElection;
 import org.joyqueue.domain.QosLevel;
 import org.joyqueue.domain.TopicName;
 import org.joyqueue.monitor.BufferPoolMonitorInfo;
+import org.joyqueue.monitor.DiskMonitorInfo;
 import org.joyqueue.store.PartitionGroupStore;
 import org.joyqueue.store.RemovedPartitionGroupStore;
 import org.joyqueue.store.StoreManagementService;
@@ -220,4 +221,19 @@ public class ClusterStoreService extends Service implements StoreService, LifeCy
     public BufferPoolMonitorInfo monitorInfo() {
         return storeService.monitorInfo();
     }
+
+    @Override
+    public int getDiskCount() {
+        return storeService.getDiskCount();
+    }
+
+    @Override
+    public List<DiskMonitorInfo> diskMonitorInfo() {
+        return storeService.diskMonitorInfo();
+    }
+
+    @Override
+    public void migratePartitionGroup(String topic, int partitionGroup, String path) throws IOException {
+        storeService.migratePartitionGroup(topic, partitionGroup, path);
+    }
 }
\ No newline at end of file
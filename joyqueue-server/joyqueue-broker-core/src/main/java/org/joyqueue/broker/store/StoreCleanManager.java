@@ -21,9 +21,13 @@ import com.jd.laf.extension.ExtensionManager;
 import org.apache.commons.collections.CollectionUtils;
 import org.joyqueue.broker.cluster.ClusterManager;
 import org.joyqueue.broker.config.BrokerStoreConfig;
+import org.joyqueue.broker.consumer.MessageConvertSupport;
 import org.joyqueue.broker.consumer.position.PositionManager;
 import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.Topic;
 import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.store.CompactionPolicy;
+import org.joyqueue.store.PartitionGroupStore;
 import org.joyqueue.store.RemovedPartitionGroupStore;
 import org.joyqueue.store.StoreService;
 import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
@@ -56,17 +60,24 @@ public class StoreCleanManager extends Service {
     private StoreService storeService;
     private ClusterManager clusterManager;
     private PositionManager positionManager;
+    private MessageConvertSupport messageConvertSupport;
     private Map<String, StoreCleaningStrategy> cleaningStrategyMap;
     private final ScheduledExecutorService scheduledExecutorService;
     private final ScheduledExecutorService physicalDeleteScheduledExecutorService;
     private ScheduledFuture cleanFuture;
 
     public StoreCleanManager(final PropertySupplier propertySupplier, final StoreService storeService, final ClusterManager clusterManager, final PositionManager positionManager) {
+        this(propertySupplier, storeService, clusterManager, positionManager, null);
+    }
+
+    public StoreCleanManager(final PropertySupplier propertySupplier, final StoreService storeService, final ClusterManager clusterManager,
+                             final PositionManager positionManager, final MessageConvertSupport messageConvertSupport) {
         this.propertySupplier = propertySupplier;
         this.brokerStoreConfig = new BrokerStoreConfig(propertySupplier);
         this.storeService = storeService;
         this.clusterManager = clusterManager;
         this.positionManager = positionManager;
+        this.messageConvertSupport = messageConvertSupport;
         this.scheduledExecutorService = Executors.newScheduledThreadPool(SCHEDULE_EXECUTOR_THREADS, new NamedThreadFactory("StoreCleaning-Scheduled-Executor"));
         this.physicalDeleteScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("StoreCleaning-Physical-Scheduled-Executor"));
     }
@@ -149,6 +160,35 @@ public class StoreCleanManager extends Service {
         }
     }
 
+    /**
+     * 清理后淘汰已删除消息的协议转换缓存
+     */
+    private void invalidateConvertCache(String topic, Set<Short> partitions, PartitionGroupStore store) {
+        if (messageConvertSupport == null || store == null) {
+            return;
+        }
+        for (Short partition : partitions) {
+            messageConvertSupport.invalidate(topic, partition, store.getLeftIndex(partition));
+        }
+    }
+
+    /**
+     * 压缩策略，Topic策略参数优先于Broker配置
+     *
+     * @return 未开启压缩时返回null
+     */
+    private CompactionPolicy compactionPolicy(TopicConfig topicConfig) {
+        Topic.TopicPolicy policy = topicConfig.getPolicy();
+        String enable = policy == null ? null : policy.getParam(BrokerStoreConfig.COMPACTION_ENABLE_PARAM);
+        if (enable == null ? !brokerStoreConfig.isCompactionEnable(topicConfig.getName().getFullName()) : !Boolean.valueOf(enable)) {
+            return null;
+        }
+        String retention = policy == null ? null : policy.getParam(BrokerStoreConfig.COMPACTION_TOMBSTONE_RETENTION_PARAM);
+        return new CompactionPolicy(policy == null ? null : policy.getParam(BrokerStoreConfig.COMPACTION_KEY_PARAM),
+                retention == null ? brokerStoreConfig.getCompactionTombstoneRetention() : Long.parseLong(retention),
+                brokerStoreConfig.getCompactionMinLag());
+    }
+
     private void clean() {
         if (LOG.isDebugEnabled()) {
             LOG.info("Start scheduled StoreCleaningStrategy task use class: <{}>!!!", brokerStoreConfig.getCleanStrategyClass());
@@ -156,6 +196,8 @@ public class StoreCleanManager extends Service {
         long roundTotalDeleteStoreSize=0;
         long roundDeleteStoreSize;
         long startMs=SystemClock.now();
+        // 压缩需要扫描整个分区组，每次清理只执行一轮
+        boolean compact = true;
         do {
             roundDeleteStoreSize=0;
             List<TopicConfig> topicConfigs = clusterManager.getTopics();
@@ -184,8 +226,19 @@ public class StoreCleanManager extends Service {
                                             LOG.info("Begin store clean topic: <{}>, partition group: <{}>, partition ack map: <{}>",
                                                     topicConfig.getName().getFullName(), partitionGroup.getGroup(), partitionAckMap);
                                         }
-                                        roundDeleteStoreSize += cleaningStrategy.deleteIfNeeded(storeService.getStore(topicConfig.getName().getFullName(), partitionGroup.getGroup()), partitionAckMap,
-                                                topicConfig);
+                                        PartitionGroupStore store = storeService.getStore(topicConfig.getName().getFullName(), partitionGroup.getGroup());
+                                        long deleteStoreSize = cleaningStrategy.deleteIfNeeded(store, partitionAckMap, topicConfig);
+                                        if (deleteStoreSize > 0) {
+                                            invalidateConvertCache(topicConfig.getName().getFullName(), partitions, store);
+                                        }
+                                        roundDeleteStoreSize += deleteStoreSize;
+                                    }
+                                    CompactionPolicy compactionPolicy = compact ? compactionPolicy(topicConfig) : null;
+                                    if (compactionPolicy != null) {
+                                        PartitionGroupStore store = storeService.getStore(topicConfig.getName().getFullName(), partitionGroup.getGroup());
+                                        if (store != null) {
+                                            roundDeleteStoreSize += store.compact(compactionPolicy);
+                                        }
                                     }
                                 }
                             } catch (Throwable t) {
@@ -196,6 +249,7 @@ public class StoreCleanManager extends Service {
                 }
             }
             roundTotalDeleteStoreSize+=roundDeleteStoreSize;
+            compact = false;
         }while (roundDeleteStoreSize>0);
         if(LOG.isDebugEnabled()){
             LOG.debug("Round total clean storage size {},elapsed time {}ms",roundTotalDeleteStoreSize,SystemClock.now()-startMs);
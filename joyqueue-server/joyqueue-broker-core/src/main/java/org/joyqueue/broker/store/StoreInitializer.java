@@ -91,8 +91,10 @@ public class StoreInitializer extends Service implements EventListener<MetaEvent
         if (CollectionUtils.isEmpty(replicas)) {
             return;
         }
-        // 并行恢复所有的PartitionGroup
-        ExecutorService executor = Executors.newFixedThreadPool(32, new NamedThreadFactory("Store-recover-threads"));
+        // 并行恢复所有的PartitionGroup，恢复主要是磁盘IO，线程数按磁盘数分配
+        int threads = Math.max(storeService.getDiskCount(), 1) * Math.max(config.getRecoverThreadsPerDisk(), 1);
+        logger.info("Restore {} replicas with {} threads.", replicas.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("Store-recover-threads"));
         try {
             CompletableFuture.allOf(
                     replicas.stream()
@@ -61,7 +61,8 @@ public class StoreManager extends Service implements BrokerContextAware, Propert
                 propertySupplier,
                 storeService,
                 clusterManager,
-                this.brokerContext.getPositionManager()
+                this.brokerContext.getPositionManager(),
+                this.brokerContext.getMessageConvertSupport()
         );
     }
 
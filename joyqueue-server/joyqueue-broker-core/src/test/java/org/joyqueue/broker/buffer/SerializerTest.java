@@ -16,6 +16,7 @@
 package org.joyqueue.broker.buffer;
 
 import org.joyqueue.broker.buffer.Serializer;
+import org.joyqueue.message.BrokerCommit;
 import org.joyqueue.message.BrokerMessage;
 import org.joyqueue.toolkit.network.IpUtil;
 import org.junit.Assert;
@@ -127,4 +128,30 @@ public class SerializerTest {
         Assert.assertEquals(sendTime, 100l);
     }
 
+    @Test
+    public void brokerCommit() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(Serializer.sizeOfBrokerCommit());
+        Serializer.writeBrokerCommit(new BrokerCommit(), buffer);
+        buffer.flip();
+        Assert.assertTrue(Serializer.isBrokerCommit(buffer));
+
+        message.setClientIp(IpUtil.toByte(new InetSocketAddress(50088)));
+        message.setText("text");
+        int size = Serializer.sizeOf(message);
+        ByteBuffer messageBuffer = ByteBuffer.allocate(size);
+        Serializer.write(message, messageBuffer, size);
+        messageBuffer.flip();
+        Assert.assertFalse(Serializer.isBrokerCommit(messageBuffer));
+    }
+
+    @Test
+    public void brokerCommitProgress() {
+        ByteBuffer buffer = ByteBuffer.allocate(Serializer.sizeOfBrokerCommitProgress());
+        Serializer.writeBrokerCommitProgress(1, 2, 3, buffer);
+        buffer.flip();
+        Assert.assertTrue(Serializer.isBrokerCommitProgress(buffer));
+        Assert.assertFalse(Serializer.isBrokerCommit(buffer));
+        Assert.assertArrayEquals(new int[] {1, 2, 3}, Serializer.readBrokerCommitProgress(buffer));
+    }
+
 }
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.consumer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.monitor.SessionManager;
+import org.joyqueue.domain.Partition;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.exception.JoyQueueException;
+import org.joyqueue.network.session.Consumer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LeasePartitionManagerTest
+ */
+public class LeasePartitionManagerTest {
+
+    private final ClusterManager clusterManager = Mockito.mock(ClusterManager.class);
+    private final SessionManager sessionManager = Mockito.mock(SessionManager.class);
+    private final List<Short> partitions = Lists.newArrayList((short) 0, (short) 1, (short) 2, (short) 3, (short) 4, (short) 5);
+    private LeasePartitionManager partitionManager;
+
+    @Before
+    public void setup() throws JoyQueueException {
+        org.joyqueue.domain.Consumer.ConsumerPolicy consumerPolicy = new org.joyqueue.domain.Consumer.ConsumerPolicy();
+        consumerPolicy.setMaxPartitionNum(10);
+        Mockito.when(clusterManager.getConsumerPolicy(Mockito.any(), Mockito.anyString())).thenReturn(consumerPolicy);
+        Mockito.when(clusterManager.getLocalPartitions(new TopicName("topic"))).thenReturn(partitions);
+        partitionManager = new LeasePartitionManager(clusterManager, sessionManager, 100);
+    }
+
+    @After
+    public void close() {
+        partitionManager.close();
+    }
+
+    @Test
+    public void testAssign() {
+        Consumer consumer1 = newConsumer("1");
+        Consumer consumer2 = newConsumer("2");
+
+        Assert.assertEquals(partitions, partitionManager.getConsumablePartitions(consumer1, partitions));
+
+        partitionManager.getConsumablePartitions(consumer2, partitions);
+        List<Short> leased1 = partitionManager.getConsumablePartitions(consumer1, partitions);
+        List<Short> leased2 = partitionManager.getConsumablePartitions(consumer2, partitions);
+
+        Set<Short> all = Sets.newHashSet(leased1);
+        all.addAll(leased2);
+        Assert.assertEquals(leased1.size() + leased2.size(), partitions.size());
+        Assert.assertEquals(Sets.newHashSet(partitions), all);
+
+        List<Short> withRetry = Lists.newArrayList(partitions);
+        withRetry.add(Partition.RETRY_PARTITION_ID);
+        Assert.assertTrue(partitionManager.getConsumablePartitions(consumer1, withRetry).contains(Partition.RETRY_PARTITION_ID));
+    }
+
+    @Test
+    public void testSticky() {
+        Consumer consumer1 = newConsumer("1");
+        Consumer consumer2 = newConsumer("2");
+        Consumer consumer3 = newConsumer("3");
+
+        partitionManager.getConsumablePartitions(consumer1, partitions);
+        partitionManager.getConsumablePartitions(consumer2, partitions);
+        List<Short> before = partitionManager.getLeasedPartitions(consumer1);
+
+        partitionManager.getConsumablePartitions(consumer3, partitions);
+        List<Short> after = partitionManager.getLeasedPartitions(consumer1);
+
+        // 新消费者只会从已有消费者手中拿走分区
+        Assert.assertTrue(before.containsAll(after));
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        Consumer consumer1 = newConsumer("1");
+        Consumer consumer2 = newConsumer("2");
+
+        partitionManager.getConsumablePartitions(consumer1, partitions);
+        partitionManager.getConsumablePartitions(consumer2, partitions);
+
+        Thread.sleep(200);
+        partitionManager.getConsumablePartitions(consumer1, partitions);
+        partitionManager.expire();
+
+        Assert.assertEquals(partitions, partitionManager.getLeasedPartitions(consumer1));
+        Assert.assertTrue(partitionManager.getLeasedPartitions(consumer2).isEmpty());
+    }
+
+    @Test
+    public void testHasFreePartition() {
+        Consumer consumer1 = newConsumer("1");
+        Assert.assertTrue(partitionManager.hasFreePartition(consumer1));
+
+        partitionManager.getConsumablePartitions(consumer1, partitions);
+        for (Short partition : partitions) {
+            Assert.assertTrue(partitionManager.tryOccupyPartition(consumer1, partition, 1000));
+        }
+        Assert.assertFalse(partitionManager.hasFreePartition(consumer1));
+    }
+
+    protected Consumer newConsumer(String id) {
+        Consumer consumer = new Consumer();
+        consumer.setId(id);
+        consumer.setTopic("topic");
+        consumer.setApp("app");
+        consumer.setConnectionId("connection_" + id);
+        return consumer;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.consumer;
+
+import com.google.common.collect.Lists;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.message.SourceType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * MessageConvertCacheTest
+ */
+public class MessageConvertCacheTest {
+
+    private static final byte TARGET = SourceType.INTERNAL.getValue();
+
+    @Test
+    public void testGetAndPut() {
+        MessageConvertCache cache = new MessageConvertCache(1024 * 1024, 1000 * 60);
+        BrokerMessage message = newMessage(10);
+        Assert.assertNull(cache.get(message, TARGET));
+
+        List<BrokerMessage> converted = Lists.newArrayList(newMessage(10), newMessage(11));
+        cache.put(message, TARGET, converted);
+        Assert.assertSame(converted, cache.get(newMessage(10), TARGET));
+        Assert.assertNull(cache.get(message, SourceType.KAFKA.getValue()));
+
+        // 回滚后同一索引上的新消息不能命中
+        BrokerMessage rewritten = newMessage(10);
+        rewritten.setTerm(2);
+        Assert.assertNull(cache.get(rewritten, TARGET));
+    }
+
+    @Test
+    public void testInvalidate() {
+        MessageConvertCache cache = new MessageConvertCache(1024 * 1024, 1000 * 60);
+        for (int i = 0; i < 10; i++) {
+            BrokerMessage message = newMessage(i);
+            cache.put(message, TARGET, Lists.newArrayList(message));
+        }
+        cache.invalidate("topic", (short) 1, 5);
+        Assert.assertEquals(10, cache.size());
+
+        cache.invalidate("topic", (short) 0, 5);
+        Assert.assertEquals(5, cache.size());
+        Assert.assertNull(cache.get(newMessage(4), TARGET));
+        Assert.assertNotNull(cache.get(newMessage(5), TARGET));
+    }
+
+    @Test
+    public void testCapacity() {
+        MessageConvertCache cache = new MessageConvertCache(1024 * 10, 1000 * 60);
+        for (int i = 0; i < 100; i++) {
+            BrokerMessage message = newMessage(i);
+            message.setBody(new byte[1024]);
+            cache.put(message, TARGET, Lists.newArrayList(message));
+        }
+        Assert.assertTrue(cache.size() < 10);
+    }
+
+    protected BrokerMessage newMessage(long index) {
+        BrokerMessage message = new BrokerMessage();
+        message.setTopic("topic");
+        message.setPartition((short) 0);
+        message.setMsgIndexNo(index);
+        message.setTerm(1);
+        message.setStartTime(1000L);
+        message.setSource(SourceType.KAFKA.getValue());
+        return message;
+    }
+}
@@ -21,6 +21,8 @@ import org.joyqueue.broker.consumer.model.ConsumePartition;
 import org.joyqueue.broker.consumer.position.model.Position;
 import org.joyqueue.broker.election.command.AppendEntriesRequest;
 import org.joyqueue.broker.election.command.AppendEntriesResponse;
+import org.joyqueue.broker.election.command.InstallSnapshotRequest;
+import org.joyqueue.broker.election.command.InstallSnapshotResponse;
 import org.joyqueue.broker.election.command.ReplicateConsumePosRequest;
 import org.joyqueue.broker.election.command.ReplicateConsumePosResponse;
 import org.joyqueue.broker.election.command.TimeoutNowRequest;
@@ -31,6 +33,10 @@ import org.joyqueue.broker.election.network.codec.AppendEntriesRequestDecoder;
 import org.joyqueue.broker.election.network.codec.AppendEntriesRequestEncoder;
 import org.joyqueue.broker.election.network.codec.AppendEntriesResponseDecoder;
 import org.joyqueue.broker.election.network.codec.AppendEntriesResponseEncoder;
+import org.joyqueue.broker.election.network.codec.InstallSnapshotRequestDecoder;
+import org.joyqueue.broker.election.network.codec.InstallSnapshotRequestEncoder;
+import org.joyqueue.broker.election.network.codec.InstallSnapshotResponseDecoder;
+import org.joyqueue.broker.election.network.codec.InstallSnapshotResponseEncoder;
 import org.joyqueue.broker.election.network.codec.ReplicateConsumePosRequestDecoder;
 import org.joyqueue.broker.election.network.codec.ReplicateConsumePosRequestEncoder;
 import org.joyqueue.broker.election.network.codec.ReplicateConsumePosResponseDecoder;
@@ -119,6 +125,58 @@ public class ElectionCommandCodecTest {
         Assert.assertEquals(3, decodeEntires.getInt());
     }
 
+    @Test
+    public void testInstallSnapshotCodec() throws Exception {
+        final TopicPartitionGroup topicPartitionGroup = new TopicPartitionGroup("test", 1);
+
+        ByteBuffer data = ByteBuffer.allocate(12);
+        data.putInt(1);
+        data.putInt(2);
+        data.putInt(3);
+        data.flip();
+
+        InstallSnapshotRequest request = new InstallSnapshotRequest();
+        request.setTopicPartitionGroup(topicPartitionGroup);
+        request.setTerm(4);
+        request.setLeaderId(30);
+        request.setLeft(1024L);
+        request.setRight(4096L);
+        request.setPath("index/1/0");
+        request.setOffset(128L);
+        request.setData(data);
+        request.setChecksum(12345L);
+        request.setFirst(true);
+        request.setDone(false);
+
+        ByteBuf byteBuf = Unpooled.buffer(512);
+        new InstallSnapshotRequestEncoder().encode(request, byteBuf);
+        InstallSnapshotRequest decodeRequest = (InstallSnapshotRequest) new InstallSnapshotRequestDecoder()
+                .decode(new JoyQueueHeader(request.type()), byteBuf);
+
+        Assert.assertEquals(topicPartitionGroup.getTopic(), decodeRequest.getTopic());
+        Assert.assertEquals(topicPartitionGroup.getPartitionGroupId(), decodeRequest.getPartitionGroup());
+        Assert.assertEquals(4, decodeRequest.getTerm());
+        Assert.assertEquals(30, decodeRequest.getLeaderId());
+        Assert.assertEquals(1024L, decodeRequest.getLeft());
+        Assert.assertEquals(4096L, decodeRequest.getRight());
+        Assert.assertEquals("index/1/0", decodeRequest.getPath());
+        Assert.assertEquals(128L, decodeRequest.getOffset());
+        Assert.assertEquals(12345L, decodeRequest.getChecksum());
+        Assert.assertTrue(decodeRequest.isFirst());
+        Assert.assertFalse(decodeRequest.isDone());
+        Assert.assertEquals(data, decodeRequest.getData());
+
+        InstallSnapshotResponse response = new InstallSnapshotResponse(4, true, 4096L, 8);
+        byteBuf = Unpooled.buffer(512);
+        new InstallSnapshotResponseEncoder().encode(response, byteBuf);
+        InstallSnapshotResponse decodeResponse = (InstallSnapshotResponse) new InstallSnapshotResponseDecoder()
+                .decode(new JoyQueueHeader(response.type()), byteBuf);
+        Assert.assertEquals(4, decodeResponse.getTerm());
+        Assert.assertTrue(decodeResponse.isSuccess());
+        Assert.assertEquals(4096L, decodeResponse.getWritePosition());
+        Assert.assertEquals(8, decodeResponse.getReplicaId());
+    }
+
     @Test
     public void testAppendEntriesResponseCodec() throws Exception {
         final int entriesTerm = 1;
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.limit;
+
+import org.joyqueue.broker.limit.support.DefaultRateLimiter;
+import org.joyqueue.broker.limit.support.TokenBucket;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * RateLimiterTest
+ */
+public class RateLimiterTest {
+
+    @Test
+    public void testBurst() {
+        TokenBucket bucket = new TokenBucket(100, 1000);
+        int acquired = 0;
+        for (int i = 0; i < 200; i++) {
+            if (bucket.tryAcquire(1)) {
+                acquired++;
+            }
+        }
+        Assert.assertTrue(acquired >= 100 && acquired <= 102);
+        Assert.assertFalse(bucket.tryAcquire(1));
+        Assert.assertTrue(bucket.getWaitTime() > 0);
+    }
+
+    @Test
+    public void testRelease() {
+        TokenBucket bucket = new TokenBucket(10, 100);
+        while (bucket.tryAcquire(1)) {
+        }
+        bucket.release(10);
+        Assert.assertTrue(bucket.tryAcquire(1));
+    }
+
+    @Test
+    public void testHierarchy() {
+        DefaultRateLimiter parent = new DefaultRateLimiter(10, Integer.MAX_VALUE, 1000, null);
+        DefaultRateLimiter child1 = new DefaultRateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, 1000, parent);
+        DefaultRateLimiter child2 = new DefaultRateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, 1000, parent);
+
+        int acquired = 0;
+        for (int i = 0; i < 20; i++) {
+            if (child1.tryAcquireTps(1)) {
+                acquired++;
+            }
+            if (child2.tryAcquireTps(1)) {
+                acquired++;
+            }
+        }
+        Assert.assertTrue(acquired >= 10 && acquired <= 12);
+        Assert.assertTrue(child1.getWaitTime() > 0);
+    }
+
+    @Test
+    public void testWeight() {
+        DefaultRateLimiter parent = new DefaultRateLimiter(100, Integer.MAX_VALUE, 1000, null);
+        DefaultRateLimiter light = new DefaultRateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, 1000, parent);
+        light.setWeight(0.5);
+        DefaultRateLimiter heavy = new DefaultRateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, 1000, parent);
+
+        Assert.assertTrue(parent.tryAcquireTps(60));
+        Assert.assertFalse(light.tryAcquireTps(1));
+        Assert.assertTrue(heavy.tryAcquireTps(1));
+    }
+
+    @Test
+    public void testRequire() {
+        DefaultRateLimiter rateLimiter = new DefaultRateLimiter(10, 10);
+        Assert.assertTrue(rateLimiter.tryAcquireRequire());
+        Assert.assertFalse(rateLimiter.tryAcquireRequire());
+        rateLimiter.releaseRequire();
+        Assert.assertTrue(rateLimiter.tryAcquireRequire());
+    }
+}
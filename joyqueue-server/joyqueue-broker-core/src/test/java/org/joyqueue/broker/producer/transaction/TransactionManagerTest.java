@@ -0,0 +1,217 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.producer.transaction;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.buffer.Serializer;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.monitor.BrokerMonitor;
+import org.joyqueue.broker.producer.ProduceConfig;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.QosLevel;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.exception.JoyQueueException;
+import org.joyqueue.message.BrokerCommit;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.message.BrokerPrepare;
+import org.joyqueue.network.session.Producer;
+import org.joyqueue.store.PartitionGroupStore;
+import org.joyqueue.store.StoreService;
+import org.joyqueue.store.WriteRequest;
+import org.joyqueue.store.WriteResult;
+import org.joyqueue.store.transaction.TransactionStore;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.joyqueue.toolkit.network.IpUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * TransactionManagerTest
+ */
+public class TransactionManagerTest {
+
+    private static final String TOPIC = "test_topic";
+    private static final String APP = "test_app";
+    private static final int MESSAGE_COUNT = 6;
+
+    private final MemoryTransactionStore transactionStore = new MemoryTransactionStore();
+    private final Map<Integer, List<String>> written = Maps.newConcurrentMap();
+    // 各分区组第几次写入失败，-1为不失败
+    private final Map<Integer, Integer> failedWrites = Maps.newConcurrentMap();
+    private final Map<Integer, Integer> writeCounts = Maps.newConcurrentMap();
+    private final Producer producer = new Producer(TOPIC, APP, Producer.ProducerType.JOYQUEUE);
+    private List<ByteBuffer> messages;
+    private TransactionManager transactionManager;
+
+    @Before
+    public void before() throws Exception {
+        messages = Lists.newArrayList();
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            BrokerMessage message = new BrokerMessage();
+            message.setPartition((short) (i % 2));
+            message.setClientIp(IpUtil.toByte(new InetSocketAddress(50088)));
+            message.setText("message-" + i);
+            int size = Serializer.sizeOf(message);
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            Serializer.write(message, buffer, size);
+            messages.add(buffer);
+        }
+
+        // 每个分区组两条消息一批
+        Configuration configuration = new Configuration();
+        configuration.addProperty("produce.transaction.commit.batch.size", String.valueOf(messages.get(0).remaining() + 1));
+        ProduceConfig config = new ProduceConfig(configuration);
+
+        StoreService storeService = Mockito.mock(StoreService.class);
+        Mockito.when(storeService.getTransactionStore(TOPIC)).thenReturn(transactionStore);
+        for (int group = 0; group < 2; group++) {
+            Mockito.when(storeService.getStore(TOPIC, group, QosLevel.REPLICATION)).thenReturn(partitionGroupStore(group));
+        }
+        ClusterManager clusterManager = Mockito.mock(ClusterManager.class);
+        Mockito.when(clusterManager.getPartitionGroup(Mockito.any(), Mockito.anyShort())).thenAnswer(invocation -> {
+            PartitionGroup partitionGroup = new PartitionGroup();
+            partitionGroup.setGroup((short) invocation.getArguments()[1]);
+            return partitionGroup;
+        });
+
+        transactionManager = new TransactionManager(config, storeService, clusterManager, Mockito.mock(BrokerMonitor.class));
+        transactionManager.start();
+    }
+
+    @After
+    public void after() {
+        if (transactionManager != null) {
+            transactionManager.stop();
+        }
+    }
+
+    @Test
+    public void testRetryAfterPartialFailure() throws Exception {
+        BrokerPrepare prepare = new BrokerPrepare();
+        prepare.setTopic(TOPIC);
+        prepare.setApp(APP);
+        prepare.setTxId("tx-1");
+        prepare.setQueryId("query-1");
+        prepare.setTimeout(60 * 1000L);
+        transactionManager.prepare(producer, prepare);
+        transactionManager.putMessage(producer, prepare.getTxId(), messages.toArray(new ByteBuffer[0])).get();
+
+        BrokerCommit commit = new BrokerCommit();
+        commit.setTopic(TOPIC);
+        commit.setApp(APP);
+        commit.setTxId(prepare.getTxId());
+
+        // 分区组1的第二批写入失败，其余批次已经写入
+        failedWrites.put(1, 1);
+        try {
+            transactionManager.commit(producer, commit);
+            Assert.fail();
+        } catch (JoyQueueException e) {
+            Assert.assertEquals(JoyQueueCode.SE_WRITE_FAILED.getCode(), e.getCode());
+        }
+        Assert.assertEquals(3, written.get(0).size());
+        Assert.assertEquals(2, written.get(1).size());
+        Assert.assertNotNull(transactionManager.getTransaction(TOPIC, APP, prepare.getTxId()));
+
+        // 重试只写入失败的批次，不重复写入
+        failedWrites.clear();
+        transactionManager.commit(producer, commit);
+        Assert.assertEquals(Lists.newArrayList("message-0", "message-2", "message-4"), written.get(0));
+        Assert.assertEquals(Lists.newArrayList("message-1", "message-3", "message-5"), written.get(1));
+        Assert.assertNull(transactionManager.getTransaction(TOPIC, APP, prepare.getTxId()));
+        Assert.assertTrue(transactionStore.stores.isEmpty());
+    }
+
+    private PartitionGroupStore partitionGroupStore(int group) {
+        return Mockito.mock(PartitionGroupStore.class, invocation -> {
+            Object[] arguments = invocation.getArguments();
+            if (!"asyncWrite".equals(invocation.getMethod().getName()) || !(arguments[0] instanceof EventListener)) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            EventListener<WriteResult> listener = (EventListener<WriteResult>) arguments[0];
+            int count = writeCounts.merge(group, 1, Integer::sum) - 1;
+            if (failedWrites.getOrDefault(group, -1) == count) {
+                listener.onEvent(new WriteResult(JoyQueueCode.SE_WRITE_FAILED, null));
+                return null;
+            }
+            for (int i = 1; i < arguments.length; i++) {
+                WriteRequest writeRequest = (WriteRequest) arguments[i];
+                written.computeIfAbsent(group, key -> Lists.newArrayList())
+                        .add(Serializer.readBrokerMessage(writeRequest.getBuffer().duplicate()).getText());
+            }
+            listener.onEvent(new WriteResult(JoyQueueCode.SUCCESS, null));
+            return null;
+        });
+    }
+
+    /**
+     * 内存中的事务存储
+     */
+    private static class MemoryTransactionStore implements TransactionStore {
+        private final Map<Integer, List<ByteBuffer>> stores = Maps.newConcurrentMap();
+        private int id = 0;
+
+        @Override
+        public synchronized int next() {
+            return id++;
+        }
+
+        @Override
+        public int[] list() {
+            return stores.keySet().stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        @Override
+        public boolean remove(int id) {
+            return stores.remove(id) != null;
+        }
+
+        @Override
+        public Future<WriteResult> asyncWrite(int id, ByteBuffer... messages) {
+            List<ByteBuffer> store = stores.computeIfAbsent(id, key -> Lists.newCopyOnWriteArrayList());
+            for (ByteBuffer message : messages) {
+                store.add(message.duplicate());
+            }
+            return CompletableFuture.completedFuture(new WriteResult(JoyQueueCode.SUCCESS, null));
+        }
+
+        @Override
+        public void asyncWrite(EventListener<WriteResult> eventListener, int id, ByteBuffer... messages) {
+            asyncWrite(id, messages);
+            eventListener.onEvent(new WriteResult(JoyQueueCode.SUCCESS, null));
+        }
+
+        @Override
+        public Iterator<ByteBuffer> readIterator(int id) {
+            List<ByteBuffer> store = stores.get(id);
+            return store == null ? null : store.stream().map(ByteBuffer::duplicate).iterator();
+        }
+    }
+}
@@ -40,7 +40,7 @@ public enum KafkaCommandType {
     METADATA(3, 0, 4),
 
     // 提交commit
-    OFFSET_COMMIT(8, 0, 4),
+    OFFSET_COMMIT(8, 0, 7),
 
     // 取offset
     OFFSET_FETCH(9, 0, 4),
@@ -49,16 +49,16 @@ public enum KafkaCommandType {
     FIND_COORDINATOR(10, 0, 2),
 
     // 加入组
-    JOIN_GROUP(11, 0, 3),
+    JOIN_GROUP(11, 0, 5),
 
     // 心跳
-    HEARTBEAT(12, 0, 2),
+    HEARTBEAT(12, 0, 3),
 
     // 离开组
-    LEAVE_GROUP(13, 0, 2),
+    LEAVE_GROUP(13, 0, 3),
 
     // 同步组
-    SYNC_GROUP(14, 0, 2),
+    SYNC_GROUP(14, 0, 3),
 
     // 描述组
     DESCRIBE_GROUP(15, 0, 2),
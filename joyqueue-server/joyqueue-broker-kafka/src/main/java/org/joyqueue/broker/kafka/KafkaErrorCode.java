@@ -115,6 +115,12 @@ public enum KafkaErrorCode {
     FENCED_LEADER_EPOCH(74),
     UNKNOWN_LEADER_EPOCH(75),
     UNSUPPORTED_COMPRESSION_TYPE(76),
+    STALE_BROKER_EPOCH(77),
+    OFFSET_NOT_AVAILABLE(78),
+    MEMBER_ID_REQUIRED(79),
+    PREFERRED_LEADER_NOT_AVAILABLE(80),
+    GROUP_MAX_SIZE_REACHED(81),
+    FENCED_INSTANCE_ID(82),
     ;
 
     protected static final Logger logger = LoggerFactory.getLogger(KafkaErrorCode.class);
@@ -24,6 +24,7 @@ public class HeartbeatRequest extends KafkaRequestOrResponse {
     private String groupId;
     private int groupGenerationId;
     private String memberId;
+    private String groupInstanceId;
 
     public String getGroupId() {
         return groupId;
@@ -49,6 +50,14 @@ public class HeartbeatRequest extends KafkaRequestOrResponse {
         this.memberId = memberId;
     }
 
+    public String getGroupInstanceId() {
+        return groupInstanceId;
+    }
+
+    public void setGroupInstanceId(String groupInstanceId) {
+        this.groupInstanceId = groupInstanceId;
+    }
+
     @Override
     public int type() {
         return KafkaCommandType.HEARTBEAT.getCode();
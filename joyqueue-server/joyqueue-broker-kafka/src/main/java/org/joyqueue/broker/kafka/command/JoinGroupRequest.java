@@ -32,6 +32,7 @@ public class JoinGroupRequest extends KafkaRequestOrResponse {
     private int sessionTimeout;
     private int rebalanceTimeout;
     private String memberId;
+    private String groupInstanceId;
     private String protocolType;
     private List<ProtocolMetadata> groupProtocols;
 
@@ -67,6 +68,14 @@ public class JoinGroupRequest extends KafkaRequestOrResponse {
         this.memberId = memberId;
     }
 
+    public String getGroupInstanceId() {
+        return groupInstanceId;
+    }
+
+    public void setGroupInstanceId(String groupInstanceId) {
+        this.groupInstanceId = groupInstanceId;
+    }
+
     public String getProtocolType() {
         return protocolType;
     }
@@ -31,6 +31,7 @@ public class JoinGroupResponse extends KafkaRequestOrResponse {
     private String memberId;
     private String leaderId;
     private Map<String, ByteBuffer> members;
+    private Map<String, String> groupInstanceIds;
 
     public short getErrorCode() {
         return errorCode;
@@ -80,6 +81,14 @@ public class JoinGroupResponse extends KafkaRequestOrResponse {
         this.members = members;
     }
 
+    public Map<String, String> getGroupInstanceIds() {
+        return groupInstanceIds;
+    }
+
+    public void setGroupInstanceIds(Map<String, String> groupInstanceIds) {
+        this.groupInstanceIds = groupInstanceIds;
+    }
+
     @Override
     public int type() {
         return KafkaCommandType.JOIN_GROUP.getCode();
@@ -18,12 +18,16 @@ package org.joyqueue.broker.kafka.command;
 
 import org.joyqueue.broker.kafka.KafkaCommandType;
 
+import java.util.List;
+
 /**
  * Created by zhangkepeng on 17-2-10.
  */
 public class LeaveGroupRequest extends KafkaRequestOrResponse {
     private String groupId;
     private String memberId;
+    // v3开始支持批量离开，包含静态成员
+    private List<MemberIdentity> members;
 
     public String getMemberId() {
         return memberId;
@@ -33,6 +37,14 @@ public class LeaveGroupRequest extends KafkaRequestOrResponse {
         this.memberId = memberId;
     }
 
+    public List<MemberIdentity> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<MemberIdentity> members) {
+        this.members = members;
+    }
+
     public String getGroupId() {
         return groupId;
     }
@@ -41,6 +53,24 @@ public class LeaveGroupRequest extends KafkaRequestOrResponse {
         this.groupId = groupId;
     }
 
+    public static class MemberIdentity {
+        private final String memberId;
+        private final String groupInstanceId;
+
+        public MemberIdentity(String memberId, String groupInstanceId) {
+            this.memberId = memberId;
+            this.groupInstanceId = groupInstanceId;
+        }
+
+        public String memberId() {
+            return memberId;
+        }
+
+        public String groupInstanceId() {
+            return groupInstanceId;
+        }
+    }
+
     @Override
     public int type() {
         return KafkaCommandType.LEAVE_GROUP.getCode();
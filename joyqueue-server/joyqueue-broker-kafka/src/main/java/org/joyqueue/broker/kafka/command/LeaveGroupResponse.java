@@ -17,12 +17,15 @@ package org.joyqueue.broker.kafka.command;
 
 import org.joyqueue.broker.kafka.KafkaCommandType;
 
+import java.util.List;
+
 /**
  * Created by zhangkepeng on 17-2-10.
  */
 public class LeaveGroupResponse extends KafkaRequestOrResponse {
 
     private short errorCode;
+    private List<MemberResponse> members;
 
     public LeaveGroupResponse() {
 
@@ -32,6 +35,14 @@ public class LeaveGroupResponse extends KafkaRequestOrResponse {
         this.errorCode = errorCode;
     }
 
+    public List<MemberResponse> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<MemberResponse> members) {
+        this.members = members;
+    }
+
     public short getErrorCode() {
         return errorCode;
     }
@@ -40,6 +51,30 @@ public class LeaveGroupResponse extends KafkaRequestOrResponse {
         this.errorCode = errorCode;
     }
 
+    public static class MemberResponse {
+        private final String memberId;
+        private final String groupInstanceId;
+        private final short errorCode;
+
+        public MemberResponse(String memberId, String groupInstanceId, short errorCode) {
+            this.memberId = memberId;
+            this.groupInstanceId = groupInstanceId;
+            this.errorCode = errorCode;
+        }
+
+        public String memberId() {
+            return memberId;
+        }
+
+        public String groupInstanceId() {
+            return groupInstanceId;
+        }
+
+        public short errorCode() {
+            return errorCode;
+        }
+    }
+
     @Override
     public int type() {
         return KafkaCommandType.LEAVE_GROUP.getCode();
@@ -35,6 +35,7 @@ public class OffsetCommitRequest extends KafkaRequestOrResponse {
     private Map<String, List<OffsetAndMetadata>> offsets;
     private int groupGenerationId;
     private String memberId;
+    private String groupInstanceId;
     private long retentionTime;
 
     public String getMemberId() {
@@ -45,6 +46,14 @@ public class OffsetCommitRequest extends KafkaRequestOrResponse {
         this.memberId = memberId;
     }
 
+    public String getGroupInstanceId() {
+        return groupInstanceId;
+    }
+
+    public void setGroupInstanceId(String groupInstanceId) {
+        this.groupInstanceId = groupInstanceId;
+    }
+
     public int getGroupGenerationId() {
         return groupGenerationId;
     }
@@ -27,6 +27,7 @@ public class SyncGroupRequest extends KafkaRequestOrResponse {
     private String groupId;
     private int generationId;
     private String memberId;
+    private String groupInstanceId;
     private Map<String, SyncGroupAssignment> groupAssignment;
 
     public String getGroupId() {
@@ -53,6 +54,14 @@ public class SyncGroupRequest extends KafkaRequestOrResponse {
         this.memberId = memberId;
     }
 
+    public String getGroupInstanceId() {
+        return groupInstanceId;
+    }
+
+    public void setGroupInstanceId(String groupInstanceId) {
+        this.groupInstanceId = groupInstanceId;
+    }
+
     public void setGroupAssignment(Map<String, SyncGroupAssignment> groupAssignment) {
         this.groupAssignment = groupAssignment;
     }
@@ -84,10 +84,22 @@ public class KafkaConfig {
         return getConfig(KafkaConfigKey.METADATA_FUZZY_SEARCH_ENABLE);
     }
 
+    public boolean getMetadataTopicCacheEnable() {
+        return getConfig(KafkaConfigKey.METADATA_TOPIC_CACHE_ENABLE);
+    }
+
+    public int getMetadataTopicCacheExpireTime() {
+        return getConfig(KafkaConfigKey.METADATA_TOPIC_CACHE_EXPIRE_TIME);
+    }
+
     public boolean getFetchDelay() {
         return getConfig(KafkaConfigKey.FETCH_DELAY);
     }
 
+    public boolean getOffsetCacheEnable() {
+        return getConfig(KafkaConfigKey.OFFSET_CACHE_ENABLE);
+    }
+
     public int getOffsetSyncTimeout() {
         return getConfig(KafkaConfigKey.OFFSET_SYNC_TIMEOUT);
     }
@@ -124,6 +136,34 @@ public class KafkaConfig {
         return QosLevel.valueOf((int) getConfig(KafkaConfigKey.TRANSACTION_LOG_WRITE_QOSLEVEL));
     }
 
+    public boolean getGroupLogEnable() {
+        return getConfig(KafkaConfigKey.GROUP_LOG_ENABLE);
+    }
+
+    public QosLevel getGroupLogWriteQosLevel() {
+        return QosLevel.valueOf((int) getConfig(KafkaConfigKey.GROUP_LOG_WRITE_QOSLEVEL));
+    }
+
+    public int getGroupLogWriteTimeout() {
+        return getConfig(KafkaConfigKey.GROUP_LOG_WRITE_TIMEOUT);
+    }
+
+    public int getGroupLogLoadInterval() {
+        return getConfig(KafkaConfigKey.GROUP_LOG_LOAD_INTERVAL);
+    }
+
+    public int getGroupLogCompactInterval() {
+        return getConfig(KafkaConfigKey.GROUP_LOG_COMPACT_INTERVAL);
+    }
+
+    public int getGroupLogScanSize() {
+        return getConfig(KafkaConfigKey.GROUP_LOG_SCAN_SIZE);
+    }
+
+    public String getGroupLogApp() {
+        return getConfig(KafkaConfigKey.GROUP_LOG_APP);
+    }
+
     public int getSessionMaxTimeout() {
         return getConfig(KafkaConfigKey.SESSION_MAX_TIMEOUT);
     }
@@ -38,6 +38,8 @@ public enum KafkaConfigKey implements PropertyDef {
 
     // offset同步超时
     OFFSET_SYNC_TIMEOUT("kafka.offset.sync.timeout", 1000 * 1, Type.INT),
+    // 是否使用本地提交的位置响应位置查询
+    OFFSET_CACHE_ENABLE("kafka.offset.cache.enable", true, Type.BOOLEAN),
 
     // 事务同步超时
     TRANSACTION_SYNC_TIMEOUT("kafka.transaction.sync.timeout", 1000 * 3, Type.INT),
@@ -56,12 +58,30 @@ public enum KafkaConfigKey implements PropertyDef {
     // 事务日志app
     TRANSACTION_LOG_APP("coordinator.transaction.log.app", "__transaction_log", PropertyDef.Type.STRING),
 
+    // 组日志开关
+    GROUP_LOG_ENABLE("kafka.group.log.enable", true, Type.BOOLEAN),
+    // 组日志写入级别
+    GROUP_LOG_WRITE_QOSLEVEL("kafka.group.log.write.qosLevel", QosLevel.PERSISTENCE.value(), Type.INT),
+    // 组日志写入超时
+    GROUP_LOG_WRITE_TIMEOUT("kafka.group.log.write.timeout", 1000 * 3, Type.INT),
+    // 组日志加载检查间隔
+    GROUP_LOG_LOAD_INTERVAL("kafka.group.log.load.interval", 1000 * 1, Type.INT),
+    // 组日志压缩间隔
+    GROUP_LOG_COMPACT_INTERVAL("kafka.group.log.compact.interval", 1000 * 60 * 30, Type.INT),
+    // 组日志扫描大小
+    GROUP_LOG_SCAN_SIZE("kafka.group.log.scan.size", 1000, Type.INT),
+    // 组日志app
+    GROUP_LOG_APP("coordinator.group.log.app", "__group_log", PropertyDef.Type.STRING),
+
     // 元数据延迟
     METADATA_DELAY_ENABLE("kafka.metadata.delay.enable", true, Type.BOOLEAN),
     METADATA_DELAY("kafka.metadata.delay", 1000 * 10, Type.INT),
     METADATA_CACHE_ENABLE("kafka.metadata.enable", true, Type.BOOLEAN),
     METADATA_CACHE_EXPIRE_TIME("kafka.metadata.expire.time", 1000 * 60 * 1, Type.INT),
     METADATA_FUZZY_SEARCH_ENABLE("kafka.metadata.fuzzy.enable", true, Type.BOOLEAN),
+    // 主题元数据缓存，元数据或选举变更时失效
+    METADATA_TOPIC_CACHE_ENABLE("kafka.metadata.topic.cache.enable", true, Type.BOOLEAN),
+    METADATA_TOPIC_CACHE_EXPIRE_TIME("kafka.metadata.topic.cache.expire.time", 1000 * 60 * 5, Type.INT),
     // 拉取延迟
     FETCH_DELAY("kafka.fetch.delay", true, Type.BOOLEAN),
     // 写入超时
@@ -43,6 +43,18 @@ public class Coordinator {
         return coordinator.isCurrentGroup(groupId);
     }
 
+    public TopicName getGroupTopic() {
+        return coordinator.getGroupTopic();
+    }
+
+    public TopicConfig getGroupTopicConfig() {
+        return coordinator.getGroupTopicConfig();
+    }
+
+    public PartitionGroup getGroupPartitionGroup(String groupId) {
+        return coordinator.getGroupPartitionGroup(groupId);
+    }
+
     public Broker findTransaction(String transactionId) {
         return coordinator.findTransaction(transactionId);
     }
@@ -66,8 +66,8 @@ public class GroupBalanceHandler extends Service {
         this.tracer = Plugins.TRACERERVICE.get(PropertySupplier.getValue(propertySupplier, BrokerConfigKey.TRACER_TYPE));
     }
 
-    public void joinGroup(String groupId, String memberId, String clientId, String clientHost, int rebalanceTimeoutMs, int sessionTimeoutMs, String protocolType,
-                          Map<String, byte[]> protocols, JoinCallback callback) {
+    public void joinGroup(String groupId, String memberId, String groupInstanceId, String clientId, String clientHost, int rebalanceTimeoutMs, int sessionTimeoutMs,
+                          String protocolType, Map<String, byte[]> protocols, JoinCallback callback) {
 
         if (!isStarted()) {
             callback.sendResponseCallback(GroupJoinGroupResult.buildError(memberId, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode()));
@@ -97,12 +97,12 @@ public class GroupBalanceHandler extends Service {
 
         GroupMetadata finalGroup = group;
         group.inLock(() -> {
-            doJoinGroup(finalGroup, memberId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocolType, protocols, callback);
+            doJoinGroup(finalGroup, memberId, groupInstanceId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocolType, protocols, callback);
         });
     }
 
-    protected void doJoinGroup(GroupMetadata group, String memberId, String clientId, String clientHost, int rebalanceTimeoutMs, int sessionTimeoutMs, String protocolType,
-                               Map<String, byte[]> protocols, JoinCallback callback) {
+    protected void doJoinGroup(GroupMetadata group, String memberId, String groupInstanceId, String clientId, String clientHost, int rebalanceTimeoutMs, int sessionTimeoutMs,
+                               String protocolType, Map<String, byte[]> protocols, JoinCallback callback) {
 
         if (!group.stateIs(GroupState.EMPTY) &&
                 (!group.getProtocolType().equals(protocolType) || !group.supportsProtocols(protocols.keySet()))) {
@@ -115,6 +115,11 @@ public class GroupBalanceHandler extends Service {
             callback.sendResponseCallback(GroupJoinGroupResult.buildError(memberId, KafkaErrorCode.INCONSISTENT_GROUP_PROTOCOL.getCode()));
             return;
         }
+        if (!memberId.equals(JoinGroupRequest.UNKNOWN_MEMBER_ID) && group.isStaticMemberFenced(memberId, groupInstanceId)) {
+            // the member id has been replaced by a newer instance with the same group instance id
+            callback.sendResponseCallback(GroupJoinGroupResult.buildError(memberId, KafkaErrorCode.FENCED_INSTANCE_ID.getCode()));
+            return;
+        }
         if (!memberId.equals(JoinGroupRequest.UNKNOWN_MEMBER_ID) && !group.isHasMember(memberId)) {
             // if the member trying to register with a un-recognized id, send the response to let
             // it reset its member id and retry
@@ -132,7 +137,7 @@ public class GroupBalanceHandler extends Service {
                 break;
             case PREPARINGREBALANCE:
                 if (memberId.equals(JoinGroupRequest.UNKNOWN_MEMBER_ID)) {
-                    groupBalanceManager.addMemberAndRebalance(rebalanceTimeoutMs, sessionTimeoutMs, clientId, clientHost, protocols, group, callback);
+                    addOrReplaceMember(group, groupInstanceId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocols, callback);
                 } else {
                     GroupMemberMetadata member = group.getMember(memberId);
                     groupBalanceManager.updateMemberAndRebalance(group, member, protocols, callback);
@@ -140,7 +145,7 @@ public class GroupBalanceHandler extends Service {
                 break;
             case AWAITINGSYNC:
                 if (memberId.equals(JoinGroupRequest.UNKNOWN_MEMBER_ID)) {
-                    groupBalanceManager.addMemberAndRebalance(rebalanceTimeoutMs, sessionTimeoutMs, clientId, clientHost, protocols, group, callback);
+                    addOrReplaceMember(group, groupInstanceId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocols, callback);
                 } else {
                     GroupMemberMetadata member = group.getMember(memberId);
                     if (member.matches(protocols)) {
@@ -155,6 +160,9 @@ public class GroupBalanceHandler extends Service {
                         }
                         GroupJoinGroupResult groupJoinGroupResult = new GroupJoinGroupResult(members, memberId, group.getGenerationId(),
                                 group.getProtocol(), group.getLeaderId(), KafkaErrorCode.NONE.getCode());
+                        if (memberId.equals(group.getLeaderId())) {
+                            groupJoinGroupResult.setGroupInstanceIds(group.currentMemberInstanceIds());
+                        }
                         callback.sendResponseCallback(groupJoinGroupResult);
                     } else {
                         // member has changed metadata, so force a rebalance
@@ -166,7 +174,7 @@ public class GroupBalanceHandler extends Service {
             case STABLE:
                 if (memberId.equals(JoinGroupRequest.UNKNOWN_MEMBER_ID)) {
                     // if the member id is unknown, register the member to the group
-                    groupBalanceManager.addMemberAndRebalance(rebalanceTimeoutMs, sessionTimeoutMs, clientId, clientHost, protocols, group, callback);
+                    addOrReplaceMember(group, groupInstanceId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocols, callback);
                 } else {
                     GroupMemberMetadata member = group.getMember(memberId);
                     if (memberId.equals(group.getLeaderId()) || !member.matches(protocols)) {
@@ -190,7 +198,17 @@ public class GroupBalanceHandler extends Service {
         }
     }
 
-    public void syncGroup(String groupId, int generation, String memberId, Map<String, SyncGroupAssignment> groupAssignment, SyncCallback callback) {
+    protected void addOrReplaceMember(GroupMetadata group, String groupInstanceId, String clientId, String clientHost, int rebalanceTimeoutMs, int sessionTimeoutMs,
+                                      Map<String, byte[]> protocols, JoinCallback callback) {
+        if (group.hasStaticMember(groupInstanceId)) {
+            // a known static member restarted, take over its previous member id and assignment
+            groupBalanceManager.updateStaticMemberAndRebalance(group, groupInstanceId, clientId, clientHost, protocols, callback);
+        } else {
+            groupBalanceManager.addMemberAndRebalance(rebalanceTimeoutMs, sessionTimeoutMs, groupInstanceId, clientId, clientHost, protocols, group, callback);
+        }
+    }
+
+    public void syncGroup(String groupId, int generation, String memberId, String groupInstanceId, Map<String, SyncGroupAssignment> groupAssignment, SyncCallback callback) {
         if (!isStarted()) {
             callback.sendResponseCallback(null, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode());
             return;
@@ -203,14 +221,19 @@ public class GroupBalanceHandler extends Service {
         }
 
         group.inLock(() -> {
-            doSyncGroup(group, generation, memberId, groupAssignment, callback);
+            doSyncGroup(group, generation, memberId, groupInstanceId, groupAssignment, callback);
         });
     }
 
-    protected void doSyncGroup(GroupMetadata group, int generationId, String memberId, Map<String, SyncGroupAssignment> groupAssignment, SyncCallback callback) {
+    protected void doSyncGroup(GroupMetadata group, int generationId, String memberId, String groupInstanceId, Map<String, SyncGroupAssignment> groupAssignment,
+                               SyncCallback callback) {
         logger.info("sync group, groupId = {}, memberId = {}, memberCount = {}",
                 group.getId(), memberId, group.getAllMemberIds().size());
 
+        if (group.isStaticMemberFenced(memberId, groupInstanceId)) {
+            callback.sendResponseCallback(null, KafkaErrorCode.FENCED_INSTANCE_ID.getCode());
+            return;
+        }
         if (!group.isHasMember(memberId)) {
             callback.sendResponseCallback(null, KafkaErrorCode.UNKNOWN_MEMBER_ID.getCode());
             return;
@@ -253,6 +276,7 @@ public class GroupBalanceHandler extends Service {
                         logger.info("sync group {}, transition to STABLE state, generation id is {}", group.getId(), generationId);
                         groupBalanceManager.setAndPropagateAssignment(group, groupAssignment);
                         group.transitionStateTo(GroupState.STABLE);
+                        groupMetadataManager.storeGroup(group);
                     }
                 }
                 break;
@@ -267,7 +291,7 @@ public class GroupBalanceHandler extends Service {
         }
     }
 
-    public short leaveGroup(String groupId, String memberId) {
+    public short leaveGroup(String groupId, String memberId, String groupInstanceId) {
         if (!isStarted()) {
             return KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode();
         }
@@ -281,13 +305,23 @@ public class GroupBalanceHandler extends Service {
             return KafkaErrorCode.UNKNOWN_MEMBER_ID.getCode();
         }
 
-        logger.info("member leave group, memberId: {}, group: {}, state: {}", memberId, groupId, group.getState());
+        logger.info("member leave group, memberId: {}, groupInstanceId: {}, group: {}, state: {}", memberId, groupInstanceId, groupId, group.getState());
 
         return group.inLock(() -> {
-            if (group.stateIs(GroupState.DEAD) || !group.isHasMember(memberId)) {
+            if (group.stateIs(GroupState.DEAD)) {
+                return KafkaErrorCode.UNKNOWN_MEMBER_ID.getCode();
+            }
+            // static member can be removed by group instance id only
+            String leaveMemberId = memberId;
+            if (StringUtils.isEmpty(leaveMemberId) && groupInstanceId != null) {
+                leaveMemberId = group.getStaticMemberId(groupInstanceId);
+            } else if (group.isStaticMemberFenced(leaveMemberId, groupInstanceId)) {
+                return KafkaErrorCode.FENCED_INSTANCE_ID.getCode();
+            }
+            if (!group.isHasMember(leaveMemberId)) {
                 return KafkaErrorCode.UNKNOWN_MEMBER_ID.getCode();
             }
-            GroupMemberMetadata member = group.getMember(memberId);
+            GroupMemberMetadata member = group.getMember(leaveMemberId);
             groupBalanceManager.removeHeartbeatForLeavingMember(group, member);
             groupBalanceManager.removeMemberAndUpdateGroup(group, member);
             group.addExpiredMember(member);
@@ -295,7 +329,7 @@ public class GroupBalanceHandler extends Service {
         });
     }
 
-    public short heartbeat(String groupId, String memberId, int generationId) {
+    public short heartbeat(String groupId, String memberId, String groupInstanceId, int generationId) {
         if (!isStarted()) {
             return KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode();
         }
@@ -306,10 +340,13 @@ public class GroupBalanceHandler extends Service {
         }
 
         tracer.end(tracer.begin("kafka.coordinator.heartbeat"));
-        return doHeartbeat(group, memberId, generationId);
+        return doHeartbeat(group, memberId, groupInstanceId, generationId);
     }
 
-    protected short doHeartbeat(GroupMetadata group, String memberId, int generationId) {
+    protected short doHeartbeat(GroupMetadata group, String memberId, String groupInstanceId, int generationId) {
+        if (group.isStaticMemberFenced(memberId, groupInstanceId)) {
+            return KafkaErrorCode.FENCED_INSTANCE_ID.getCode();
+        }
         switch (group.getState()) {
             case DEAD:
             case EMPTY: {
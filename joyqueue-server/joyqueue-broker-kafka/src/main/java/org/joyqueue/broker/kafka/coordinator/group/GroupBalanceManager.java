@@ -26,6 +26,7 @@ import org.joyqueue.broker.kafka.coordinator.group.callback.JoinCallback;
 import org.joyqueue.broker.kafka.coordinator.group.delay.DelayedHeartbeat;
 import org.joyqueue.broker.kafka.coordinator.group.delay.DelayedInitialJoin;
 import org.joyqueue.broker.kafka.coordinator.group.delay.DelayedJoin;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupJoinGroupResult;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMemberMetadata;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupState;
@@ -36,6 +37,7 @@ import org.joyqueue.toolkit.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -74,14 +76,14 @@ public class GroupBalanceManager extends Service {
         heartbeatPurgatory.shutdown();
     }
 
-    public GroupMemberMetadata addMemberAndRebalance(int rebalanceTimeoutMs, int sessionTimeoutMs, String clientId, String clientHost, Map<String, byte[]> protocols,
-                                                     GroupMetadata group, JoinCallback callback) {
+    public GroupMemberMetadata addMemberAndRebalance(int rebalanceTimeoutMs, int sessionTimeoutMs, String groupInstanceId, String clientId, String clientHost,
+                                                     Map<String, byte[]> protocols, GroupMetadata group, JoinCallback callback) {
 
         String memberId = generateMemberId(group, clientId, clientHost);
-        GroupMemberMetadata member = new GroupMemberMetadata(memberId, group.getId(), clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocols);
+        GroupMemberMetadata member = new GroupMemberMetadata(memberId, groupInstanceId, group.getId(), clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocols);
 
-        logger.info("add member, groupId: {}, state: {}, generationId: {}, leaderId: {}, memberId: {}, memberCount = {}, rebalanceTimeout:{}, sessionTimeout:{}",
-                group.getId(), group.getState(), group.getGenerationId(), group.getLeaderId(), memberId, group.getAllMemberIds().size(), rebalanceTimeoutMs, sessionTimeoutMs);
+        logger.info("add member, groupId: {}, state: {}, generationId: {}, leaderId: {}, memberId: {}, groupInstanceId: {}, memberCount = {}, rebalanceTimeout:{}, sessionTimeout:{}",
+                group.getId(), group.getState(), group.getGenerationId(), group.getLeaderId(), memberId, groupInstanceId, group.getAllMemberIds().size(), rebalanceTimeoutMs, sessionTimeoutMs);
 
         if (group.stateIs(GroupState.PREPARINGREBALANCE) && group.isNewGroup()) {
             group.setNewMemberAdded(true);
@@ -102,6 +104,45 @@ public class GroupBalanceManager extends Service {
         return group.getId() + "-" + clientId + "-" + clientHost + "-" + SystemClock.now();
     }
 
+    /**
+     * 静态成员重启后使用未知memberId重新加入，替换旧memberId并沿用原有分配，组稳定时不触发rebalance
+     */
+    public void updateStaticMemberAndRebalance(GroupMetadata group, String groupInstanceId, String clientId, String clientHost,
+                                               Map<String, byte[]> protocols, JoinCallback callback) {
+        String oldMemberId = group.getStaticMemberId(groupInstanceId);
+        String newMemberId = generateMemberId(group, clientId, clientHost);
+        String currentLeaderId = group.getLeaderId();
+        GroupMemberMetadata member = group.getMember(oldMemberId);
+
+        logger.info("static member rejoin, groupId: {}, state: {}, generationId: {}, groupInstanceId: {}, oldMemberId: {}, newMemberId: {}",
+                group.getId(), group.getState(), group.getGenerationId(), groupInstanceId, oldMemberId, newMemberId);
+
+        // 旧实例挂起的请求直接拒绝
+        if (member.getAwaitingJoinCallback() != null) {
+            member.getAwaitingJoinCallback().sendResponseCallback(GroupJoinGroupResult.buildError(oldMemberId, KafkaErrorCode.FENCED_INSTANCE_ID.getCode()));
+            member.setAwaitingJoinCallback(null);
+        }
+        if (member.getAwaitingSyncCallback() != null) {
+            member.getAwaitingSyncCallback().sendResponseCallback(null, KafkaErrorCode.FENCED_INSTANCE_ID.getCode());
+            member.setAwaitingSyncCallback(null);
+        }
+
+        // 结束旧memberId的心跳检测，之后按新memberId重新调度
+        member.setLatestHeartbeat(SystemClock.now());
+        heartbeatPurgatory.checkAndComplete(new DelayedOperationKey(group.getId(), oldMemberId));
+        group.replaceStaticMember(oldMemberId, newMemberId, groupInstanceId);
+        completeAndScheduleNextHeartbeatExpiration(group, member);
+
+        if (group.stateIs(GroupState.STABLE) && member.matches(protocols)) {
+            // 返回旧的leaderId，避免重新加入的成员以leader身份做无意义的分配
+            callback.sendResponseCallback(new GroupJoinGroupResult(Collections.emptyMap(), newMemberId, group.getGenerationId(),
+                    group.getProtocol(), currentLeaderId, KafkaErrorCode.NONE.getCode()));
+            groupMetadataManager.storeGroup(group);
+        } else {
+            updateMemberAndRebalance(group, member, protocols, callback);
+        }
+    }
+
     public void updateMemberAndRebalance(GroupMetadata group, GroupMemberMetadata member, Map<String, byte[]> protocols, JoinCallback callback) {
         member.setSupportedProtocols(protocols);
         member.setAwaitingJoinCallback(callback);
@@ -18,11 +18,11 @@ package org.joyqueue.broker.kafka.coordinator.group;
 import org.joyqueue.broker.kafka.command.SyncGroupAssignment;
 import org.joyqueue.broker.kafka.coordinator.Coordinator;
 import org.joyqueue.broker.kafka.coordinator.group.callback.JoinCallback;
+import org.joyqueue.broker.kafka.coordinator.group.callback.OffsetCallback;
 import org.joyqueue.broker.kafka.coordinator.group.callback.SyncCallback;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupDescribe;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
 import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
-import org.joyqueue.broker.kafka.model.OffsetMetadataAndError;
 import org.joyqueue.domain.Broker;
 import org.joyqueue.toolkit.service.Service;
 import org.slf4j.Logger;
@@ -61,33 +61,35 @@ public class GroupCoordinator extends Service {
         return coordinator.isCurrentGroup(groupId);
     }
 
-    public void handleJoinGroup(String groupId, String memberId, String clientId, String clientHost, int rebalanceTimeoutMs, int sessionTimeoutMs, String protocolType,
-                                Map<String, byte[]> protocols, JoinCallback callback) {
-        groupBalanceHandler.joinGroup(groupId, memberId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocolType, protocols, callback);
+    public void handleJoinGroup(String groupId, String memberId, String groupInstanceId, String clientId, String clientHost, int rebalanceTimeoutMs, int sessionTimeoutMs,
+                                String protocolType, Map<String, byte[]> protocols, JoinCallback callback) {
+        groupBalanceHandler.joinGroup(groupId, memberId, groupInstanceId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocolType, protocols, callback);
     }
 
-    public void handleSyncGroup(String groupId, int generation, String memberId, Map<String, SyncGroupAssignment> groupAssignment, SyncCallback callback) {
-        groupBalanceHandler.syncGroup(groupId, generation, memberId, groupAssignment, callback);
+    public void handleSyncGroup(String groupId, int generation, String memberId, String groupInstanceId, Map<String, SyncGroupAssignment> groupAssignment,
+                                SyncCallback callback) {
+        groupBalanceHandler.syncGroup(groupId, generation, memberId, groupInstanceId, groupAssignment, callback);
     }
 
-    public short handleLeaveGroup(String groupId, String memberId) {
-        return groupBalanceHandler.leaveGroup(groupId, memberId);
+    public short handleLeaveGroup(String groupId, String memberId, String groupInstanceId) {
+        return groupBalanceHandler.leaveGroup(groupId, memberId, groupInstanceId);
     }
 
     public List<GroupDescribe> handleDescribeGroups(List<String> groupIds) {
         return groupBalanceHandler.describeGroups(groupIds);
     }
 
-    public Map<String, List<OffsetMetadataAndError>> handleCommitOffsets(String groupId, String memberId, int generationId, Map<String, List<OffsetAndMetadata>> offsets) {
-        return groupOffsetHandler.commitOffsets(groupId, memberId, generationId, offsets);
+    public void handleCommitOffsets(String groupId, String memberId, String groupInstanceId, int generationId, Map<String, List<OffsetAndMetadata>> offsets,
+                                    OffsetCallback callback) {
+        groupOffsetHandler.commitOffsets(groupId, memberId, groupInstanceId, generationId, offsets, callback);
     }
 
-    public Map<String, List<OffsetMetadataAndError>> handleFetchOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions) {
-        return groupOffsetHandler.fetchOffsets(groupId, topicAndPartitions);
+    public void handleFetchOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions, OffsetCallback callback) {
+        groupOffsetHandler.fetchOffsets(groupId, topicAndPartitions, callback);
     }
 
-    public short handleHeartbeat(String groupId, String memberId, int generationId) {
-        return groupBalanceHandler.heartbeat(groupId, memberId, generationId);
+    public short handleHeartbeat(String groupId, String memberId, String groupInstanceId, int generationId) {
+        return groupBalanceHandler.heartbeat(groupId, memberId, groupInstanceId, generationId);
     }
 
     public GroupMetadata getGroup(String groupId) {
@@ -17,6 +17,7 @@ package org.joyqueue.broker.kafka.coordinator.group;
 
 import org.joyqueue.broker.kafka.config.KafkaConfig;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.log.GroupMetadataLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,10 +35,12 @@ public class GroupMetadataManager {
 
     private KafkaConfig config;
     private org.joyqueue.broker.coordinator.group.GroupMetadataManager groupMetadataManager;
+    private GroupMetadataLog groupMetadataLog;
 
-    public GroupMetadataManager(KafkaConfig config, org.joyqueue.broker.coordinator.group.GroupMetadataManager groupMetadataManager) {
+    public GroupMetadataManager(KafkaConfig config, org.joyqueue.broker.coordinator.group.GroupMetadataManager groupMetadataManager, GroupMetadataLog groupMetadataLog) {
         this.config = config;
         this.groupMetadataManager = groupMetadataManager;
+        this.groupMetadataLog = groupMetadataLog;
     }
 
     public GroupMetadata getGroup(String groupId) {
@@ -53,10 +56,28 @@ public class GroupMetadataManager {
     }
 
     public boolean removeGroup(GroupMetadata group) {
-        return groupMetadataManager.removeGroup(group.getId());
+        return removeGroup(group.getId());
     }
 
     public boolean removeGroup(String groupId) {
+        groupMetadataLog.write(new GroupMetadata(groupId, null));
+        return groupMetadataManager.removeGroup(groupId);
+    }
+
+    /**
+     * Persist the current state of the group to group log
+     * @param group group
+     */
+    public void storeGroup(GroupMetadata group) {
+        groupMetadataLog.write(group);
+    }
+
+    /**
+     * Remove the group from memory only, used when the coordinator moves to another broker
+     * @param groupId group id
+     * @return removed
+     */
+    public boolean unloadGroup(String groupId) {
         return groupMetadataManager.removeGroup(groupId);
     }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import com.google.common.collect.Maps;
 import org.joyqueue.broker.kafka.KafkaErrorCode;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
 import org.joyqueue.broker.kafka.coordinator.Coordinator;
+import org.joyqueue.broker.kafka.coordinator.group.callback.OffsetCallback;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupState;
 import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
@@ -57,19 +58,23 @@ public class GroupOffsetHandler extends Service {
         this.groupOffsetManager = groupOffsetManager;
     }
 
-    public Map<String, List<OffsetMetadataAndError>> commitOffsets(String groupId, String memberId, int generationId, Map<String, List<OffsetAndMetadata>> offsets) {
+    public void commitOffsets(String groupId, String memberId, String groupInstanceId, int generationId, Map<String, List<OffsetAndMetadata>> offsets,
+                              OffsetCallback callback) {
         if (!isStarted()) {
-            return buildCommitError(offsets, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode());
+            callback.sendResponseCallback(buildCommitError(offsets, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode()));
+            return;
         }
 
         if (!coordinator.isCurrentGroup(groupId)) {
             logger.info("group {} coordinator changed", groupId);
-            return buildCommitError(offsets, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode());
+            callback.sendResponseCallback(buildCommitError(offsets, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode()));
+            return;
         }
 
         // 自主分配分区的情况
         if (StringUtils.isBlank(memberId)) {
-            return groupOffsetManager.saveOffsets(groupId, offsets);
+            groupOffsetManager.saveOffsets(groupId, offsets, callback);
+            return;
         }
 
         GroupMetadata group = groupMetadataManager.getGroup(groupId);
@@ -79,43 +84,53 @@ public class GroupOffsetHandler extends Service {
 
             if (generationId < 0) {
                 // the group is not relying on Kafka for partition management, so allow the commit
-                return groupOffsetManager.saveOffsets(groupId, offsets);
+                groupOffsetManager.saveOffsets(groupId, offsets, callback);
             } else {
                 // the group has failed over to this coordinator (which will be handled in KAFKA-2017),
                 // or this is a request coming from an older generation. either way, reject the commit
-                return buildCommitError(offsets, KafkaErrorCode.ILLEGAL_GENERATION.getCode());
+                callback.sendResponseCallback(buildCommitError(offsets, KafkaErrorCode.ILLEGAL_GENERATION.getCode()));
             }
+            return;
         }
 
-        return handleCommitOffsets(group, groupId, memberId, generationId, offsets);
+        short errorCode = checkCommitOffsets(group, memberId, groupInstanceId, generationId);
+        if (errorCode != KafkaErrorCode.NONE.getCode()) {
+            callback.sendResponseCallback(buildCommitError(offsets, errorCode));
+            return;
+        }
+        groupOffsetManager.saveOffsets(groupId, offsets, callback);
     }
 
-    protected Map<String, List<OffsetMetadataAndError>> handleCommitOffsets(GroupMetadata group, String groupId, String memberId, int generationId, Map<String, List<OffsetAndMetadata>> offsets) {
+    protected short checkCommitOffsets(GroupMetadata group, String memberId, String groupInstanceId, int generationId) {
+        if (group.isStaticMemberFenced(memberId, groupInstanceId)) {
+            return KafkaErrorCode.FENCED_INSTANCE_ID.getCode();
+        }
         if (group.stateIs(GroupState.DEAD) || !group.isHasMember(memberId)) {
-            return buildCommitError(offsets, KafkaErrorCode.UNKNOWN_MEMBER_ID.getCode());
+            return KafkaErrorCode.UNKNOWN_MEMBER_ID.getCode();
         }
         if (group.stateIs(GroupState.EMPTY) && generationId < 0) {
             // The group is only using Kafka to store offsets.
             // Also, for transactional offset commits we don't need to validate group membership and the generation.
-            return groupOffsetManager.saveOffsets(groupId, offsets);
+            return KafkaErrorCode.NONE.getCode();
         }
         if (group.stateIs(GroupState.AWAITINGSYNC)) {
-            return buildCommitError(offsets, KafkaErrorCode.REBALANCE_IN_PROGRESS.getCode());
+            return KafkaErrorCode.REBALANCE_IN_PROGRESS.getCode();
         }
         if (generationId != group.getGenerationId()) {
-            return buildCommitError(offsets, KafkaErrorCode.ILLEGAL_GENERATION.getCode());
+            return KafkaErrorCode.ILLEGAL_GENERATION.getCode();
         }
         groupBalanceManager.completeAndScheduleNextHeartbeatExpiration(group, group.getMember(memberId));
-        return groupOffsetManager.saveOffsets(groupId, offsets);
+        return KafkaErrorCode.NONE.getCode();
     }
 
-    public Map<String, List<OffsetMetadataAndError>> fetchOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions) {
+    public void fetchOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions, OffsetCallback callback) {
         if (!isStarted()) {
-            return buildFetchError(topicAndPartitions, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode());
+            callback.sendResponseCallback(buildFetchError(topicAndPartitions, KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode()));
+            return;
         }
         // return offsets blindly regardless the current group state since the group may be using
         // Kafka commit storage without automatic group management
-        return groupOffsetManager.getOffsets(groupId, topicAndPartitions);
+        groupOffsetManager.getOffsets(groupId, topicAndPartitions, callback);
     }
 
     protected Map<String, List<OffsetMetadataAndError>> buildFetchError(Map<String, List<Integer>> topicAndPartitions, short errorCode) {
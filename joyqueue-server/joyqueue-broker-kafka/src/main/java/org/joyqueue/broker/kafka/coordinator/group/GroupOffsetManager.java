@@ -26,6 +26,7 @@ import org.joyqueue.broker.index.model.IndexAndMetadata;
 import org.joyqueue.broker.index.model.IndexMetadataAndError;
 import org.joyqueue.broker.kafka.KafkaErrorCode;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.group.callback.OffsetCallback;
 import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
 import org.joyqueue.broker.kafka.model.OffsetAndMetadata;
 import org.joyqueue.broker.kafka.model.OffsetMetadataAndError;
@@ -42,10 +43,13 @@ import org.joyqueue.toolkit.service.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * GroupOffsetManager
@@ -69,10 +73,12 @@ public class GroupOffsetManager extends Service {
         this.sessionManager = sessionManager;
     }
 
-    public Map<String, List<OffsetMetadataAndError>> getOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions) {
-        Map<Broker, Map<String, List<Integer>>> brokerTopicPartitionMap = splitPartitionByBroker(topicAndPartitions);
-        CountDownLatch latch = new CountDownLatch(brokerTopicPartitionMap.size());
-        Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMapWithExpectedSize(topicAndPartitions.size());
+    public void getOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions, OffsetCallback callback) {
+        Map<String, List<Integer>> missedTopicAndPartitions = Maps.newHashMapWithExpectedSize(topicAndPartitions.size());
+        Map<String, List<OffsetMetadataAndError>> cachedOffsets = getCachedOffsets(groupId, topicAndPartitions, missedTopicAndPartitions);
+        Map<Broker, Map<String, List<Integer>>> brokerTopicPartitionMap = splitPartitionByBroker(missedTopicAndPartitions);
+        OffsetCollector collector = new OffsetCollector(brokerTopicPartitionMap.size(), callback);
+        collector.addAll(cachedOffsets);
 
         for (Map.Entry<Broker, Map<String, List<Integer>>> entry : brokerTopicPartitionMap.entrySet()) {
             Broker broker = entry.getKey();
@@ -85,29 +91,21 @@ public class GroupOffsetManager extends Service {
                 session.async(request, config.getOffsetSyncTimeout(), new CommandCallback() {
                     @Override
                     public void onSuccess(Command request, Command response) {
-                        synchronized (result) {
-                            ConsumeIndexQueryResponse payload = (ConsumeIndexQueryResponse) response.getPayload();
-                            for (Map.Entry<String, Map<Integer, IndexMetadataAndError>> topicEntry : payload.getTopicPartitionIndex().entrySet()) {
-                                String topic = topicEntry.getKey();
-                                List<OffsetMetadataAndError> partitions = result.get(topic);
-                                if (partitions == null) {
-                                    partitions = Lists.newLinkedList();
-                                    result.put(topic, partitions);
-                                }
-
-                                for (Map.Entry<Integer, IndexMetadataAndError> partitionEntry : topicEntry.getValue().entrySet()) {
-                                    IndexMetadataAndError indexMetadataAndError = partitionEntry.getValue();
-                                    partitions.add(new OffsetMetadataAndError(partitionEntry.getKey(), indexMetadataAndError.getIndex(), indexMetadataAndError.getMetadata(),
-                                            KafkaErrorCode.joyQueueCodeFor(indexMetadataAndError.getError())));
-
-                                    if (partitionEntry.getValue().getError() != JoyQueueCode.SUCCESS.getCode()) {
-                                        logger.error("get offset error, broker: {}, topic: {}, partition: {}, group: {},code: {}",
-                                                broker, topic, partitionEntry.getKey(), groupId, JoyQueueCode.valueOf(partitionEntry.getValue().getError()));
-                                    }
+                        ConsumeIndexQueryResponse payload = (ConsumeIndexQueryResponse) response.getPayload();
+                        for (Map.Entry<String, Map<Integer, IndexMetadataAndError>> topicEntry : payload.getTopicPartitionIndex().entrySet()) {
+                            String topic = topicEntry.getKey();
+                            for (Map.Entry<Integer, IndexMetadataAndError> partitionEntry : topicEntry.getValue().entrySet()) {
+                                IndexMetadataAndError indexMetadataAndError = partitionEntry.getValue();
+                                collector.add(topic, new OffsetMetadataAndError(partitionEntry.getKey(), indexMetadataAndError.getIndex(), indexMetadataAndError.getMetadata(),
+                                        KafkaErrorCode.joyQueueCodeFor(indexMetadataAndError.getError())));
+
+                                if (partitionEntry.getValue().getError() != JoyQueueCode.SUCCESS.getCode()) {
+                                    logger.error("get offset error, broker: {}, topic: {}, partition: {}, group: {},code: {}",
+                                            broker, topic, partitionEntry.getKey(), groupId, JoyQueueCode.valueOf(partitionEntry.getValue().getError()));
                                 }
                             }
-                            latch.countDown();
                         }
+                        collector.countDown();
                     }
 
                     @Override
@@ -115,137 +113,92 @@ public class GroupOffsetManager extends Service {
                         logger.error("get offset failed, async transport exception, broker: {}, request: {}, group: {}",
                                 broker, indexQueryRequest, groupId, cause);
 
-                        synchronized (result) {
-                            for (Map.Entry<String, List<Integer>> topicEntry : indexQueryRequest.getTopicPartitions().entrySet()) {
-                                String topic = topicEntry.getKey();
-                                List<OffsetMetadataAndError> partitions = result.get(topic);
-                                if (partitions == null) {
-                                    partitions = Lists.newLinkedList();
-                                    result.put(topic, partitions);
-                                }
-
-                                for (Integer partition : topicEntry.getValue()) {
-                                    partitions.add(new OffsetMetadataAndError(partition, OffsetAndMetadata.INVALID_OFFSET, OffsetAndMetadata.NO_METADATA,
-                                            KafkaErrorCode.NOT_LEADER_FOR_PARTITION.getCode()));
-                                }
+                        for (Map.Entry<String, List<Integer>> topicEntry : indexQueryRequest.getTopicPartitions().entrySet()) {
+                            for (Integer partition : topicEntry.getValue()) {
+                                collector.add(topicEntry.getKey(), new OffsetMetadataAndError(partition, OffsetAndMetadata.INVALID_OFFSET, OffsetAndMetadata.NO_METADATA,
+                                        KafkaErrorCode.NOT_LEADER_FOR_PARTITION.getCode()));
                             }
-                            latch.countDown();
                         }
+                        collector.countDown();
                     }
                 });
             } catch (Throwable cause) {
                 logger.error("get offset failed, async transport exception, broker: {}, topic: {}, group: {}",
                         broker, entry.getValue(), groupId, cause);
-                latch.countDown();
+                collector.countDown();
             }
         }
-
-        try {
-            if (!latch.await(config.getOffsetSyncTimeout(), TimeUnit.MILLISECONDS)) {
-                logger.error("get offset timeout, partitions: {}, group: {}", topicAndPartitions, groupId);
-            }
-        } catch (InterruptedException e) {
-            logger.error("get offset latch await exception, group: {}, partitions: {}", groupId, topicAndPartitions, e);
-        }
-
-        fillErrorOffset(groupId, topicAndPartitions, result);
-        return result;
+        collector.countDown();
     }
 
-    protected void fillErrorOffset(String groupId, Map<String, List<Integer>> request, Map<String, List<OffsetMetadataAndError>> result) {
-        GroupMetadata groupMetadata = groupMetadataManager.getGroup(groupId);
+    /**
+     * Answer partitions from offsets committed through this coordinator
+     * @param groupId group
+     * @param topicAndPartitions request
+     * @param missedTopicAndPartitions partitions not in cache, need to query the leader
+     * @return cached offsets
+     */
+    protected Map<String, List<OffsetMetadataAndError>> getCachedOffsets(String groupId, Map<String, List<Integer>> topicAndPartitions,
+                                                                        Map<String, List<Integer>> missedTopicAndPartitions) {
+        GroupMetadata groupMetadata = (config.getOffsetCacheEnable() ? groupMetadataManager.getGroup(groupId) : null);
         if (groupMetadata == null) {
-            return;
+            missedTopicAndPartitions.putAll(topicAndPartitions);
+            return Collections.emptyMap();
         }
 
-        Map<String, Map<Integer, OffsetMetadataAndError>> resultMap = Maps.newHashMap();
-        for (Map.Entry<String, List<OffsetMetadataAndError>> entry : result.entrySet()) {
-            Map<Integer, OffsetMetadataAndError> metadataMap = Maps.newHashMap();
-            for (OffsetMetadataAndError offsetMetadataAndError : entry.getValue()) {
-                metadataMap.put(offsetMetadataAndError.getPartition(), offsetMetadataAndError);
-            }
-            resultMap.put(entry.getKey(), metadataMap);
-        }
-
-        for (Map.Entry<String, List<Integer>> requestEntry : request.entrySet()) {
-            String topic = requestEntry.getKey();
-            Map<Integer, OffsetMetadataAndError> metadataMap = resultMap.get(topic);
-
-            for (Integer partition : requestEntry.getValue()) {
-                OffsetMetadataAndError offsetMetadataAndError = (metadataMap == null ? null : metadataMap.get(partition));
-
-                if (offsetMetadataAndError == null) {
-                    OffsetAndMetadata offsetCache = groupMetadata.getOffsetCache(topic, partition);
-
-                    if (offsetCache != null) {
-                        logger.info("fill error offset, topic: {}, partition: {}, group: {}, offset: {}", topic, partition, groupId, offsetCache);
-                        offsetMetadataAndError = new OffsetMetadataAndError(partition, offsetCache.getOffset(), offsetCache.getMetadata(), KafkaErrorCode.NONE.getCode());
-                        List<OffsetMetadataAndError> offsetMetadataAndErrors = result.get(topic);
-                        if (offsetMetadataAndErrors == null) {
-                            offsetMetadataAndErrors = Lists.newArrayList();
-                            result.put(topic, offsetMetadataAndErrors);
-                        }
-                        offsetMetadataAndErrors.add(offsetMetadataAndError);
-                    }
+        Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMap();
+        for (Map.Entry<String, List<Integer>> entry : topicAndPartitions.entrySet()) {
+            String topic = entry.getKey();
+            for (Integer partition : entry.getValue()) {
+                OffsetAndMetadata offsetCache = groupMetadata.getOffsetCache(topic, partition);
+                if (offsetCache != null) {
+                    result.computeIfAbsent(topic, k -> Lists.newLinkedList())
+                            .add(new OffsetMetadataAndError(partition, offsetCache.getOffset(), offsetCache.getMetadata(), KafkaErrorCode.NONE.getCode()));
                 } else {
-                    if (offsetMetadataAndError.getError() == KafkaErrorCode.NONE.getCode()) {
-                        groupMetadata.putOffsetCache(topic, offsetMetadataAndError.getPartition(),
-                                new OffsetAndMetadata(offsetMetadataAndError.getOffset(), (short) offsetMetadataAndError.getPartition()));
-                    } else {
-                        OffsetAndMetadata offsetCache = groupMetadata.getOffsetCache(topic, offsetMetadataAndError.getPartition());
-                        if (offsetCache != null) {
-                            logger.info("fill error offset, topic: {}, partition: {}, group: {}, offset: {}", topic, partition, groupId, offsetCache);
-                            offsetMetadataAndError.setOffset(offsetCache.getOffset());
-                            offsetMetadataAndError.setMetadata(offsetCache.getMetadata());
-                            offsetMetadataAndError.setError(KafkaErrorCode.NONE.getCode());
-                        }
-                    }
+                    missedTopicAndPartitions.computeIfAbsent(topic, k -> Lists.newLinkedList()).add(partition);
                 }
             }
         }
+        return result;
     }
 
-    public Map<String, List<OffsetMetadataAndError>> saveOffsets(String groupId, Map<String, List<OffsetAndMetadata>> offsets) {
+    public void saveOffsets(String groupId, Map<String, List<OffsetAndMetadata>> offsets, OffsetCallback callback) {
         Map<Broker, Map<String, List<OffsetAndMetadata>>> brokerTopicPartitionMap = splitOffsetByBroker(offsets);
-        CountDownLatch latch = new CountDownLatch(brokerTopicPartitionMap.size());
-        Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMapWithExpectedSize(offsets.size());
+        OffsetCollector collector = new OffsetCollector(brokerTopicPartitionMap.size(), callback);
 
         for (Map.Entry<Broker, Map<String, List<OffsetAndMetadata>>> entry : brokerTopicPartitionMap.entrySet()) {
             Broker broker = entry.getKey();
+            Map<String, List<OffsetAndMetadata>> brokerOffsets = entry.getValue();
 
             try {
                 TransportSession session = sessionManager.getOrCreateSession(broker);
-                ConsumeIndexStoreRequest indexStoreRequest = new ConsumeIndexStoreRequest(groupId, buildSaveOffsetParam(entry.getValue()));
+                ConsumeIndexStoreRequest indexStoreRequest = new ConsumeIndexStoreRequest(groupId, buildSaveOffsetParam(brokerOffsets));
                 Command request = new JoyQueueCommand(indexStoreRequest);
 
                 session.async(request, config.getOffsetSyncTimeout(), new CommandCallback() {
                     @Override
                     public void onSuccess(Command request, Command response) {
-                        synchronized (result) {
-                            ConsumeIndexStoreResponse payload = (ConsumeIndexStoreResponse) response.getPayload();
-                            for (Map.Entry<String, Map<Integer, Short>> topicEntry : payload.getIndexStoreStatus().entrySet()) {
-                                String topic = topicEntry.getKey();
-                                List<OffsetMetadataAndError> partitions = result.get(topic);
-                                if (partitions == null) {
-                                    partitions = Lists.newLinkedList();
-                                    result.put(topic, partitions);
-                                }
-
-                                for (Map.Entry<Integer, Short> partitionEntry : topicEntry.getValue().entrySet()) {
-                                    OffsetMetadataAndError offsetMetadataAndError = new OffsetMetadataAndError(partitionEntry.getKey(), OffsetAndMetadata.INVALID_OFFSET, OffsetAndMetadata.NO_METADATA,
-                                            KafkaErrorCode.joyQueueCodeFor(partitionEntry.getValue()));
-
-                                    if (partitionEntry.getValue() != JoyQueueCode.SUCCESS.getCode()) {
-                                        logger.error("save offset failed, broker: {}, topic: {}, partition: {}, group: {}, code: {}",
-                                                broker, topic, partitionEntry.getKey(), groupId, JoyQueueCode.valueOf(partitionEntry.getValue()));
+                        ConsumeIndexStoreResponse payload = (ConsumeIndexStoreResponse) response.getPayload();
+                        // 只缓存broker确认保存成功的分区
+                        Map<String, List<OffsetAndMetadata>> savedOffsets = Maps.newHashMap();
+                        for (Map.Entry<String, Map<Integer, Short>> topicEntry : payload.getIndexStoreStatus().entrySet()) {
+                            String topic = topicEntry.getKey();
+                            for (Map.Entry<Integer, Short> partitionEntry : topicEntry.getValue().entrySet()) {
+                                if (partitionEntry.getValue() != JoyQueueCode.SUCCESS.getCode()) {
+                                    logger.error("save offset failed, broker: {}, topic: {}, partition: {}, group: {}, code: {}",
+                                            broker, topic, partitionEntry.getKey(), groupId, JoyQueueCode.valueOf(partitionEntry.getValue()));
+                                } else {
+                                    OffsetAndMetadata savedOffset = findOffset(brokerOffsets.get(topic), partitionEntry.getKey());
+                                    if (savedOffset != null) {
+                                        savedOffsets.computeIfAbsent(topic, k -> Lists.newLinkedList()).add(savedOffset);
                                     }
-
-                                    offsetMetadataAndError.setError(KafkaErrorCode.NONE.getCode());
-                                    partitions.add(offsetMetadataAndError);
                                 }
+                                collector.add(topic, new OffsetMetadataAndError(partitionEntry.getKey(), OffsetAndMetadata.INVALID_OFFSET, OffsetAndMetadata.NO_METADATA,
+                                        KafkaErrorCode.NONE.getCode()));
                             }
-                            latch.countDown();
                         }
+                        fillOffsetCache(groupId, savedOffsets);
+                        collector.countDown();
                     }
 
                     @Override
@@ -253,41 +206,35 @@ public class GroupOffsetManager extends Service {
                         logger.error("save offset failed, async transport exception, broker: {}, request: {}, group: {}",
                                 broker, indexStoreRequest, groupId, cause);
 
-                        synchronized (result) {
-                            for (Map.Entry<String, Map<Integer, IndexAndMetadata>> topicEntry : indexStoreRequest.getIndexMetadata().entrySet()) {
-                                String topic = topicEntry.getKey();
-                                List<OffsetMetadataAndError> partitions = result.get(topic);
-                                if (partitions == null) {
-                                    partitions = Lists.newLinkedList();
-                                    result.put(topic, partitions);
-                                }
-
-                                for (Map.Entry<Integer, IndexAndMetadata> partitionEntry : topicEntry.getValue().entrySet()) {
-                                    partitions.add(new OffsetMetadataAndError(partitionEntry.getKey(), OffsetAndMetadata.INVALID_OFFSET,
-                                            OffsetAndMetadata.NO_METADATA, KafkaErrorCode.NONE.getCode()));
-                                }
+                        for (Map.Entry<String, Map<Integer, IndexAndMetadata>> topicEntry : indexStoreRequest.getIndexMetadata().entrySet()) {
+                            for (Map.Entry<Integer, IndexAndMetadata> partitionEntry : topicEntry.getValue().entrySet()) {
+                                collector.add(topicEntry.getKey(), new OffsetMetadataAndError(partitionEntry.getKey(), OffsetAndMetadata.INVALID_OFFSET,
+                                        OffsetAndMetadata.NO_METADATA, KafkaErrorCode.NONE.getCode()));
                             }
-                            latch.countDown();
                         }
+                        collector.countDown();
                     }
                 });
             } catch (Throwable cause) {
                 logger.error("save offset failed, async transport exception, broker: {}, topic: {}, group: {}",
                         broker, brokerTopicPartitionMap, groupId, cause);
-                latch.countDown();
+                collector.countDown();
             }
         }
 
-        try {
-            if (!latch.await(config.getOffsetSyncTimeout(), TimeUnit.MILLISECONDS)) {
-                logger.error("save offset timeout, offsets: {}, group: {}", brokerTopicPartitionMap, groupId);
+        collector.countDown();
+    }
+
+    protected OffsetAndMetadata findOffset(List<OffsetAndMetadata> offsets, int partition) {
+        if (offsets == null) {
+            return null;
+        }
+        for (OffsetAndMetadata offset : offsets) {
+            if (offset.getPartition() == partition) {
+                return offset;
             }
-        } catch (InterruptedException e) {
-            logger.error("save offset latch await exception, group: {}, offsets: {}", groupId, offsets, e);
         }
-
-        fillOffsetCache(groupId, offsets);
-        return result;
+        return null;
     }
 
     protected void fillOffsetCache(String groupId, Map<String, List<OffsetAndMetadata>> result) {
@@ -386,4 +333,41 @@ public class GroupOffsetManager extends Service {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 合并各broker的响应，最后一个响应到达时回调
+     */
+    protected static class OffsetCollector {
+
+        private final ConcurrentMap<String, Queue<OffsetMetadataAndError>> offsets = Maps.newConcurrentMap();
+        // 比broker数多1，所有请求发出后再减掉，保证回调只执行一次
+        private final AtomicInteger remaining;
+        private final OffsetCallback callback;
+
+        OffsetCollector(int brokers, OffsetCallback callback) {
+            this.remaining = new AtomicInteger(brokers + 1);
+            this.callback = callback;
+        }
+
+        void add(String topic, OffsetMetadataAndError offset) {
+            offsets.computeIfAbsent(topic, k -> new ConcurrentLinkedQueue<>()).add(offset);
+        }
+
+        void addAll(Map<String, List<OffsetMetadataAndError>> topicOffsets) {
+            for (Map.Entry<String, List<OffsetMetadataAndError>> entry : topicOffsets.entrySet()) {
+                offsets.computeIfAbsent(entry.getKey(), k -> new ConcurrentLinkedQueue<>()).addAll(entry.getValue());
+            }
+        }
+
+        void countDown() {
+            if (remaining.decrementAndGet() != 0) {
+                return;
+            }
+            Map<String, List<OffsetMetadataAndError>> result = Maps.newHashMapWithExpectedSize(offsets.size());
+            for (Map.Entry<String, Queue<OffsetMetadataAndError>> entry : offsets.entrySet()) {
+                result.put(entry.getKey(), Lists.newArrayList(entry.getValue()));
+            }
+            callback.sendResponseCallback(result);
+        }
+    }
+}
@@ -89,6 +89,7 @@ public class DelayedJoin extends DelayedOperation {
         if (group.isMemberEmpty()) {
             logger.info("group {} generation {} is dead and removed", group.getId(), group.getGenerationId());
             group.reset();
+            groupMetadataManager.storeGroup(group);
             return;
         }
 
@@ -107,6 +108,9 @@ public class DelayedJoin extends DelayedOperation {
 
                 GroupJoinGroupResult groupJoinGroupResult = new GroupJoinGroupResult(members, memberMetadata.getId(), group.getGenerationId(), group.getProtocol(),
                         group.getLeaderId(), KafkaErrorCode.NONE.getCode());
+                if (memberMetadata.getId().equals(group.getLeaderId())) {
+                    groupJoinGroupResult.setGroupInstanceIds(group.currentMemberInstanceIds());
+                }
                 memberMetadata.getAwaitingJoinCallback().sendResponseCallback(groupJoinGroupResult);
                 memberMetadata.setAwaitingJoinCallback(null);
 
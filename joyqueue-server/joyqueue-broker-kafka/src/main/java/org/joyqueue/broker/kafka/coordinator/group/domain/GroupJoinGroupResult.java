@@ -30,6 +30,8 @@ public class GroupJoinGroupResult {
     private String subProtocol;
     private String leaderId;
     private short errorCode;
+    // 静态成员的group.instance.id，只返回给leader
+    private Map<String, String> groupInstanceIds = Collections.emptyMap();
 
     public GroupJoinGroupResult(Map<String, byte[]> members, String memberId, int generationId,
                                 String subProtocol, String leaderId, short errorCode) {
@@ -68,4 +70,12 @@ public class GroupJoinGroupResult {
     public short getErrorCode() {
         return errorCode;
     }
+
+    public void setGroupInstanceIds(Map<String, String> groupInstanceIds) {
+        this.groupInstanceIds = groupInstanceIds;
+    }
+
+    public Map<String, String> getGroupInstanceIds() {
+        return groupInstanceIds;
+    }
 }
\ No newline at end of file
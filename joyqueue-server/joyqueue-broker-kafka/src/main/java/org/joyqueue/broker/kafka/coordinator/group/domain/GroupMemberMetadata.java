@@ -41,16 +41,24 @@ public class GroupMemberMetadata extends org.joyqueue.broker.coordinator.group.d
     private boolean isLeaving = false;
 
     private String clientId;
+    // 静态成员标识(group.instance.id)，为空表示动态成员
+    private String groupInstanceId;
     private int rebalanceTimeoutMs;
     private Map<String, byte[]> supportedProtocols;
 
     public GroupMemberMetadata(String memberId, String groupId, String clientId, String clientHost,
                                int rebalanceTimeoutMs, int sessionTimeoutMs, Map<String, byte[]> supportedProtocols) {
+        this(memberId, null, groupId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, supportedProtocols);
+    }
+
+    public GroupMemberMetadata(String memberId, String groupInstanceId, String groupId, String clientId, String clientHost,
+                               int rebalanceTimeoutMs, int sessionTimeoutMs, Map<String, byte[]> supportedProtocols) {
         setId(memberId);
         setGroupId(groupId);
         setConnectionHost(clientHost);
         setSessionTimeout(sessionTimeoutMs);
         this.clientId = clientId;
+        this.groupInstanceId = groupInstanceId;
         this.rebalanceTimeoutMs = (rebalanceTimeoutMs <= 0 ? sessionTimeoutMs : rebalanceTimeoutMs);
         this.supportedProtocols = supportedProtocols;
     }
@@ -63,6 +71,14 @@ public class GroupMemberMetadata extends org.joyqueue.broker.coordinator.group.d
         return clientId;
     }
 
+    public String getGroupInstanceId() {
+        return groupInstanceId;
+    }
+
+    public boolean isStaticMember() {
+        return groupInstanceId != null;
+    }
+
     public boolean isLeaving() {
         return isLeaving;
     }
@@ -167,7 +183,7 @@ public class GroupMemberMetadata extends org.joyqueue.broker.coordinator.group.d
 
     @Override
     public String toString() {
-        return String.format("[%s,%s,%s,%s,%d]", getId(), getGroupId(), clientId, getConnectionHost(), getSessionTimeout());
+        return String.format("[%s,%s,%s,%s,%s,%d]", getId(), groupInstanceId, getGroupId(), clientId, getConnectionHost(), getSessionTimeout());
     }
 
 }
@@ -15,11 +15,9 @@
  */
 package org.joyqueue.broker.kafka.coordinator.group.domain;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.collect.Table;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -54,7 +52,10 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
     private boolean newMemberAdded = false;
     private GroupState preState;
     private long preStateTimestamp;
-    private Table<String, Integer, OffsetAndMetadata> offsetCache = HashBasedTable.create();
+    // 本协调者提交过的位置，组变为空之前有效，会在异步回调中访问
+    private ConcurrentMap<String, ConcurrentMap<Integer, OffsetAndMetadata>> offsetCache = Maps.newConcurrentMap();
+    // 静态成员，group.instance.id -> memberId
+    private ConcurrentMap<String, String> staticMembers = Maps.newConcurrentMap();
     private Lock lock = new ReentrantLock();
 
     private static final Map<GroupState, Set<GroupState>> ValidPreviousStates = Maps.newHashMap();
@@ -115,6 +116,10 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
         return state;
     }
 
+    public void setState(GroupState state) {
+        this.state = state;
+    }
+
     public String getProtocolType() {
         return protocolType;
     }
@@ -127,10 +132,18 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
         return generationId;
     }
 
+    public void setGenerationId(int generationId) {
+        this.generationId = generationId;
+    }
+
     public String getProtocol() {
         return protocol;
     }
 
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
     public boolean isNewMemberAdded() {
         return newMemberAdded;
     }
@@ -151,20 +164,22 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
         return preStateTimestamp;
     }
 
-    public Map<String, Map<Integer, OffsetAndMetadata>> getOffsetCache() {
-        return offsetCache.rowMap();
+    public Map<String, ConcurrentMap<Integer, OffsetAndMetadata>> getOffsetCache() {
+        return offsetCache;
     }
 
     public OffsetAndMetadata getOffsetCache(String topic, int partition) {
-        return offsetCache.get(topic, partition);
+        Map<Integer, OffsetAndMetadata> partitions = offsetCache.get(topic);
+        return (partitions == null ? null : partitions.get(partition));
     }
 
     public void putOffsetCache(String topic, int partition, OffsetAndMetadata offsetAndMetadata) {
-        offsetCache.put(topic, partition, offsetAndMetadata);
+        offsetCache.computeIfAbsent(topic, k -> Maps.newConcurrentMap()).put(partition, offsetAndMetadata);
     }
 
     public OffsetAndMetadata removeOffsetCache(String topic, int partition) {
-        return offsetCache.remove(topic, partition);
+        Map<Integer, OffsetAndMetadata> partitions = offsetCache.get(topic);
+        return (partitions == null ? null : partitions.remove(partition));
     }
 
     public void clearOffsetCache() {
@@ -193,6 +208,39 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
         return (GroupMemberMetadata) getMembers().get(memberId);
     }
 
+    public boolean hasStaticMember(String groupInstanceId) {
+        return groupInstanceId != null && staticMembers.containsKey(groupInstanceId);
+    }
+
+    public String getStaticMemberId(String groupInstanceId) {
+        return (groupInstanceId == null ? null : staticMembers.get(groupInstanceId));
+    }
+
+    /**
+     * 同一个group.instance.id已经被其他memberId占用，说明请求来自被替换掉的旧实例
+     */
+    public boolean isStaticMemberFenced(String memberId, String groupInstanceId) {
+        String staticMemberId = getStaticMemberId(groupInstanceId);
+        return staticMemberId != null && !staticMemberId.equals(memberId);
+    }
+
+    /**
+     * 静态成员使用新的memberId重新加入，保留原成员的元数据和分配结果
+     */
+    public GroupMemberMetadata replaceStaticMember(String oldMemberId, String newMemberId, String groupInstanceId) {
+        GroupMemberMetadata member = (GroupMemberMetadata) getMembers().remove(oldMemberId);
+        if (member == null) {
+            throw new IllegalArgumentException(String.format("cannot replace non-existing member %s of group %s", oldMemberId, getId()));
+        }
+        member.setId(newMemberId);
+        getMembers().put(newMemberId, member);
+        staticMembers.put(groupInstanceId, newMemberId);
+        if (oldMemberId.equals(leaderId)) {
+            leaderId = newMemberId;
+        }
+        return member;
+    }
+
     public boolean isNewGroup() {
         return generationId == 0;
     }
@@ -202,10 +250,16 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
             leaderId = member.getId();
         }
         super.addMember(member);
+        if (member.isStaticMember()) {
+            staticMembers.put(member.getGroupInstanceId(), member.getId());
+        }
     }
 
     public void removeMember(String memberId) {
-        getMembers().remove(memberId);
+        GroupMemberMetadata member = (GroupMemberMetadata) getMembers().remove(memberId);
+        if (member != null && member.isStaticMember()) {
+            staticMembers.remove(member.getGroupInstanceId(), memberId);
+        }
         if (memberId.equals(leaderId)) {
             if (getMembers().isEmpty()) {
                 leaderId = null;
@@ -231,6 +285,16 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
         return result;
     }
 
+    public Map<String, String> currentMemberInstanceIds() {
+        Map<String, String> result = Maps.newHashMap();
+        for (GroupMemberMetadata member : getAllMembers()) {
+            if (member.isStaticMember()) {
+                result.put(member.getId(), member.getGroupInstanceId());
+            }
+        }
+        return result;
+    }
+
     public List<String> getAllMemberIds() {
         return Lists.newArrayList(getMembers().keySet());
     }
@@ -380,6 +444,8 @@ public class GroupMetadata extends org.joyqueue.broker.coordinator.group.domain.
         leaderId = null;
         newMemberAdded = false;
         getMembers().clear();
+        staticMembers.clear();
+        offsetCache.clear();
     }
 
     @Override
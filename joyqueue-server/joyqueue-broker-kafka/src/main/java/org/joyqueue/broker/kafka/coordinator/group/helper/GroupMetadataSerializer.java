@@ -0,0 +1,201 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.helper;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.broker.kafka.command.SyncGroupAssignment;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMemberMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupState;
+import org.joyqueue.broker.kafka.message.serializer.KafkaSyncGroupAssignmentSerializer;
+import org.joyqueue.network.serializer.Serializer;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GroupMetadataSerializer
+ *
+ * 组日志记录，group类型为稳定状态下的组快照，tombstone类型表示组已经没有成员
+ */
+public class GroupMetadataSerializer {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final byte VERSION_V0 = 0;
+    // V1: 成员增加group.instance.id
+    private static final byte VERSION_V1 = 1;
+    private static final byte CURRENT_VERSION = VERSION_V1;
+
+    private static final byte GROUP_TYPE = 0;
+    private static final byte TOMBSTONE_TYPE = 1;
+
+    public static byte[] serialize(GroupMetadata group) throws Exception {
+        if (group.isMemberEmpty()) {
+            return serializeTombstone(group.getId());
+        }
+
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            serializeHeader(buffer, GROUP_TYPE, group.getId());
+            Serializer.write(group.getProtocolType(), buffer, Serializer.SHORT_SIZE);
+            Serializer.write(group.getProtocol(), buffer, Serializer.SHORT_SIZE);
+            Serializer.write(group.getLeaderId(), buffer, Serializer.SHORT_SIZE);
+            buffer.writeInt(group.getGenerationId());
+
+            List<GroupMemberMetadata> members = group.getAllMembers();
+            buffer.writeInt(members.size());
+            for (GroupMemberMetadata member : members) {
+                serializeMember(buffer, member);
+            }
+
+            byte[] result = new byte[buffer.readableBytes()];
+            buffer.readBytes(result);
+            return result;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public static byte[] serializeTombstone(String groupId) throws Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            serializeHeader(buffer, TOMBSTONE_TYPE, groupId);
+            byte[] result = new byte[buffer.readableBytes()];
+            buffer.readBytes(result);
+            return result;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Deserialize a group record
+     * @param buffer record body
+     * @return group, a tombstone is returned as a group without members
+     * @throws Exception
+     */
+    public static GroupMetadata deserialize(ByteBuffer buffer) throws Exception {
+        ByteBuf in = Unpooled.wrappedBuffer(buffer);
+        int magic = in.readInt();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException(String.format("invalid group log magic: %s", magic));
+        }
+        byte version = in.readByte();
+        byte type = in.readByte();
+        String groupId = Serializer.readString(in, Serializer.SHORT_SIZE);
+
+        switch (type) {
+            case TOMBSTONE_TYPE: {
+                return new GroupMetadata(groupId, null);
+            }
+            case GROUP_TYPE: {
+                GroupMetadata group = new GroupMetadata(groupId, Serializer.readString(in, Serializer.SHORT_SIZE));
+                group.setProtocol(Serializer.readString(in, Serializer.SHORT_SIZE));
+                String leaderId = Serializer.readString(in, Serializer.SHORT_SIZE);
+                group.setGenerationId(in.readInt());
+
+                int memberSize = in.readInt();
+                for (int i = 0; i < memberSize; i++) {
+                    group.addMember(deserializeMember(in, version, groupId));
+                }
+                group.setLeaderId(leaderId);
+                group.setState(GroupState.STABLE);
+                return group;
+            }
+            default:
+                throw new UnsupportedOperationException(String.format("unsupported group log, type: %s", type));
+        }
+    }
+
+    protected static void serializeHeader(ByteBuf buffer, byte type, String groupId) throws Exception {
+        buffer.writeInt(MAGIC);
+        buffer.writeByte(CURRENT_VERSION);
+        buffer.writeByte(type);
+        Serializer.write(groupId, buffer, Serializer.SHORT_SIZE);
+    }
+
+    protected static void serializeMember(ByteBuf buffer, GroupMemberMetadata member) throws Exception {
+        Serializer.write(member.getId(), buffer, Serializer.SHORT_SIZE);
+        Serializer.write(member.getClientId(), buffer, Serializer.SHORT_SIZE);
+        Serializer.write(member.getConnectionHost(), buffer, Serializer.SHORT_SIZE);
+        buffer.writeInt(member.getRebalanceTimeoutMs());
+        buffer.writeInt(member.getSessionTimeout());
+
+        Map<String, byte[]> protocols = member.getSupportedProtocols();
+        buffer.writeInt(protocols == null ? 0 : protocols.size());
+        if (protocols != null) {
+            for (Map.Entry<String, byte[]> entry : protocols.entrySet()) {
+                Serializer.write(entry.getKey(), buffer, Serializer.SHORT_SIZE);
+                byte[] metadata = entry.getValue();
+                buffer.writeInt(metadata == null ? 0 : metadata.length);
+                if (metadata != null) {
+                    buffer.writeBytes(metadata);
+                }
+            }
+        }
+
+        SyncGroupAssignment assignment = member.getAssignment();
+        if (assignment == null || assignment.getTopicPartitions() == null) {
+            buffer.writeByte(0);
+        } else {
+            buffer.writeByte(1);
+            KafkaSyncGroupAssignmentSerializer.writeAssignment(buffer, assignment);
+        }
+        Serializer.write(member.getGroupInstanceId(), buffer, Serializer.SHORT_SIZE);
+    }
+
+    protected static GroupMemberMetadata deserializeMember(ByteBuf buffer, byte version, String groupId) throws Exception {
+        String memberId = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+        String clientId = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+        String clientHost = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+        int rebalanceTimeoutMs = buffer.readInt();
+        int sessionTimeoutMs = buffer.readInt();
+
+        int protocolSize = buffer.readInt();
+        Map<String, byte[]> protocols = Maps.newLinkedHashMap();
+        for (int i = 0; i < protocolSize; i++) {
+            String protocol = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+            byte[] metadata = new byte[buffer.readInt()];
+            buffer.readBytes(metadata);
+            protocols.put(protocol, metadata);
+        }
+
+        SyncGroupAssignment assignment = null;
+        if (buffer.readByte() == 1) {
+            assignment = KafkaSyncGroupAssignmentSerializer.readAssignment(buffer);
+        }
+        String groupInstanceId = (version >= VERSION_V1 ? Serializer.readString(buffer, Serializer.SHORT_SIZE) : null);
+
+        GroupMemberMetadata member = new GroupMemberMetadata(memberId, groupInstanceId, groupId, clientId, clientHost, rebalanceTimeoutMs, sessionTimeoutMs, protocols);
+        if (assignment != null) {
+            Map<String, List<Short>> topicPartitions = Maps.newHashMap();
+            for (Map.Entry<String, List<Integer>> entry : assignment.getTopicPartitions().entrySet()) {
+                List<Short> partitions = Lists.newArrayListWithCapacity(entry.getValue().size());
+                for (Integer partition : entry.getValue()) {
+                    partitions.add(partition.shortValue());
+                }
+                topicPartitions.put(entry.getKey(), partitions);
+            }
+            member.setAssignment(assignment);
+            member.setAssignments(topicPartitions);
+        }
+        return member;
+    }
+}
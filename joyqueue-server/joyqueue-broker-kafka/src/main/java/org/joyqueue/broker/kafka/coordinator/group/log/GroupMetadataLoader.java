@@ -0,0 +1,224 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.log;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.collections.CollectionUtils;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.Coordinator;
+import org.joyqueue.broker.kafka.coordinator.group.GroupBalanceManager;
+import org.joyqueue.broker.kafka.coordinator.group.GroupMetadataManager;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMemberMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupState;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.toolkit.concurrent.NamedThreadFactory;
+import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GroupMetadataLoader
+ *
+ * 1. 成为组协调者分区组leader后回放组日志，恢复稳定状态的组及成员，避免全量rebalance
+ * 2. 不再是leader时从内存中移除对应的组
+ * 3. 定期压缩，重写每个组的最新快照并把回放起点移到重写之前，
+ *    稳定的组使用内存中的状态，其他状态的组使用日志中的最后一条快照，已删除的组不再保留
+ */
+public class GroupMetadataLoader extends Service {
+
+    protected static final Logger logger = LoggerFactory.getLogger(GroupMetadataLoader.class);
+
+    private KafkaConfig config;
+    private Coordinator coordinator;
+    private ClusterManager clusterManager;
+    private GroupMetadataLog groupMetadataLog;
+    private GroupMetadataManager groupMetadataManager;
+    private GroupBalanceManager groupBalanceManager;
+
+    // partition group -> last load or compact time
+    private final ConcurrentMap<Integer, Long> loadedPartitionGroups = Maps.newConcurrentMap();
+    private ScheduledExecutorService executor;
+
+    public GroupMetadataLoader(KafkaConfig config, Coordinator coordinator, ClusterManager clusterManager, GroupMetadataLog groupMetadataLog,
+                               GroupMetadataManager groupMetadataManager, GroupBalanceManager groupBalanceManager) {
+        this.config = config;
+        this.coordinator = coordinator;
+        this.clusterManager = clusterManager;
+        this.groupMetadataLog = groupMetadataLog;
+        this.groupMetadataManager = groupMetadataManager;
+        this.groupBalanceManager = groupBalanceManager;
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("joyqueue-group-log-loader"));
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        executor.scheduleWithFixedDelay(this::check, 0, config.getGroupLogLoadInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doStop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        loadedPartitionGroups.clear();
+    }
+
+    protected void check() {
+        if (!config.getGroupLogEnable()) {
+            return;
+        }
+        try {
+            TopicConfig topicConfig = coordinator.getGroupTopicConfig();
+            if (topicConfig == null) {
+                return;
+            }
+            long now = SystemClock.now();
+            for (PartitionGroup partitionGroup : topicConfig.getPartitionGroups().values()) {
+                if (CollectionUtils.isEmpty(partitionGroup.getPartitions())) {
+                    continue;
+                }
+                boolean isLeader = clusterManager.isLeader(partitionGroup);
+                Long lastTime = loadedPartitionGroups.get(partitionGroup.getGroup());
+
+                if (isLeader && lastTime == null) {
+                    load(partitionGroup);
+                    loadedPartitionGroups.put(partitionGroup.getGroup(), now);
+                } else if (!isLeader && lastTime != null) {
+                    unload(partitionGroup);
+                    loadedPartitionGroups.remove(partitionGroup.getGroup());
+                } else if (isLeader && now - lastTime > config.getGroupLogCompactInterval()) {
+                    compact(partitionGroup);
+                    loadedPartitionGroups.put(partitionGroup.getGroup(), now);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("check group log exception", e);
+        }
+    }
+
+    protected void load(PartitionGroup partitionGroup) throws Exception {
+        long startTime = SystemClock.now();
+        short partition = groupMetadataLog.getPartition(partitionGroup);
+        Map<String, GroupMetadata> groups = Maps.newLinkedHashMap();
+        long records = replay(partition, groupMetadataLog.getStartIndex(partition), Long.MAX_VALUE, groups);
+
+        int restored = 0;
+        for (GroupMetadata group : groups.values()) {
+            if (group.isMemberEmpty() || groupMetadataManager.getGroup(group.getId()) != null) {
+                continue;
+            }
+            GroupMetadata current = groupMetadataManager.getOrCreateGroup(group);
+            if (current != group) {
+                continue;
+            }
+            group.inLock(() -> {
+                for (GroupMemberMetadata member : group.getAllMembers()) {
+                    groupBalanceManager.completeAndScheduleNextHeartbeatExpiration(group, member);
+                }
+            });
+            restored++;
+        }
+
+        logger.info("load group log, topic: {}, group: {}, partition: {}, records: {}, restored groups: {}, elapse: {} ms",
+                partitionGroup.getTopic(), partitionGroup.getGroup(), partition, records, restored, SystemClock.now() - startTime);
+
+        if (records > groups.size()) {
+            compact(partitionGroup);
+        }
+    }
+
+    protected void unload(PartitionGroup partitionGroup) {
+        short partition = groupMetadataLog.getPartition(partitionGroup);
+        int unloaded = 0;
+        for (GroupMetadata group : groupMetadataManager.getGroups()) {
+            if (groupMetadataLog.resolvePartition(group.getId()) == partition) {
+                groupMetadataManager.unloadGroup(group.getId());
+                unloaded++;
+            }
+        }
+        logger.info("unload group log, topic: {}, group: {}, unloaded groups: {}", partitionGroup.getTopic(), partitionGroup.getGroup(), unloaded);
+    }
+
+    protected void compact(PartitionGroup partitionGroup) throws Exception {
+        short partition = groupMetadataLog.getPartition(partitionGroup);
+        long startIndex = groupMetadataLog.getMaxIndex(partition);
+
+        Map<String, GroupMetadata> snapshots = Maps.newLinkedHashMap();
+        replay(partition, groupMetadataLog.getStartIndex(partition), startIndex, snapshots);
+        for (GroupMetadata group : groupMetadataManager.getGroups()) {
+            if (groupMetadataLog.resolvePartition(group.getId()) != partition) {
+                continue;
+            }
+            if (group.stateIs(GroupState.DEAD)) {
+                snapshots.remove(group.getId());
+            } else if (group.stateIs(GroupState.STABLE)) {
+                snapshots.put(group.getId(), group);
+            }
+        }
+
+        List<GroupMetadata> groups = Lists.newLinkedList();
+        for (GroupMetadata group : snapshots.values()) {
+            if (!group.isMemberEmpty()) {
+                groups.add(group);
+            }
+        }
+
+        if (!groups.isEmpty()) {
+            groupMetadataLog.batchWrite(partition, groups);
+        }
+        groupMetadataLog.saveStartIndex(partition, startIndex);
+
+        logger.info("compact group log, topic: {}, group: {}, partition: {}, start index: {}, groups: {}",
+                partitionGroup.getTopic(), partitionGroup.getGroup(), partition, startIndex, groups.size());
+    }
+
+    /**
+     * 回放[index, maxIndex)之间的日志，按组id保留最后一条快照
+     * @return 回放的记录数
+     */
+    protected long replay(short partition, long index, long maxIndex, Map<String, GroupMetadata> groups) throws Exception {
+        long records = 0;
+        while (index < maxIndex) {
+            int count = (int) Math.min(config.getGroupLogScanSize(), maxIndex - index);
+            List<GroupMetadata> batch = groupMetadataLog.read(partition, index, count);
+            if (CollectionUtils.isEmpty(batch)) {
+                break;
+            }
+            for (GroupMetadata group : batch) {
+                groups.put(group.getId(), group);
+            }
+            index += batch.size();
+            records += batch.size();
+        }
+        return records;
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.log;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.collections.CollectionUtils;
+import org.joyqueue.broker.buffer.Serializer;
+import org.joyqueue.broker.consumer.Consume;
+import org.joyqueue.broker.consumer.model.PullResult;
+import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.Coordinator;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.helper.GroupMetadataSerializer;
+import org.joyqueue.broker.producer.Produce;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.network.session.Consumer;
+import org.joyqueue.network.session.Producer;
+import org.joyqueue.toolkit.network.IpUtil;
+import org.joyqueue.toolkit.service.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GroupMetadataLog
+ *
+ * 组元数据日志，写入组协调者主题中组所在分区组的第一个分区。
+ * 每条记录都是组的完整快照，按组id取最后一条即为最新状态，
+ * 消费位置记录最近一次压缩的起点，加载时从该位置开始回放。
+ */
+public class GroupMetadataLog extends Service {
+
+    protected static final Logger logger = LoggerFactory.getLogger(GroupMetadataLog.class);
+
+    private final byte[] LOCAL_IP = IpUtil.getLocalIp().getBytes();
+
+    private KafkaConfig config;
+    private Produce produce;
+    private Consume consume;
+    private Coordinator coordinator;
+
+    private Consumer consumer;
+    private Producer producer;
+
+    public GroupMetadataLog(KafkaConfig config, Produce produce, Consume consume, Coordinator coordinator) {
+        this.config = config;
+        this.produce = produce;
+        this.consume = consume;
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        this.consumer = new Consumer(config.getGroupLogApp(), coordinator.getGroupTopic().getFullName(), config.getGroupLogApp(), Consumer.ConsumeType.INTERNAL);
+        this.producer = new Producer(config.getGroupLogApp(), coordinator.getGroupTopic().getFullName(), config.getGroupLogApp(), Producer.ProducerType.INTERNAL);
+    }
+
+    /**
+     * Append the current state of the group, a group without members is written as a tombstone.
+     * The write is asynchronous, failures only cost a rebalance after failover.
+     * @param group group
+     */
+    public void write(GroupMetadata group) {
+        if (!config.getGroupLogEnable() || !isStarted()) {
+            return;
+        }
+        short partition = resolvePartition(group.getId());
+        if (partition < 0) {
+            return;
+        }
+        try {
+            BrokerMessage message = convertMessage(partition, GroupMetadataSerializer.serialize(group));
+            produce.putMessageAsync(producer, Lists.newArrayList(message), config.getGroupLogWriteQosLevel(), config.getGroupLogWriteTimeout(), (writeResult) -> {
+                if (!writeResult.getCode().equals(JoyQueueCode.SUCCESS)) {
+                    logger.warn("write group log failed, group: {}, code: {}", group.getId(), writeResult.getCode());
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("write group log exception, group: {}", group.getId(), e);
+        }
+    }
+
+    /**
+     * Synchronously append snapshots, used by compaction
+     * @param partition partition
+     * @param groups groups
+     * @throws Exception
+     */
+    public void batchWrite(short partition, List<GroupMetadata> groups) throws Exception {
+        List<BrokerMessage> messages = Lists.newArrayListWithCapacity(groups.size());
+        for (GroupMetadata group : groups) {
+            byte[] body = group.inLock(() -> GroupMetadataSerializer.serialize(group));
+            messages.add(convertMessage(partition, body));
+        }
+        produce.putMessage(producer, messages, config.getGroupLogWriteQosLevel(), config.getGroupLogWriteTimeout());
+    }
+
+    public List<GroupMetadata> read(short partition, long index, int count) throws Exception {
+        PullResult pullResult = consume.getMessage(consumer, partition, index, count);
+        if (!pullResult.getCode().equals(JoyQueueCode.SUCCESS)) {
+            logger.error("read group log exception, partition: {}, index: {}, count: {}, code: {}", partition, index, count, pullResult.getCode());
+            return Collections.emptyList();
+        }
+        if (CollectionUtils.isEmpty(pullResult.getBuffers())) {
+            return Collections.emptyList();
+        }
+        List<GroupMetadata> result = Lists.newArrayListWithCapacity(pullResult.getBuffers().size());
+        for (ByteBuffer buffer : pullResult.getBuffers()) {
+            BrokerMessage brokerMessage = Serializer.readBrokerMessage(buffer);
+            result.add(GroupMetadataSerializer.deserialize(brokerMessage.getBody()));
+        }
+        return result;
+    }
+
+    /**
+     * Index to start replay from, the start of the latest compaction
+     * @param partition partition
+     * @return index
+     */
+    public long getStartIndex(short partition) {
+        long index = Math.max(consume.getAckIndex(consumer, partition), consume.getMinIndex(consumer, partition));
+        return Math.max(index, 0);
+    }
+
+    public long getMaxIndex(short partition) {
+        return consume.getMaxIndex(consumer, partition);
+    }
+
+    public void saveStartIndex(short partition, long index) throws Exception {
+        consume.setAckIndex(consumer, partition, index);
+    }
+
+    public short resolvePartition(String groupId) {
+        PartitionGroup partitionGroup = coordinator.getGroupPartitionGroup(groupId);
+        if (partitionGroup == null || CollectionUtils.isEmpty(partitionGroup.getPartitions())) {
+            return -1;
+        }
+        // 带命名空间的组主题暂不记录日志
+        if (!coordinator.getGroupTopic().equals(partitionGroup.getTopic())) {
+            return -1;
+        }
+        return getPartition(partitionGroup);
+    }
+
+    public short getPartition(PartitionGroup partitionGroup) {
+        return Collections.min(partitionGroup.getPartitions());
+    }
+
+    protected BrokerMessage convertMessage(short partition, byte[] body) {
+        BrokerMessage message = new BrokerMessage();
+        message.setTopic(producer.getTopic());
+        message.setApp(producer.getApp());
+        message.setBody(body);
+        message.setClientIp(LOCAL_IP);
+        message.setPartition(partition);
+        return message;
+    }
+}
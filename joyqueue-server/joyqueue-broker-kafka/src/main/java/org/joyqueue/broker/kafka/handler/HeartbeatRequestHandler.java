@@ -46,7 +46,8 @@ public class HeartbeatRequestHandler extends AbstractKafkaCommandHandler impleme
     @Override
     public Command handle(Transport transport, Command command) {
         HeartbeatRequest heartbeatRequestRequest = (HeartbeatRequest) command.getPayload();
-        short errorCode = groupCoordinator.handleHeartbeat(heartbeatRequestRequest.getGroupId(), heartbeatRequestRequest.getMemberId(), heartbeatRequestRequest.getGroupGenerationId());
+        short errorCode = groupCoordinator.handleHeartbeat(heartbeatRequestRequest.getGroupId(), heartbeatRequestRequest.getMemberId(),
+                heartbeatRequestRequest.getGroupInstanceId(), heartbeatRequestRequest.getGroupGenerationId());
         HeartbeatResponse heartbeatResponse = new HeartbeatResponse(errorCode);
         return new Command(heartbeatResponse);
     }
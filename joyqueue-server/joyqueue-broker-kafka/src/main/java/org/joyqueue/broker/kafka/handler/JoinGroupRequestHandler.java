@@ -61,9 +61,9 @@ public class JoinGroupRequestHandler extends AbstractKafkaCommandHandler impleme
         JoinGroupRequest joinGroupRequest = (JoinGroupRequest) command.getPayload();
         String groupId = KafkaClientHelper.parseClient(joinGroupRequest.getClientId());
 
-        logger.info("join group, groupId = {}, clientId = {}, memberId = {}, ip = {}",
+        logger.info("join group, groupId = {}, clientId = {}, memberId = {}, groupInstanceId = {}, ip = {}",
                 groupId, joinGroupRequest.getClientId(),
-                joinGroupRequest.getMemberId(), transport.remoteAddress().toString());
+                joinGroupRequest.getMemberId(), joinGroupRequest.getGroupInstanceId(), transport.remoteAddress().toString());
 
         JoinCallback callback = new JoinCallback() {
             @Override
@@ -75,6 +75,7 @@ public class JoinGroupRequestHandler extends AbstractKafkaCommandHandler impleme
         groupCoordinator.handleJoinGroup(
                 groupId,
                 joinGroupRequest.getMemberId(),
+                joinGroupRequest.getGroupInstanceId(),
                 joinGroupRequest.getClientId(),
                 transport.remoteAddress().toString(),
                 joinGroupRequest.getRebalanceTimeout(),
@@ -101,6 +102,7 @@ public class JoinGroupRequestHandler extends AbstractKafkaCommandHandler impleme
         joinGroupResponse.setMemberId(groupJoinGroupResult.getMemberId());
         joinGroupResponse.setLeaderId(groupJoinGroupResult.getLeaderId());
         joinGroupResponse.setMembers(members);
+        joinGroupResponse.setGroupInstanceIds(groupJoinGroupResult.getGroupInstanceIds());
         try {
             transport.acknowledge(request, new Command(joinGroupResponse));
         } catch (TransportException e) {
@@ -15,9 +15,11 @@
  */
 package org.joyqueue.broker.kafka.handler;
 
+import com.google.common.collect.Lists;
 import org.joyqueue.broker.kafka.KafkaCommandType;
 import org.joyqueue.broker.kafka.KafkaContext;
 import org.joyqueue.broker.kafka.KafkaContextAware;
+import org.joyqueue.broker.kafka.KafkaErrorCode;
 import org.joyqueue.broker.kafka.command.LeaveGroupRequest;
 import org.joyqueue.broker.kafka.command.LeaveGroupResponse;
 import org.joyqueue.broker.kafka.coordinator.group.GroupCoordinator;
@@ -26,6 +28,8 @@ import org.joyqueue.network.transport.command.Command;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * LeaveGroupRequestHandler
  *
@@ -47,8 +51,29 @@ public class LeaveGroupRequestHandler extends AbstractKafkaCommandHandler implem
     public Command handle(Transport transport, Command command) {
         LeaveGroupRequest leaveGroupRequest = (LeaveGroupRequest) command.getPayload();
         String groupId = leaveGroupRequest.getGroupId();
-        short errorCode = groupCoordinator.handleLeaveGroup(groupId, leaveGroupRequest.getMemberId());
+
+        if (leaveGroupRequest.getMembers() == null) {
+            short errorCode = groupCoordinator.handleLeaveGroup(groupId, leaveGroupRequest.getMemberId(), null);
+            LeaveGroupResponse leaveGroupResponse = new LeaveGroupResponse(errorCode);
+            return new Command(leaveGroupResponse);
+        }
+
+        // v3批量离开，错误码按成员返回，协调者不可用时作为整体错误返回
+        short errorCode = KafkaErrorCode.NONE.getCode();
+        List<LeaveGroupResponse.MemberResponse> members = Lists.newArrayListWithCapacity(leaveGroupRequest.getMembers().size());
+        for (LeaveGroupRequest.MemberIdentity member : leaveGroupRequest.getMembers()) {
+            short memberErrorCode = groupCoordinator.handleLeaveGroup(groupId, member.memberId(), member.groupInstanceId());
+            if (memberErrorCode == KafkaErrorCode.COORDINATOR_NOT_AVAILABLE.getCode()) {
+                errorCode = memberErrorCode;
+                break;
+            }
+            members.add(new LeaveGroupResponse.MemberResponse(member.memberId(), member.groupInstanceId(), memberErrorCode));
+        }
+
         LeaveGroupResponse leaveGroupResponse = new LeaveGroupResponse(errorCode);
+        if (errorCode == KafkaErrorCode.NONE.getCode()) {
+            leaveGroupResponse.setMembers(members);
+        }
         return new Command(leaveGroupResponse);
     }
 
@@ -24,15 +24,12 @@ import org.joyqueue.broker.kafka.command.OffsetCommitResponse;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
 import org.joyqueue.broker.kafka.coordinator.group.GroupCoordinator;
 import org.joyqueue.broker.kafka.helper.KafkaClientHelper;
-import org.joyqueue.broker.kafka.model.OffsetMetadataAndError;
 import org.joyqueue.network.transport.Transport;
 import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.exception.TransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.Map;
-
 /**
  * OffsetCommitRequestHandler
  *
@@ -57,16 +54,21 @@ public class OffsetCommitRequestHandler extends AbstractKafkaCommandHandler impl
         OffsetCommitRequest offsetCommitRequest = (OffsetCommitRequest) command.getPayload();
         String groupId = KafkaClientHelper.parseClient(offsetCommitRequest.getClientId());
 
-        Map<String, List<OffsetMetadataAndError>> result = groupCoordinator.handleCommitOffsets(groupId, offsetCommitRequest.getMemberId(),
-                offsetCommitRequest.getGroupGenerationId(), offsetCommitRequest.getOffsets());
-
-        if (config.getLogDetail(offsetCommitRequest.getClientId())) {
-            logger.info("offset commit request with correlation id {} from transport: {}, client {}, request: {}, result: {}",
-                    transport, offsetCommitRequest.getCorrelationId(), offsetCommitRequest.getGroupId(), offsetCommitRequest, result);
-        }
+        groupCoordinator.handleCommitOffsets(groupId, offsetCommitRequest.getMemberId(), offsetCommitRequest.getGroupInstanceId(),
+                offsetCommitRequest.getGroupGenerationId(), offsetCommitRequest.getOffsets(), (result) -> {
+            if (config.getLogDetail(offsetCommitRequest.getClientId())) {
+                logger.info("offset commit request with correlation id {} from transport: {}, client {}, request: {}, result: {}",
+                        transport, offsetCommitRequest.getCorrelationId(), offsetCommitRequest.getGroupId(), offsetCommitRequest, result);
+            }
 
-        OffsetCommitResponse offsetCommitResponse = new OffsetCommitResponse(result);
-        return new Command(offsetCommitResponse);
+            OffsetCommitResponse offsetCommitResponse = new OffsetCommitResponse(result);
+            try {
+                transport.acknowledge(command, new Command(offsetCommitResponse));
+            } catch (TransportException e) {
+                logger.error("send offset commit response for {} failed: ", groupId, e);
+            }
+        });
+        return null;
     }
 
     @Override
@@ -23,9 +23,9 @@ import org.joyqueue.broker.kafka.command.OffsetFetchResponse;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
 import org.joyqueue.broker.kafka.coordinator.group.GroupCoordinator;
 import org.joyqueue.broker.kafka.helper.KafkaClientHelper;
-import org.joyqueue.broker.kafka.model.OffsetMetadataAndError;
 import org.joyqueue.network.transport.Transport;
 import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.exception.TransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,15 +57,21 @@ public class OffsetFetchRequestHandler extends AbstractKafkaCommandHandler imple
 //        String groupId = offsetFetchRequest.getGroupId();
         String groupId = KafkaClientHelper.parseClient(offsetFetchRequest.getClientId());
         Map<String, List<Integer>> topicAndPartitions = offsetFetchRequest.getTopicAndPartitions();
-        Map<String, List<OffsetMetadataAndError>> result = groupCoordinator.handleFetchOffsets(groupId, topicAndPartitions);
 
-        if (config.getLogDetail(offsetFetchRequest.getClientId())) {
-            logger.info("fetch offset, transport: {}, app: {}, request: {}, response: {}",
-                    transport, offsetFetchRequest.getClientId(), offsetFetchRequest, result);
-        }
+        groupCoordinator.handleFetchOffsets(groupId, topicAndPartitions, (result) -> {
+            if (config.getLogDetail(offsetFetchRequest.getClientId())) {
+                logger.info("fetch offset, transport: {}, app: {}, request: {}, response: {}",
+                        transport, offsetFetchRequest.getClientId(), offsetFetchRequest, result);
+            }
 
-        OffsetFetchResponse offsetFetchResponse = new OffsetFetchResponse(result);
-        return new Command(offsetFetchResponse);
+            OffsetFetchResponse offsetFetchResponse = new OffsetFetchResponse(result);
+            try {
+                transport.acknowledge(command, new Command(offsetFetchResponse));
+            } catch (TransportException e) {
+                logger.error("send offset fetch response for {} failed: ", groupId, e);
+            }
+        });
+        return null;
     }
 
     @Override
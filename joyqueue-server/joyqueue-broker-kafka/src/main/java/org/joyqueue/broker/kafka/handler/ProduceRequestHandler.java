@@ -291,6 +291,9 @@ public class ProduceRequestHandler extends AbstractKafkaCommandHandler implement
 
     protected short checkAndFillMessages(List<KafkaBrokerMessage> messages) {
         for (KafkaBrokerMessage message : messages) {
+            if (message.isCorrupted()) {
+                return KafkaErrorCode.CORRUPT_MESSAGE.getCode();
+            }
             if (ArrayUtils.getLength(message.getKey()) > produceConfig.getBusinessIdLength()) {
                 return KafkaErrorCode.MESSAGE_TOO_LARGE.getCode();
             }
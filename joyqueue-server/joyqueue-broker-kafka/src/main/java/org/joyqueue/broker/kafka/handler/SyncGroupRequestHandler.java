@@ -71,6 +71,7 @@ public class SyncGroupRequestHandler extends AbstractKafkaCommandHandler impleme
                 groupId,
                 syncGroupRequest.getGenerationId(),
                 syncGroupRequest.getMemberId(),
+                syncGroupRequest.getGroupInstanceId(),
                 buildAssignmentMap(syncGroupRequest.getGroupAssignment()),
                 callback);
 
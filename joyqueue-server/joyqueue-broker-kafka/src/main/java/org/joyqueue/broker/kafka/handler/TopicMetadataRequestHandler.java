@@ -33,11 +33,10 @@ import org.joyqueue.broker.kafka.command.TopicMetadataRequest;
 import org.joyqueue.broker.kafka.command.TopicMetadataResponse;
 import org.joyqueue.broker.kafka.config.KafkaConfig;
 import org.joyqueue.broker.kafka.helper.KafkaClientHelper;
+import org.joyqueue.broker.kafka.metadata.KafkaMetadataCache;
+import org.joyqueue.broker.kafka.model.CachedKafkaTopicMetadata;
 import org.joyqueue.broker.kafka.model.KafkaBroker;
-import org.joyqueue.broker.kafka.model.KafkaPartitionMetadata;
 import org.joyqueue.broker.kafka.model.KafkaTopicMetadata;
-import org.joyqueue.domain.Broker;
-import org.joyqueue.domain.Partition;
 import org.joyqueue.domain.Subscription;
 import org.joyqueue.domain.TopicConfig;
 import org.joyqueue.domain.TopicName;
@@ -72,6 +71,7 @@ public class TopicMetadataRequestHandler extends AbstractKafkaCommandHandler imp
     private DelayedOperationManager delayPurgatory;
 
     private Cache<String, Map<String, TopicConfig>> appCache;
+    private KafkaMetadataCache metadataCache;
 
     @Override
     public void setKafkaContext(KafkaContext kafkaContext) {
@@ -80,6 +80,8 @@ public class TopicMetadataRequestHandler extends AbstractKafkaCommandHandler imp
         this.appCache = CacheBuilder.newBuilder()
                 .expireAfterWrite(config.getMetadataCacheExpireTime(), TimeUnit.MILLISECONDS)
                 .build();
+        this.metadataCache = new KafkaMetadataCache(config, kafkaContext.getBrokerContext().getClusterManager(),
+                clusterNameService, kafkaContext.getBrokerContext().getElectionService());
         this.delayPurgatory = new DelayedOperationManager("kafka-metadata-delayed");
         this.delayPurgatory.start();
     }
@@ -89,17 +91,16 @@ public class TopicMetadataRequestHandler extends AbstractKafkaCommandHandler imp
         TopicMetadataRequest topicMetadataRequest = (TopicMetadataRequest) command.getPayload();
         String clientId = KafkaClientHelper.parseClient(topicMetadataRequest.getClientId());
 
-        Map<String, TopicConfig> topicConfigs = Collections.emptyMap();
-        if (CollectionUtils.isEmpty(topicMetadataRequest.getTopics()) && StringUtils.isNotBlank(clientId)) {
-            if (config.getMetadataFuzzySearchEnable() && KafkaClientHelper.isMetadataFuzzySearch(topicMetadataRequest.getClientId())) {
-                topicConfigs = getAllTopicConfigs(clientId);
+        List<KafkaTopicMetadata> topicMetadata = Collections.emptyList();
+        if (CollectionUtils.isEmpty(topicMetadataRequest.getTopics())) {
+            if (StringUtils.isNotBlank(clientId) && config.getMetadataFuzzySearchEnable() && KafkaClientHelper.isMetadataFuzzySearch(topicMetadataRequest.getClientId())) {
+                topicMetadata = getTopicMetadata(getAllTopicConfigs(clientId));
             }
         } else {
-            topicConfigs = getTopicConfigs(topicMetadataRequest.getTopics());
+            topicMetadata = getTopicMetadata(topicMetadataRequest.getTopics());
         }
 
-        List<KafkaBroker> brokers = getTopicBrokers(topicConfigs);
-        List<KafkaTopicMetadata> topicMetadata = getTopicMetadata(topicMetadataRequest.getTopics(), topicConfigs);
+        List<KafkaBroker> brokers = getTopicBrokers(topicMetadata);
 
         TopicMetadataResponse topicMetadataResponse = new TopicMetadataResponse(topicMetadata, brokers);
         Command response = new Command(topicMetadataResponse);
@@ -172,77 +173,34 @@ public class TopicMetadataRequestHandler extends AbstractKafkaCommandHandler imp
         return result;
     }
 
-    protected Map<String, TopicConfig> getTopicConfigs(List<String> topics) {
-        return clusterNameService.getTopicConfigs(topics);
-    }
-
-    protected List<KafkaBroker> getTopicBrokers(Map<String, TopicConfig> topicConfigs) {
+    protected List<KafkaBroker> getTopicBrokers(List<KafkaTopicMetadata> topicMetadata) {
         Set<KafkaBroker> result = Sets.newHashSet();
-        for (Map.Entry<String, TopicConfig> topicEntry : topicConfigs.entrySet()) {
-            for (Map.Entry<Integer, Broker> entry : topicEntry.getValue().fetchAllBroker().entrySet()) {
-                Broker broker = entry.getValue();
-                KafkaBroker kafkaBroker = new KafkaBroker(broker.getId(), broker.getIp(), broker.getPort());
-                result.add(kafkaBroker);
+        for (KafkaTopicMetadata kafkaTopicMetadata : topicMetadata) {
+            if (kafkaTopicMetadata instanceof CachedKafkaTopicMetadata) {
+                result.addAll(((CachedKafkaTopicMetadata) kafkaTopicMetadata).getBrokers());
             }
         }
         return Lists.newArrayList(result);
     }
 
-    protected List<KafkaTopicMetadata> getTopicMetadata(List<String> topics, Map<String, TopicConfig> topicConfigs) {
-        List<KafkaTopicMetadata> result = Lists.newLinkedList();
-
-        if (CollectionUtils.isEmpty(topics)) {
-            for (Map.Entry<String, TopicConfig> entry : topicConfigs.entrySet()) {
-                List<KafkaPartitionMetadata> kafkaPartitionMetadata = getPartitionMetadata(entry.getValue());
-                KafkaTopicMetadata kafkaTopicMetadata = new KafkaTopicMetadata(entry.getKey(), kafkaPartitionMetadata, KafkaErrorCode.NONE.getCode());
-                result.add(kafkaTopicMetadata);
-            }
-        } else {
-            for (String topic : topics) {
-                TopicConfig topicConfig = topicConfigs.get(topic);
-
-                if (topicConfig != null) {
-                    List<KafkaPartitionMetadata> kafkaPartitionMetadata = getPartitionMetadata(topicConfig);
-                    KafkaTopicMetadata kafkaTopicMetadata = new KafkaTopicMetadata(topic, kafkaPartitionMetadata, KafkaErrorCode.NONE.getCode());
-                    result.add(kafkaTopicMetadata);
-                } else {
-                    KafkaTopicMetadata kafkaTopicMetadata = new KafkaTopicMetadata(topic, Collections.emptyList(), KafkaErrorCode.TOPIC_AUTHORIZATION_FAILED.getCode());
-                    result.add(kafkaTopicMetadata);
-                }
-            }
+    protected List<KafkaTopicMetadata> getTopicMetadata(Map<String, TopicConfig> topicConfigs) {
+        List<KafkaTopicMetadata> result = Lists.newArrayListWithCapacity(topicConfigs.size());
+        for (Map.Entry<String, TopicConfig> entry : topicConfigs.entrySet()) {
+            result.add(metadataCache.getTopicMetadata(entry.getKey(), entry.getValue()));
         }
         return result;
     }
 
-    protected List<KafkaPartitionMetadata> getPartitionMetadata(TopicConfig topicConfig) {
-        List<KafkaPartitionMetadata> result = Lists.newLinkedList();
-        for (Partition partition : topicConfig.fetchPartitionMetadata()) {
-            short errorCode = KafkaErrorCode.NONE.getCode();
-            KafkaBroker leader = null;
-            List<KafkaBroker> replicas = Lists.newLinkedList();
-            List<KafkaBroker> isrs = Lists.newLinkedList();
-
-            if (partition.getLeader() != null) {
-                leader = new KafkaBroker(partition.getLeader().getId(), partition.getLeader().getIp(), partition.getLeader().getPort());
-            } else {
-                errorCode = KafkaErrorCode.LEADER_NOT_AVAILABLE.getCode();
+    protected List<KafkaTopicMetadata> getTopicMetadata(List<String> topics) {
+        Map<String, CachedKafkaTopicMetadata> topicMetadata = metadataCache.getTopicMetadata(topics);
+        List<KafkaTopicMetadata> result = Lists.newArrayListWithCapacity(topics.size());
+        for (String topic : topics) {
+            KafkaTopicMetadata kafkaTopicMetadata = topicMetadata.get(topic);
+            if (kafkaTopicMetadata == null) {
+                kafkaTopicMetadata = new KafkaTopicMetadata(topic, Collections.emptyList(), KafkaErrorCode.TOPIC_AUTHORIZATION_FAILED.getCode());
             }
-
-            if (CollectionUtils.isNotEmpty(partition.getReplicas())) {
-                for (Broker replica : partition.getReplicas()) {
-                    replicas.add(new KafkaBroker(replica.getId(), replica.getIp(), replica.getPort()));
-                }
-            }
-
-            if (CollectionUtils.isNotEmpty(partition.getIsrs())) {
-                for (Broker isr : partition.getIsrs()) {
-                    isrs.add(new KafkaBroker(isr.getId(), isr.getIp(), isr.getPort()));
-                }
-            }
-
-            KafkaPartitionMetadata kafkaPartitionMetadata = new KafkaPartitionMetadata(partition.getPartitionId(), leader, replicas, isrs, errorCode);
-            result.add(kafkaPartitionMetadata);
+            result.add(kafkaTopicMetadata);
         }
         return result;
     }
-}
\ No newline at end of file
+}
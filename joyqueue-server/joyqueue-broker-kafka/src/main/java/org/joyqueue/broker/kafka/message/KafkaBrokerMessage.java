@@ -44,6 +44,7 @@ public class KafkaBrokerMessage {
     private long producerId;
     private int baseSequence = NO_SEQUENCE;
     private short producerEpoch;
+    private boolean corrupted;
 
     public void setSize(int size) {
         this.size = size;
@@ -164,4 +165,12 @@ public class KafkaBrokerMessage {
     public void setProducerEpoch(short producerEpoch) {
         this.producerEpoch = producerEpoch;
     }
-}
\ No newline at end of file
+
+    public boolean isCorrupted() {
+        return corrupted;
+    }
+
+    public void setCorrupted(boolean corrupted) {
+        this.corrupted = corrupted;
+    }
+}
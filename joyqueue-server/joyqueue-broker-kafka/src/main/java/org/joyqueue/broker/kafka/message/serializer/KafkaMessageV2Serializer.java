@@ -20,8 +20,8 @@ import com.google.common.collect.Maps;
 import org.joyqueue.broker.kafka.message.KafkaBrokerMessage;
 import org.joyqueue.broker.kafka.message.compressor.KafkaCompressionCodec;
 import org.joyqueue.broker.kafka.util.KafkaBufferUtils;
-import org.joyqueue.broker.kafka.util.PureJavaCrc32C;
 import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.toolkit.security.Checksums;
 import io.netty.buffer.ByteBuf;
 import org.apache.commons.lang3.ArrayUtils;
 
@@ -97,21 +97,18 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
         buffer.setInt(sizeIndex, endIndex - sizeIndex - 4);
 
         // 计算crc，从crc开始后的全部数据
-        byte[] bytes = new byte[endIndex - crcIndex - 4];
-        buffer.getBytes(crcIndex + 4, bytes);
-
-        PureJavaCrc32C crc32c = new PureJavaCrc32C();
-        crc32c.update(bytes, 0, bytes.length);
-        long crc = crc32c.getValue();
+        long crc = Checksums.crc32c(buffer.nioBuffer(crcIndex + 4, endIndex - crcIndex - 4));
         buffer.setInt(crcIndex, (int) (crc & 0xffffffffL));
     }
 
     public static List<KafkaBrokerMessage> readMessages(ByteBuffer buffer) throws Exception {
+        int startPosition = buffer.position();
         long baseOffset = buffer.getLong();
         int size = buffer.getInt();
         int partitionLeaderEpoch = buffer.getInt();
         byte magic = buffer.get();
         int crc = buffer.getInt();
+        boolean corrupted = !checkCrc(buffer, startPosition + 8 + 4 + size, crc);
         short attribute = buffer.getShort();
         int lastOffsetDeltaLength = buffer.getInt();
         long firstTimestamp = buffer.getLong();
@@ -135,6 +132,7 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
         message.setMagic(CURRENT_MAGIC);
         message.setFlag((short) messageCount);
         message.setCrc(crc);
+        message.setCorrupted(corrupted);
 
         message.setTransaction(isTransactionl(attribute));
         message.setProducerId(producerId);
@@ -144,6 +142,18 @@ public class KafkaMessageV2Serializer extends AbstractKafkaMessageSerializer {
         return Lists.newArrayList(message);
     }
 
+    /**
+     * 校验crc，范围从attribute开始到batch结束，直接在buffer上计算
+     */
+    protected static boolean checkCrc(ByteBuffer buffer, int endPosition, int crc) {
+        if (endPosition > buffer.limit() || endPosition < buffer.position()) {
+            return false;
+        }
+        ByteBuffer crcBuffer = buffer.duplicate();
+        crcBuffer.limit(endPosition);
+        return Checksums.crc32c(crcBuffer) == (crc & 0xffffffffL);
+    }
+
     public static List<KafkaBrokerMessage> readMessages(KafkaBrokerMessage message) throws Exception {
         short attribute = message.getAttribute();
         KafkaCompressionCodec compressionType = KafkaCompressionCodec.valueOf(getCompressionCodecType(attribute));
@@ -0,0 +1,259 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.metadata;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.collections.CollectionUtils;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.cluster.ClusterNameService;
+import org.joyqueue.broker.election.ElectionEvent;
+import org.joyqueue.broker.election.ElectionService;
+import org.joyqueue.broker.kafka.KafkaErrorCode;
+import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.model.CachedKafkaTopicMetadata;
+import org.joyqueue.broker.kafka.model.KafkaBroker;
+import org.joyqueue.broker.kafka.model.KafkaPartitionMetadata;
+import org.joyqueue.domain.Broker;
+import org.joyqueue.domain.Partition;
+import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.event.MetaEvent;
+import org.joyqueue.nsr.event.AddPartitionGroupEvent;
+import org.joyqueue.nsr.event.LeaderChangeEvent;
+import org.joyqueue.nsr.event.RemovePartitionGroupEvent;
+import org.joyqueue.nsr.event.RemoveTopicEvent;
+import org.joyqueue.nsr.event.UpdatePartitionGroupEvent;
+import org.joyqueue.nsr.event.UpdateTopicEvent;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 主题元数据缓存
+ * <br>
+ * 按主题缓存转换后的元数据，元数据或选举变更时只失效相关主题，下次请求时重建。
+ * 有分区没有leader的主题不缓存，过期时间作为漏掉事件时的兜底。
+ * 加载期间发生过失效的结果不写入缓存，避免旧元数据覆盖失效。
+ */
+public class KafkaMetadataCache {
+
+    protected static final Logger logger = LoggerFactory.getLogger(KafkaMetadataCache.class);
+
+    private KafkaConfig config;
+    private ClusterNameService clusterNameService;
+    private Cache<String, CachedKafkaTopicMetadata> topicCache;
+    // 失效版本，每次失效递增
+    private final AtomicLong generation = new AtomicLong();
+
+    public KafkaMetadataCache(KafkaConfig config, ClusterManager clusterManager, ClusterNameService clusterNameService, ElectionService electionService) {
+        this.config = config;
+        this.clusterNameService = clusterNameService;
+        this.topicCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(config.getMetadataTopicCacheExpireTime(), TimeUnit.MILLISECONDS)
+                .build();
+        clusterManager.addListener(new MetaEventListener());
+        electionService.addListener(new ElectionListener());
+    }
+
+    /**
+     * 获取主题元数据，主题不存在时返回null
+     */
+    public CachedKafkaTopicMetadata getTopicMetadata(String topic) {
+        return getTopicMetadata(Lists.newArrayList(topic)).get(topic);
+    }
+
+    /**
+     * 批量获取主题元数据，未命中的主题一次批量加载，不存在的主题不在结果中
+     */
+    public Map<String, CachedKafkaTopicMetadata> getTopicMetadata(List<String> topics) {
+        Map<String, CachedKafkaTopicMetadata> result = Maps.newHashMap();
+        List<String> missedTopics = null;
+        for (String topic : topics) {
+            CachedKafkaTopicMetadata topicMetadata = (config.getMetadataTopicCacheEnable() ? topicCache.getIfPresent(topic) : null);
+            if (topicMetadata != null) {
+                result.put(topic, topicMetadata);
+            } else {
+                if (missedTopics == null) {
+                    missedTopics = Lists.newArrayList();
+                }
+                missedTopics.add(topic);
+            }
+        }
+        if (CollectionUtils.isEmpty(missedTopics)) {
+            return result;
+        }
+        // 在读取主题配置之前记录版本
+        long loadGeneration = generation.get();
+        for (Map.Entry<String, TopicConfig> entry : clusterNameService.getTopicConfigs(missedTopics).entrySet()) {
+            result.put(entry.getKey(), load(entry.getKey(), entry.getValue(), loadGeneration));
+        }
+        return result;
+    }
+
+    /**
+     * 获取主题元数据，未命中时使用给定的主题配置构建
+     */
+    public CachedKafkaTopicMetadata getTopicMetadata(String topic, TopicConfig topicConfig) {
+        long loadGeneration = generation.get();
+        CachedKafkaTopicMetadata topicMetadata = (config.getMetadataTopicCacheEnable() ? topicCache.getIfPresent(topic) : null);
+        if (topicMetadata != null) {
+            return topicMetadata;
+        }
+        return load(topic, topicConfig, loadGeneration);
+    }
+
+    /**
+     * 失效主题的缓存，缓存以请求中的主题名为键，同一主题的不同写法都需要失效
+     */
+    public void invalidate(String topic) {
+        generation.incrementAndGet();
+        String fullName = TopicName.parse(topic).getFullName();
+        topicCache.asMap().keySet().removeIf(key -> key.equals(topic) || TopicName.parse(key).getFullName().equals(fullName));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        topicCache.invalidateAll();
+    }
+
+    /**
+     * 构建主题元数据，loadGeneration之后发生过失效时不缓存
+     */
+    protected CachedKafkaTopicMetadata load(String topic, TopicConfig topicConfig, long loadGeneration) {
+        Set<KafkaBroker> brokers = Sets.newHashSet();
+        for (Broker broker : topicConfig.fetchAllBroker().values()) {
+            brokers.add(new KafkaBroker(broker.getId(), broker.getIp(), broker.getPort()));
+        }
+
+        boolean allLeaderAvailable = true;
+        List<KafkaPartitionMetadata> partitionMetadata = Lists.newArrayList();
+        for (Partition partition : topicConfig.fetchPartitionMetadata()) {
+            KafkaPartitionMetadata kafkaPartitionMetadata = toPartitionMetadata(partition);
+            if (kafkaPartitionMetadata.getLeader() == null) {
+                allLeaderAvailable = false;
+            }
+            partitionMetadata.add(kafkaPartitionMetadata);
+        }
+
+        CachedKafkaTopicMetadata topicMetadata = new CachedKafkaTopicMetadata(topic, partitionMetadata,
+                KafkaErrorCode.NONE.getCode(), Lists.newArrayList(brokers));
+        if (allLeaderAvailable && config.getMetadataTopicCacheEnable()) {
+            topicCache.put(topic, topicMetadata);
+            // 写入后再检查一次，失效和写入交错时移除刚写入的结果
+            if (generation.get() != loadGeneration) {
+                topicCache.asMap().remove(topic, topicMetadata);
+            }
+        }
+        return topicMetadata;
+    }
+
+    protected KafkaPartitionMetadata toPartitionMetadata(Partition partition) {
+        short errorCode = KafkaErrorCode.NONE.getCode();
+        KafkaBroker leader = null;
+        List<KafkaBroker> replicas = Lists.newArrayList();
+        List<KafkaBroker> isrs = Lists.newArrayList();
+
+        if (partition.getLeader() != null) {
+            leader = new KafkaBroker(partition.getLeader().getId(), partition.getLeader().getIp(), partition.getLeader().getPort());
+        } else {
+            errorCode = KafkaErrorCode.LEADER_NOT_AVAILABLE.getCode();
+        }
+
+        if (CollectionUtils.isNotEmpty(partition.getReplicas())) {
+            for (Broker replica : partition.getReplicas()) {
+                replicas.add(new KafkaBroker(replica.getId(), replica.getIp(), replica.getPort()));
+            }
+        }
+
+        if (CollectionUtils.isNotEmpty(partition.getIsrs())) {
+            for (Broker isr : partition.getIsrs()) {
+                isrs.add(new KafkaBroker(isr.getId(), isr.getIp(), isr.getPort()));
+            }
+        }
+
+        return new KafkaPartitionMetadata(partition.getPartitionId(), leader, replicas, isrs, errorCode);
+    }
+
+    /**
+     * 元数据变更在本地元数据更新之后触发，失效后重建可以拿到新的元数据
+     */
+    protected class MetaEventListener implements EventListener<MetaEvent> {
+
+        @Override
+        public void onEvent(MetaEvent event) {
+            switch (event.getEventType()) {
+                case LEADER_CHANGE: {
+                    invalidate(((LeaderChangeEvent) event).getTopic());
+                    break;
+                }
+                case UPDATE_PARTITION_GROUP: {
+                    invalidate(((UpdatePartitionGroupEvent) event).getTopic());
+                    break;
+                }
+                case ADD_PARTITION_GROUP: {
+                    invalidate(((AddPartitionGroupEvent) event).getTopic());
+                    break;
+                }
+                case REMOVE_PARTITION_GROUP: {
+                    invalidate(((RemovePartitionGroupEvent) event).getTopic());
+                    break;
+                }
+                case UPDATE_TOPIC: {
+                    invalidate(((UpdateTopicEvent) event).getNewTopic().getName());
+                    break;
+                }
+                case REMOVE_TOPIC: {
+                    invalidate(((RemoveTopicEvent) event).getTopic().getName());
+                    break;
+                }
+                case ADD_BROKER:
+                case UPDATE_BROKER:
+                case REMOVE_BROKER: {
+                    // broker地址变更影响所有主题
+                    invalidateAll();
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        protected void invalidate(TopicName topic) {
+            KafkaMetadataCache.this.invalidate(topic.getFullName());
+        }
+    }
+
+    protected class ElectionListener implements EventListener<ElectionEvent> {
+
+        @Override
+        public void onEvent(ElectionEvent event) {
+            if (event.getTopicPartitionGroup() == null) {
+                return;
+            }
+            invalidate(event.getTopicPartitionGroup().getTopic());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.model;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 缓存的主题元数据，按协议版本缓存编码后的字节，编码格式只在v1和v5发生变化
+ */
+public class CachedKafkaTopicMetadata extends KafkaTopicMetadata {
+
+    private static final int ENCODED_VERSIONS = 3;
+
+    private final List<KafkaBroker> brokers;
+    private final AtomicReferenceArray<byte[]> encoded = new AtomicReferenceArray<>(ENCODED_VERSIONS);
+
+    public CachedKafkaTopicMetadata(String topic, List<KafkaPartitionMetadata> kafkaPartitionMetadata, short errorCode, List<KafkaBroker> brokers) {
+        super(topic, kafkaPartitionMetadata, errorCode);
+        this.brokers = brokers;
+    }
+
+    public List<KafkaBroker> getBrokers() {
+        return brokers;
+    }
+
+    public byte[] getEncoded(short version) {
+        return encoded.get(toIndex(version));
+    }
+
+    public void setEncoded(short version, byte[] bytes) {
+        encoded.set(toIndex(version), bytes);
+    }
+
+    protected int toIndex(short version) {
+        if (version >= 5) {
+            return 2;
+        } else if (version >= 1) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+}
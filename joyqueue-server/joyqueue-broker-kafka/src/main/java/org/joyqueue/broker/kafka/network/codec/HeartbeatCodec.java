@@ -38,6 +38,9 @@ public class HeartbeatCodec implements KafkaPayloadCodec<HeartbeatResponse>, Typ
         request.setGroupId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
         request.setGroupGenerationId(buffer.readInt());
         request.setMemberId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        if (header.getVersion() >= 3) {
+            request.setGroupInstanceId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        }
         return request;
     }
 
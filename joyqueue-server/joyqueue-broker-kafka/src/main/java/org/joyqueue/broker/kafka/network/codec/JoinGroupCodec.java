@@ -21,6 +21,7 @@ import org.joyqueue.broker.kafka.KafkaCommandType;
 import org.joyqueue.broker.kafka.command.JoinGroupRequest;
 import org.joyqueue.broker.kafka.command.JoinGroupResponse;
 import org.joyqueue.broker.kafka.network.KafkaHeader;
+import org.joyqueue.broker.kafka.util.KafkaBufferUtils;
 import org.joyqueue.network.serializer.Serializer;
 import org.joyqueue.network.transport.command.Type;
 import org.joyqueue.network.transport.exception.TransportException;
@@ -53,6 +54,9 @@ public class JoinGroupCodec implements KafkaPayloadCodec<JoinGroupResponse>, Typ
 
         String memberId = StringUtils.defaultString(Serializer.readString(buffer, Serializer.SHORT_SIZE), StringUtils.EMPTY);
         request.setMemberId(memberId);
+        if (header.getVersion() >= 5) {
+            request.setGroupInstanceId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        }
         request.setProtocolType(Serializer.readString(buffer, Serializer.SHORT_SIZE));
 
         int size = buffer.readInt();
@@ -100,6 +104,7 @@ public class JoinGroupCodec implements KafkaPayloadCodec<JoinGroupResponse>, Typ
             throw new TransportException.CodecException(e);
         }
         Map<String, ByteBuffer> members = response.getMembers();
+        Map<String, String> groupInstanceIds = response.getGroupInstanceIds();
         if (members != null) {
             int size = members.size();
             buffer.writeInt(size);
@@ -109,6 +114,9 @@ public class JoinGroupCodec implements KafkaPayloadCodec<JoinGroupResponse>, Typ
                 } catch (Exception e) {
                     throw new TransportException.CodecException(e);
                 }
+                if (response.getVersion() >= 5) {
+                    KafkaBufferUtils.writeNullableString(groupInstanceIds == null ? null : groupInstanceIds.get(entry.getKey()), buffer);
+                }
                 ByteBuffer arg = entry.getValue();
                 int pos = arg.position();
                 buffer.writeInt(arg.remaining());
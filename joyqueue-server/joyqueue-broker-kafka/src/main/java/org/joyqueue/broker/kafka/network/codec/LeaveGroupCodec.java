@@ -15,14 +15,19 @@
  */
 package org.joyqueue.broker.kafka.network.codec;
 
+import com.google.common.collect.Lists;
 import org.joyqueue.broker.kafka.network.KafkaPayloadCodec;
 import org.joyqueue.broker.kafka.KafkaCommandType;
 import org.joyqueue.broker.kafka.command.LeaveGroupRequest;
 import org.joyqueue.broker.kafka.command.LeaveGroupResponse;
 import org.joyqueue.broker.kafka.network.KafkaHeader;
+import org.joyqueue.broker.kafka.util.KafkaBufferUtils;
 import org.joyqueue.network.serializer.Serializer;
 import org.joyqueue.network.transport.command.Type;
 import io.netty.buffer.ByteBuf;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
 
 /**
  * LeaveGroupCodec
@@ -36,7 +41,18 @@ public class LeaveGroupCodec implements KafkaPayloadCodec<LeaveGroupResponse>, T
     public Object decode(KafkaHeader header, ByteBuf buffer) throws Exception {
         LeaveGroupRequest request = new LeaveGroupRequest();
         request.setGroupId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
-        request.setMemberId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        if (header.getVersion() >= 3) {
+            int size = buffer.readInt();
+            List<LeaveGroupRequest.MemberIdentity> members = Lists.newArrayListWithCapacity(size);
+            for (int i = 0; i < size; i++) {
+                String memberId = StringUtils.defaultString(Serializer.readString(buffer, Serializer.SHORT_SIZE), StringUtils.EMPTY);
+                String groupInstanceId = Serializer.readString(buffer, Serializer.SHORT_SIZE);
+                members.add(new LeaveGroupRequest.MemberIdentity(memberId, groupInstanceId));
+            }
+            request.setMembers(members);
+        } else {
+            request.setMemberId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        }
         return request;
     }
 
@@ -49,6 +65,20 @@ public class LeaveGroupCodec implements KafkaPayloadCodec<LeaveGroupResponse>, T
 
         // 错误码
         buffer.writeShort(payload.getErrorCode());
+
+        if (payload.getVersion() >= 3) {
+            List<LeaveGroupResponse.MemberResponse> members = payload.getMembers();
+            if (members == null) {
+                buffer.writeInt(0);
+            } else {
+                buffer.writeInt(members.size());
+                for (LeaveGroupResponse.MemberResponse member : members) {
+                    Serializer.write(member.memberId(), buffer, Serializer.SHORT_SIZE);
+                    KafkaBufferUtils.writeNullableString(member.groupInstanceId(), buffer);
+                    buffer.writeShort(member.errorCode());
+                }
+            }
+        }
     }
 
     @Override
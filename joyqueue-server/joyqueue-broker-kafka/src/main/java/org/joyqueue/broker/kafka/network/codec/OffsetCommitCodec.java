@@ -48,12 +48,15 @@ public class OffsetCommitCodec implements KafkaPayloadCodec<OffsetCommitResponse
         if (header.getVersion() >= 1) {
             offsetCommitRequest.setGroupGenerationId(buffer.readInt());
             offsetCommitRequest.setMemberId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+            if (header.getVersion() >= 7) {
+                offsetCommitRequest.setGroupInstanceId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+            }
         } else {
             offsetCommitRequest.setGroupGenerationId(OffsetCommitRequest.DEFAULT_GENERATION_ID);
             offsetCommitRequest.setMemberId(OffsetCommitRequest.DEFAULT_CONSUMER_ID);
         }
-        // 0.9 above
-        if (header.getVersion() >= 2) {
+        // 0.9 above, v5开始去掉了retention_time
+        if (header.getVersion() >= 2 && header.getVersion() <= 4) {
             offsetCommitRequest.setRetentionTime(buffer.readLong());
         } else {
             offsetCommitRequest.setRetentionTime(OffsetCommitRequest.DEFAULT_TIMESTAMP);
@@ -71,9 +74,11 @@ public class OffsetCommitCodec implements KafkaPayloadCodec<OffsetCommitResponse
             for (int j = 0; j < partitionCount; j++) {
                 int partition = buffer.readInt();
                 long offset = buffer.readLong();
+                int leaderEpoch = header.getVersion() >= 6 ? buffer.readInt() : -1;
                 long timestamp = header.getVersion() == 1 ? buffer.readLong() : OffsetCommitRequest.DEFAULT_TIMESTAMP;
                 String metadata = Serializer.readString(buffer, Serializer.SHORT_SIZE);
                 OffsetAndMetadata offsetAndMetadata = new OffsetAndMetadata(partition, offset, metadata, timestamp);
+                offsetAndMetadata.setLeaderEpoch(leaderEpoch);
 
                 offsetList.add(offsetAndMetadata);
             }
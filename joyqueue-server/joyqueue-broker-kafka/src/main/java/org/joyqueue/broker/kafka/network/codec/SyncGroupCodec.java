@@ -46,6 +46,9 @@ public class SyncGroupCodec implements KafkaPayloadCodec<SyncGroupResponse>, Typ
         request.setGroupId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
         request.setGenerationId(buffer.readInt());
         request.setMemberId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        if (header.getVersion() >= 3) {
+            request.setGroupInstanceId(Serializer.readString(buffer, Serializer.SHORT_SIZE));
+        }
 
         int size = buffer.readInt();
 
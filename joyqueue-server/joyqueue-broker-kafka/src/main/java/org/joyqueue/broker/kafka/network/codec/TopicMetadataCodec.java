@@ -20,6 +20,7 @@ import org.joyqueue.broker.kafka.KafkaCommandType;
 import org.joyqueue.broker.kafka.KafkaErrorCode;
 import org.joyqueue.broker.kafka.command.TopicMetadataRequest;
 import org.joyqueue.broker.kafka.command.TopicMetadataResponse;
+import org.joyqueue.broker.kafka.model.CachedKafkaTopicMetadata;
 import org.joyqueue.broker.kafka.model.KafkaBroker;
 import org.joyqueue.broker.kafka.model.KafkaPartitionMetadata;
 import org.joyqueue.broker.kafka.model.KafkaTopicMetadata;
@@ -29,6 +30,7 @@ import org.joyqueue.network.serializer.Serializer;
 import org.joyqueue.network.transport.command.Type;
 import org.joyqueue.network.transport.exception.TransportException;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.HashSet;
@@ -107,46 +109,74 @@ public class TopicMetadataCodec implements KafkaPayloadCodec<TopicMetadataRespon
         List<KafkaTopicMetadata> kafkaTopicMetadatas = payload.getTopicMetadatas();
         buffer.writeInt(kafkaTopicMetadatas.size());
         for (KafkaTopicMetadata kafkaTopicMetadata : kafkaTopicMetadatas) {
-            buffer.writeShort(kafkaTopicMetadata.getErrorCode());
-            try {
-                Serializer.write(kafkaTopicMetadata.getTopic(), buffer, Serializer.SHORT_SIZE);
-            } catch (Exception e) {
-                throw new TransportException.CodecException(e);
+            if (kafkaTopicMetadata instanceof CachedKafkaTopicMetadata) {
+                buffer.writeBytes(getEncoded((CachedKafkaTopicMetadata) kafkaTopicMetadata, version));
+            } else {
+                encodeTopicMetadata(kafkaTopicMetadata, version, buffer);
             }
+        }
+    }
 
-            if (version >= 1) {
-                // is_internal
-                buffer.writeBoolean(false);
-            }
+    /**
+     * 缓存的主题元数据只编码一次，之后直接写入编码后的字节
+     */
+    protected byte[] getEncoded(CachedKafkaTopicMetadata kafkaTopicMetadata, short version) {
+        byte[] encoded = kafkaTopicMetadata.getEncoded(version);
+        if (encoded != null) {
+            return encoded;
+        }
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            encodeTopicMetadata(kafkaTopicMetadata, version, buffer);
+            encoded = new byte[buffer.readableBytes()];
+            buffer.readBytes(encoded);
+        } finally {
+            buffer.release();
+        }
+        kafkaTopicMetadata.setEncoded(version, encoded);
+        return encoded;
+    }
 
-            List<KafkaPartitionMetadata> kafkaPartitionMetadatas = kafkaTopicMetadata.getKafkaPartitionMetadata();
-            buffer.writeInt(kafkaPartitionMetadatas.size());
-            for (KafkaPartitionMetadata kafkaPartitionMetadata : kafkaPartitionMetadatas) {
-                buffer.writeShort(KafkaErrorCode.NONE.getCode());
-                buffer.writeInt(kafkaPartitionMetadata.getPartition());
-                KafkaBroker leaderBroker = kafkaPartitionMetadata.getLeader();
-                if (leaderBroker != null) {
-                    buffer.writeInt(leaderBroker.getId());
-                } else {
-                    buffer.writeInt(-1);
-                }
-                List<KafkaBroker> replicas = kafkaPartitionMetadata.getReplicas();
-                buffer.writeInt(replicas.size());
-                for (KafkaBroker replica : replicas) {
-                    buffer.writeInt(replica.getId());
-                }
-                List<KafkaBroker> isrs = kafkaPartitionMetadata.getIsr();
-                buffer.writeInt(isrs.size());
-                for (KafkaBroker isr : isrs) {
-                    buffer.writeInt(isr.getId());
-                }
-                if (version >= 5) {
-                    // offline replicas
-                    Set<Integer> offlineReplicas = new HashSet<Integer>();
-                    buffer.writeInt(offlineReplicas.size());
-                    for (int replicaId : offlineReplicas) {
-                        buffer.writeInt(replicaId);
-                    }
+    protected void encodeTopicMetadata(KafkaTopicMetadata kafkaTopicMetadata, short version, ByteBuf buffer) {
+        buffer.writeShort(kafkaTopicMetadata.getErrorCode());
+        try {
+            Serializer.write(kafkaTopicMetadata.getTopic(), buffer, Serializer.SHORT_SIZE);
+        } catch (Exception e) {
+            throw new TransportException.CodecException(e);
+        }
+
+        if (version >= 1) {
+            // is_internal
+            buffer.writeBoolean(false);
+        }
+
+        List<KafkaPartitionMetadata> kafkaPartitionMetadatas = kafkaTopicMetadata.getKafkaPartitionMetadata();
+        buffer.writeInt(kafkaPartitionMetadatas.size());
+        for (KafkaPartitionMetadata kafkaPartitionMetadata : kafkaPartitionMetadatas) {
+            buffer.writeShort(KafkaErrorCode.NONE.getCode());
+            buffer.writeInt(kafkaPartitionMetadata.getPartition());
+            KafkaBroker leaderBroker = kafkaPartitionMetadata.getLeader();
+            if (leaderBroker != null) {
+                buffer.writeInt(leaderBroker.getId());
+            } else {
+                buffer.writeInt(-1);
+            }
+            List<KafkaBroker> replicas = kafkaPartitionMetadata.getReplicas();
+            buffer.writeInt(replicas.size());
+            for (KafkaBroker replica : replicas) {
+                buffer.writeInt(replica.getId());
+            }
+            List<KafkaBroker> isrs = kafkaPartitionMetadata.getIsr();
+            buffer.writeInt(isrs.size());
+            for (KafkaBroker isr : isrs) {
+                buffer.writeInt(isr.getId());
+            }
+            if (version >= 5) {
+                // offline replicas
+                Set<Integer> offlineReplicas = new HashSet<Integer>();
+                buffer.writeInt(offlineReplicas.size());
+                for (int replicaId : offlineReplicas) {
+                    buffer.writeInt(replicaId);
                 }
             }
         }
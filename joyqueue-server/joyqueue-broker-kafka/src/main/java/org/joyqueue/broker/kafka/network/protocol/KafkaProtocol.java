@@ -31,6 +31,8 @@ import org.joyqueue.broker.kafka.coordinator.group.GroupCoordinator;
 import org.joyqueue.broker.kafka.coordinator.group.GroupMetadataManager;
 import org.joyqueue.broker.kafka.coordinator.group.GroupOffsetHandler;
 import org.joyqueue.broker.kafka.coordinator.group.GroupOffsetManager;
+import org.joyqueue.broker.kafka.coordinator.group.log.GroupMetadataLoader;
+import org.joyqueue.broker.kafka.coordinator.group.log.GroupMetadataLog;
 import org.joyqueue.broker.kafka.coordinator.transaction.ProducerIdManager;
 import org.joyqueue.broker.kafka.coordinator.transaction.ProducerSequenceManager;
 import org.joyqueue.broker.kafka.coordinator.transaction.TransactionCoordinator;
@@ -69,12 +71,14 @@ public class KafkaProtocol extends Service implements ProtocolService, BrokerCon
 
     private KafkaConfig config;
     private Coordinator coordinator;
+    private GroupMetadataLog groupMetadataLog;
     private GroupMetadataManager groupMetadataManager;
     private GroupOffsetManager groupOffsetManager;
     private GroupBalanceManager groupBalanceManager;
     private GroupOffsetHandler groupOffsetHandler;
     private GroupBalanceHandler groupBalanceHandler;
     private GroupCoordinator groupCoordinator;
+    private GroupMetadataLoader groupMetadataLoader;
 
     private ProducerIdManager producerIdManager;
     private TransactionIdManager transactionIdManager;
@@ -103,12 +107,14 @@ public class KafkaProtocol extends Service implements ProtocolService, BrokerCon
         this.config = new KafkaConfig(brokerContext.getPropertySupplier());
         this.coordinator = new Coordinator(brokerContext.getCoordinatorService().getCoordinator());
 
-        this.groupMetadataManager = new GroupMetadataManager(config, groupMetadataManager);
+        this.groupMetadataLog = new GroupMetadataLog(config, brokerContext.getProduce(), brokerContext.getConsume(), coordinator);
+        this.groupMetadataManager = new GroupMetadataManager(config, groupMetadataManager, groupMetadataLog);
         this.groupOffsetManager = new GroupOffsetManager(config, brokerContext.getClusterNameService(), this.groupMetadataManager, coordinator.getSessionManager());
         this.groupBalanceManager = new GroupBalanceManager(config, this.groupMetadataManager);
         this.groupOffsetHandler = new GroupOffsetHandler(config, coordinator, this.groupMetadataManager, groupBalanceManager, groupOffsetManager);
         this.groupBalanceHandler = new GroupBalanceHandler(brokerContext.getPropertySupplier(), config, this.groupMetadataManager, groupBalanceManager);
         this.groupCoordinator = new GroupCoordinator(coordinator, groupBalanceHandler, groupOffsetHandler, this.groupMetadataManager);
+        this.groupMetadataLoader = new GroupMetadataLoader(config, coordinator, brokerContext.getClusterManager(), groupMetadataLog, this.groupMetadataManager, groupBalanceManager);
 
         this.producerIdManager = new ProducerIdManager();
         this.transactionIdManager = new TransactionIdManager();
@@ -139,11 +145,13 @@ public class KafkaProtocol extends Service implements ProtocolService, BrokerCon
 
     @Override
     public void doStart() throws Exception {
+        groupMetadataLog.start();
         groupOffsetManager.start();
         groupBalanceManager.start();
         groupOffsetHandler.start();
         groupBalanceHandler.start();
         groupCoordinator.start();
+        groupMetadataLoader.start();
 
         transactionCoordinator.start();
         transactionLog.start();
@@ -156,11 +164,13 @@ public class KafkaProtocol extends Service implements ProtocolService, BrokerCon
 
     @Override
     protected void doStop() {
+        groupMetadataLoader.stop();
         groupCoordinator.stop();
         groupOffsetManager.stop();
         groupBalanceManager.stop();
         groupOffsetHandler.stop();
         groupBalanceHandler.stop();
+        groupMetadataLog.stop();
 
         transactionCompletionScheduler.stop();
         transactionCompletionHandler.stop();
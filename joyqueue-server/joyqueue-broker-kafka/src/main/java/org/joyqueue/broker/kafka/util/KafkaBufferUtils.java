@@ -19,7 +19,7 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
 import io.netty.buffer.ByteBuf;
 import org.joyqueue.broker.kafka.command.RawTaggedField;
-import org.joyqueue.toolkit.security.Crc32;
+import org.joyqueue.toolkit.security.Checksums;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -115,9 +115,7 @@ public class KafkaBufferUtils {
      * @return The CRC32
      */
     public static long crc32(byte[] bytes, int offset, int size) {
-        Crc32 crc32 = new Crc32();
-        crc32.update(bytes, offset, size);
-        return crc32.getValue();
+        return Checksums.crc32(bytes, offset, size);
     }
 
     /**
@@ -375,6 +373,16 @@ public class KafkaBufferUtils {
         }
     }
 
+    public static void writeNullableString(String value, ByteBuf buffer) {
+        if (value == null) {
+            buffer.writeShort(-1);
+        } else {
+            byte[] bytes = value.getBytes(Charsets.UTF_8);
+            buffer.writeShort(bytes.length);
+            buffer.writeBytes(bytes);
+        }
+    }
+
     public static void writeVarBytes(byte[] value, ByteBuf buffer) {
         if (value == null) {
             writeVarint(-1, buffer);
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.broker.kafka.command.TopicMetadataResponse;
+import org.joyqueue.broker.kafka.model.CachedKafkaTopicMetadata;
+import org.joyqueue.broker.kafka.model.KafkaBroker;
+import org.joyqueue.broker.kafka.model.KafkaPartitionMetadata;
+import org.joyqueue.broker.kafka.model.KafkaTopicMetadata;
+import org.joyqueue.broker.kafka.network.codec.TopicMetadataCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * TopicMetadataCodecTest
+ */
+public class TopicMetadataCodecTest {
+
+    @Test
+    public void cachedEncodeTest() throws Exception {
+        KafkaBroker broker = new KafkaBroker(1, "127.0.0.1", 50088);
+        List<KafkaPartitionMetadata> partitions = Lists.newArrayList(
+                new KafkaPartitionMetadata(0, broker, Lists.newArrayList(broker), Lists.newArrayList(broker), KafkaErrorCode.NONE.getCode()),
+                new KafkaPartitionMetadata(1, null, Lists.newArrayList(broker), Lists.newArrayList(), KafkaErrorCode.LEADER_NOT_AVAILABLE.getCode()));
+        CachedKafkaTopicMetadata cached = new CachedKafkaTopicMetadata("test_topic", partitions, KafkaErrorCode.NONE.getCode(), Lists.newArrayList(broker));
+        KafkaTopicMetadata plain = new KafkaTopicMetadata("test_topic", partitions, KafkaErrorCode.NONE.getCode());
+
+        TopicMetadataCodec codec = new TopicMetadataCodec();
+        for (short version = 0; version <= 5; version++) {
+            // 第二次编码使用缓存的字节
+            for (int i = 0; i < 2; i++) {
+                Assert.assertArrayEquals(encode(codec, plain, broker, version), encode(codec, cached, broker, version));
+            }
+        }
+    }
+
+    protected byte[] encode(TopicMetadataCodec codec, KafkaTopicMetadata topicMetadata, KafkaBroker broker, short version) throws Exception {
+        TopicMetadataResponse response = new TopicMetadataResponse(Lists.newArrayList(topicMetadata, topicMetadata), Lists.newArrayList(broker), "test_cluster");
+        response.setVersion(version);
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            codec.encode(response, buffer);
+            byte[] result = new byte[buffer.readableBytes()];
+            buffer.readBytes(result);
+            return result;
+        } finally {
+            buffer.release();
+        }
+    }
+}
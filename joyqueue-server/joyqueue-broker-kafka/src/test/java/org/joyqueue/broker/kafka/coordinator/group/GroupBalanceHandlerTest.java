@@ -0,0 +1,156 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.kafka.KafkaErrorCode;
+import org.joyqueue.broker.kafka.command.JoinGroupRequest;
+import org.joyqueue.broker.kafka.command.SyncGroupAssignment;
+import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupJoinGroupResult;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMemberMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupState;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * GroupBalanceHandlerTest
+ */
+public class GroupBalanceHandlerTest {
+
+    private static final String GROUP = "test_group";
+    private static final String PROTOCOL_TYPE = "consumer";
+    private static final String PROTOCOL = "range";
+    private static final String LEADER_ID = "member-1";
+    private static final String STATIC_MEMBER_ID = "member-2";
+    private static final String GROUP_INSTANCE_ID = "instance-2";
+    private static final int GENERATION_ID = 1;
+    private static final int TIMEOUT = 1000 * 10;
+
+    private GroupMetadataManager groupMetadataManager;
+    private GroupBalanceManager groupBalanceManager;
+    private GroupBalanceHandler groupBalanceHandler;
+    private GroupMetadata group;
+    private SyncGroupAssignment assignment;
+
+    @Before
+    public void before() throws Exception {
+        Configuration configuration = new Configuration();
+        KafkaConfig config = new KafkaConfig(configuration);
+        groupMetadataManager = Mockito.mock(GroupMetadataManager.class);
+        groupBalanceManager = new GroupBalanceManager(config, groupMetadataManager);
+        groupBalanceHandler = new GroupBalanceHandler(configuration, config, groupMetadataManager, groupBalanceManager);
+        groupBalanceManager.start();
+        groupBalanceHandler.start();
+
+        // 一个动态成员(leader)和一个静态成员的稳定组
+        group = new GroupMetadata(GROUP, PROTOCOL_TYPE);
+        group.addMember(new GroupMemberMetadata(LEADER_ID, GROUP, "client-1", "host-1", TIMEOUT, TIMEOUT, protocols()));
+        GroupMemberMetadata staticMember = new GroupMemberMetadata(STATIC_MEMBER_ID, GROUP_INSTANCE_ID, GROUP, "client-2", "host-2", TIMEOUT, TIMEOUT, protocols());
+        assignment = new SyncGroupAssignment();
+        assignment.setTopicPartitions(Collections.singletonMap("test_topic", Lists.newArrayList(0, 1)));
+        staticMember.setAssignment(assignment);
+        group.addMember(staticMember);
+        group.setProtocol(PROTOCOL);
+        group.setGenerationId(GENERATION_ID);
+        group.setState(GroupState.STABLE);
+        Mockito.when(groupMetadataManager.getGroup(GROUP)).thenReturn(group);
+    }
+
+    @After
+    public void after() {
+        groupBalanceHandler.stop();
+        groupBalanceManager.stop();
+    }
+
+    @Test
+    public void staticMemberRejoinTest() {
+        GroupJoinGroupResult joinResult = join(JoinGroupRequest.UNKNOWN_MEMBER_ID);
+        Assert.assertEquals(KafkaErrorCode.NONE.getCode(), joinResult.getErrorCode());
+        Assert.assertNotEquals(STATIC_MEMBER_ID, joinResult.getMemberId());
+        Assert.assertEquals(LEADER_ID, joinResult.getLeaderId());
+
+        // 沿用原有分配，不触发rebalance
+        Assert.assertTrue(group.stateIs(GroupState.STABLE));
+        Assert.assertEquals(GENERATION_ID, group.getGenerationId());
+        Assert.assertEquals(joinResult.getMemberId(), group.getStaticMemberId(GROUP_INSTANCE_ID));
+        Assert.assertFalse(group.isHasMember(STATIC_MEMBER_ID));
+        Mockito.verify(groupMetadataManager).storeGroup(group);
+
+        AtomicReference<SyncGroupAssignment> syncAssignment = new AtomicReference<>();
+        AtomicReference<Short> syncErrorCode = new AtomicReference<>();
+        groupBalanceHandler.syncGroup(GROUP, GENERATION_ID, joinResult.getMemberId(), GROUP_INSTANCE_ID, Maps.newHashMap(), (result, errorCode) -> {
+            syncAssignment.set(result);
+            syncErrorCode.set(errorCode);
+        });
+        Assert.assertEquals(KafkaErrorCode.NONE.getCode(), (short) syncErrorCode.get());
+        Assert.assertSame(assignment, syncAssignment.get());
+    }
+
+    @Test
+    public void staticMemberFencedTest() {
+        GroupJoinGroupResult joinResult = join(JoinGroupRequest.UNKNOWN_MEMBER_ID);
+        Assert.assertEquals(KafkaErrorCode.NONE.getCode(), joinResult.getErrorCode());
+
+        // 被替换的旧实例使用旧memberId的请求都被拒绝
+        short fenced = KafkaErrorCode.FENCED_INSTANCE_ID.getCode();
+        Assert.assertEquals(fenced, join(STATIC_MEMBER_ID).getErrorCode());
+        Assert.assertEquals(fenced, groupBalanceHandler.heartbeat(GROUP, STATIC_MEMBER_ID, GROUP_INSTANCE_ID, GENERATION_ID));
+        Assert.assertEquals(fenced, groupBalanceHandler.leaveGroup(GROUP, STATIC_MEMBER_ID, GROUP_INSTANCE_ID));
+
+        AtomicReference<Short> syncErrorCode = new AtomicReference<>();
+        groupBalanceHandler.syncGroup(GROUP, GENERATION_ID, STATIC_MEMBER_ID, GROUP_INSTANCE_ID, Maps.newHashMap(),
+                (result, errorCode) -> syncErrorCode.set(errorCode));
+        Assert.assertEquals(fenced, (short) syncErrorCode.get());
+
+        // 新实例不受影响
+        Assert.assertEquals(KafkaErrorCode.NONE.getCode(), groupBalanceHandler.heartbeat(GROUP, joinResult.getMemberId(), GROUP_INSTANCE_ID, GENERATION_ID));
+        Assert.assertTrue(group.stateIs(GroupState.STABLE));
+    }
+
+    @Test
+    public void staticMemberLeaveTest() {
+        // 只带group.instance.id离开
+        Assert.assertEquals(KafkaErrorCode.NONE.getCode(), groupBalanceHandler.leaveGroup(GROUP, JoinGroupRequest.UNKNOWN_MEMBER_ID, GROUP_INSTANCE_ID));
+        Assert.assertFalse(group.hasStaticMember(GROUP_INSTANCE_ID));
+        Assert.assertFalse(group.isHasMember(STATIC_MEMBER_ID));
+        Assert.assertTrue(group.isHasMember(LEADER_ID));
+        Assert.assertTrue(group.stateIs(GroupState.PREPARINGREBALANCE));
+
+        Assert.assertEquals(KafkaErrorCode.UNKNOWN_MEMBER_ID.getCode(), groupBalanceHandler.leaveGroup(GROUP, JoinGroupRequest.UNKNOWN_MEMBER_ID, GROUP_INSTANCE_ID));
+    }
+
+    protected GroupJoinGroupResult join(String memberId) {
+        AtomicReference<GroupJoinGroupResult> result = new AtomicReference<>();
+        groupBalanceHandler.joinGroup(GROUP, memberId, GROUP_INSTANCE_ID, "client-2", "host-2", TIMEOUT, TIMEOUT, PROTOCOL_TYPE, protocols(), result::set);
+        Assert.assertNotNull(result.get());
+        return result.get();
+    }
+
+    protected Map<String, byte[]> protocols() {
+        return Collections.singletonMap(PROTOCOL, new byte[] {1});
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.joyqueue.broker.kafka.command.SyncGroupAssignment;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMemberMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupState;
+import org.joyqueue.broker.kafka.coordinator.group.helper.GroupMetadataSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GroupMetadataSerializerTest
+ */
+public class GroupMetadataSerializerTest {
+
+    @Test
+    public void testGroup() throws Exception {
+        Map<String, byte[]> protocols = Maps.newHashMap();
+        protocols.put("range", new byte[] {1, 2, 3});
+
+        GroupMetadata group = new GroupMetadata("test_group", "consumer");
+        group.setGenerationId(5);
+        group.setProtocol("range");
+
+        GroupMemberMetadata leader = new GroupMemberMetadata("member_1", "test_group", "client_1", "127.0.0.1", 1000, 3000, protocols);
+        Map<String, List<Integer>> topicPartitions = Maps.newHashMap();
+        topicPartitions.put("test_topic", Lists.newArrayList(0, 1));
+        SyncGroupAssignment assignment = new SyncGroupAssignment();
+        assignment.setTopicPartitions(topicPartitions);
+        leader.setAssignment(assignment);
+
+        group.addMember(leader);
+        group.addMember(new GroupMemberMetadata("member_2", "test_group", "client_2", "127.0.0.2", 1000, 3000, protocols));
+
+        GroupMetadata result = GroupMetadataSerializer.deserialize(ByteBuffer.wrap(GroupMetadataSerializer.serialize(group)));
+
+        Assert.assertEquals("test_group", result.getId());
+        Assert.assertEquals("consumer", result.getProtocolType());
+        Assert.assertEquals("range", result.getProtocol());
+        Assert.assertEquals("member_1", result.getLeaderId());
+        Assert.assertEquals(5, result.getGenerationId());
+        Assert.assertEquals(GroupState.STABLE, result.getState());
+        Assert.assertEquals(2, result.getAllMembers().size());
+
+        GroupMemberMetadata member = result.getMember("member_1");
+        Assert.assertEquals("client_1", member.getClientId());
+        Assert.assertEquals("127.0.0.1", member.getConnectionHost());
+        Assert.assertEquals(3000, member.getSessionTimeout());
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, member.metadata("range"));
+        Assert.assertEquals(Lists.newArrayList(0, 1), member.getAssignment().getTopicPartitions().get("test_topic"));
+        Assert.assertEquals(Lists.newArrayList((short) 0, (short) 1), member.getAssignedTopicPartitions("test_topic"));
+        Assert.assertNull(result.getMember("member_2").getAssignment());
+    }
+
+    @Test
+    public void testStaticMember() throws Exception {
+        Map<String, byte[]> protocols = Maps.newHashMap();
+        protocols.put("range", new byte[] {1, 2, 3});
+
+        GroupMetadata group = new GroupMetadata("test_group", "consumer");
+        group.setProtocol("range");
+        group.addMember(new GroupMemberMetadata("member_1", "instance_1", "test_group", "client_1", "127.0.0.1", 1000, 3000, protocols));
+        group.addMember(new GroupMemberMetadata("member_2", "test_group", "client_2", "127.0.0.2", 1000, 3000, protocols));
+
+        GroupMetadata result = GroupMetadataSerializer.deserialize(ByteBuffer.wrap(GroupMetadataSerializer.serialize(group)));
+
+        Assert.assertEquals("instance_1", result.getMember("member_1").getGroupInstanceId());
+        Assert.assertNull(result.getMember("member_2").getGroupInstanceId());
+        Assert.assertEquals("member_1", result.getStaticMemberId("instance_1"));
+        Assert.assertTrue(result.isStaticMemberFenced("member_3", "instance_1"));
+        Assert.assertFalse(result.isStaticMemberFenced("member_1", "instance_1"));
+
+        result.replaceStaticMember("member_1", "member_3", "instance_1");
+        Assert.assertEquals("member_3", result.getLeaderId());
+        Assert.assertEquals("member_3", result.getStaticMemberId("instance_1"));
+        Assert.assertFalse(result.isHasMember("member_1"));
+
+        result.removeMember("member_3");
+        Assert.assertFalse(result.hasStaticMember("instance_1"));
+    }
+
+    @Test
+    public void testTombstone() throws Exception {
+        GroupMetadata group = new GroupMetadata("test_group", "consumer");
+        GroupMetadata result = GroupMetadataSerializer.deserialize(ByteBuffer.wrap(GroupMetadataSerializer.serialize(group)));
+
+        Assert.assertEquals("test_group", result.getId());
+        Assert.assertTrue(result.isMemberEmpty());
+    }
+}
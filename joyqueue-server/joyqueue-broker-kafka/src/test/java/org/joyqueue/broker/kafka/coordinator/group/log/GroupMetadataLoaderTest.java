@@ -0,0 +1,175 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.coordinator.group.log;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.coordinator.config.CoordinatorConfig;
+import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.coordinator.group.GroupBalanceManager;
+import org.joyqueue.broker.kafka.coordinator.group.GroupMetadataManager;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMemberMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupMetadata;
+import org.joyqueue.broker.kafka.coordinator.group.domain.GroupState;
+import org.joyqueue.broker.kafka.coordinator.group.helper.GroupMetadataSerializer;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.TopicName;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GroupMetadataLoaderTest
+ */
+public class GroupMetadataLoaderTest {
+
+    private KafkaConfig config;
+    private MemoryGroupMetadataLog groupMetadataLog;
+    private PartitionGroup partitionGroup;
+
+    @Before
+    public void before() {
+        config = new KafkaConfig(new Configuration());
+        groupMetadataLog = new MemoryGroupMetadataLog(config);
+        partitionGroup = new PartitionGroup();
+        partitionGroup.setTopic(TopicName.parse("__group_coordinators"));
+        partitionGroup.setGroup(0);
+        partitionGroup.setPartitions(Sets.newHashSet((short) 0));
+    }
+
+    @Test
+    public void compactAndLoadTest() throws Exception {
+        GroupMetadataManager groupMetadataManager = newGroupMetadataManager();
+        GroupMetadataLoader loader = newLoader(groupMetadataManager);
+
+        GroupMetadata stable = newGroup("stable_group", "member_1");
+        GroupMetadata rebalancing = newGroup("rebalancing_group", "member_2");
+        GroupMetadata removed = newGroup("removed_group", "member_3");
+        GroupMetadata dead = newGroup("dead_group", "member_4");
+        groupMetadataLog.append(stable, rebalancing, removed, new GroupMetadata("removed_group", null), dead);
+
+        // 内存中稳定的组发生了变化，其他组处于rebalance或者已经失效
+        stable.addMember(newMember("stable_group", "member_5"));
+        stable.setState(GroupState.STABLE);
+        groupMetadataManager.getOrCreateGroup(stable);
+        GroupMetadata rebalancingCurrent = newGroup("rebalancing_group", "member_6");
+        rebalancingCurrent.setState(GroupState.PREPARINGREBALANCE);
+        groupMetadataManager.getOrCreateGroup(rebalancingCurrent);
+        dead.setState(GroupState.DEAD);
+        groupMetadataManager.getOrCreateGroup(dead);
+
+        loader.compact(partitionGroup);
+        Assert.assertEquals(5, groupMetadataLog.getStartIndex((short) 0));
+        Assert.assertEquals(7, groupMetadataLog.getMaxIndex((short) 0));
+
+        // 切换leader后只回放压缩后的日志
+        GroupMetadataManager reloadManager = newGroupMetadataManager();
+        newLoader(reloadManager).load(partitionGroup);
+
+        Assert.assertEquals(2, reloadManager.getGroups().size());
+        GroupMetadata reloadStable = reloadManager.getGroup("stable_group");
+        Assert.assertEquals(Sets.newHashSet("member_1", "member_5"), Sets.newHashSet(reloadStable.getMembers().keySet()));
+        // 非稳定的组保留日志中最后一次的快照
+        GroupMetadata reloadRebalancing = reloadManager.getGroup("rebalancing_group");
+        Assert.assertNotNull(reloadRebalancing);
+        Assert.assertEquals(Sets.newHashSet("member_2"), Sets.newHashSet(reloadRebalancing.getMembers().keySet()));
+        Assert.assertNull(reloadManager.getGroup("removed_group"));
+        Assert.assertNull(reloadManager.getGroup("dead_group"));
+    }
+
+    protected GroupMetadataManager newGroupMetadataManager() {
+        return new GroupMetadataManager(config, new org.joyqueue.broker.coordinator.group.GroupMetadataManager("test",
+                new CoordinatorConfig(new Configuration())), groupMetadataLog);
+    }
+
+    protected GroupMetadataLoader newLoader(GroupMetadataManager groupMetadataManager) {
+        return new GroupMetadataLoader(config, null, null, groupMetadataLog, groupMetadataManager, Mockito.mock(GroupBalanceManager.class));
+    }
+
+    protected GroupMetadata newGroup(String groupId, String memberId) {
+        GroupMetadata group = new GroupMetadata(groupId, "consumer");
+        group.setProtocol("range");
+        group.setGenerationId(1);
+        group.addMember(newMember(groupId, memberId));
+        return group;
+    }
+
+    protected GroupMemberMetadata newMember(String groupId, String memberId) {
+        Map<String, byte[]> protocols = Maps.newHashMap();
+        protocols.put("range", new byte[] {1});
+        return new GroupMemberMetadata(memberId, groupId, "client", "127.0.0.1", 1000, 3000, protocols);
+    }
+
+    /**
+     * 内存中的组日志，按写入顺序保存序列化后的快照
+     */
+    protected static class MemoryGroupMetadataLog extends GroupMetadataLog {
+
+        private final List<byte[]> records = Lists.newArrayList();
+        private long startIndex;
+
+        MemoryGroupMetadataLog(KafkaConfig config) {
+            super(config, null, null, null);
+        }
+
+        void append(GroupMetadata... groups) throws Exception {
+            for (GroupMetadata group : groups) {
+                records.add(GroupMetadataSerializer.serialize(group));
+            }
+        }
+
+        @Override
+        public void batchWrite(short partition, List<GroupMetadata> groups) throws Exception {
+            append(groups.toArray(new GroupMetadata[groups.size()]));
+        }
+
+        @Override
+        public List<GroupMetadata> read(short partition, long index, int count) throws Exception {
+            List<GroupMetadata> result = Lists.newArrayList();
+            for (long i = index; i < Math.min(index + count, records.size()); i++) {
+                result.add(GroupMetadataSerializer.deserialize(ByteBuffer.wrap(records.get((int) i))));
+            }
+            return result;
+        }
+
+        @Override
+        public long getStartIndex(short partition) {
+            return startIndex;
+        }
+
+        @Override
+        public long getMaxIndex(short partition) {
+            return records.size();
+        }
+
+        @Override
+        public void saveStartIndex(short partition, long index) {
+            startIndex = index;
+        }
+
+        @Override
+        public short resolvePartition(String groupId) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.message.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.joyqueue.broker.kafka.message.KafkaBrokerMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * KafkaMessageV2SerializerTest
+ */
+public class KafkaMessageV2SerializerTest {
+
+    @Test
+    public void testCrc() throws Exception {
+        KafkaBrokerMessage message = new KafkaBrokerMessage();
+        message.setOffset(10);
+        message.setFlag((short) 1);
+        message.setTimestamp(System.currentTimeMillis());
+        message.setValue(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        ByteBuf buffer = Unpooled.directBuffer();
+        KafkaMessageV2Serializer.writeMessage(buffer, message);
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.readBytes(bytes);
+
+        List<KafkaBrokerMessage> result = KafkaMessageV2Serializer.readMessages(ByteBuffer.wrap(bytes));
+        Assert.assertEquals(1, result.size());
+        Assert.assertFalse(result.get(0).isCorrupted());
+
+        bytes[bytes.length - 1] ^= 1;
+        result = KafkaMessageV2Serializer.readMessages(ByteBuffer.wrap(bytes));
+        Assert.assertTrue(result.get(0).isCorrupted());
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.kafka.metadata;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.cluster.ClusterNameService;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.election.ElectionService;
+import org.joyqueue.broker.kafka.config.KafkaConfig;
+import org.joyqueue.broker.kafka.model.CachedKafkaTopicMetadata;
+import org.joyqueue.broker.kafka.model.KafkaPartitionMetadata;
+import org.joyqueue.domain.Broker;
+import org.joyqueue.domain.Partition;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.TopicConfig;
+import org.joyqueue.domain.TopicName;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * KafkaMetadataCacheTest
+ */
+public class KafkaMetadataCacheTest {
+
+    private static final String TOPIC = "test_topic";
+
+    private TopicConfig topicConfig;
+    private BlockingMetadataCache metadataCache;
+
+    @Before
+    public void before() {
+        Broker broker = new Broker();
+        broker.setId(1);
+        broker.setIp("127.0.0.1");
+        broker.setPort(50088);
+        Map<Integer, Broker> brokers = Maps.newHashMap();
+        brokers.put(broker.getId(), broker);
+
+        PartitionGroup partitionGroup = new PartitionGroup();
+        partitionGroup.setTopic(TopicName.parse(TOPIC));
+        partitionGroup.setGroup(0);
+        partitionGroup.setPartitions(Sets.newHashSet((short) 0));
+        partitionGroup.setReplicas(Sets.newHashSet(broker.getId()));
+        partitionGroup.setIsrs(Sets.newHashSet(broker.getId()));
+        partitionGroup.setLeader(broker.getId());
+        partitionGroup.setBrokers(brokers);
+
+        Map<Integer, PartitionGroup> partitionGroups = Maps.newHashMap();
+        partitionGroups.put(partitionGroup.getGroup(), partitionGroup);
+        topicConfig = new TopicConfig();
+        topicConfig.setName(TopicName.parse(TOPIC));
+        topicConfig.setPartitionGroups(partitionGroups);
+
+        metadataCache = new BlockingMetadataCache(new KafkaConfig(new Configuration()), Mockito.mock(ClusterManager.class),
+                Mockito.mock(ClusterNameService.class), Mockito.mock(ElectionService.class));
+    }
+
+    @Test
+    public void cacheTest() {
+        CachedKafkaTopicMetadata topicMetadata = metadataCache.getTopicMetadata(TOPIC, topicConfig);
+        Assert.assertSame(topicMetadata, metadataCache.getTopicMetadata(TOPIC, topicConfig));
+        Assert.assertEquals(1, metadataCache.loadCount.get());
+
+        metadataCache.invalidate(TOPIC);
+        Assert.assertNotSame(topicMetadata, metadataCache.getTopicMetadata(TOPIC, topicConfig));
+        Assert.assertEquals(2, metadataCache.loadCount.get());
+    }
+
+    @Test
+    public void invalidateDuringLoadTest() throws Exception {
+        metadataCache.block();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CachedKafkaTopicMetadata> future = executor.submit(() -> metadataCache.getTopicMetadata(TOPIC, topicConfig));
+            Assert.assertTrue(metadataCache.loading.await(10, TimeUnit.SECONDS));
+
+            // 加载过程中元数据变更
+            metadataCache.invalidate(TOPIC);
+            metadataCache.release.countDown();
+            Assert.assertNotNull(future.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 加载期间发生过失效，结果不能被缓存
+        metadataCache.getTopicMetadata(TOPIC, topicConfig);
+        Assert.assertEquals(2, metadataCache.loadCount.get());
+        metadataCache.getTopicMetadata(TOPIC, topicConfig);
+        Assert.assertEquals(2, metadataCache.loadCount.get());
+    }
+
+    private static class BlockingMetadataCache extends KafkaMetadataCache {
+
+        private final AtomicInteger loadCount = new AtomicInteger();
+        private final CountDownLatch loading = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocked;
+
+        BlockingMetadataCache(KafkaConfig config, ClusterManager clusterManager, ClusterNameService clusterNameService, ElectionService electionService) {
+            super(config, clusterManager, clusterNameService, electionService);
+        }
+
+        void block() {
+            blocked = true;
+        }
+
+        @Override
+        protected KafkaPartitionMetadata toPartitionMetadata(Partition partition) {
+            loadCount.incrementAndGet();
+            if (blocked) {
+                blocked = false;
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.toPartitionMetadata(partition);
+        }
+    }
+}
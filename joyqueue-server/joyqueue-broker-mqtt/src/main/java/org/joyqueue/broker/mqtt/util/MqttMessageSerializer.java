@@ -24,8 +24,6 @@ import io.netty.channel.Channel;
 import io.netty.handler.codec.mqtt.MqttPublishMessage;
 import io.netty.handler.codec.mqtt.MqttQoS;
 
-import java.util.zip.CRC32;
-
 /**
  * @author majun8
  */
@@ -54,9 +52,6 @@ public class MqttMessageSerializer {
         brokerMessage.setBody(body);
         writeExtension(mqttMessage.fixedHeader().qosLevel(), brokerMessage);
 
-        CRC32 crc32 = new CRC32();
-        crc32.update(brokerMessage.getBody().slice());
-        brokerMessage.setBodyCRC(crc32.getValue());
 
         return brokerMessage;
     }
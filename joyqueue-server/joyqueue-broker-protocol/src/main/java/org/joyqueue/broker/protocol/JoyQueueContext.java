@@ -21,6 +21,8 @@ import org.joyqueue.broker.protocol.config.JoyQueueConfig;
 import org.joyqueue.broker.protocol.coordinator.Coordinator;
 import org.joyqueue.broker.protocol.coordinator.GroupMetadataManager;
 import org.joyqueue.broker.protocol.coordinator.assignment.PartitionAssignmentHandler;
+import org.joyqueue.toolkit.delay.DelayedOperation;
+import org.joyqueue.toolkit.delay.DelayedOperationManager;
 
 /**
  * JoyQueueContext
@@ -35,15 +37,17 @@ public class JoyQueueContext {
     private GroupMetadataManager groupMetadataManager;
     private PartitionAssignmentHandler partitionAssignmentHandler;
     private LongPollingManager longPollingManager;
+    private DelayedOperationManager<DelayedOperation> produceDelayPurgatory;
     private BrokerContext brokerContext;
 
     public JoyQueueContext(JoyQueueConfig config, Coordinator coordinator, GroupMetadataManager groupMetadataManager, PartitionAssignmentHandler partitionAssignmentHandler,
-                           LongPollingManager longPollingManager, BrokerContext brokerContext) {
+                           LongPollingManager longPollingManager, DelayedOperationManager<DelayedOperation> produceDelayPurgatory, BrokerContext brokerContext) {
         this.config = config;
         this.coordinator = coordinator;
         this.groupMetadataManager = groupMetadataManager;
         this.partitionAssignmentHandler = partitionAssignmentHandler;
         this.longPollingManager = longPollingManager;
+        this.produceDelayPurgatory = produceDelayPurgatory;
         this.brokerContext = brokerContext;
     }
 
@@ -67,6 +71,10 @@ public class JoyQueueContext {
         return longPollingManager;
     }
 
+    public DelayedOperationManager<DelayedOperation> getProduceDelayPurgatory() {
+        return produceDelayPurgatory;
+    }
+
     public BrokerContext getBrokerContext() {
         return brokerContext;
     }
@@ -53,4 +53,12 @@ public class JoyQueueConfig {
     public int getCoordinatorPartitionAssignTimeoutOverflow() {
         return PropertySupplier.getValue(propertySupplier, JoyQueueConfigKey.COORDINATOR_PARTITION_ASSIGN_TIMEOUT_OVERFLOW);
     }
+
+    public boolean getMetadataNotificationEnable() {
+        return PropertySupplier.getValue(propertySupplier, JoyQueueConfigKey.METADATA_NOTIFICATION_ENABLE);
+    }
+
+    public int getMetadataNotificationInterval() {
+        return PropertySupplier.getValue(propertySupplier, JoyQueueConfigKey.METADATA_NOTIFICATION_INTERVAL);
+    }
 }
\ No newline at end of file
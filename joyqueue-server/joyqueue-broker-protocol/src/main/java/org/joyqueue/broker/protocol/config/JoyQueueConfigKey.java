@@ -37,6 +37,12 @@ public enum JoyQueueConfigKey implements PropertyDef {
     // 生产最大超时
     PRODUCE_MAX_TIMEOUT("joyqueue.producer.max.timeout", 1000 * 3, PropertyDef.Type.INT),
 
+    // 是否向客户端推送元数据变更通知
+    METADATA_NOTIFICATION_ENABLE("joyqueue.metadata.notification.enable", true, PropertyDef.Type.BOOLEAN),
+
+    // 元数据变更通知的合并间隔
+    METADATA_NOTIFICATION_INTERVAL("joyqueue.metadata.notification.interval", 50, PropertyDef.Type.INT),
+
 
     ;
 
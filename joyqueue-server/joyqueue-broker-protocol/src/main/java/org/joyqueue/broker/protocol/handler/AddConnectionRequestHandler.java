@@ -30,6 +30,7 @@ import org.joyqueue.network.command.BooleanAck;
 import org.joyqueue.network.command.JoyQueueCommandType;
 import org.joyqueue.network.session.Connection;
 import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.codec.JoyQueueHeader;
 import org.joyqueue.network.transport.command.Command;
 import org.joyqueue.network.transport.command.Type;
 import org.joyqueue.security.Authentication;
@@ -104,6 +105,9 @@ public class AddConnectionRequestHandler implements JoyQueueCommandHandler, Type
         connection.setServerAddress(brokerConfig.getFrontendConfig().getHost().getBytes());
         connection.setSystem(authentication.isAdmin(addConnectionRequest.getApp()));
         connection.setAuth(true);
+        // 新版客户端可以处理服务端推送的元数据变更通知
+        connection.setMetadataNotification(addConnectionRequest.getHeader() != null
+                && addConnectionRequest.getHeader().getVersion() >= JoyQueueHeader.VERSION_V5);
         return connection;
     }
 
@@ -40,6 +40,9 @@ import org.joyqueue.response.BooleanResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * ProduceMessageCommitRequestHandler
  *
@@ -77,11 +80,12 @@ public class ProduceMessageCommitRequestHandler implements JoyQueueCommandHandle
             return new Command(new ProduceMessageCommitResponse(CheckResultConverter.convertCommonCode(command.getHeader().getVersion(), checkResult.getJoyQueueCode())));
         }
 
-        ProduceMessageCommitResponse produceMessageCommitResponse = produceMessageCommit(connection, produceMessageCommitRequest);
-        return new Command(produceMessageCommitResponse);
+        produceMessageCommit(connection, produceMessageCommitRequest).thenAccept(produceMessageCommitResponse ->
+                transport.acknowledge(command, new Command(produceMessageCommitResponse)));
+        return null;
     }
 
-    protected ProduceMessageCommitResponse produceMessageCommit(Connection connection, ProduceMessageCommitRequest produceMessageCommitRequest) {
+    protected CompletableFuture<ProduceMessageCommitResponse> produceMessageCommit(Connection connection, ProduceMessageCommitRequest produceMessageCommitRequest) {
         Producer producer = new Producer(connection.getId(), produceMessageCommitRequest.getTopic(), produceMessageCommitRequest.getApp(), Producer.ProducerType.JOYQUEUE);
 
         BrokerCommit brokerCommit = new BrokerCommit();
@@ -90,17 +94,27 @@ public class ProduceMessageCommitRequestHandler implements JoyQueueCommandHandle
         brokerCommit.setTxId(produceMessageCommitRequest.getTxId());
 
         try {
-            produce.putTransactionMessage(producer, brokerCommit);
-            return new ProduceMessageCommitResponse(JoyQueueCode.SUCCESS);
-        } catch (JoyQueueException e) {
-            logger.error("produceMessage commit exception, transport: {}, topic: {}, app: {}",
-                    connection.getTransport().remoteAddress(), produceMessageCommitRequest.getTopic(), produceMessageCommitRequest.getApp(), e);
-            return new ProduceMessageCommitResponse(JoyQueueCode.valueOf(e.getCode()));
+            return produce.commitTransactionAsync(producer, brokerCommit).handle((transactionId, t) -> {
+                if (t == null) {
+                    return new ProduceMessageCommitResponse(JoyQueueCode.SUCCESS);
+                }
+                return convertException(connection, produceMessageCommitRequest, t);
+            });
         } catch (Exception e) {
-            logger.error("produceMessage commit exception, transport: {}, topic: {}, app: {}",
-                    connection.getTransport().remoteAddress(), produceMessageCommitRequest.getTopic(), produceMessageCommitRequest.getApp(), e);
-            return new ProduceMessageCommitResponse(JoyQueueCode.CN_UNKNOWN_ERROR);
+            return CompletableFuture.completedFuture(convertException(connection, produceMessageCommitRequest, e));
+        }
+    }
+
+    protected ProduceMessageCommitResponse convertException(Connection connection, ProduceMessageCommitRequest produceMessageCommitRequest, Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        logger.error("produceMessage commit exception, transport: {}, topic: {}, app: {}",
+                connection.getTransport().remoteAddress(), produceMessageCommitRequest.getTopic(), produceMessageCommitRequest.getApp(), t);
+        if (t instanceof JoyQueueException) {
+            return new ProduceMessageCommitResponse(JoyQueueCode.valueOf(((JoyQueueException) t).getCode()));
         }
+        return new ProduceMessageCommitResponse(JoyQueueCode.CN_UNKNOWN_ERROR);
     }
 
     @Override
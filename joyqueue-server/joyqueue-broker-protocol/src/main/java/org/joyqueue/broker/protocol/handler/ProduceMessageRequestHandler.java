@@ -17,6 +17,7 @@ package org.joyqueue.broker.protocol.handler;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -50,13 +51,18 @@ import org.joyqueue.network.transport.command.Type;
 import org.joyqueue.response.BooleanResponse;
 import org.joyqueue.store.WriteResult;
 import org.joyqueue.toolkit.concurrent.EventListener;
+import org.joyqueue.toolkit.delay.DelayedOperation;
+import org.joyqueue.toolkit.delay.DelayedOperationKey;
+import org.joyqueue.toolkit.delay.DelayedOperationManager;
+import org.joyqueue.toolkit.security.Checksums;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * ProduceMessageRequestHandler
@@ -73,6 +79,7 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
     private ProduceConfig produceConfig;
     private Produce produce;
     private ClusterManager clusterManager;
+    private DelayedOperationManager<DelayedOperation> produceDelayPurgatory;
 
     @Override
     public void setJoyQueueContext(JoyQueueContext joyQueueContext) {
@@ -80,6 +87,7 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
         this.produceConfig = new ProduceConfig(joyQueueContext.getBrokerContext().getPropertySupplier());
         this.produce = joyQueueContext.getBrokerContext().getProduce();
         this.clusterManager = joyQueueContext.getBrokerContext().getClusterManager();
+        this.produceDelayPurgatory = joyQueueContext.getProduceDelayPurgatory();
     }
 
     @Override
@@ -94,29 +102,21 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
         }
 
         QosLevel qosLevel = request.getHeader().getQosLevel();
-        CountDownLatch latch = new CountDownLatch(produceMessageRequest.getData().size());
-        Map<String, ProduceMessageAckData> resultData = Maps.newConcurrentMap();
-        Traffic traffic = new Traffic(app);
         boolean isNeedAck = !qosLevel.equals(QosLevel.ONE_WAY);
-        boolean singleTopic = produceMessageRequest.getData().size() == 1;
+        ProduceMessageAck ack = new ProduceMessageAck(transport, request, app, produceMessageRequest.getData().size(), isNeedAck);
+        int slot = 0;
 
         for (Map.Entry<String, ProduceMessageData> entry : produceMessageRequest.getData().entrySet()) {
             String topic = entry.getKey();
             ProduceMessageData produceMessageData = entry.getValue();
+            int index = slot++;
+            ack.register(index, topic, produceMessageData);
 
             try {
                 checkAndFillMessage(connection, produceMessageData);
                 checkWritable(connection, topic, app, produceMessageData);
 
-                produceMessage(connection, topic, app, produceMessageData, (data) -> {
-                    resultData.put(topic, data);
-                    traffic.record(topic, produceMessageData.getTraffic(), produceMessageData.getSize());
-                    latch.countDown();
-
-                    if (isNeedAck && singleTopic) {
-                        transport.acknowledge(request, generateResponse(traffic, resultData));
-                    }
-                });
+                produceMessage(connection, topic, app, produceMessageData, (data) -> ack.complete(index, data));
             } catch (Exception e) {
                 logger.warn("produce message error, transport: {}, topic: {}, app: {}", transport, topic, app, e);
                 ProduceMessageAckData produceMessageAckData = null;
@@ -126,31 +126,15 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
                 } else {
                     produceMessageAckData = buildResponse(produceMessageData, JoyQueueCode.CN_UNKNOWN_ERROR);
                 }
-
-                latch.countDown();
-                resultData.put(topic, produceMessageAckData);
-
-                if (isNeedAck && singleTopic) {
-                    transport.acknowledge(request, generateResponse(traffic, resultData));
-                    return null;
-                }
+                ack.complete(index, produceMessageAckData);
             }
         }
 
-        if (!isNeedAck || singleTopic) {
-            return null;
-        }
-
-        try {
-            boolean isDone = latch.await(config.getProduceMaxTimeout(), TimeUnit.MILLISECONDS);
-            if (!isDone) {
-                logger.warn("wait produce timeout, transport: {}, topics: {}", transport.remoteAddress(), produceMessageRequest.getData().keySet());
-            }
-        } catch (InterruptedException e) {
-            logger.error("wait produce exception, transport: {}", transport.remoteAddress(), e);
+        // 多个主题时最后一个主题写入完成或者超时后应答，不阻塞处理线程
+        if (isNeedAck && slot > 1) {
+            produceDelayPurgatory.tryCompleteElseWatch(ack, Sets.newHashSet(new DelayedOperationKey()));
         }
-
-        return generateResponse(traffic, resultData);
+        return null;
     }
 
     protected Command generateResponse(Traffic traffic, Map<String, ProduceMessageAckData> resultData) {
@@ -205,6 +189,13 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
             if (StringUtils.length(brokerMessage.getBusinessId()) > produceConfig.getBusinessIdLength()) {
                 throw new JoyQueueException(JoyQueueCode.CN_PARAM_ERROR, "message businessId out of rage");
             }
+            // 客户端按消息体计算CRC32，为0时是没有设置CRC的客户端，由服务端补算，否则副本和读取校验会失败
+            long bodyCRC = Checksums.crc32(brokerMessage.getByteBody());
+            if (brokerMessage.getBodyCRC() == 0) {
+                brokerMessage.setBodyCRC(bodyCRC);
+            } else if (brokerMessage.getBodyCRC() != bodyCRC) {
+                throw new JoyQueueException(JoyQueueCode.CN_CHECKSUM_ERROR, "message body checksum mismatch");
+            }
             brokerMessage.setClientIp(address);
             brokerMessage.setTxId(txId);
         }
@@ -255,4 +246,72 @@ public class ProduceMessageRequestHandler implements JoyQueueCommandHandler, Typ
     public int type() {
         return JoyQueueCommandType.PRODUCE_MESSAGE_REQUEST.getCode();
     }
+
+    /**
+     * 汇总一个请求中各个主题的写入结果，全部完成或者超时后应答。
+     * 每个主题的结果写入各自的槽位，计数归零的线程负责生成应答。
+     */
+    private class ProduceMessageAck extends DelayedOperation {
+        private final Transport transport;
+        private final Command request;
+        private final String app;
+        private final boolean isNeedAck;
+        private final String[] topics;
+        private final ProduceMessageData[] produceMessageData;
+        private final AtomicReferenceArray<ProduceMessageAckData> results;
+        private final AtomicInteger remaining;
+
+        ProduceMessageAck(Transport transport, Command request, String app, int size, boolean isNeedAck) {
+            super(config.getProduceMaxTimeout());
+            this.transport = transport;
+            this.request = request;
+            this.app = app;
+            this.isNeedAck = isNeedAck;
+            this.topics = new String[size];
+            this.produceMessageData = new ProduceMessageData[size];
+            this.results = new AtomicReferenceArray<>(size);
+            this.remaining = new AtomicInteger(size);
+        }
+
+        void register(int index, String topic, ProduceMessageData produceMessageData) {
+            this.topics[index] = topic;
+            this.produceMessageData[index] = produceMessageData;
+        }
+
+        void complete(int index, ProduceMessageAckData result) {
+            results.set(index, result);
+            if (remaining.decrementAndGet() == 0) {
+                forceComplete();
+            }
+        }
+
+        @Override
+        protected boolean tryComplete() {
+            return remaining.get() == 0 && forceComplete();
+        }
+
+        @Override
+        protected void onComplete() {
+            if (!isNeedAck) {
+                return;
+            }
+            Traffic traffic = new Traffic(app);
+            Map<String, ProduceMessageAckData> resultData = Maps.newHashMapWithExpectedSize(topics.length);
+            for (int i = 0; i < topics.length; i++) {
+                ProduceMessageAckData result = results.get(i);
+                if (result == null) {
+                    result = buildResponse(produceMessageData[i], JoyQueueCode.CN_REQUEST_TIMEOUT);
+                } else {
+                    traffic.record(topics[i], produceMessageData[i].getTraffic(), produceMessageData[i].getSize());
+                }
+                resultData.put(topics[i], result);
+            }
+            transport.acknowledge(request, generateResponse(traffic, resultData));
+        }
+
+        @Override
+        protected void onExpiration() {
+            logger.warn("wait produce timeout, transport: {}, topics: {}", transport.remoteAddress(), Arrays.asList(topics));
+        }
+    }
 }
@@ -24,12 +24,15 @@ import org.joyqueue.broker.protocol.coordinator.Coordinator;
 import org.joyqueue.broker.protocol.coordinator.GroupMetadataManager;
 import org.joyqueue.broker.protocol.coordinator.assignment.PartitionAssignmentHandler;
 import org.joyqueue.broker.protocol.network.helper.JoyQueueProtocolHelper;
+import org.joyqueue.broker.protocol.notification.MetadataNotifier;
 import org.joyqueue.broker.polling.LongPollingManager;
 import org.joyqueue.network.protocol.ExceptionHandlerProvider;
 import org.joyqueue.network.protocol.ProtocolService;
 import org.joyqueue.network.transport.codec.CodecFactory;
 import org.joyqueue.network.transport.command.handler.CommandHandlerFactory;
 import org.joyqueue.network.transport.command.handler.ExceptionHandler;
+import org.joyqueue.toolkit.delay.DelayedOperation;
+import org.joyqueue.toolkit.delay.DelayedOperationManager;
 import org.joyqueue.toolkit.service.Service;
 import io.netty.buffer.ByteBuf;
 
@@ -46,6 +49,8 @@ public class JoyQueueProtocol extends Service implements ProtocolService, Broker
     private GroupMetadataManager coordinatorGroupManager;
     private PartitionAssignmentHandler partitionAssignmentHandler;
     private LongPollingManager longPollingManager;
+    private MetadataNotifier metadataNotifier;
+    private DelayedOperationManager<DelayedOperation> produceDelayPurgatory;
     private JoyQueueContext joyQueueContext;
 
     @Override
@@ -56,20 +61,32 @@ public class JoyQueueProtocol extends Service implements ProtocolService, Broker
         this.coordinatorGroupManager = new GroupMetadataManager(config, brokerContext.getCoordinatorService().getOrCreateGroupMetadataManager(JoyQueueConsts.COORDINATOR_NAMESPACE));
         this.partitionAssignmentHandler = new PartitionAssignmentHandler(config, coordinatorGroupManager);
         this.longPollingManager = new LongPollingManager(brokerContext.getSessionManager(), brokerContext.getClusterManager(), brokerContext.getConsume(),brokerContext.getPropertySupplier());
+        this.produceDelayPurgatory = new DelayedOperationManager<>("joyqueue-produce-delay");
+        if (config.getMetadataNotificationEnable()) {
+            this.metadataNotifier = new MetadataNotifier(config, brokerContext.getClusterManager(), brokerContext.getElectionService(), brokerContext.getSessionManager());
+        }
 
-        this.joyQueueContext = new JoyQueueContext(config, coordinator, coordinatorGroupManager, partitionAssignmentHandler, longPollingManager, brokerContext);
+        this.joyQueueContext = new JoyQueueContext(config, coordinator, coordinatorGroupManager, partitionAssignmentHandler, longPollingManager, produceDelayPurgatory, brokerContext);
     }
 
     @Override
     protected void doStart() throws Exception {
         partitionAssignmentHandler.start();
         longPollingManager.start();
+        produceDelayPurgatory.start();
+        if (metadataNotifier != null) {
+            metadataNotifier.start();
+        }
     }
 
     @Override
     protected void doStop() {
         partitionAssignmentHandler.stop();
         longPollingManager.stop();
+        produceDelayPurgatory.shutdown();
+        if (metadataNotifier != null) {
+            metadataNotifier.stop();
+        }
     }
 
     @Override
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.protocol.notification;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.election.ElectionEvent;
+import org.joyqueue.broker.election.ElectionService;
+import org.joyqueue.broker.monitor.SessionManager;
+import org.joyqueue.broker.protocol.config.JoyQueueConfig;
+import org.joyqueue.domain.PartitionGroup;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.event.MetaEvent;
+import org.joyqueue.network.command.MetadataChange;
+import org.joyqueue.network.command.MetadataNotification;
+import org.joyqueue.network.session.Connection;
+import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.command.JoyQueueCommand;
+import org.joyqueue.nsr.event.AddPartitionGroupEvent;
+import org.joyqueue.nsr.event.LeaderChangeEvent;
+import org.joyqueue.nsr.event.RemovePartitionGroupEvent;
+import org.joyqueue.nsr.event.RemoveTopicEvent;
+import org.joyqueue.nsr.event.UpdatePartitionGroupEvent;
+import org.joyqueue.nsr.event.UpdateTopicEvent;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.joyqueue.toolkit.concurrent.LoopThread;
+import org.joyqueue.toolkit.service.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 元数据变更通知
+ * <br>
+ * 监听选举和元数据变更事件，按间隔合并后推送给订阅了相关主题的客户端连接，
+ * 只推送给声明支持通知的连接(协议版本不低于V5)。
+ */
+public class MetadataNotifier extends Service {
+
+    protected static final Logger logger = LoggerFactory.getLogger(MetadataNotifier.class);
+
+    private JoyQueueConfig config;
+    private ClusterManager clusterManager;
+    private ElectionService electionService;
+    private SessionManager sessionManager;
+
+    private final ConcurrentLinkedQueue<MetadataChange> changes = new ConcurrentLinkedQueue<>();
+    private final EventListener<MetaEvent> metaEventListener = new MetaEventListener();
+    private final EventListener<ElectionEvent> electionListener = new ElectionListener();
+    private LoopThread notifyThread;
+
+    public MetadataNotifier(JoyQueueConfig config, ClusterManager clusterManager, ElectionService electionService, SessionManager sessionManager) {
+        this.config = config;
+        this.clusterManager = clusterManager;
+        this.electionService = electionService;
+        this.sessionManager = sessionManager;
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        notifyThread = LoopThread.builder()
+                .name("joyqueue-metadata-notifier")
+                .doWork(this::doNotify)
+                .sleepTime(config.getMetadataNotificationInterval(), config.getMetadataNotificationInterval())
+                .onException(e -> logger.warn("metadata notify exception", e))
+                .build();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        clusterManager.addListener(metaEventListener);
+        if (electionService != null) {
+            electionService.addListener(electionListener);
+        }
+        notifyThread.start();
+    }
+
+    @Override
+    protected void doStop() {
+        clusterManager.removeListener(metaEventListener);
+        if (electionService != null) {
+            electionService.removeListener(electionListener);
+        }
+        if (notifyThread != null) {
+            notifyThread.stop();
+        }
+        changes.clear();
+    }
+
+    public void addChange(MetadataChange change) {
+        if (!isStarted()) {
+            return;
+        }
+        changes.add(change);
+    }
+
+    protected void doNotify() {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        // 同一分区组只保留最后一次变更
+        Map<String, Map<Integer, MetadataChange>> topicChanges = Maps.newHashMap();
+        MetadataChange change;
+        while ((change = changes.poll()) != null) {
+            Map<Integer, MetadataChange> groupChanges = topicChanges.get(change.getTopic());
+            if (groupChanges == null) {
+                groupChanges = Maps.newLinkedHashMap();
+                topicChanges.put(change.getTopic(), groupChanges);
+            }
+            groupChanges.put(change.getGroup(), change);
+        }
+
+        for (Connection connection : sessionManager.getConnection()) {
+            if (!connection.isMetadataNotification() || connection.getTransport() == null) {
+                continue;
+            }
+            List<MetadataChange> connectionChanges = null;
+            for (String topic : getTopics(connection)) {
+                Map<Integer, MetadataChange> groupChanges = topicChanges.get(topic);
+                if (groupChanges == null) {
+                    continue;
+                }
+                if (connectionChanges == null) {
+                    connectionChanges = Lists.newArrayList();
+                }
+                connectionChanges.addAll(groupChanges.values());
+            }
+            if (connectionChanges != null) {
+                notify(connection, connectionChanges);
+            }
+        }
+    }
+
+    protected void notify(Connection connection, List<MetadataChange> connectionChanges) {
+        Transport transport = connection.getTransport();
+        try {
+            transport.oneway(new JoyQueueCommand(new MetadataNotification(connectionChanges)));
+            if (logger.isDebugEnabled()) {
+                logger.debug("notify metadata changes, connection: {}, changes: {}", connection.getId(), connectionChanges);
+            }
+        } catch (Exception e) {
+            logger.debug("notify metadata changes exception, connection: {}", connection.getId(), e);
+        }
+    }
+
+    protected Set<String> getTopics(Connection connection) {
+        Set<String> result = Sets.newHashSet();
+        addTopics(result, connection.getProducers());
+        addTopics(result, connection.getConsumers());
+        return result;
+    }
+
+    protected void addTopics(Set<String> result, ConcurrentMap<String, ConcurrentMap<String, String>> appTopics) {
+        for (ConcurrentMap<String, String> topics : appTopics.values()) {
+            for (String topic : topics.keySet()) {
+                result.add(TopicName.parse(topic).getFullName());
+            }
+        }
+    }
+
+    protected void addChange(TopicName topic, PartitionGroup partitionGroup, boolean withLeader) {
+        if (partitionGroup == null) {
+            addChange(new MetadataChange(topic.getFullName()));
+        } else if (withLeader && partitionGroup.getLeader() != null) {
+            addChange(new MetadataChange(topic.getFullName(), partitionGroup.getGroup(), partitionGroup.getLeader(),
+                    partitionGroup.getTerm() == null ? 0 : partitionGroup.getTerm()));
+        } else {
+            addChange(new MetadataChange(topic.getFullName(), partitionGroup.getGroup(), MetadataChange.NONE, 0));
+        }
+    }
+
+    /**
+     * 元数据变更在本地元数据更新之后触发，客户端此时拉取可以拿到新的元数据
+     */
+    protected class MetaEventListener implements EventListener<MetaEvent> {
+
+        @Override
+        public void onEvent(MetaEvent event) {
+            if (!isStarted()) {
+                return;
+            }
+            switch (event.getEventType()) {
+                case LEADER_CHANGE: {
+                    LeaderChangeEvent leaderChangeEvent = (LeaderChangeEvent) event;
+                    addChange(leaderChangeEvent.getTopic(), leaderChangeEvent.getNewPartitionGroup(), true);
+                    break;
+                }
+                case UPDATE_PARTITION_GROUP: {
+                    UpdatePartitionGroupEvent updatePartitionGroupEvent = (UpdatePartitionGroupEvent) event;
+                    addChange(updatePartitionGroupEvent.getTopic(), updatePartitionGroupEvent.getNewPartitionGroup(), true);
+                    break;
+                }
+                case ADD_PARTITION_GROUP: {
+                    AddPartitionGroupEvent addPartitionGroupEvent = (AddPartitionGroupEvent) event;
+                    addChange(addPartitionGroupEvent.getTopic(), addPartitionGroupEvent.getPartitionGroup(), false);
+                    break;
+                }
+                case REMOVE_PARTITION_GROUP: {
+                    RemovePartitionGroupEvent removePartitionGroupEvent = (RemovePartitionGroupEvent) event;
+                    addChange(removePartitionGroupEvent.getTopic(), removePartitionGroupEvent.getPartitionGroup(), false);
+                    break;
+                }
+                case UPDATE_TOPIC: {
+                    UpdateTopicEvent updateTopicEvent = (UpdateTopicEvent) event;
+                    addChange(updateTopicEvent.getNewTopic().getName(), null, false);
+                    break;
+                }
+                case REMOVE_TOPIC: {
+                    RemoveTopicEvent removeTopicEvent = (RemoveTopicEvent) event;
+                    addChange(removeTopicEvent.getTopic().getName(), null, false);
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    protected class ElectionListener implements EventListener<ElectionEvent> {
+
+        @Override
+        public void onEvent(ElectionEvent event) {
+            if (event.getEventType() != ElectionEvent.Type.LEADER_FOUND || event.getTopicPartitionGroup() == null) {
+                return;
+            }
+            addChange(new MetadataChange(TopicName.parse(event.getTopicPartitionGroup().getTopic()).getFullName(),
+                    event.getTopicPartitionGroup().getPartitionGroupId(), event.getLeaderId(), event.getTerm()));
+        }
+    }
+}
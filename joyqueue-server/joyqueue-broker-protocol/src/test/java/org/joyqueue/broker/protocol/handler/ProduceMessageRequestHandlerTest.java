@@ -0,0 +1,224 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.broker.protocol.handler;
+
+import org.joyqueue.broker.BrokerContext;
+import org.joyqueue.broker.buffer.Serializer;
+import org.joyqueue.broker.cluster.ClusterManager;
+import org.joyqueue.broker.config.Configuration;
+import org.joyqueue.broker.monitor.SessionManager;
+import org.joyqueue.broker.producer.Produce;
+import org.joyqueue.broker.protocol.JoyQueueContext;
+import org.joyqueue.broker.protocol.config.JoyQueueConfig;
+import org.joyqueue.broker.replication.ReplicaGroup;
+import org.joyqueue.domain.QosLevel;
+import org.joyqueue.domain.TopicName;
+import org.joyqueue.exception.JoyQueueCode;
+import org.joyqueue.message.BrokerMessage;
+import org.joyqueue.network.command.ProduceMessageAckData;
+import org.joyqueue.network.command.ProduceMessageData;
+import org.joyqueue.network.command.ProduceMessageRequest;
+import org.joyqueue.network.command.ProduceMessageResponse;
+import org.joyqueue.network.session.Connection;
+import org.joyqueue.network.session.Producer;
+import org.joyqueue.network.transport.Transport;
+import org.joyqueue.network.transport.command.Command;
+import org.joyqueue.network.transport.command.JoyQueueCommand;
+import org.joyqueue.network.transport.support.DefaultTransportAttribute;
+import org.joyqueue.response.BooleanResponse;
+import org.joyqueue.store.WriteResult;
+import org.joyqueue.toolkit.concurrent.EventListener;
+import org.joyqueue.toolkit.delay.DelayedOperation;
+import org.joyqueue.toolkit.delay.DelayedOperationManager;
+import org.joyqueue.toolkit.security.Checksums;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ProduceMessageRequestHandlerTest
+ */
+public class ProduceMessageRequestHandlerTest {
+
+    private static final String TOPIC = "test_topic";
+    private static final String TOPIC_2 = "test_topic_2";
+    private static final String APP = "test_app";
+    private static final int PRODUCE_MAX_TIMEOUT = 200;
+
+    private Produce produce;
+    private Transport transport;
+    private DelayedOperationManager<DelayedOperation> produceDelayPurgatory;
+    private ProduceMessageRequestHandler handler;
+
+    @Before
+    public void before() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.addProperty("joyqueue.producer.max.timeout", String.valueOf(PRODUCE_MAX_TIMEOUT));
+        produce = Mockito.mock(Produce.class);
+        ClusterManager clusterManager = Mockito.mock(ClusterManager.class);
+        Mockito.when(clusterManager.checkWritable(Mockito.any(TopicName.class), Mockito.anyString(), Mockito.any(), Mockito.anyShort()))
+                .thenReturn(BooleanResponse.success());
+
+        BrokerContext brokerContext = new BrokerContext().propertySupplier(configuration).produce(produce).clusterManager(clusterManager);
+        produceDelayPurgatory = new DelayedOperationManager<>("joyqueue-produce-delay-test");
+        produceDelayPurgatory.start();
+        handler = new ProduceMessageRequestHandler();
+        handler.setJoyQueueContext(new JoyQueueContext(new JoyQueueConfig(configuration), null, null, null, null, produceDelayPurgatory, brokerContext));
+
+        Connection connection = new Connection("1", APP, null, null, new byte[] {127, 0, 0, 1}, null);
+        transport = Mockito.mock(Transport.class);
+        DefaultTransportAttribute attribute = new DefaultTransportAttribute();
+        attribute.set(SessionManager.CONNECTION_KEY, connection);
+        Mockito.when(transport.attr()).thenReturn(attribute);
+    }
+
+    @After
+    public void after() {
+        produceDelayPurgatory.shutdown();
+    }
+
+    @Test
+    public void fillBodyCRCTest() throws Exception {
+        byte[] body = "test".getBytes(StandardCharsets.UTF_8);
+        BrokerMessage message = new BrokerMessage();
+        message.setTopic(TOPIC);
+        message.setApp(APP);
+        message.setBody(body);
+        // 未设置CRC的客户端
+        message.setBodyCRC(0);
+
+        handler.handle(transport, produceCommand(message));
+
+        ArgumentCaptor<List> messagesCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(produce).putMessageAsync(Mockito.any(Producer.class), messagesCaptor.capture(), Mockito.any(QosLevel.class),
+                Mockito.anyInt(), Mockito.<EventListener<WriteResult>>any());
+        BrokerMessage stored = (BrokerMessage) messagesCaptor.getValue().get(0);
+        Assert.assertEquals(Checksums.crc32(body), stored.getBodyCRC());
+
+        // 按存储格式序列化后走副本的校验
+        int size = Serializer.sizeOf(stored);
+        ByteBuffer entries = ByteBuffer.allocate(size);
+        Serializer.write(stored, entries, size);
+        entries.flip();
+        Assert.assertTrue(ReplicaGroup.verifyEntries(entries));
+    }
+
+    @Test
+    public void bodyCRCMismatchTest() throws Exception {
+        BrokerMessage message = new BrokerMessage();
+        message.setTopic(TOPIC);
+        message.setApp(APP);
+        message.setBody("test".getBytes(StandardCharsets.UTF_8));
+        message.setBodyCRC(1);
+
+        handler.handle(transport, produceCommand(message));
+
+        Mockito.verify(produce, Mockito.never()).putMessageAsync(Mockito.any(Producer.class), Mockito.anyList(), Mockito.any(QosLevel.class),
+                Mockito.anyInt(), Mockito.<EventListener<WriteResult>>any());
+        Mockito.verify(transport).acknowledge(Mockito.any(Command.class), Mockito.any(Command.class));
+    }
+
+    @Test
+    public void delayedAckTest() throws Exception {
+        List<EventListener<WriteResult>> listeners = captureListeners();
+        Assert.assertNull(handler.handle(transport, produceCommand(TOPIC, TOPIC_2)));
+        Assert.assertEquals(2, listeners.size());
+
+        // 所有主题写入完成后才应答
+        listeners.get(0).onEvent(new WriteResult(JoyQueueCode.SUCCESS, new long[] {0}));
+        Mockito.verify(transport, Mockito.never()).acknowledge(Mockito.any(Command.class), Mockito.any(Command.class));
+        listeners.get(1).onEvent(new WriteResult(JoyQueueCode.SUCCESS, new long[] {0}));
+
+        Map<String, ProduceMessageAckData> data = acknowledged(PRODUCE_MAX_TIMEOUT / 2);
+        Assert.assertEquals(JoyQueueCode.SUCCESS, data.get(TOPIC).getCode());
+        Assert.assertEquals(JoyQueueCode.SUCCESS, data.get(TOPIC_2).getCode());
+    }
+
+    @Test
+    public void delayedAckExpireTest() throws Exception {
+        List<EventListener<WriteResult>> listeners = captureListeners();
+        Assert.assertNull(handler.handle(transport, produceCommand(TOPIC, TOPIC_2)));
+        listeners.get(0).onEvent(new WriteResult(JoyQueueCode.SUCCESS, new long[] {0}));
+
+        // 超时后未完成的主题返回超时
+        Map<String, ProduceMessageAckData> data = acknowledged(PRODUCE_MAX_TIMEOUT * 10);
+        Assert.assertEquals(JoyQueueCode.SUCCESS, data.get(TOPIC).getCode());
+        Assert.assertEquals(JoyQueueCode.CN_REQUEST_TIMEOUT, data.get(TOPIC_2).getCode());
+
+        // 超时之后的写入结果不再应答
+        listeners.get(1).onEvent(new WriteResult(JoyQueueCode.SUCCESS, new long[] {0}));
+        Mockito.verify(transport, Mockito.times(1)).acknowledge(Mockito.any(Command.class), Mockito.any(Command.class));
+    }
+
+    protected List<EventListener<WriteResult>> captureListeners() throws Exception {
+        List<EventListener<WriteResult>> listeners = new CopyOnWriteArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            listeners.add(invocation.getArgument(4));
+            return null;
+        }).when(produce).putMessageAsync(Mockito.any(Producer.class), Mockito.anyList(), Mockito.any(QosLevel.class),
+                Mockito.anyInt(), Mockito.<EventListener<WriteResult>>any());
+        return listeners;
+    }
+
+    protected Map<String, ProduceMessageAckData> acknowledged(long timeout) {
+        ArgumentCaptor<Command> responseCaptor = ArgumentCaptor.forClass(Command.class);
+        Mockito.verify(transport, Mockito.timeout(timeout)).acknowledge(Mockito.any(Command.class), responseCaptor.capture());
+        return ((ProduceMessageResponse) responseCaptor.getValue().getPayload()).getData();
+    }
+
+    protected Command produceCommand(String... topics) {
+        Map<String, ProduceMessageData> data = new LinkedHashMap<>();
+        for (String topic : topics) {
+            BrokerMessage message = new BrokerMessage();
+            message.setTopic(topic);
+            message.setApp(APP);
+            message.setBody("test".getBytes(StandardCharsets.UTF_8));
+            data.put(topic, produceData(message));
+        }
+        return produceCommand(data);
+    }
+
+    protected Command produceCommand(BrokerMessage... messages) {
+        return produceCommand(Collections.singletonMap(TOPIC, produceData(messages)));
+    }
+
+    protected Command produceCommand(Map<String, ProduceMessageData> data) {
+        ProduceMessageRequest request = new ProduceMessageRequest();
+        request.setApp(APP);
+        request.setData(data);
+        return new JoyQueueCommand(request);
+    }
+
+    protected ProduceMessageData produceData(BrokerMessage... messages) {
+        ProduceMessageData data = new ProduceMessageData();
+        data.setMessages(Arrays.asList(messages));
+        data.setQosLevel(QosLevel.REPLICATION);
+        data.setTimeout(1000);
+        return data;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store;
+
+/**
+ * 按消息键压缩分区组存储的策略
+ * <br>
+ * 同一个分区内键相同的消息只保留最后一条，消息体为空的消息（墓碑）在保留期过后也会被删除。
+ * 没有键的消息和批消息不会被压缩。
+ */
+public class CompactionPolicy {
+    /**
+     * 作为消息键的消息属性，为null时使用业务ID
+     */
+    private final String keyProperty;
+    /**
+     * 墓碑消息的保留时间，单位毫秒
+     */
+    private final long tombstoneRetentionMs;
+    /**
+     * 只压缩最后一次写入时间早于这个时长的文件，单位毫秒
+     */
+    private final long minCompactionLagMs;
+
+    public CompactionPolicy(String keyProperty, long tombstoneRetentionMs, long minCompactionLagMs) {
+        this.keyProperty = keyProperty;
+        this.tombstoneRetentionMs = tombstoneRetentionMs;
+        this.minCompactionLagMs = minCompactionLagMs;
+    }
+
+    public String getKeyProperty() {
+        return keyProperty;
+    }
+
+    public long getTombstoneRetentionMs() {
+        return tombstoneRetentionMs;
+    }
+
+    public long getMinCompactionLagMs() {
+        return minCompactionLagMs;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactionPolicy{" +
+                "keyProperty='" + keyProperty + '\'' +
+                ", tombstoneRetentionMs=" + tombstoneRetentionMs +
+                ", minCompactionLagMs=" + minCompactionLagMs +
+                '}';
+    }
+}
@@ -59,6 +59,15 @@ public interface PartitionGroupStore {
      **/
     long clean(long time, Map<Short, Long> partitionAckMap, boolean keepUnconsumed) throws IOException;
 
+    /**
+     * 按消息键压缩已经提交的消息，同一分区内键相同的消息只保留最后一条。
+     * 压缩不改变消息的索引，被压缩的消息在读取时跳过。
+     * @param policy 压缩策略
+     * @return 释放的磁盘空间
+     * @see CompactionPolicy
+     **/
+    long compact(CompactionPolicy policy) throws IOException;
+
     /**
      * 获取分区当前的最小索引，用于初始化消费
      * @param partition 分区
@@ -17,12 +17,14 @@ package org.joyqueue.store;
 
 import org.joyqueue.domain.QosLevel;
 import org.joyqueue.monitor.BufferPoolMonitorInfo;
+import org.joyqueue.monitor.DiskMonitorInfo;
 import org.joyqueue.store.event.StoreEvent;
 import org.joyqueue.store.replication.ReplicableStore;
 import org.joyqueue.store.transaction.TransactionStore;
 import org.joyqueue.toolkit.concurrent.EventListener;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -154,6 +156,33 @@ public interface StoreService {
      */
     BufferPoolMonitorInfo monitorInfo();
 
+    /**
+     * 获取数据目录所在的磁盘数，用于确定恢复等磁盘密集型任务的并发度。
+     * @return 磁盘数
+     */
+    default int getDiskCount() {
+        return 1;
+    }
+
+    /**
+     * 获取各数据目录的监控信息
+     * @return 每个数据目录一条监控信息
+     */
+    default List<DiskMonitorInfo> diskMonitorInfo() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 把分区组迁移到另一个数据目录，迁移期间短暂暂停该分区组的读写
+     * @param topic 主题
+     * @param partitionGroup 分区组
+     * @param path 目标数据目录，必须是存储配置的数据目录之一
+     * @throws IOException 复制文件失败时抛出，此时分区组仍在原目录上
+     */
+    default void migratePartitionGroup(String topic, int partitionGroup, String path) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * 获取存储节点
      * @return
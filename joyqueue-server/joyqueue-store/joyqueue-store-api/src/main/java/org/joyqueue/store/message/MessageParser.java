@@ -15,6 +15,7 @@
  */
 package org.joyqueue.store.message;
 
+import org.joyqueue.toolkit.security.Checksums;
 import org.joyqueue.toolkit.time.SystemClock;
 
 import java.nio.ByteBuffer;
@@ -156,6 +157,16 @@ public class MessageParser {
         return arrayBuffer.array();
     }
 
+    /**
+     * 校验消息体的CRC，直接在消息所在的buffer上计算，不复制消息体
+     * @param messageBuffer 一条完整的消息
+     * @return CRC一致返回true
+     */
+    public static boolean checkCRC(ByteBuffer messageBuffer) {
+        ByteBuffer body = getByteBuffer(messageBuffer, BODY);
+        return Checksums.crc32(body) == getLong(messageBuffer, CRC);
+    }
+
     public static ByteBuffer build(byte [][] variableAttributes) {
         if(variableAttributes.length != attributes.length - firstVarIndex) {
             throw new ParseAttributeException("Length of parameter variableAttributes should be equals the count of variable attributes : " + (attributes.length - firstVarIndex));
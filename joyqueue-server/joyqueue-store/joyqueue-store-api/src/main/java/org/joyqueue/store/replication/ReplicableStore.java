@@ -65,6 +65,12 @@ public interface ReplicableStore {
      */
     long leftPosition();
 
+    /**
+     * 可以按日志读取和复制的最小位置，之前的数据（比如压缩过的文件）只能通过快照复制
+     * @return 可以按日志复制的最小位置（含）
+     */
+    long entryLeftPosition();
+
     /**
      * 清空Store所有数据，并将所有位置置为position
      * @param position 新的起始位置
@@ -139,4 +145,43 @@ public interface ReplicableStore {
      */
     int getEntryTerm(long position) throws IOException;
 
+    /**
+     * LEADER 生成快照，只包含已提交、已建索引并且已刷盘的封口文件。
+     * @return 快照，没有可用的封口文件时返回null
+     * @throws IOException 发生IO错误
+     */
+    Snapshot snapshot() throws IOException;
+
+    /**
+     * LEADER 读取快照文件的一段数据。
+     * @param path 快照文件相对路径，见{@link Snapshot.Segment#getPath()}
+     * @param offset 文件内的偏移量
+     * @param length 最大长度
+     * @return 读取的数据，文件已经被删除时抛出异常
+     * @throws IOException 发生IO错误
+     */
+    ByteBuffer readSnapshot(String path, long offset, int length) throws IOException;
+
+    /**
+     * FOLLOWER 开始接收快照，清理上一次未完成的快照文件。
+     * @throws IOException 发生IO错误
+     */
+    void prepareSnapshot() throws IOException;
+
+    /**
+     * FOLLOWER 写入快照文件的一段数据。
+     * @param path 快照文件相对路径
+     * @param offset 文件内的偏移量
+     * @param data 数据
+     * @throws IOException 发生IO错误
+     */
+    void writeSnapshot(String path, long offset, ByteBuffer data) throws IOException;
+
+    /**
+     * FOLLOWER 快照接收完成后，用快照替换当前存储的全部数据，之后从{@code right}继续复制日志。
+     * @param right 快照的结束位置
+     * @throws IOException 发生IO错误
+     */
+    void installSnapshot(long right) throws IOException;
+
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.replication;
+
+import java.util.List;
+
+/**
+ * 分区组的快照，由若干已封口的日志文件和索引文件组成，覆盖日志区间[left, right)。
+ * 落后太多或者新加入的副本可以直接复制这些文件，然后从right继续复制日志。
+ */
+public class Snapshot {
+    private final long left;
+    private final long right;
+    private final List<Segment> segments;
+
+    public Snapshot(long left, long right, List<Segment> segments) {
+        this.left = left;
+        this.right = right;
+        this.segments = segments;
+    }
+
+    public long getLeft() {
+        return left;
+    }
+
+    public long getRight() {
+        return right;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public long size() {
+        return segments.stream().mapToLong(Segment::getLength).sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot{" +
+                "left=" + left +
+                ", right=" + right +
+                ", segments=" + segments.size() +
+                '}';
+    }
+
+    /**
+     * 快照中的一个文件
+     */
+    public static class Segment {
+        /**
+         * 相对于分区组目录的路径
+         */
+        private final String path;
+        /**
+         * 需要复制的长度，包含文件头
+         */
+        private final long length;
+
+        public Segment(String path, long length) {
+            this.path = path;
+            this.length = length;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return path + ":" + length;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.joyqueue.store.transaction;
 
 import org.joyqueue.store.WriteResult;
+import org.joyqueue.toolkit.concurrent.EventListener;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -52,6 +53,15 @@ public interface TransactionStore {
      */
     Future<WriteResult> asyncWrite(int id, ByteBuffer... messages);
 
+    /**
+     * 异步写入消息，写入完成后在写入线程中回调，调用方不需要等待
+     * @param eventListener 回调方法
+     * @param id 事务id
+     * @param messages 消息
+     * @see WriteResult
+     */
+    void asyncWrite(EventListener<WriteResult> eventListener, int id, ByteBuffer... messages);
+
     /**
      * 获取读取的迭代器。
      * 迭代器内包含获取迭代器时store包含的消息。
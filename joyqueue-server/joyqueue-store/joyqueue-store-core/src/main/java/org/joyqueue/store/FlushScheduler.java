@@ -0,0 +1,191 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store;
+
+import org.joyqueue.toolkit.concurrent.LoopThread;
+import org.joyqueue.toolkit.metric.LatencyHistogram;
+import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 同一块磁盘上所有分区组共用的刷盘调度器
+ * <br>
+ * 写入后分区组只登记刷盘请求，由调度线程统一执行：
+ * 1. 第一个请求到达后最多等待 latencyBudget - 平均刷盘耗时，把这段时间内的请求合并成一批；
+ * 2. 一批内按目录排序依次刷盘，仍有脏数据或没抢到刷盘锁的分区组重新登记；
+ * 3. 每隔flushInterval对所有分区组做一次兜底刷盘；
+ * 4. 记录每次刷盘的耗时直方图，定期打印。
+ */
+public class FlushScheduler extends Service {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlushScheduler.class);
+
+    // 平均刷盘耗时的平滑系数
+    private static final double EWMA_ALPHA = 0.2;
+    // 没抢到刷盘锁时重试的间隔
+    private static final long RETRY_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final long latencyBudgetNanos;
+    private final long flushIntervalMs;
+    private final long reportIntervalMs;
+
+    private final Set<PartitionGroupStoreManager> stores = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<PartitionGroupStoreManager> requests = new ConcurrentLinkedQueue<>();
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final LoopThread flushThread;
+
+    private volatile long avgFlushNanos = 0L;
+    private long lastSweepTime = 0L;
+    private long lastReportTime = SystemClock.now();
+
+    public FlushScheduler(String name, long latencyBudgetMs, long flushIntervalMs, long reportIntervalMs) {
+        this.name = name;
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs);
+        this.flushIntervalMs = flushIntervalMs;
+        this.reportIntervalMs = reportIntervalMs;
+        this.flushThread = LoopThread.builder()
+                .name(String.format("FlushScheduler-%s", name))
+                .doWork(this::doFlush)
+                .sleepTime(flushIntervalMs, flushIntervalMs)
+                .onException(e -> logger.warn("Flush Exception: ", e))
+                .build();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        flushThread.start();
+        logger.info("Flush scheduler {} started, latency budget: {}ms.", name, TimeUnit.NANOSECONDS.toMillis(latencyBudgetNanos));
+    }
+
+    @Override
+    protected void doStop() {
+        flushThread.stop();
+        logger.info("Flush scheduler {} stopped, flush latency: {}.", name, flushLatency.snapshot());
+    }
+
+    void register(PartitionGroupStoreManager store) {
+        stores.add(store);
+    }
+
+    void unregister(PartitionGroupStoreManager store) {
+        stores.remove(store);
+        requests.remove(store);
+    }
+
+    /**
+     * 登记刷盘请求，调用方保证同一分区组在被处理前只登记一次
+     *
+     * @param store 分区组
+     */
+    void requestFlush(PartitionGroupStoreManager store) {
+        requests.add(store);
+        flushThread.wakeup();
+    }
+
+    public LatencyHistogram getFlushLatency() {
+        return flushLatency;
+    }
+
+    public long getAvgFlushNanos() {
+        return avgFlushNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void doFlush() {
+        long now = SystemClock.now();
+        boolean sweep = now - lastSweepTime >= flushIntervalMs;
+        do {
+            lingerForBatch();
+
+            Set<PartitionGroupStoreManager> batch = new HashSet<>();
+            PartitionGroupStoreManager store;
+            while ((store = requests.poll()) != null) {
+                batch.add(store);
+            }
+
+            if (sweep) {
+                // 兜底，刷没有登记请求的分区组并更新CheckPoint
+                batch.addAll(stores);
+                lastSweepTime = now;
+                sweep = false;
+            }
+
+            List<PartitionGroupStoreManager> sorted = new ArrayList<>(batch);
+            sorted.sort(Comparator.comparing(PartitionGroupStoreManager::getBasePath));
+            boolean flushed = false;
+            for (PartitionGroupStoreManager s : sorted) {
+                flushed = flush(s) || flushed;
+            }
+            if (!flushed && !requests.isEmpty()) {
+                // 这一批都没有写盘，剩下的是没抢到刷盘锁的重试，稍等再刷，避免空转
+                LockSupport.parkNanos(this, RETRY_PAUSE_NANOS);
+            }
+            // 刷盘期间又有新的请求，直接进入下一批，不等LoopThread休眠
+        } while (!requests.isEmpty() && flushThread.isStarted());
+
+        if (reportIntervalMs > 0 && now - lastReportTime >= reportIntervalMs) {
+            LatencyHistogram.Snapshot snapshot = flushLatency.snapshotAndReset();
+            if (snapshot.getCount() > 0) {
+                logger.info("Flush scheduler {}, stores: {}, flush latency: {}.", name, stores.size(), snapshot);
+            }
+            lastReportTime = now;
+        }
+    }
+
+    /**
+     * 第一个请求到达后，在延迟预算内留出刷盘本身的耗时，剩余的时间用来攒批
+     */
+    private void lingerForBatch() {
+        if (requests.isEmpty() || latencyBudgetNanos <= 0) {
+            return;
+        }
+        long linger = latencyBudgetNanos - avgFlushNanos;
+        if (linger > 0) {
+            LockSupport.parkNanos(this, linger);
+        }
+    }
+
+    private boolean flush(PartitionGroupStoreManager store) {
+        if (!stores.contains(store)) {
+            store.onFlushScheduled(false);
+            return false;
+        }
+        long t0 = System.nanoTime();
+        if (!store.scheduledFlush()) {
+            return false;
+        }
+        long elapsed = System.nanoTime() - t0;
+        flushLatency.record(elapsed);
+        avgFlushNanos = avgFlushNanos == 0 ? elapsed : (long) (avgFlushNanos * (1 - EWMA_ALPHA) + elapsed * EWMA_ALPHA);
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store;
+
+import org.joyqueue.store.file.LogCompactor;
+import org.joyqueue.store.message.BatchMessageParser;
+import org.joyqueue.store.message.MessageParser;
+import org.joyqueue.toolkit.serialize.AbstractSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按消息键压缩Journal：同一分区内键相同的消息只保留最后一条，过了保留期的墓碑消息（消息体为空）也删除。
+ * 批消息和没有键的消息总是保留。
+ * <br>
+ * 扫描时最多记录maxKeys个不同的键，超出后新出现的键不再记录，这些键的消息本轮全部保留，
+ * 已记录的键仍然更新最后位置，只会少删、不会误删。
+ */
+class MessageKeyCompactor implements LogCompactor<ByteBuffer> {
+    static final int DEFAULT_MAX_KEYS = 1024 * 1024;
+
+    private final String keyProperty;
+    private final long tombstoneExpireTime;
+    private final int maxKeys;
+    private final Map<String, Long> latestPositions = new HashMap<>();
+
+    /**
+     * @param keyProperty         作为消息键的消息属性，为null时使用业务ID
+     * @param tombstoneExpireTime 存储时间早于这个时间的墓碑消息被删除
+     */
+    MessageKeyCompactor(String keyProperty, long tombstoneExpireTime) {
+        this(keyProperty, tombstoneExpireTime, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * @param keyProperty         作为消息键的消息属性，为null时使用业务ID
+     * @param tombstoneExpireTime 存储时间早于这个时间的墓碑消息被删除
+     * @param maxKeys             一轮压缩最多记录的键数量
+     */
+    MessageKeyCompactor(String keyProperty, long tombstoneExpireTime, int maxKeys) {
+        this.keyProperty = keyProperty;
+        this.tombstoneExpireTime = tombstoneExpireTime;
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public void scan(long position, ByteBuffer log) throws IOException {
+        String key = key(log);
+        if (null != key && (latestPositions.size() < maxKeys || latestPositions.containsKey(key))) {
+            latestPositions.put(key, position);
+        }
+    }
+
+    @Override
+    public boolean retain(long position, ByteBuffer log) throws IOException {
+        String key = key(log);
+        if (null == key) {
+            return true;
+        }
+        Long latest = latestPositions.get(key);
+        if (null != latest && latest != position) {
+            return false;
+        }
+        return MessageParser.getByteBuffer(log, MessageParser.BODY).hasRemaining()
+                || MessageParser.getLong(log, MessageParser.CLIENT_TIMESTAMP)
+                + MessageParser.getInt(log, MessageParser.STORAGE_TIMESTAMP) >= tombstoneExpireTime;
+    }
+
+    private String key(ByteBuffer log) throws IOException {
+        if (BatchMessageParser.isBatch(log)) {
+            return null;
+        }
+        String key;
+        if (null == keyProperty) {
+            byte[] bizId = MessageParser.getBytes(log, MessageParser.BIZ_ID);
+            key = null == bizId || bizId.length == 0 ? null : new String(bizId, StandardCharsets.UTF_8);
+        } else {
+            byte[] property = MessageParser.getBytes(log, MessageParser.PROPERTY);
+            Map<String, String> properties = null == property || property.length == 0 ? null :
+                    AbstractSerializer.toStringMap(new String(property, StandardCharsets.UTF_8));
+            key = null == properties ? null : properties.get(keyProperty);
+        }
+        return null == key || key.isEmpty() ? null : MessageParser.getShort(log, MessageParser.PARTITION) + ":" + key;
+    }
+}
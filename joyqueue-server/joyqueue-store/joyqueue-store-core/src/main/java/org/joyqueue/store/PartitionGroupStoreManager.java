@@ -24,12 +24,14 @@ import org.joyqueue.store.file.Checkpoint;
 import org.joyqueue.store.file.DiskFullException;
 import org.joyqueue.store.file.PositioningStore;
 import org.joyqueue.store.file.RollBackException;
+import org.joyqueue.store.file.ShutdownManifest;
 import org.joyqueue.store.file.StoreMessageSerializer;
 import org.joyqueue.store.index.IndexItem;
 import org.joyqueue.store.index.IndexSerializer;
 import org.joyqueue.store.message.BatchMessageParser;
 import org.joyqueue.store.message.MessageParser;
 import org.joyqueue.store.replication.ReplicableStore;
+import org.joyqueue.store.replication.Snapshot;
 import org.joyqueue.store.utils.PreloadBufferPool;
 import org.joyqueue.toolkit.concurrent.CasLock;
 import org.joyqueue.toolkit.concurrent.EventListener;
@@ -47,10 +49,17 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -62,7 +71,9 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -84,12 +95,19 @@ import java.util.stream.Stream;
  */
 public class PartitionGroupStoreManager extends Service implements ReplicableStore, Closeable {
     private static final Logger logger = LoggerFactory.getLogger(PartitionGroupStoreManager.class);
+    private static final int SKIP_COMPACTED_BATCH_SIZE = 1024;
+    // 生成和读取快照后暂停替换压缩文件的时长
+    private static final long SNAPSHOT_RECOMPACTION_PAUSE_MS = 10 * 60 * 1000L;
+    // 接收快照的临时目录前缀，位于分区组的主题目录下
+    static final String SNAPSHOT_STAGING_PREFIX = ".snapshot.";
+    // 接收完成、等待替换分区组目录的快照目录前缀
+    static final String SNAPSHOT_READY_PREFIX = ".snapshot-ready.";
     // 回调超时
     private static final long EVENT_TIMEOUT_MILLS = 60 * 1000L;
-    // Journal store
-    private final PositioningStore<ByteBuffer> store;
-    // Partition Group所在的目录
-    private final File base;
+    // Journal store，迁移目录时替换
+    private volatile PositioningStore<ByteBuffer> store;
+    // Partition Group所在的目录，迁移目录时替换
+    private volatile File base;
     // 主题
     private final String topic;
     // 分组
@@ -138,13 +156,36 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
     private static final long FLUSH_CHECKPOINT_INTERVAL_MS = 60 * 1000L; // 最频繁每1分钟更新一次CheckPoint
     private long lastFlushCheckpointTimestamp = 0L; // 上一次更新CheckPoint文件的时间。
     static final String CHECKPOINT_FILE= "checkpoint.json";
+    static final String SHUTDOWN_MANIFEST_FILE = "shutdown.json";
     private int lastEntryTerm = -1; // 最新一条消息的term
     private final CasLock flushLock = new CasLock(); // 刷盘锁，刷盘、回滚的时候需要持有这个锁。
+    // 磁盘刷盘调度器，为null时使用本分区组自己的刷盘线程
+    private volatile FlushScheduler flushScheduler;
+    // 是否已经向调度器登记了刷盘请求
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    // 脏数据过多时写入线程在这里等待刷盘
+    private final Lock flushWaitLock = new ReentrantLock();
+    private final Condition flushedCondition = flushWaitLock.newCondition();
+    private final AtomicInteger flushWaiters = new AtomicInteger(0);
     private final ReadWriteLock rollbackLock = new ReentrantReadWriteLock();
+    // 分层存储，未开启时为null
+    private final TieredStorage tieredStorage;
 
     public PartitionGroupStoreManager(String topic, int partitionGroup, File base, Config config,
                                       PreloadBufferPool bufferPool) {
+        this(topic, partitionGroup, base, config, bufferPool, null);
+    }
+
+    public PartitionGroupStoreManager(String topic, int partitionGroup, File base, Config config,
+                                      PreloadBufferPool bufferPool, FlushScheduler flushScheduler) {
+        this(topic, partitionGroup, base, config, bufferPool, flushScheduler, null);
+    }
+
+    public PartitionGroupStoreManager(String topic, int partitionGroup, File base, Config config,
+                                      PreloadBufferPool bufferPool, FlushScheduler flushScheduler, TieredStorage tieredStorage) {
         this.base = base;
+        this.flushScheduler = flushScheduler;
+        this.tieredStorage = tieredStorage;
         this.topic = topic;
         this.partitionGroup = partitionGroup;
         this.config = config;
@@ -155,7 +196,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         this.callbackMap.put(QosLevel.REPLICATION, new CallbackPositioningBelt());
         this.callbackMap.put(QosLevel.ALL, new CallbackPositioningBelt());
         StoreMessageSerializer storeMessageSerializer = new StoreMessageSerializer(config.maxMessageLength);
-        this.store = new PositioningStore<>(base, config.storeConfig, bufferPool, storeMessageSerializer);
+        this.store = new PositioningStore<>(base, config.storeConfig, bufferPool, storeMessageSerializer, tieredStorage);
         if (!base.isDirectory()) {
             throw new StoreInitializeException(String.format("Partition group directory: %s not available!", base.getAbsolutePath()));
         }
@@ -172,7 +213,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                     } catch (InterruptedException ignored) {}
                 })
                 .build();
-        this.flushLoopThread = LoopThread.builder()
+        this.flushLoopThread = null != flushScheduler ? null : LoopThread.builder()
                 .name(String.format("FlushThread-%s-%d", topic, partitionGroup))
                 .doWork(this::flush)
                 .sleepTime(config.flushIntervalMs, config.flushIntervalMs)
@@ -213,9 +254,26 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
      */
     public void recover() {
         try {
+            // 读取正常关闭时记录的存储状态，读取后即删除，本次运行中异常退出时不会被误用。
+            ShutdownManifest manifest = recoverShutdownManifest();
+
             // 恢复 Journal
             logger.info("Recovering message store {}...", base.getAbsolutePath());
-            store.recover();
+            if (null != manifest) {
+                // 存储文件与正常关闭时一致，直接使用记录的状态，不再校验末尾的数据和索引
+                if (store.recover(manifest.getRightPosition()) && store.left() == manifest.getLeftPosition()
+                        && recoverPartitions(manifest)) {
+                    indexPosition = manifest.getIndexPosition();
+                    replicationPosition = manifest.getReplicationPosition();
+                    lastEntryTerm = manifest.getLastEntryTerm();
+                    recoverIndices();
+                    logger.info("Store recovered from shutdown manifest: {}...", base.getAbsolutePath());
+                    return;
+                }
+                logger.warn("Shutdown manifest is stale, fall back to full recovery, store: {}.", base.getAbsolutePath());
+            } else {
+                store.recover();
+            }
 
             // 恢复检查点文件，如果检查点文件损坏或者不存在，返回null，不影响继续恢复存储。
             logger.info("Recovering Checkpoint {}...", base.getAbsolutePath());
@@ -282,6 +340,10 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
      */
     private void recoverIndices() throws IOException {
 
+        // 压缩过的Journal文件只在索引刷盘之后生成，其中的消息都已经有索引
+        if (indexPosition < store.compactedRight()) {
+            indexPosition = store.compactedRight();
+        }
         while (indexPosition < store.right()) {
             ByteBuffer byteBuffer = store.read(indexPosition);
             if (null == byteBuffer)
@@ -339,6 +401,12 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         }
     }
 
+    private void invalidateReadCache() {
+        for (Partition partition : partitionMap.values()) {
+            partition.invalidateReadCache();
+        }
+    }
+
     private void rollbackPartitions(long messagePosition) throws IOException {
         for (Partition partition : partitionMap.values()) {
             partition.rollbackTo(messagePosition);
@@ -373,6 +441,36 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         }
         return indexPosition;
     }
+    private ShutdownManifest recoverShutdownManifest() {
+        File manifestFile = new File(base, SHUTDOWN_MANIFEST_FILE);
+        if (!manifestFile.isFile()) {
+            logger.info("Shutdown manifest is NOT found, store {} was not stopped cleanly.", base.getAbsolutePath());
+            return null;
+        }
+        ShutdownManifest manifest = null;
+        try {
+            byte[] serializedData = new byte[(int) manifestFile.length()];
+            try (FileInputStream fis = new FileInputStream(manifestFile)) {
+                if (serializedData.length != fis.read(serializedData)) {
+                    throw new IOException("File length not match!");
+                }
+            }
+            manifest = JSON.parseObject(new String(serializedData, StandardCharsets.UTF_8), ShutdownManifest.class);
+            logger.info("Shutdown manifest recovered: {}.", manifest);
+        } catch (Throwable t) {
+            logger.warn("Recover shutdown manifest exception, continue recover...", t);
+        }
+        // 删除失败时不能使用，否则异常退出后的下一次恢复会误用这份记录
+        if (!manifestFile.delete()) {
+            logger.warn("Delete shutdown manifest {} failed!", manifestFile.getAbsolutePath());
+            return null;
+        }
+        if (null == manifest || manifest.getVersion() != ShutdownManifest.VERSION || null == manifest.getPartitions()) {
+            return null;
+        }
+        return manifest;
+    }
+
     private Checkpoint recoverCheckpoint() {
         try {
             File checkpointFile =  new File(base, CHECKPOINT_FILE);
@@ -452,7 +550,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
 
             File partitionBase = new File(indexBase, String.valueOf(partitionIndex));
             PositioningStore<IndexItem> indexStore =
-                    new PositioningStore<>(partitionBase, config.indexStoreConfig, bufferPool, new IndexSerializer());
+                    newIndexStore(partitionBase);
             // 恢复索引存储
             indexStore.recover();
 
@@ -479,7 +577,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
             indexStore.setRight(validPosition + IndexItem.STORAGE_SIZE);
 
 
-            partitionMap.put(partitionIndex, new Partition(indexStore));
+            partitionMap.put(partitionIndex, new Partition(indexStore, config.readCacheSize));
 
             if (indexStore.right() - indexStore.left() > 0) {
 
@@ -515,6 +613,41 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         return indexPosition;
     }
 
+    /**
+     * 按照正常关闭时记录的索引条数恢复每个分区的索引，不做校验。
+     * 分区列表或任意一个分区的索引长度与记录不一致时，关闭已经打开的索引并返回false。
+     *
+     * @param manifest 正常关闭时记录的存储状态
+     * @return 是否恢复成功
+     */
+    private boolean recoverPartitions(ShutdownManifest manifest) throws IOException {
+        File indexBase = new File(base, "index");
+        Short[] partitionIndices = indexBase.isDirectory() ? loadPartitionIndices(indexBase) : null;
+        if (null == partitionIndices || !manifest.getPartitions().keySet().equals(new HashSet<>(Arrays.asList(partitionIndices)))) {
+            return false;
+        }
+
+        boolean clean = true;
+        for (short partitionIndex : partitionIndices) {
+            File partitionBase = new File(indexBase, String.valueOf(partitionIndex));
+            PositioningStore<IndexItem> indexStore =
+                    newIndexStore(partitionBase);
+            partitionMap.put(partitionIndex, new Partition(indexStore, config.readCacheSize));
+            if (!indexStore.recover(manifest.getPartitions().get(partitionIndex) * IndexItem.STORAGE_SIZE)) {
+                clean = false;
+                break;
+            }
+        }
+
+        if (!clean) {
+            for (Partition partition : partitionMap.values()) {
+                partition.store.close();
+            }
+            partitionMap.clear();
+        }
+        return clean;
+    }
+
     /**
      * 根据上一条索引来验证这条索引的合法性
      * @param current 当前索引
@@ -546,7 +679,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
 
     private void verifyBatchMessage(IndexItem lastIndexItem, PositioningStore<IndexItem> indexStore, PositioningStore<ByteBuffer> store) throws IOException {
 
-        if (lastIndexItem.getOffset() < store.right()) {
+        if (lastIndexItem.getOffset() < store.right() && !store.isCompacted(lastIndexItem.getOffset())) {
             ByteBuffer msg = store.read(lastIndexItem.getOffset());
             if (BatchMessageParser.isBatch(msg)) {
                 short batchSize = BatchMessageParser.getBatchSize(msg);
@@ -577,9 +710,18 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         return partitionMap.keySet().toArray(new Short[0]);
     }
 
+    private PositioningStore<IndexItem> newIndexStore(File partitionBase) {
+        return new PositioningStore<>(partitionBase, config.indexStoreConfig, bufferPool, new IndexSerializer(), tieredStorage);
+    }
+
     private void removePartition(short partition) {
         Partition p = partitionMap.remove(partition);
         if (null != p) {
+            try {
+                p.store.deleteRemoteSegments();
+            } catch (IOException e) {
+                logger.warn("Delete remote segments of {} failed!", p.store.base().getAbsolutePath(), e);
+            }
             // 重命名目录
             File partitionBase = new File(base, "index" + File.separator + partition);
             if (!partitionBase.renameTo(new File(partitionBase.getParent(), partitionBase.getName() + ".d." + SystemClock.now()))) {
@@ -597,9 +739,9 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
             File partitionBase = new File(base, "index" + File.separator + partition);
             if (partitionBase.mkdirs()) {
                 PositioningStore<IndexItem> indexStore =
-                        new PositioningStore<>(partitionBase, config.indexStoreConfig, bufferPool, new IndexSerializer());
+                        newIndexStore(partitionBase);
                 indexStore.recover();
-                partitionMap.put(partition, new Partition(indexStore));
+                partitionMap.put(partition, new Partition(indexStore, config.readCacheSize));
             } else {
                 throw new IOException(String.format("Create directory: %s failed!", partitionBase.getAbsolutePath()));
             }
@@ -610,77 +752,211 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         long t0 = System.nanoTime();
         ReadResult readResult = new ReadResult();
         checkPartition(partition);
-        PositioningStore<IndexItem> indexStore = partitionMap.get(partition).store;
-        List<IndexItem> indexItemList = indexStore.batchRead(index * IndexItem.STORAGE_SIZE, count);
+        Partition p = partitionMap.get(partition);
+        PositioningStore<IndexItem> indexStore = p.store;
+        PartitionReadCache readCache = p.readCache;
+        long commitPosition = commitPosition();
+        long generation = null == readCache ? 0L : readCache.generation();
 
         long size = 0L;
-        readResult.setEop(indexItemList.size() < count);
+        long traffic = 0L;
+        boolean full = false;
         List<ByteBuffer> buffers = new ArrayList<>(count);
         IndexItem lastIndexItem = null;
-        for (int i = 0; i < indexItemList.size(); i++) {
-            IndexItem indexItem = indexItemList.get(i);
-            // 如果索引的offset和上一条相同，说明它们是同一批消息，直接跳过即可
-            if (null != lastIndexItem && indexItem.getOffset() == lastIndexItem.getOffset()) {
-                continue;
+
+        // 先从尾部缓存读取，遇到未命中再查索引
+        int cached = 0;
+        if (null != readCache) {
+            for (; cached < count; cached++) {
+                PartitionReadCache.Entry entry = readCache.get(index + cached);
+                if (null == entry || entry.getIndexItem().getOffset() >= commitPosition) {
+                    break;
+                }
+                IndexItem indexItem = entry.getIndexItem();
+                if (null != lastIndexItem && indexItem.getOffset() == lastIndexItem.getOffset()) {
+                    continue;
+                }
+                ByteBuffer log = entry.getMessage();
+                if (maxSize > 0 && (size += log.remaining()) >= maxSize) {
+                    full = true;
+                    break;
+                }
+                buffers.add(log);
+                traffic += log.remaining();
+                lastIndexItem = indexItem;
             }
-            if (indexItem.getOffset() >= commitPosition()) {
+        }
+
+        int readCount = cached;
+        long readIndex = index + cached;
+        long rightIndex = indexStore.right() / IndexItem.STORAGE_SIZE;
+        if (cached == 0 && store.compactedRight() > 0) {
+            // 跳过已经被压缩的消息，保证返回的第一条消息存在
+            long next = skipCompacted(indexStore, readIndex, rightIndex);
+            readCount += (int) (next - readIndex);
+            readIndex = next;
+        }
+        if (cached > 0 && readIndex >= rightIndex) {
+            // 缓存已经读到分区尾部
+            readResult.setEop(true);
+        } else if (!full && cached < count) {
+            List<IndexItem> indexItemList = indexStore.batchRead(readIndex * IndexItem.STORAGE_SIZE, count - cached);
+            readResult.setEop(indexItemList.size() < count - cached);
+
+            ByteBuffer lastLog = null;
+            for (int i = 0; i < indexItemList.size(); i++) {
+                IndexItem indexItem = indexItemList.get(i);
+                // 如果索引的offset和上一条相同，说明它们是同一批消息，直接跳过即可
+                if (null != lastIndexItem && indexItem.getOffset() == lastIndexItem.getOffset()) {
+                    if (null != readCache && null != lastLog && readCache.isHot(readIndex + i, rightIndex)) {
+                        readCache.put(generation, readIndex + i, indexItem, lastLog);
+                    }
+                    readCount++;
+                    continue;
+                }
+                if (indexItem.getOffset() >= commitPosition) {
+                    break;
+                }
+                if (store.isCompacted(indexItem.getOffset())) {
+                    readCount++;
+                    continue;
+                }
+                ByteBuffer log = readLog(partition, readIndex + i, indexItem);
+                if (maxSize > 0 && (size += log.remaining()) >= maxSize) {
+                    break;
+                }
+                buffers.add(log);
+                traffic += log.remaining();
+                if (null != readCache && readCache.isHot(readIndex + i, rightIndex)) {
+                    readCache.put(generation, readIndex + i, indexItem, log);
+                }
+                lastIndexItem = indexItem;
+                lastLog = log;
+                readCount++;
+            }
+        }
+
+        // 顺序读取到了尾部附近，预读后续已提交的消息，供下一次读取和其它追尾的应用使用
+        if (null != readCache && readCache.advance(index, index + readCount)
+                && config.readAheadSize > 0 && readCount == count) {
+            readAhead(partition, indexStore, readCache, generation, index + readCount, rightIndex, commitPosition);
+        }
+
+        readResult.setMessages(buffers.toArray(new ByteBuffer[0]));
+        readResult.setCode(JoyQueueCode.SUCCESS);
+        if (null != consumeMetric) {
+            consumeMetric.addCounter("ReadCount", buffers.size());
+            consumeMetric.addLatency("ReadLatency", System.nanoTime() - t0);
+            consumeMetric.addTraffic("ReadTraffic", traffic);
+        }
+
+        return readResult;
+    }
+
+    /**
+     * 从index开始跳过消息已经被压缩的索引
+     *
+     * @return 第一条消息未被压缩的索引，都被压缩时返回rightIndex
+     */
+    private long skipCompacted(PositioningStore<IndexItem> indexStore, long index, long rightIndex) throws IOException {
+        while (index < rightIndex) {
+            List<IndexItem> indexItemList = indexStore.batchRead(index * IndexItem.STORAGE_SIZE, SKIP_COMPACTED_BATCH_SIZE);
+            if (indexItemList.isEmpty()) {
                 break;
             }
+            for (IndexItem indexItem : indexItemList) {
+                if (!store.isCompacted(indexItem.getOffset())) {
+                    return index;
+                }
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 按索引读取一条消息，索引中的长度和消息不一致时按消息自身的长度重新读取
+     */
+    private ByteBuffer readLog(short partition, long index, IndexItem indexItem) throws IOException {
+        try {
+            ByteBuffer log;
             try {
-                ByteBuffer log;
-                try {
-                    log = store.read(indexItem.getOffset(), indexItem.getLength());
-                    if (MessageParser.getInt(log, MessageParser.LENGTH) != indexItem.getLength()) {
-                        logger.warn("索引中消息长度不正确！index: {} , offset: {}, message length (from index/from message): {}/{}, partition: {}, store: {}.",
-                                Format.formatWithComma(index + i),
-                                Format.formatWithComma(indexItem.getOffset()),
-                                indexItem.getLength(), MessageParser.getInt(log, MessageParser.LENGTH),
-                                partition,
-                                base.getAbsolutePath());
-                        log = store.read(indexItem.getOffset());
-                    }
-                } catch (Throwable t) {
-                    logger.warn("Exception on read, try to read without length! index: {} , offset: {}, message length: {}, partition: {}, store: {}.",
-                            Format.formatWithComma(index + i),
+                log = store.read(indexItem.getOffset(), indexItem.getLength());
+                if (MessageParser.getInt(log, MessageParser.LENGTH) != indexItem.getLength()) {
+                    logger.warn("索引中消息长度不正确！index: {} , offset: {}, message length (from index/from message): {}/{}, partition: {}, store: {}.",
+                            Format.formatWithComma(index),
                             Format.formatWithComma(indexItem.getOffset()),
-                            indexItem.getLength(),
+                            indexItem.getLength(), MessageParser.getInt(log, MessageParser.LENGTH),
                             partition,
-                            base.getAbsolutePath(),
-                            t);
+                            base.getAbsolutePath());
                     log = store.read(indexItem.getOffset());
                 }
-
-                if (null != log) {
-                    if (maxSize <= 0 || (size += log.remaining()) < maxSize) {
-                        buffers.add(log);
-                    } else {
-                        break;
-                    }
-                } else {
-                    throw new ReadException(String.format("Read log failed! store: %s, position: %d.", store.base().getAbsolutePath(), indexItem.getOffset()));
-                }
-                lastIndexItem = indexItem;
-
             } catch (Throwable t) {
-                logger.warn("Exception on read! index: {} , offset: {}, message length: {}, partition: {}, store: {}.",
-                        Format.formatWithComma(index + i),
+                logger.warn("Exception on read, try to read without length! index: {} , offset: {}, message length: {}, partition: {}, store: {}.",
+                        Format.formatWithComma(index),
                         Format.formatWithComma(indexItem.getOffset()),
                         indexItem.getLength(),
                         partition,
                         base.getAbsolutePath(),
                         t);
-                throw t;
+                log = store.read(indexItem.getOffset());
             }
+
+            if (null == log) {
+                throw new ReadException(String.format("Read log failed! store: %s, position: %d.", store.base().getAbsolutePath(), indexItem.getOffset()));
+            }
+            if (config.readVerifyChecksum && !MessageParser.checkCRC(log)) {
+                throw new ReadException(String.format("Message checksum mismatch! store: %s, position: %d.", store.base().getAbsolutePath(), indexItem.getOffset()));
+            }
+            return log;
+        } catch (Throwable t) {
+            logger.warn("Exception on read! index: {} , offset: {}, message length: {}, partition: {}, store: {}.",
+                    Format.formatWithComma(index),
+                    Format.formatWithComma(indexItem.getOffset()),
+                    indexItem.getLength(),
+                    partition,
+                    base.getAbsolutePath(),
+                    t);
+            throw t;
         }
-        readResult.setMessages(buffers.toArray(new ByteBuffer[0]));
-        readResult.setCode(JoyQueueCode.SUCCESS);
-        if (null != consumeMetric) {
-            consumeMetric.addCounter("ReadCount", buffers.size());
-            consumeMetric.addLatency("ReadLatency", System.nanoTime() - t0);
-            consumeMetric.addTraffic("ReadTraffic", buffers.stream().mapToInt(ByteBuffer::remaining).sum());
-        }
+    }
 
-        return readResult;
+    /**
+     * 预读尾部缓存范围内已提交的消息，预读失败不影响本次读取
+     */
+    private void readAhead(short partition, PositioningStore<IndexItem> indexStore, PartitionReadCache readCache,
+                           long generation, long index, long rightIndex, long commitPosition) {
+        if (!readCache.isHot(index, rightIndex)) {
+            return;
+        }
+        try {
+            int count = (int) Math.min(config.readAheadSize, rightIndex - index);
+            List<IndexItem> indexItemList = indexStore.batchRead(index * IndexItem.STORAGE_SIZE, count);
+            IndexItem lastIndexItem = null;
+            ByteBuffer lastLog = null;
+            for (int i = 0; i < indexItemList.size(); i++) {
+                IndexItem indexItem = indexItemList.get(i);
+                if (indexItem.getOffset() >= commitPosition) {
+                    break;
+                }
+                if (store.isCompacted(indexItem.getOffset())) {
+                    continue;
+                }
+                PartitionReadCache.Entry entry = readCache.get(index + i);
+                if (null != entry) {
+                    lastIndexItem = entry.getIndexItem();
+                    lastLog = entry.getMessage();
+                    continue;
+                }
+                if (null == lastIndexItem || indexItem.getOffset() != lastIndexItem.getOffset()) {
+                    lastLog = readLog(partition, index + i, indexItem);
+                    lastIndexItem = indexItem;
+                }
+                readCache.put(generation, index + i, indexItem, lastLog);
+            }
+        } catch (Throwable t) {
+            logger.debug("Read ahead failed, topic: {}, partitionGroup: {}, partition: {}, index: {}.", topic, partitionGroup, partition, index, t);
+        }
     }
 
     private void checkPartition(short partition) {
@@ -733,7 +1009,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                 writeIndex(indexItem, partition.store);
 
                 // 唤醒刷盘线程
-                flushLoopThread.wakeup();
+                requestFlush();
             }
         } catch (Throwable t) {
             onWriteException(start, partitionSnapshot , t);
@@ -839,15 +1115,113 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
      * 满足如下任一一个条件退出等待并返回：
      * 1. 一部分数据已经写入磁盘，脏数据大小小于config.maxDirtySize，返回false；
      * 2. 超时，返回true；
+     * 等待期间挂起在flushedCondition上，由刷盘完成后唤醒。
      * @return true：超时。false：脏数据大小小于config.maxDirtySize。
      */
     private boolean waitForFlush() {
+        if (!isDirtyFull()) {
+            return false;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.writeTimeoutMs);
+        // 先登记再检查，保证刷盘线程推进flushPosition后一定能看到等待者
+        flushWaiters.incrementAndGet();
+        try {
+            requestFlush();
+            flushWaitLock.lock();
+            try {
+                while (isDirtyFull()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return true;
+                    }
+                    flushedCondition.awaitNanos(remaining);
+                }
+                return false;
+            } finally {
+                flushWaitLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } finally {
+            flushWaiters.decrementAndGet();
+        }
+    }
+
+    private boolean isDirtyFull() {
+        return store.right() - store.flushPosition() >= config.maxDirtySize;
+    }
+
+    private void signalFlushWaiters() {
+        if (flushWaiters.get() > 0) {
+            flushWaitLock.lock();
+            try {
+                flushedCondition.signalAll();
+            } finally {
+                flushWaitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 请求刷盘，有调度器时向调度器登记，否则唤醒本分区组的刷盘线程
+     */
+    private void requestFlush() {
+        if (null == flushScheduler) {
+            flushLoopThread.wakeup();
+        } else if (flushRequested.compareAndSet(false, true)) {
+            flushScheduler.requestFlush(this);
+        }
+    }
 
-        long t0 = SystemClock.now();
-        while (store.right() - store.flushPosition() >= config.maxDirtySize && SystemClock.now() - t0 <= config.writeTimeoutMs) {
+    /**
+     * 调度器处理完一次刷盘请求后回调，仍有脏数据时重新登记
+     *
+     * @param flushed 本次是否有数据写入磁盘
+     */
+    void onFlushScheduled(boolean flushed) {
+        flushRequested.set(false);
+        if (flushed && isStarted() && store.right() > store.flushPosition()) {
+            requestFlush();
+        }
+    }
+
+    String getBasePath() {
+        return base.getPath();
+    }
+
+    File base() {
+        return base;
+    }
+
+    /**
+     * 由分层存储定期调用，上传Journal和索引中已封口的文件，删除已经上传并且超出热数据窗口的本地文件
+     *
+     * @param timestamp 最后一次写入早于这个时间的本地文件可以删除
+     * @throws IOException 发生IO异常时抛出
+     */
+    void tier(long timestamp) throws IOException {
+        tier(store, timestamp);
+        for (Partition partition : partitionMap.values()) {
+            tier(partition.store, timestamp);
+        }
+    }
+
+    private void tier(PositioningStore<?> positioningStore, long timestamp) throws IOException {
+        while (isStarted() && positioningStore.uploadSealedFile()) {
             Thread.yield();
         }
-        return SystemClock.now() - t0 > config.writeTimeoutMs;
+        positioningStore.dropUploadedFiles(timestamp);
+    }
+
+    /**
+     * 删除Journal和索引所有的远端分段，分区组被删除时调用
+     */
+    void deleteRemoteSegments() throws IOException {
+        store.deleteRemoteSegments();
+        for (Partition partition : partitionMap.values()) {
+            partition.store.deleteRemoteSegments();
+        }
     }
 
     private void handleCallback(WriteCommand writeCommand, long position, long[] indices) {
@@ -862,38 +1236,78 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
     }
 
     private void flush() {
+        boolean flushed;
+        do {
+            flushed = flushOnce();
+        } while (flushed && isStarted());
+    }
+
+    /**
+     * 执行一次Journal和索引刷盘
+     *
+     * @return 是否有数据写入了磁盘
+     */
+    boolean flushOnce() {
         if(flushLock.tryLock()) {
             try {
-                boolean flushed;
-                do {
-                    long t0 = System.nanoTime();
-                    long before = store.flushPosition();
-
-                    //执行Journal和Index刷盘操作，返回值标识是否有数据写入了磁盘
-                    flushed = store.flush() | flushIndices();
-
-                    // 记录Metric
-                    if (null != produceMetric && flushed) {
-                        long t1 = System.nanoTime();
-                        produceMetric.addTraffic("FlushTraffic", store.flushPosition() - before);
-                        produceMetric.addLatency("FlushLatency", t1 - t0);
-                        produceMetric.addCounter("FlushCount", 1);
-                    }
-
-                    // 执行回调
-                    if (flushed) {
-                        callbackMap.get(QosLevel.PERSISTENCE).callbackBefore(flushPosition());
-                    }
-
-                    // 定期更新CheckPoint
-                    flushCheckpointPeriodically();
-                } while (flushed && isStarted());
-            } catch (IOException e) {
-                logger.warn("Exception:", e);
+                return flushLocked();
             } finally {
                 flushLock.unlock();
             }
         }
+        return false;
+    }
+
+    /**
+     * 刷盘调度器执行一次刷盘，刷盘锁被占用时重新登记请求，处理完后仍有脏数据也重新登记
+     *
+     * @return 是否有数据写入了磁盘
+     */
+    boolean scheduledFlush() {
+        if(!flushLock.tryLock()) {
+            // 刷盘锁被回滚、压缩等操作占用，请求保持登记状态，下一批再刷
+            flushScheduler.requestFlush(this);
+            return false;
+        }
+        boolean flushed;
+        try {
+            flushed = flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+        onFlushScheduled(flushed);
+        return flushed;
+    }
+
+    private boolean flushLocked() {
+        try {
+            long t0 = System.nanoTime();
+            long before = store.flushPosition();
+
+            //执行Journal和Index刷盘操作，返回值标识是否有数据写入了磁盘
+            boolean flushed = store.flush() | flushIndices();
+
+            // 记录Metric
+            if (null != produceMetric && flushed) {
+                long t1 = System.nanoTime();
+                produceMetric.addTraffic("FlushTraffic", store.flushPosition() - before);
+                produceMetric.addLatency("FlushLatency", t1 - t0);
+                produceMetric.addCounter("FlushCount", 1);
+            }
+
+            // 执行回调
+            if (flushed) {
+                signalFlushWaiters();
+                callbackMap.get(QosLevel.PERSISTENCE).callbackBefore(flushPosition());
+            }
+
+            // 定期更新CheckPoint
+            flushCheckpointPeriodically();
+            return flushed;
+        } catch (IOException e) {
+            logger.warn("Exception:", e);
+        }
+        return false;
     }
 
     private boolean flushIndices() {
@@ -1057,7 +1471,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                 }
 
                 try {
-                    long storeMinMessagePosition = indexStore.read(indexStore.left()).getOffset();
+                    long storeMinMessagePosition = indexStore.read(indexStore.tieredLeft()).getOffset();
                     if (minMessagePosition < 0 || minMessagePosition > storeMinMessagePosition) {
                         minMessagePosition = storeMinMessagePosition;
                     }
@@ -1076,6 +1490,50 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         return deletedSize;
     }
 
+    /**
+     * 按消息键压缩已经提交并且写入索引的Journal文件，索引文件保持不变。
+     * 开启分层存储时不压缩。
+     *
+     * @param policy 压缩策略
+     * @return 释放的磁盘空间
+     * @throws IOException 发生IO异常时抛出
+     */
+    long compact(CompactionPolicy policy) throws IOException {
+        if (null != tieredStorage || !isStarted()) {
+            return 0L;
+        }
+        long now = SystemClock.now();
+        long bound;
+        flushLock.waitAndLock();
+        try {
+            // 先把索引刷盘，保证压缩范围内的消息在重启后不需要重建索引
+            flushIndices();
+            bound = Math.min(Math.min(commitPosition(), store.flushPosition()), indexPosition);
+        } finally {
+            flushLock.unlock();
+        }
+        // 扫描和重写不持有刷盘锁，替换文件时由store检查期间是否发生过回滚或删除
+        long saving = store.compact(bound, now - policy.getMinCompactionLagMs(),
+                new MessageKeyCompactor(policy.getKeyProperty(), now - policy.getTombstoneRetentionMs()));
+        if (saving > 0) {
+            logger.info("Journal compacted, topic: {}, group: {}, saving: {}, compacted right: {}, policy: {}.",
+                    topic, partitionGroup, Format.formatWithComma(saving), Format.formatWithComma(store.compactedRight()), policy);
+        }
+        return saving;
+    }
+
+    /**
+     * @return 分区中index处的消息是否已经被压缩
+     */
+    boolean isCompacted(short partition, long index) throws IOException {
+        PositioningStore<IndexItem> indexStore = indexStore(partition);
+        if (null == indexStore || store.compactedRight() <= 0L
+                || index * IndexItem.STORAGE_SIZE < indexStore.left() || index * IndexItem.STORAGE_SIZE >= indexStore.right()) {
+            return false;
+        }
+        return store.isCompacted(indexStore.read(index * IndexItem.STORAGE_SIZE).getOffset());
+    }
+
     /**
      * 最早消息是否早于制定时间
      *
@@ -1085,7 +1543,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
      *
      **/
     private boolean hasEarly(PositioningStore<IndexItem> indexStore, long time, long minPartitionIndex) throws IOException {
-        long left = indexStore.left();
+        long left = indexStore.tieredLeft();
 
         try {
             IndexItem item = indexStore.read(left);
@@ -1128,10 +1586,18 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
 
     @Override
     protected void doStart() throws Exception {
+        // 停止后未经恢复直接重新启动时，之前记录的关闭状态已经失效
+        File manifestFile = new File(base, SHUTDOWN_MANIFEST_FILE);
+        if (manifestFile.exists() && !manifestFile.delete()) {
+            throw new IOException(String.format("Delete shutdown manifest %s failed!", manifestFile.getAbsolutePath()));
+        }
         if (config.printMetricIntervalMs > 0) {
             metricThread.start();
         }
         startFlushThread();
+        if (null != tieredStorage) {
+            tieredStorage.register(this);
+        }
         if (enabled.get()) {
             startWriteThread();
         }
@@ -1139,7 +1605,11 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
 
 
     private void startFlushThread() {
-       flushLoopThread.start();
+        if (null == flushScheduler) {
+            flushLoopThread.start();
+        } else {
+            flushScheduler.register(this);
+        }
     }
 
 
@@ -1153,6 +1623,9 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         try {
 
             logSafe("Stopping store {}-{}...", topic, partitionGroup);
+            if (null != tieredStorage) {
+                tieredStorage.unregister(this);
+            }
             logSafe("Waiting for flush finished {}-{}...", topic, partitionGroup);
             try {
                 while (!isAllStoreClean()) {
@@ -1167,6 +1640,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
 
             stopFlushThread();
             flushCheckpoint();
+            flushShutdownManifest();
 
             if (config.printMetricIntervalMs > 0) {
                 logSafe("Stopping metric threads {}-{}...", topic, partitionGroup);
@@ -1197,7 +1671,11 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
 
 
     private void stopFlushThread() {
-        flushLoopThread.stop();
+        if (null == flushScheduler) {
+            flushLoopThread.stop();
+        } else {
+            flushScheduler.unregister(this);
+        }
     }
 
     private void stopWriteThread() {
@@ -1208,7 +1686,8 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         long index = -1;
         Partition p = partitionMap.get(partition);
         if (null != p) {
-            index = p.store.left() / IndexItem.STORAGE_SIZE;
+            // 本地已删除的索引可以从远端分段读取
+            index = p.store.tieredLeft() / IndexItem.STORAGE_SIZE;
         }
         return index;
     }
@@ -1289,6 +1768,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                 partition.store.setRight(0L);
             }
             store.clear(position);
+            invalidateReadCache();
         } finally {
             flushLock.unlock();
         }
@@ -1303,7 +1783,8 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                 indexPosition = position;
                 flushCheckpoint();
             }
-            boolean clearIndexStore = position <= leftPosition() || position > rightPosition();
+            // 回滚到压缩区间内时store也会清空
+            boolean clearIndexStore = position <= leftPosition() || position > rightPosition() || position < store.compactedRight();
 
             // 如果store整个删除干净了，需要把index也删干净
             // FIXME: 考虑这种情况：FOLLOWER被rollback后，所有文件都被删除了，但它有一个非零的writePosition，index是0，
@@ -1317,6 +1798,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
             }
 
             store.setRight(position);
+            invalidateReadCache();
 
             resetLastEntryTerm();
         } finally {
@@ -1343,6 +1825,31 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
     }
 
 
+    /**
+     * 所有数据都已经刷盘时，记录存储末尾的状态，下次启动时用于快速恢复
+     */
+    private void flushShutdownManifest() throws IOException {
+        if (!isAllStoreClean()) {
+            logger.warn("Store is not clean, skip writing shutdown manifest, store: {}.", base.getAbsolutePath());
+            return;
+        }
+        ShutdownManifest manifest = new ShutdownManifest(store.left(), store.right(), indexPosition, replicationPosition,
+                lastEntryTerm, partitionMap.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().store.right() / IndexItem.STORAGE_SIZE)));
+        byte [] serializedData = JSON.toJSONString(manifest,
+                SerializerFeature.PrettyFormat, SerializerFeature.DisableCircularReferenceDetect).getBytes(StandardCharsets.UTF_8);
+
+        // 先写临时文件再改名，避免留下不完整的记录
+        File tempFile = new File(base, SHUTDOWN_MANIFEST_FILE + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+            fos.write(serializedData);
+            fos.getChannel().force(true);
+        }
+        if (!tempFile.renameTo(new File(base, SHUTDOWN_MANIFEST_FILE))) {
+            throw new IOException(String.format("Rename %s failed!", tempFile.getAbsolutePath()));
+        }
+    }
+
     long flushPosition() {
         return store.flushPosition();
     }
@@ -1521,6 +2028,7 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
             } catch (Throwable ignored){}
             // 回滚commit log
             store.setRight(position);
+            invalidateReadCache();
         } finally {
             flushLock.unlock();
         }
@@ -1587,6 +2095,12 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         return store.left();
     }
 
+    @Override
+    public long entryLeftPosition() {
+        // 压缩过的文件不能按字节复制，只能通过快照复制
+        return Math.max(store.left(), store.compactedRight());
+    }
+
     public long rightPosition() {
         return store.right();
     }
@@ -1599,6 +2113,382 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         }
     }
 
+    /**
+     * 把分区组的文件迁移到另一个目录，迁移后仍然是同一个对象，选举和复制持有的引用继续有效。
+     * 先在正常服务的同时把已封口的文件复制到临时目录；然后停止写入和刷盘，补齐复制后变化的文件；
+     * 再把临时目录重命名为目标目录、原目录重命名为待删除目录，最后在新目录上恢复，用原来的写入和刷盘线程重新启动。
+     * 只有补齐文件和恢复的这段时间暂停服务，待删除目录由调用方删除。
+     * 两次重命名之间宕机时，原目录和目标目录的内容相同，启动时保留其中一个即可。
+     *
+     * @param target               目标目录，必须不存在
+     * @param staging              复制文件用的临时目录，与目标目录在同一个文件系统上
+     * @param trash                原目录重命名后的待删除目录，与原目录在同一个文件系统上
+     * @param targetFlushScheduler 目标目录所在磁盘的刷盘调度器
+     * @throws IOException 复制文件或者重命名失败时抛出，此时仍在原目录上提供服务；切换到新目录之后的失败抛出StoreInitializeException
+     */
+    synchronized void relocate(File target, File staging, File trash, FlushScheduler targetFlushScheduler) throws IOException {
+        relocate(target, staging, trash, copySealedFiles(staging), targetFlushScheduler);
+    }
+
+    /**
+     * 迁移的第一步，在正常服务的同时把已封口的文件复制到临时目录
+     *
+     * @param staging 复制文件用的临时目录
+     * @return 已复制的文件，用于切换时补齐变化的文件
+     */
+    Map<Path, FileStamp> copySealedFiles(File staging) throws IOException {
+        File source = base;
+        logger.info("Relocating store {} to {}...", source.getAbsolutePath(), staging.getAbsolutePath());
+        Map<Path, FileStamp> copied = new HashMap<>();
+        List<File> sealedFiles = new ArrayList<>();
+        sealedFiles.addAll(sealed(store.getFiles()));
+        for (Partition partition : partitionMap.values()) {
+            sealedFiles.addAll(sealed(partition.store.getFiles()));
+        }
+        for (File file : sealedFiles) {
+            copyFile(source, staging, file.toPath(), copied);
+        }
+        logger.info("{} sealed files copied to {}.", copied.size(), staging.getAbsolutePath());
+        return copied;
+    }
+
+    /**
+     * 迁移的第二步，停止服务，补齐变化的文件后切换到目标目录
+     *
+     * @param copied {@link #copySealedFiles(File)}已复制的文件
+     */
+    synchronized void relocate(File target, File staging, File trash, Map<Path, FileStamp> copied, FlushScheduler targetFlushScheduler) throws IOException {
+        File source = base;
+        logger.info("Switching store {} to {}, stopping store...", source.getAbsolutePath(), target.getAbsolutePath());
+        boolean wasStarted = isStarted();
+        if (wasStarted) {
+            stop();
+        }
+        try {
+            syncFiles(source, staging, copied);
+            Files.move(staging.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            try {
+                Files.move(source.toPath(), trash.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(target.toPath(), staging.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                throw e;
+            }
+        } catch (IOException e) {
+            if (wasStarted) {
+                try {
+                    start();
+                } catch (Exception ex) {
+                    logger.error("Restart store {} failed!", source.getAbsolutePath(), ex);
+                }
+            }
+            throw e;
+        }
+
+        close();
+        partitionMap.clear();
+        base = target;
+        flushScheduler = targetFlushScheduler;
+        store = new PositioningStore<>(target, config.storeConfig, bufferPool, new StoreMessageSerializer(config.maxMessageLength), tieredStorage);
+        recover();
+        if (wasStarted) {
+            try {
+                start();
+            } catch (Exception e) {
+                throw new StoreInitializeException(String.format("Start store %s failed!", target.getAbsolutePath()), e);
+            }
+        }
+        logger.info("Store relocated from {} to {}.", source.getAbsolutePath(), target.getAbsolutePath());
+    }
+
+    private List<File> sealed(List<File> files) {
+        return files.isEmpty() ? files : files.subList(0, files.size() - 1);
+    }
+
+    /**
+     * 补齐复制后新增或变化的文件，删除源目录中已经不存在的文件
+     */
+    private void syncFiles(File source, File target, Map<Path, FileStamp> copied) throws IOException {
+        Path sourcePath = source.toPath();
+        Path targetPath = target.toPath();
+        List<Path> sourceFiles;
+        try (Stream<Path> stream = Files.walk(sourcePath)) {
+            sourceFiles = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        Set<Path> relPaths = new HashSet<>();
+        for (Path file : sourceFiles) {
+            Path relPath = sourcePath.relativize(file);
+            relPaths.add(relPath);
+            FileStamp stamp = copied.get(relPath);
+            if (null == stamp || !stamp.equals(new FileStamp(file.toFile()))) {
+                copyFile(source, target, file, copied);
+            }
+        }
+        for (Path relPath : copied.keySet()) {
+            if (!relPaths.contains(relPath)) {
+                Files.deleteIfExists(targetPath.resolve(relPath));
+            }
+        }
+        // 空目录也要保留，比如还没有写入的分区索引目录
+        try (Stream<Path> stream = Files.walk(sourcePath)) {
+            for (Path dir : stream.filter(Files::isDirectory).collect(Collectors.toList())) {
+                Files.createDirectories(targetPath.resolve(sourcePath.relativize(dir)));
+            }
+        }
+    }
+
+    private void copyFile(File source, File target, Path file, Map<Path, FileStamp> copied) throws IOException {
+        Path relPath = source.toPath().relativize(file);
+        // 先记录文件状态再复制，复制期间的修改在补齐时会被发现
+        FileStamp stamp = new FileStamp(file.toFile());
+        Path targetFile = target.toPath().resolve(relPath);
+        Files.createDirectories(targetFile.getParent());
+        Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        copied.put(relPath, stamp);
+    }
+
+    static class FileStamp {
+        private final long length;
+        private final long lastModified;
+
+        FileStamp(File file) {
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FileStamp)) return false;
+            FileStamp that = (FileStamp) o;
+            return length == that.length && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(length) * 31 + Long.hashCode(lastModified);
+        }
+    }
+
+    @Override
+    public Snapshot snapshot() throws IOException {
+        // 快照只包含已提交、已建索引并且已刷盘的数据，这部分文件在LEADER上不会再变化
+        long bound = Math.min(Math.min(commitPosition(), indexPosition), store.flushPosition());
+        Path basePath = base.toPath();
+        List<Snapshot.Segment> segments = new ArrayList<>();
+        long left = -1L, right = -1L;
+        // 快照复制期间不替换压缩过的文件，压缩文件按原样复制
+        store.pauseRecompaction(SystemClock.now() + SNAPSHOT_RECOMPACTION_PAUSE_MS);
+        for (File file : sealed(store.getFiles())) {
+            boolean compacted = store.isCompactedFile(file);
+            if (!compacted && !file.getName().matches("\\d+")) {
+                continue;
+            }
+            long position = Long.parseLong(compacted ? file.getName().substring(0, file.getName().indexOf('.')) : file.getName());
+            long length = file.length();
+            // 已经卸载到远端的文件跳过
+            if (left < 0 && !file.exists()) {
+                continue;
+            }
+            long end = compacted ? position + store.fileDataSize(position) : position + length - store.fileHeaderSize();
+            if (!file.exists() || (right >= 0 && position != right) || end > bound) {
+                break;
+            }
+            if (left < 0) {
+                left = position;
+            }
+            right = end;
+            segments.add(new Snapshot.Segment(basePath.relativize(file.toPath()).toString(), length));
+        }
+        if (left < 0) {
+            return null;
+        }
+
+        for (Map.Entry<Short, Partition> entry : partitionMap.entrySet()) {
+            PositioningStore<IndexItem> indexStore = entry.getValue().store;
+            long indexRight = indexRightOf(indexStore, right);
+            // 快照范围内没有这个分区的消息，不复制索引，FOLLOWER从后续消息中的索引序号开始
+            if (indexRight <= indexStore.left() || indexStore.read(indexRight - IndexItem.STORAGE_SIZE).getOffset() < left) {
+                continue;
+            }
+            for (File file : indexStore.getFiles()) {
+                long position = Long.parseLong(file.getName());
+                if (position >= indexRight) {
+                    break;
+                }
+                long length = indexStore.fileHeaderSize() + Math.min(file.length() - indexStore.fileHeaderSize(), indexRight - position);
+                segments.add(new Snapshot.Segment(basePath.relativize(file.toPath()).toString(), length));
+            }
+        }
+        return new Snapshot(left, right, segments);
+    }
+
+    /**
+     * 二分查找第一条消息位置不小于position的索引，只在已刷盘的索引中查找
+     * @return 这条索引的位置，都小于position时返回已刷盘索引的末尾
+     */
+    private long indexRightOf(PositioningStore<IndexItem> indexStore, long position) throws IOException {
+        long flushed = Math.min(indexStore.flushPosition(), indexStore.right());
+        long low = indexStore.left() / IndexItem.STORAGE_SIZE, high = flushed / IndexItem.STORAGE_SIZE;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (indexStore.read(mid * IndexItem.STORAGE_SIZE).getOffset() < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low * IndexItem.STORAGE_SIZE;
+    }
+
+    @Override
+    public ByteBuffer readSnapshot(String path, long offset, int length) throws IOException {
+        store.pauseRecompaction(SystemClock.now() + SNAPSHOT_RECOMPACTION_PAUSE_MS);
+        File file = snapshotFile(base, path);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0L, Math.min(length, channel.size() - offset)));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    @Override
+    public void prepareSnapshot() throws IOException {
+        File staging = snapshotStagingBase();
+        deleteRecursively(staging.toPath());
+        Files.createDirectories(staging.toPath());
+        logger.info("Receiving snapshot into {}...", staging.getAbsolutePath());
+    }
+
+    @Override
+    public void writeSnapshot(String path, long offset, ByteBuffer data) throws IOException {
+        File staging = snapshotStagingBase();
+        // 快照已经安装或者还没有开始接收
+        if (!staging.isDirectory()) {
+            throw new IOException(String.format("Snapshot %s not prepared!", staging.getAbsolutePath()));
+        }
+        File file = snapshotFile(staging, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long position = offset;
+            while (data.hasRemaining()) {
+                position += channel.write(data, position);
+            }
+        }
+    }
+
+    /**
+     * 用接收完成的快照替换分区组的全部文件，与{@link #relocate(File, File, File, FlushScheduler)}一样在同一个对象上恢复，
+     * 选举和复制持有的引用继续有效。
+     */
+    @Override
+    public synchronized void installSnapshot(long right) throws IOException {
+        File staging = snapshotStagingBase();
+        if (!staging.isDirectory()) {
+            throw new IOException(String.format("Snapshot %s not prepared!", staging.getAbsolutePath()));
+        }
+        logger.info("Installing snapshot {} into {}, right: {}...", staging.getAbsolutePath(), base.getAbsolutePath(), Format.formatWithComma(right));
+        Path stagingIndex = staging.toPath().resolve("index");
+        Files.createDirectories(stagingIndex);
+        // 只保留本地存在的分区，没有索引文件的分区也要有目录
+        try (Stream<Path> stream = Files.list(stagingIndex)) {
+            for (Path dir : stream.collect(Collectors.toList())) {
+                if (!dir.getFileName().toString().matches("\\d+") || !partitionMap.containsKey(Short.parseShort(dir.getFileName().toString()))) {
+                    deleteRecursively(dir);
+                }
+            }
+        }
+        for (Short partition : partitionMap.keySet()) {
+            Files.createDirectories(stagingIndex.resolve(String.valueOf(partition)));
+        }
+
+        // 先改名为已就绪，宕机重启时据此判断快照是否完整
+        File ready = snapshotReadyBase();
+        deleteRecursively(ready.toPath());
+        Files.move(staging.toPath(), ready.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        File trash = new File(base.getParentFile().getParentFile(),
+                Store.DEL_PREFIX + SystemClock.now() + "." + base.getParentFile().getName() + "." + base.getName());
+
+        boolean wasStarted = isStarted();
+        if (wasStarted) {
+            stop();
+        }
+        close();
+        partitionMap.clear();
+        // 通过两次改名替换目录，任何时刻磁盘上都有一份完整的数据
+        try {
+            Files.move(base.toPath(), trash.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            try {
+                Files.move(ready.toPath(), base.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(trash.toPath(), base.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                throw e;
+            }
+        } catch (IOException e) {
+            // 恢复原来的数据
+            store = new PositioningStore<>(base, config.storeConfig, bufferPool, new StoreMessageSerializer(config.maxMessageLength), tieredStorage);
+            recover();
+            if (wasStarted) {
+                try {
+                    start();
+                } catch (Exception ex) {
+                    logger.error("Restart store {} failed!", base.getAbsolutePath(), ex);
+                }
+            }
+            deleteRecursively(ready.toPath());
+            throw e;
+        }
+        deleteRecursively(trash.toPath());
+
+        store = new PositioningStore<>(base, config.storeConfig, bufferPool, new StoreMessageSerializer(config.maxMessageLength), tieredStorage);
+        recover();
+        if (store.right() != right) {
+            // 位置不一致时由后续的日志复制比对并修正
+            logger.warn("Snapshot right mismatch, store: {}, expected: {}, actual: {}.", base.getAbsolutePath(),
+                    Format.formatWithComma(right), Format.formatWithComma(store.right()));
+        }
+        if (wasStarted) {
+            try {
+                start();
+            } catch (Exception e) {
+                throw new StoreInitializeException(String.format("Start store %s failed!", base.getAbsolutePath()), e);
+            }
+        }
+        logger.info("Snapshot installed, store: {}, left: {}, right: {}.", base.getAbsolutePath(),
+                Format.formatWithComma(store.left()), Format.formatWithComma(store.right()));
+    }
+
+    private File snapshotStagingBase() {
+        return new File(base.getParentFile(), SNAPSHOT_STAGING_PREFIX + base.getName());
+    }
+
+    private File snapshotReadyBase() {
+        return new File(base.getParentFile(), SNAPSHOT_READY_PREFIX + base.getName());
+    }
+
+    private File snapshotFile(File root, String path) throws IOException {
+        Path file = root.toPath().resolve(path).normalize();
+        if (!file.startsWith(root.toPath().normalize())) {
+            throw new IOException(String.format("Invalid snapshot file path: %s!", path));
+        }
+        return file.toFile();
+    }
+
+    private void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(path)) {
+            for (Path p : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(p);
+            }
+        }
+    }
+
     /**
      * 根据消息存储时间获取索引。
      * 如果找到，返回最后一条 “存储时间 <= timestamp” 消息的索引。
@@ -1628,6 +2518,10 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
                                      PositioningStore<IndexItem> indexStore,
                                      long index) throws IOException {
         IndexItem indexItem = indexStore.read(index * IndexItem.STORAGE_SIZE);
+        // 消息已经被压缩时使用之后第一条存在的消息的时间
+        while (journalStore.isCompacted(indexItem.getOffset()) && (index + 1) * IndexItem.STORAGE_SIZE < indexStore.right()) {
+            indexItem = indexStore.read(++index * IndexItem.STORAGE_SIZE);
+        }
         ByteBuffer journal = journalStore.read(indexItem.getOffset(), indexItem.getLength());
 
         return MessageParser.getLong(journal, MessageParser.CLIENT_TIMESTAMP) + MessageParser.getInt(journal, MessageParser.STORAGE_TIMESTAMP);
@@ -1699,10 +2593,19 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
 
     private static class Partition {
         private final PositioningStore<IndexItem> store;
+        // 尾部读缓存，未开启时为null
+        private final PartitionReadCache readCache;
 
 
-        private Partition(PositioningStore<IndexItem> store) {
+        private Partition(PositioningStore<IndexItem> store, int readCacheSize) {
             this.store = store;
+            this.readCache = readCacheSize > 0 ? new PartitionReadCache(readCacheSize) : null;
+        }
+
+        private void invalidateReadCache() {
+            if (null != readCache) {
+                readCache.invalidate();
+            }
         }
 
         private void rollbackTo(long messagePosition) throws IOException {
@@ -1745,6 +2648,9 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         public static final long DEFAULT_MAX_DIRTY_SIZE = 10L * 1024 * 1024;
         public static final long DEFAULT_PRINT_METRIC_INTERVAL_MS = 0L;
         public static final int DEFAULT_ENQUEUE_TIMEOUT = 100;
+        public static final int DEFAULT_READ_CACHE_SIZE = 0;
+        public static final int DEFAULT_READ_AHEAD_SIZE = 64;
+        public static final boolean DEFAULT_READ_VERIFY_CHECKSUM = false;
 
         /**
          * 允许脏数据的最大长度，超过这个长度就阻塞写入。
@@ -1781,6 +2687,21 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
          */
         private final int enqueueTimeout;
 
+        /**
+         * 每个分区尾部读缓存的消息条数，0为关闭
+         */
+        private final int readCacheSize;
+
+        /**
+         * 顺序读时预读的消息条数，0为关闭
+         */
+        private final int readAheadSize;
+
+        /**
+         * 未命中尾部读缓存的消息是否在读取时校验CRC
+         */
+        private final boolean readVerifyChecksum;
+
         private final PositioningStore.Config storeConfig;
         private final PositioningStore.Config indexStoreConfig;
 
@@ -1795,6 +2716,22 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
         public Config(int maxMessageLength, int writeRequestCacheSize, long flushIntervalMs,
                       long writeTimeoutMs, long maxDirtySize, long printMetricIntervalMs, int enqueueTimeout,
                       PositioningStore.Config storeConfig, PositioningStore.Config indexStoreConfig) {
+            this(maxMessageLength, writeRequestCacheSize, flushIntervalMs, writeTimeoutMs, maxDirtySize, printMetricIntervalMs, enqueueTimeout,
+                    DEFAULT_READ_CACHE_SIZE, DEFAULT_READ_AHEAD_SIZE, storeConfig, indexStoreConfig);
+        }
+
+        public Config(int maxMessageLength, int writeRequestCacheSize, long flushIntervalMs,
+                      long writeTimeoutMs, long maxDirtySize, long printMetricIntervalMs, int enqueueTimeout,
+                      int readCacheSize, int readAheadSize,
+                      PositioningStore.Config storeConfig, PositioningStore.Config indexStoreConfig) {
+            this(maxMessageLength, writeRequestCacheSize, flushIntervalMs, writeTimeoutMs, maxDirtySize, printMetricIntervalMs, enqueueTimeout,
+                    readCacheSize, readAheadSize, DEFAULT_READ_VERIFY_CHECKSUM, storeConfig, indexStoreConfig);
+        }
+
+        public Config(int maxMessageLength, int writeRequestCacheSize, long flushIntervalMs,
+                      long writeTimeoutMs, long maxDirtySize, long printMetricIntervalMs, int enqueueTimeout,
+                      int readCacheSize, int readAheadSize, boolean readVerifyChecksum,
+                      PositioningStore.Config storeConfig, PositioningStore.Config indexStoreConfig) {
             this.maxMessageLength = maxMessageLength;
             this.writeRequestCacheSize = writeRequestCacheSize;
             this.flushIntervalMs = flushIntervalMs;
@@ -1802,6 +2739,9 @@ public class PartitionGroupStoreManager extends Service implements ReplicableSto
             this.maxDirtySize = maxDirtySize;
             this.printMetricIntervalMs = printMetricIntervalMs;
             this.enqueueTimeout = enqueueTimeout;
+            this.readCacheSize = readCacheSize;
+            this.readAheadSize = readAheadSize;
+            this.readVerifyChecksum = readVerifyChecksum;
             this.storeConfig = storeConfig;
             this.indexStoreConfig = indexStoreConfig;
         }
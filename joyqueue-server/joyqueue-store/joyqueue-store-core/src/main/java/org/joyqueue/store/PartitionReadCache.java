@@ -0,0 +1,135 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store;
+
+import org.joyqueue.store.index.IndexItem;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 分区尾部已提交消息的读缓存
+ * <br>
+ * 按索引序号取模放入环形数组，只缓存距离分区尾部capacity条以内的消息，
+ * 追尾消费的多个应用可以直接命中，不再查索引和读Journal。
+ * 回滚时整体失效，失效与写入并发时由代数(generation)保证不会留下旧数据。
+ * 同时记录分区的读游标，连续两次读取首尾相接时认为是顺序读，用于触发预读。
+ */
+class PartitionReadCache {
+
+    // 超过该长度的消息不缓存，避免大消息占用过多内存
+    static final int MAX_CACHED_MESSAGE_LENGTH = 64 * 1024;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Entry> entries;
+    private final AtomicLong generation = new AtomicLong(0L);
+    // 最近一次读取结束后的下一个索引序号
+    private final AtomicLong cursor = new AtomicLong(-1L);
+
+    PartitionReadCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 1) - 1) << 1;
+        this.capacity = Math.max(size, 1);
+        this.mask = this.capacity - 1;
+        this.entries = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * 索引序号是否在缓存范围内
+     *
+     * @param index      索引序号
+     * @param rightIndex 分区最大索引序号(不含)
+     */
+    boolean isHot(long index, long rightIndex) {
+        return index >= rightIndex - capacity && index < rightIndex;
+    }
+
+    Entry get(long index) {
+        Entry entry = entries.get((int) (index & mask));
+        if (entry != null && entry.index == index) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * 放入缓存
+     *
+     * @param generation 读取开始时的代数，读取期间发生过失效则放弃
+     * @param index      索引序号
+     * @param indexItem  索引
+     * @param message    消息，批消息的每个索引序号对应同一条消息
+     */
+    void put(long generation, long index, IndexItem indexItem, ByteBuffer message) {
+        if (message.remaining() > MAX_CACHED_MESSAGE_LENGTH || generation != this.generation.get()) {
+            return;
+        }
+        int slot = (int) (index & mask);
+        Entry entry = new Entry(index, indexItem, message.duplicate());
+        entries.set(slot, entry);
+        if (generation != this.generation.get()) {
+            entries.compareAndSet(slot, entry, null);
+        }
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 更新读游标
+     *
+     * @param index     本次读取的起始索引序号
+     * @param nextIndex 本次读取结束后的下一个索引序号
+     * @return 是否顺序读
+     */
+    boolean advance(long index, long nextIndex) {
+        return cursor.getAndSet(nextIndex) == index;
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        for (int i = 0; i < capacity; i++) {
+            entries.set(i, null);
+        }
+        cursor.set(-1L);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    static class Entry {
+        private final long index;
+        private final IndexItem indexItem;
+        private final ByteBuffer message;
+
+        Entry(long index, IndexItem indexItem, ByteBuffer message) {
+            this.index = index;
+            this.indexItem = indexItem;
+            this.message = message;
+        }
+
+        IndexItem getIndexItem() {
+            return indexItem;
+        }
+
+        ByteBuffer getMessage() {
+            return message.duplicate();
+        }
+    }
+}
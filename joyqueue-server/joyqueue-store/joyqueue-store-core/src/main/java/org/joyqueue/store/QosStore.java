@@ -87,6 +87,11 @@ public class QosStore implements PartitionGroupStore {
         return store.clean(time, partitionAckMap, keepUnconsumed);
     }
 
+    @Override
+    public long compact(CompactionPolicy policy) throws IOException {
+        return store.compact(policy);
+    }
+
     /**
      * 根据消息存储时间获取索引。
      * 如果找到，返回最后一条 “存储时间 <= timestamp” 消息的索引。
@@ -121,7 +126,8 @@ public class QosStore implements PartitionGroupStore {
         ReadResult readResult = store.read(partition, index, count, maxSize);
 
         while (retry < 3 && readResult != null && ArrayUtils.isNotEmpty(readResult.getMessages())
-                && (readIndex = MessageParser.getLong(readResult.getMessages()[0], MessageParser.INDEX)) != index) {
+                && (readIndex = MessageParser.getLong(readResult.getMessages()[0], MessageParser.INDEX)) != index
+                && !store.isCompacted(partition, index)) {
 
             retry++;
             readResult = store.read(partition, index, count, maxSize);
@@ -16,13 +16,17 @@
 package org.joyqueue.store;
 
 import com.google.common.collect.Lists;
+import com.jd.laf.extension.ExtensionManager;
 import org.apache.commons.lang3.ArrayUtils;
 import org.joyqueue.domain.QosLevel;
 import org.joyqueue.monitor.BufferPoolMonitorInfo;
+import org.joyqueue.monitor.DiskMonitorInfo;
 import org.joyqueue.store.event.StoreEvent;
 import org.joyqueue.store.file.PositioningStore;
 import org.joyqueue.store.index.IndexItem;
 import org.joyqueue.store.replication.ReplicableStore;
+import org.joyqueue.store.tiered.RemoteSegmentCache;
+import org.joyqueue.store.tiered.RemoteSegmentStore;
 import org.joyqueue.store.transaction.TransactionStore;
 import org.joyqueue.store.transaction.TransactionStoreManager;
 import org.joyqueue.store.utils.FileUtils;
@@ -38,12 +42,18 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -52,10 +62,14 @@ import java.util.stream.Collectors;
  * <p>
  * root                            # 数据文件根目录
  * ├── lock                        # 进程锁目录，避免多进程同时操作导致数据损坏
+ * ├── tiered-cache                # 分层存储从远端下载的分段缓存
  * └── topics                      # 所有topic目录，子目录就是topic名称
  *     ├── coupon                  # topic coupon
  *     └── order                   # topic order
  *         └── 1                   # partition group 1
+ * <p>
+ * 配置了多个数据目录时，上面的root是主目录，其它数据目录下只有topics目录，
+ * 每个分区组只在其中一个数据目录下。
  */
 public class Store extends Service implements StoreService, Closeable, PropertySupplierAware {
 
@@ -63,14 +77,30 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
     // 所有topic目录，子目录就是topic名称
     private static final String TOPICS_DIR = "topics";
     private static final String TX_DIR = "tx";
-    private static final String DEL_PREFIX = ".d.";
+    static final String DEL_PREFIX = ".d.";
+    // 迁移分区组时复制文件用的临时目录前缀，位于目标分区组的主题目录下
+    private static final String MIGRATE_PREFIX = ".m.";
+    // 最频繁每1秒采样一次各数据目录的写入速度
+    private static final long WRITE_RATE_SAMPLE_INTERVAL_MS = 1000L;
 
     private final Map<String /* Partition Group，格式为：[topic]/[group index] */, PartitionGroupStoreManager> storeMap = new HashMap<>();
     private final Map<String  /* Partition Group，格式为：[topic]/[group index] */, RemovedPartitionGroupStoreManager> removedStoreMap = new HashMap<>();
     private final Map<String, TransactionStoreManager> txStoreMap = new HashMap<>();
+    private final Map<String /* 磁盘 */, FlushScheduler> flushSchedulers = new HashMap<>();
+    // 正在迁移的分区组
+    private final Set<String /* Partition Group */> migratingGroups = ConcurrentHashMap.newKeySet();
+    // 分层存储，未开启时为null
+    private TieredStorage tieredStorage;
     private StoreConfig config;
     private PreloadBufferPool bufferPool;
     private File base;
+    // 所有数据目录，第一个是主目录base
+    private final List<File> bases = new ArrayList<>();
+    // 各分区组上次采样时的写入位置
+    private final Map<String /* Partition Group */, Long> writeSamples = new HashMap<>();
+    // 各数据目录最近的写入速度，单位：字节/秒
+    private final Map<File /* 数据目录 */, Long> writeRates = new HashMap<>();
+    private long lastSampleTimestamp = 0L;
     private PropertySupplier propertySupplier;
     // 文件锁，防止同一Store目录被多个进程读写
     private StoreLock storeLock;
@@ -92,7 +122,17 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
         if (base == null) {
             base = new File(config.getPath());
         }
+        if (bases.isEmpty()) {
+            bases.add(base);
+            for (String path : config.getDataPaths()) {
+                File dataBase = new File(path);
+                if (!bases.contains(dataBase)) {
+                    bases.add(dataBase);
+                }
+            }
+        }
         checkOrCreateBase();
+        removeDuplicatedPartitionGroups();
         physicalDeleteRemoved();
         if (storeLock == null) {
             storeLock = new StoreLock(new File(base, "lock"));
@@ -134,16 +174,30 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
             p.stop();
         });
 
+        synchronized (flushSchedulers) {
+            flushSchedulers.values().forEach(FlushScheduler::stop);
+            flushSchedulers.clear();
+        }
+
+        synchronized (this) {
+            if (null != tieredStorage) {
+                tieredStorage.stop();
+                tieredStorage = null;
+            }
+        }
+
         storeLock.unlock();
 
         logger.info("Store {} stopped.", base.getPath());
     }
 
     public void checkOrCreateBase() {
-        if (!base.exists()) {
-            if (!base.mkdirs()) throw new StoreInitializeException(String.format("Failed to create directory: %s.", base.getAbsolutePath()));
-        } else {
-            if (!base.isDirectory()) throw new StoreInitializeException(String.format("Failed to create directory: %s! Cause: file exists!", base.getAbsolutePath()));
+        for (File dataBase : bases) {
+            if (!dataBase.exists()) {
+                if (!dataBase.mkdirs()) throw new StoreInitializeException(String.format("Failed to create directory: %s.", dataBase.getAbsolutePath()));
+            } else {
+                if (!dataBase.isDirectory()) throw new StoreInitializeException(String.format("Failed to create directory: %s! Cause: file exists!", dataBase.getAbsolutePath()));
+            }
         }
     }
 
@@ -153,32 +207,104 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
             logger.info("Stop me fist!");
             return false;
         } else {
-            logger.info("PHYSICAL DELETE {}...", base.getAbsolutePath());
-            deleteFolder(base);
+            for (File dataBase : bases) {
+                logger.info("PHYSICAL DELETE {}...", dataBase.getAbsolutePath());
+                deleteFolder(dataBase);
+            }
             return true;
         }
     }
 
+    /**
+     * 同一个分区组出现在多个数据目录中时只保留第一个，其余的重命名为待删除目录。
+     * 迁移在两次重命名之间宕机会留下内容相同的两个目录；同时删除迁移和接收快照留下的临时目录。
+     * 安装快照在两次重命名之间宕机时分区组目录不存在，用已就绪的快照目录补全。
+     */
+    private void removeDuplicatedPartitionGroups() {
+        Map<String, File> groupBases = new HashMap<>();
+        for (File dataBase : bases) {
+            File[] topicDirs = new File(dataBase, TOPICS_DIR).listFiles(file -> file.isDirectory() && !file.getName().startsWith(DEL_PREFIX));
+            if (ArrayUtils.isEmpty(topicDirs)) {
+                continue;
+            }
+            for (File topicDir : topicDirs) {
+                File[] stagingDirs = topicDir.listFiles(file -> file.isDirectory() &&
+                        (file.getName().startsWith(MIGRATE_PREFIX) || file.getName().startsWith(PartitionGroupStoreManager.SNAPSHOT_STAGING_PREFIX)));
+                if (null != stagingDirs) {
+                    for (File staging : stagingDirs) {
+                        deleteFolder(staging);
+                    }
+                }
+                File[] readyDirs = topicDir.listFiles(file -> file.isDirectory() && file.getName().startsWith(PartitionGroupStoreManager.SNAPSHOT_READY_PREFIX));
+                if (null != readyDirs) {
+                    for (File ready : readyDirs) {
+                        File groupDir = new File(topicDir, ready.getName().substring(PartitionGroupStoreManager.SNAPSHOT_READY_PREFIX.length()));
+                        if (groupDir.exists()) {
+                            deleteFolder(ready);
+                        } else {
+                            logger.warn("Complete interrupted snapshot installation, rename {} to {}.", ready.getAbsolutePath(), groupDir.getAbsolutePath());
+                            if (!ready.renameTo(groupDir)) {
+                                throw new StoreInitializeException(String.format("Rename snapshot %s failed!", ready.getAbsolutePath()));
+                            }
+                        }
+                    }
+                }
+                File[] groupDirs = topicDir.listFiles(file -> file.isDirectory() && file.getName().matches("\\d+"));
+                if (null == groupDirs) {
+                    continue;
+                }
+                for (File groupDir : groupDirs) {
+                    String key = topicDir.getName() + "/" + groupDir.getName();
+                    File existing = groupBases.putIfAbsent(key, groupDir);
+                    if (null != existing) {
+                        File renamed = new File(topicDir.getParentFile(), DEL_PREFIX + SystemClock.now() + "." + topicDir.getName() + "." + groupDir.getName());
+                        logger.warn("Partition group {} is duplicated in {}, keep {} and remove {}.", key,
+                                groupDir.getAbsolutePath(), existing.getAbsolutePath(), renamed.getAbsolutePath());
+                        if (!groupDir.renameTo(renamed)) {
+                            throw new StoreInitializeException(String.format("Rename duplicated partition group %s failed!", groupDir.getAbsolutePath()));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private void physicalDeleteRemoved() {
-        File[] removedGroups = new File(base, TOPICS_DIR).listFiles((dir, name) -> dir.isDirectory() && name.startsWith(DEL_PREFIX));
+        for (File dataBase : bases) {
+            File[] removedGroups = new File(dataBase, TOPICS_DIR).listFiles((dir, name) -> dir.isDirectory() && name.startsWith(DEL_PREFIX));
 
-        if (ArrayUtils.isEmpty(removedGroups)) {
-            return;
-        }
+            if (ArrayUtils.isEmpty(removedGroups)) {
+                continue;
+            }
 
-        for (File removed : removedGroups) {
-            deleteFolder(removed);
+            for (File removed : removedGroups) {
+                deleteFolder(removed);
+            }
         }
     }
 
     @Override
     public boolean partitionGroupExists(String topic, int partitionGroup) {
-        return new File(base, getPartitionGroupRelPath(topic, partitionGroup)).isDirectory();
+        return null != findPartitionGroupBase(topic, partitionGroup);
     }
 
     @Override
     public boolean topicExists(String topic) {
-        return new File(base, getTopicRelPath(topic)).isDirectory();
+        return bases.stream().anyMatch(dataBase -> new File(dataBase, getTopicRelPath(topic)).isDirectory());
+    }
+
+    /**
+     * 在各数据目录中查找分区组的目录
+     * @return 分区组的目录，不存在时返回null
+     */
+    private File findPartitionGroupBase(String topic, int partitionGroup) {
+        for (File dataBase : bases) {
+            File groupBase = new File(dataBase, getPartitionGroupRelPath(topic, partitionGroup));
+            if (groupBase.isDirectory()) {
+                return groupBase;
+            }
+        }
+        return null;
     }
 
     @Override
@@ -233,16 +359,22 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
         if (null != partitionGroupStoreManger) {
             partitionGroupStoreManger.stop();
             partitionGroupStoreManger.close();
+            try {
+                partitionGroupStoreManger.deleteRemoteSegments();
+            } catch (IOException e) {
+                logger.warn("Delete remote segments of {}/{} failed!", topic, partitionGroup, e);
+            }
         }
-        File groupBase = new File(base, getPartitionGroupRelPath(topic, partitionGroup));
-
-        if (groupBase.exists()) deletePartitionGroup(groupBase, topic, partitionGroup, partitionGroupStoreManger);
+        File groupBase = null != partitionGroupStoreManger ? partitionGroupStoreManger.base() : findPartitionGroupBase(topic, partitionGroup);
 
+        if (null != groupBase && groupBase.exists()) deletePartitionGroup(groupBase, topic, partitionGroup, partitionGroupStoreManger);
 
-        File topicBase = new File(base, getTopicRelPath(topic));
 
-        File[] files = topicBase.listFiles((dir, name) -> name.matches("\\d+"));
-        if (null == files || files.length == 0) {
+        boolean groupsLeft = bases.stream().anyMatch(dataBase -> {
+            File[] files = new File(dataBase, getTopicRelPath(topic)).listFiles((dir, name) -> name.matches("\\d+"));
+            return null != files && files.length > 0;
+        });
+        if (!groupsLeft) {
             synchronized (txStoreMap) {
                 if (txStoreMap.containsKey(topic)) {
                     TransactionStoreManager transactionStore = txStoreMap.remove(topic);
@@ -251,7 +383,12 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
                     }
                 }
             }
-            deleteFolder(topicBase);
+            for (File dataBase : bases) {
+                File topicBase = new File(dataBase, getTopicRelPath(topic));
+                if (topicBase.exists()) {
+                    deleteFolder(topicBase);
+                }
+            }
         }
 
     }
@@ -275,10 +412,15 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
 
         PartitionGroupStoreManager partitionGroupStoreManger = partitionGroupStore(topic, partitionGroup);
         if (null == partitionGroupStoreManger) {
-            File groupBase = new File(base, getPartitionGroupRelPath(topic, partitionGroup));
+            File groupBase = findPartitionGroupBase(topic, partitionGroup);
+            if (null == groupBase) {
+                groupBase = new File(base, getPartitionGroupRelPath(topic, partitionGroup));
+            }
             partitionGroupStoreManger = new PartitionGroupStoreManager(topic, partitionGroup, groupBase
                     , getPartitionGroupConfig(config)
-                    , bufferPool);
+                    , bufferPool
+                    , getFlushScheduler(groupBase)
+                    , getTieredStorage());
             partitionGroupStoreManger.recover();
             if (isStarted()) {
                 partitionGroupStoreManger.start();
@@ -291,8 +433,9 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
     @Override
     public synchronized void createPartitionGroup(String topic, int partitionGroup, short[] partitions) throws Exception {
         if (!storeMap.containsKey(topic + "/" + partitionGroup)) {
-            File groupBase = new File(base, getPartitionGroupRelPath(topic, partitionGroup));
-            if (groupBase.exists()) deletePartitionGroup(groupBase, topic, partitionGroup, null);
+            File groupBase = findPartitionGroupBase(topic, partitionGroup);
+            if (null != groupBase) deletePartitionGroup(groupBase, topic, partitionGroup, null);
+            groupBase = new File(selectBase(), getPartitionGroupRelPath(topic, partitionGroup));
             PartitionGroupStoreSupport.init(groupBase, partitions);
 
             restorePartitionGroup(topic, partitionGroup);
@@ -300,6 +443,276 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
     }
 
 
+    /**
+     * 获取分区组所在磁盘的刷盘调度器，同一块磁盘上的分区组共用一个
+     */
+    private FlushScheduler getFlushScheduler(File groupBase) throws Exception {
+        if (!config.isFlushSchedulerEnable()) {
+            return null;
+        }
+        String disk = diskOf(groupBase);
+        synchronized (flushSchedulers) {
+            FlushScheduler flushScheduler = flushSchedulers.get(disk);
+            if (null == flushScheduler) {
+                flushScheduler = new FlushScheduler(disk, config.getFlushLatencyBudgetMs(), config.getFlushIntervalMs(), config.getFlushReportIntervalMs());
+                flushScheduler.start();
+                flushSchedulers.put(disk, flushScheduler);
+            }
+            return flushScheduler;
+        }
+    }
+
+    /**
+     * 目录所在的磁盘
+     */
+    private String diskOf(File dir) {
+        try {
+            return Files.getFileStore(dir.toPath()).toString();
+        } catch (IOException e) {
+            logger.warn("Get file store of {} failed, use store base instead.", dir, e);
+            return base.getAbsolutePath();
+        }
+    }
+
+    /**
+     * 分区组所在的数据目录
+     */
+    private File baseOf(PartitionGroupStoreManager partitionGroupStoreManager) {
+        return baseOf(partitionGroupStoreManager.base());
+    }
+
+    /**
+     * 目录所在的数据目录
+     */
+    private File baseOf(File dir) {
+        Path path = dir.getAbsoluteFile().toPath();
+        for (File dataBase : bases) {
+            if (path.startsWith(dataBase.getAbsoluteFile().toPath())) {
+                return dataBase;
+            }
+        }
+        return base;
+    }
+
+    /**
+     * 分区组目录重命名后的待删除目录，位于分区组所在数据目录的topics目录下，启动时删除
+     */
+    private File trashOf(File groupBase, String topic, int partitionGroup) {
+        return new File(new File(baseOf(groupBase), TOPICS_DIR), DEL_PREFIX + SystemClock.now() +
+                "." + topic.replace('/', '@') + "." + partitionGroup);
+    }
+
+    /**
+     * 为新的分区组选择负载最低的数据目录：磁盘使用率与写入速度占比之和最小，磁盘已满的目录不参与选择。
+     */
+    private File selectBase() {
+        if (bases.size() == 1) {
+            return base;
+        }
+        sampleWriteRates();
+        long totalRate = writeRates.values().stream().mapToLong(Long::longValue).sum();
+        File selected = base;
+        double minLoad = Double.MAX_VALUE;
+        for (File dataBase : bases) {
+            long totalSpace = dataBase.getTotalSpace();
+            if (totalSpace <= 0) {
+                continue;
+            }
+            double usedRatio = (double) (totalSpace - dataBase.getUsableSpace()) / totalSpace;
+            if (usedRatio * 100 > config.getDiskFullRatio()) {
+                continue;
+            }
+            double load = usedRatio + (totalRate > 0 ? (double) writeRates.getOrDefault(dataBase, 0L) / totalRate : 0D);
+            if (load < minLoad) {
+                minLoad = load;
+                selected = dataBase;
+            }
+        }
+        logger.info("Data path {} selected, load: {}.", selected.getAbsolutePath(), minLoad);
+        return selected;
+    }
+
+    /**
+     * 根据各分区组写入位置的增量，计算各数据目录自上次采样以来的写入速度
+     */
+    private void sampleWriteRates() {
+        long now = SystemClock.now();
+        long interval = now - lastSampleTimestamp;
+        if (interval < WRITE_RATE_SAMPLE_INTERVAL_MS) {
+            return;
+        }
+        Map<File, Long> written = new HashMap<>();
+        for (Map.Entry<String, PartitionGroupStoreManager> entry : storeMap.entrySet()) {
+            long right = entry.getValue().rightPosition();
+            Long last = writeSamples.put(entry.getKey(), right);
+            if (null != last && right > last) {
+                written.merge(baseOf(entry.getValue()), right - last, Long::sum);
+            }
+        }
+        writeSamples.keySet().retainAll(storeMap.keySet());
+        for (File dataBase : bases) {
+            writeRates.put(dataBase, lastSampleTimestamp == 0L ? 0L : written.getOrDefault(dataBase, 0L) * 1000L / interval);
+        }
+        lastSampleTimestamp = now;
+    }
+
+    @Override
+    public synchronized List<DiskMonitorInfo> diskMonitorInfo() {
+        sampleWriteRates();
+        Map<File, List<PartitionGroupStoreManager>> groups = storeMap.values().stream().collect(Collectors.groupingBy(this::baseOf));
+        List<DiskMonitorInfo> result = new ArrayList<>(bases.size());
+        for (File dataBase : bases) {
+            List<PartitionGroupStoreManager> stores = groups.getOrDefault(dataBase, Collections.emptyList());
+            DiskMonitorInfo diskMonitorInfo = new DiskMonitorInfo();
+            diskMonitorInfo.setPath(dataBase.getAbsolutePath());
+            diskMonitorInfo.setTotalSpaceBytes(dataBase.getTotalSpace());
+            diskMonitorInfo.setUsableSpaceBytes(dataBase.getUsableSpace());
+            diskMonitorInfo.setPartitionGroups(stores.size());
+            diskMonitorInfo.setStoreSizeBytes(stores.stream()
+                    .mapToLong(p -> p.getQosStore(QosLevel.REPLICATION).getTotalPhysicalStorageSize()).sum());
+            diskMonitorInfo.setWriteBytesPerSecond(writeRates.getOrDefault(dataBase, 0L));
+            result.add(diskMonitorInfo);
+        }
+        return result;
+    }
+
+    /**
+     * 把分区组迁移到另一个数据目录。
+     * 分区组在复制文件期间正常服务，只在补齐最后变化的文件并重新恢复时暂停读写。
+     * 文件先复制到临时目录，完成后重命名为目标目录，原目录先重命名为待删除目录再删除。
+     * 复制文件时不持有Store的锁，只在检查和切换目录时加锁，不阻塞其它分区组的创建和删除。
+     */
+    @Override
+    public void migratePartitionGroup(String topic, int partitionGroup, String path) throws IOException {
+        String key = topic + "/" + partitionGroup;
+        if (!migratingGroups.add(key)) {
+            throw new IllegalStateException(String.format("Partition group %s is migrating!", key));
+        }
+        try {
+            File targetBase;
+            File source;
+            File target;
+            File staging;
+            PartitionGroupStoreManager partitionGroupStoreManager;
+            synchronized (this) {
+                targetBase = null;
+                for (File dataBase : bases) {
+                    if (dataBase.getAbsoluteFile().equals(new File(path).getAbsoluteFile())) {
+                        targetBase = dataBase;
+                    }
+                }
+                if (null == targetBase) {
+                    throw new IllegalArgumentException(String.format("%s is not a data path of the store!", path));
+                }
+                partitionGroupStoreManager = partitionGroupStore(topic, partitionGroup);
+                if (null == partitionGroupStoreManager) {
+                    throw new NoSuchPartitionGroupException();
+                }
+                if (baseOf(partitionGroupStoreManager).equals(targetBase)) {
+                    return;
+                }
+                source = partitionGroupStoreManager.base();
+                target = new File(targetBase, getPartitionGroupRelPath(topic, partitionGroup));
+                staging = new File(target.getParentFile(), MIGRATE_PREFIX + target.getName());
+                // 上次迁移失败留下的目录，分区组正在原目录上服务
+                if (target.exists()) {
+                    deleteFolder(target);
+                }
+                if (staging.exists()) {
+                    deleteFolder(staging);
+                }
+            }
+
+            Map<Path, PartitionGroupStoreManager.FileStamp> copied;
+            try {
+                copied = partitionGroupStoreManager.copySealedFiles(staging);
+            } catch (IOException e) {
+                logger.warn("Migrate {}/{} to {} failed!", topic, partitionGroup, targetBase.getAbsolutePath(), e);
+                deleteFolder(staging);
+                throw e;
+            }
+
+            File trash;
+            synchronized (this) {
+                // 复制期间分区组被删除或者重建
+                if (partitionGroupStore(topic, partitionGroup) != partitionGroupStoreManager) {
+                    deleteFolder(staging);
+                    throw new NoSuchPartitionGroupException();
+                }
+                trash = trashOf(source, topic, partitionGroup);
+                FlushScheduler flushScheduler;
+                try {
+                    flushScheduler = getFlushScheduler(targetBase);
+                } catch (Exception e) {
+                    deleteFolder(staging);
+                    throw new IOException(e);
+                }
+                try {
+                    partitionGroupStoreManager.relocate(target, staging, trash, copied, flushScheduler);
+                } catch (IOException e) {
+                    logger.warn("Migrate {}/{} to {} failed!", topic, partitionGroup, targetBase.getAbsolutePath(), e);
+                    deleteFolder(staging);
+                    throw e;
+                }
+            }
+            deleteFolder(trash);
+            logger.info("Partition group {}/{} migrated from {} to {}.", topic, partitionGroup,
+                    source.getAbsolutePath(), target.getAbsolutePath());
+        } finally {
+            migratingGroups.remove(key);
+        }
+    }
+
+    /**
+     * 获取分层存储，第一次使用时创建
+     */
+    private synchronized TieredStorage getTieredStorage() throws Exception {
+        if (!config.isTieredEnable()) {
+            return null;
+        }
+        if (null == tieredStorage) {
+            RemoteSegmentStore remoteStore = ExtensionManager.getOrLoadExtension(RemoteSegmentStore.class, config.getTieredRemoteType());
+            if (null == remoteStore) {
+                throw new StoreInitializeException(String.format("Remote segment store: %s not found!", config.getTieredRemoteType()));
+            }
+            if (remoteStore instanceof PropertySupplierAware) {
+                ((PropertySupplierAware) remoteStore).setSupplier(propertySupplier);
+            }
+            RemoteSegmentCache cache = new RemoteSegmentCache(new File(base, StoreConfig.TIERED_CACHE_PATH), config.getTieredCacheSize());
+            tieredStorage = new TieredStorage(getTieredNodeId(), new ArrayList<>(bases), remoteStore, cache, config.getTieredHotWindowMs(), config.getTieredUploadIntervalMs());
+            tieredStorage.start();
+        }
+        return tieredStorage;
+    }
+
+    /**
+     * 远端分段key的节点ID，未配置时使用数据目录下持久化的随机ID，保证共享远端存储的各副本key不冲突
+     */
+    private String getTieredNodeId() throws IOException {
+        String nodeId = config.getTieredNodeId();
+        if (null != nodeId && !nodeId.isEmpty()) {
+            return nodeId;
+        }
+        File file = new File(base, StoreConfig.TIERED_NODE_ID_FILE);
+        if (file.isFile()) {
+            nodeId = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+        }
+        if (null == nodeId || nodeId.isEmpty()) {
+            nodeId = UUID.randomUUID().toString().replace("-", "");
+            Files.write(file.toPath(), nodeId.getBytes(StandardCharsets.UTF_8));
+        }
+        return nodeId;
+    }
+
+    /**
+     * 各磁盘刷盘调度器，key为磁盘
+     */
+    public Map<String, FlushScheduler> getFlushSchedulers() {
+        synchronized (flushSchedulers) {
+            return new HashMap<>(flushSchedulers);
+        }
+    }
+
     private PartitionGroupStoreManager.Config getPartitionGroupConfig(StoreConfig config) {
 
         PositioningStore.Config messageConfig = getMessageStoreConfig(config);
@@ -307,7 +720,8 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
         return new PartitionGroupStoreManager.Config(
                 config.getMaxMessageLength(), config.getWriteRequestCacheSize(), config.getFlushIntervalMs(),
                 config.getWriteTimeoutMs(), config.getMaxDirtySize(),
-                config.getPrintMetricIntervalMs(), config.getEnqueueTimeout(), messageConfig, indexConfig);
+                config.getPrintMetricIntervalMs(), config.getEnqueueTimeout(),
+                config.getReadCacheSize(), config.getReadAheadSize(), config.isReadVerifyChecksum(), messageConfig, indexConfig);
     }
 
     private PositioningStore.Config getIndexStoreConfig(StoreConfig config) {
@@ -324,8 +738,8 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
      * 并不真正删除，只是重命名
      */
     private boolean deletePartitionGroup(File file, String topic, int partitionGroup, PartitionGroupStoreManager partitionGroupStoreManager) {
-        File renamed = new File(base, TOPICS_DIR + File.separator + DEL_PREFIX + SystemClock.now() +
-                "." + topic.replace('/', '@') + "." + partitionGroup);
+        // 在分区组所在的数据目录中重命名：[data path]/topics/[topic]/[group] -> [data path]/topics/.d.xxx
+        File renamed = trashOf(file, topic, partitionGroup);
         boolean renameResult = file.renameTo(renamed);
 
         if (partitionGroupStoreManager != null) {
@@ -420,6 +834,22 @@ public class Store extends Service implements StoreService, Closeable, PropertyS
         return base;
     }
 
+    /**
+     * 每块磁盘上取一个数据目录，用于统计磁盘空间
+     */
+    List<File> diskBases() {
+        Map<String, File> disks = new HashMap<>();
+        for (File dataBase : bases) {
+            disks.putIfAbsent(diskOf(dataBase), dataBase);
+        }
+        return new ArrayList<>(disks.values());
+    }
+
+    @Override
+    public int getDiskCount() {
+        return bases.isEmpty() ? 1 : diskBases().size();
+    }
+
 
     @Override
     public void close() throws IOException {
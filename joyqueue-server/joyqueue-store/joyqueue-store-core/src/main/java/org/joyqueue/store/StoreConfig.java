@@ -19,6 +19,11 @@ import org.joyqueue.store.file.PositioningStore;
 import org.joyqueue.toolkit.config.Property;
 import org.joyqueue.toolkit.config.PropertySupplier;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * 存储配置
  * 总磁盘大小 = PartitionGroup 数量 * partitionGroupMaxStoreSize
@@ -35,8 +40,19 @@ public class StoreConfig {
     public static final long DEFAULT_PRINT_METRIC_INTERVAL_MS = 0;
     public static final boolean DEFAULT_MESSAGE_FILE_LOAD_ON_READ = false;
     public static final boolean DEFAULT_INDEX_FILE_LOAD_ON_READ = false;
+    public static final boolean DEFAULT_READ_VERIFY_CHECKSUM = false;
     public static final boolean DEFAULT_FLUSH_FORCE = false;
     public static final int DEFAULT_ENQUEUE_TIMEOUT = 100;
+    public static final boolean DEFAULT_FLUSH_SCHEDULER_ENABLE = false;
+    public static final long DEFAULT_FLUSH_LATENCY_BUDGET_MS = 5L;
+    public static final long DEFAULT_FLUSH_REPORT_INTERVAL_MS = 60 * 1000L;
+    public static final boolean DEFAULT_TIERED_ENABLE = false;
+    public static final String DEFAULT_TIERED_REMOTE_TYPE = "local";
+    public static final long DEFAULT_TIERED_HOT_WINDOW_MS = 24 * 60 * 60 * 1000L;
+    public static final long DEFAULT_TIERED_UPLOAD_INTERVAL_MS = 10 * 1000L;
+    public static final long DEFAULT_TIERED_CACHE_SIZE = 2L * 1024 * 1024 * 1024;
+    public static final String TIERED_CACHE_PATH = "tiered-cache";
+    public static final String TIERED_NODE_ID_FILE = "tiered.node";
 
     public static final String STORE_PATH = "/store";
     /**
@@ -92,6 +108,10 @@ public class StoreConfig {
 
     private int diskFullRatio = PositioningStore.Config.DEFAULT_DISK_FULL_RATIO;
 
+    private int readCacheSize = PartitionGroupStoreManager.Config.DEFAULT_READ_CACHE_SIZE;
+
+    private int readAheadSize = PartitionGroupStoreManager.Config.DEFAULT_READ_AHEAD_SIZE;
+
 
     private PropertySupplier propertySupplier;
 
@@ -122,6 +142,17 @@ public class StoreConfig {
         }
     }
 
+    /**
+     * 除主目录外的其它数据目录
+     */
+    public List<String> getDataPaths() {
+        String paths = PropertySupplier.getValue(propertySupplier, StoreConfigKey.DATA_PATHS, "");
+        if (paths == null || paths.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(paths.split(",")).map(String::trim).filter(path -> !path.isEmpty()).collect(Collectors.toList());
+    }
+
     public int getMessageFileSize() {
         return PropertySupplier.getValue(propertySupplier, StoreConfigKey.MESSAGE_FILE_SIZE, this.messageFileSize);
     }
@@ -228,6 +259,62 @@ public class StoreConfig {
         this.diskFullRatio = diskFullRatio;
     }
 
+    public int getReadCacheSize() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.READ_CACHE_SIZE, this.readCacheSize);
+    }
+
+    public void setReadCacheSize(int readCacheSize) {
+        this.readCacheSize = readCacheSize;
+    }
+
+    public int getReadAheadSize() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.READ_AHEAD_SIZE, this.readAheadSize);
+    }
+
+    public void setReadAheadSize(int readAheadSize) {
+        this.readAheadSize = readAheadSize;
+    }
+
+    public boolean isReadVerifyChecksum() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.READ_VERIFY_CHECKSUM, DEFAULT_READ_VERIFY_CHECKSUM);
+    }
+
+    public boolean isFlushSchedulerEnable() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.FLUSH_SCHEDULER_ENABLE, DEFAULT_FLUSH_SCHEDULER_ENABLE);
+    }
+
+    public long getFlushLatencyBudgetMs() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.FLUSH_LATENCY_BUDGET_MS, DEFAULT_FLUSH_LATENCY_BUDGET_MS);
+    }
+
+    public long getFlushReportIntervalMs() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.FLUSH_REPORT_INTERVAL_MS, DEFAULT_FLUSH_REPORT_INTERVAL_MS);
+    }
+
+    public boolean isTieredEnable() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.TIERED_ENABLE, DEFAULT_TIERED_ENABLE);
+    }
+
+    public String getTieredRemoteType() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.TIERED_REMOTE_TYPE, DEFAULT_TIERED_REMOTE_TYPE);
+    }
+
+    public long getTieredHotWindowMs() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.TIERED_HOT_WINDOW_MS, DEFAULT_TIERED_HOT_WINDOW_MS);
+    }
+
+    public long getTieredUploadIntervalMs() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.TIERED_UPLOAD_INTERVAL_MS, DEFAULT_TIERED_UPLOAD_INTERVAL_MS);
+    }
+
+    public long getTieredCacheSize() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.TIERED_CACHE_SIZE, DEFAULT_TIERED_CACHE_SIZE);
+    }
+
+    public String getTieredNodeId() {
+        return PropertySupplier.getValue(propertySupplier, StoreConfigKey.TIERED_NODE_ID, "");
+    }
+
     public boolean isMessageFileLoadOnRead() {
         return PropertySupplier.getValue(propertySupplier, StoreConfigKey.MESSAGE_FILE_LOAD_ON_READ, DEFAULT_MESSAGE_FILE_LOAD_ON_READ);
     }
@@ -21,6 +21,8 @@ import org.joyqueue.toolkit.config.PropertyDef;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_FLUSH_INTERVAL_MS;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_MAX_DIRTY_SIZE;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_MAX_MESSAGE_LENGTH;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_READ_AHEAD_SIZE;
+import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_READ_CACHE_SIZE;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_WRITE_REQUEST_CACHE_SIZE;
 import static org.joyqueue.store.PartitionGroupStoreManager.Config.DEFAULT_WRITE_TIMEOUT_MS;
 import static org.joyqueue.store.file.PositioningStore.Config.DEFAULT_FILE_HEADER_SIZE;
@@ -79,6 +81,20 @@ public enum StoreConfigKey implements PropertyDef {
      * 是否强制刷盘
      */
     FLUSH_FORCE("store.flush.force", StoreConfig.DEFAULT_FLUSH_FORCE, Type.BOOLEAN),
+    /**
+     * 是否由每块磁盘的刷盘调度器统一刷盘，关闭时每个分区组使用自己的刷盘线程。
+     * 开启后合并同一块磁盘上的刷盘请求，减少刷盘次数，但每次写入的刷盘延迟最多增加一个刷盘延迟预算，
+     * 默认关闭，分区组多、磁盘IOPS紧张时再开启
+     */
+    FLUSH_SCHEDULER_ENABLE("store.flush.scheduler.enable", StoreConfig.DEFAULT_FLUSH_SCHEDULER_ENABLE, Type.BOOLEAN),
+    /**
+     * 刷盘延迟预算(ms)，扣除平均刷盘耗时后剩余的时间用于合并刷盘请求，即刷盘调度器为合并请求增加的最大延迟
+     */
+    FLUSH_LATENCY_BUDGET_MS("store.flush.latency.budget", StoreConfig.DEFAULT_FLUSH_LATENCY_BUDGET_MS, Type.LONG),
+    /**
+     * 刷盘耗时直方图的打印间隔(ms)，0为不打印
+     */
+    FLUSH_REPORT_INTERVAL_MS("store.flush.report.interval", StoreConfig.DEFAULT_FLUSH_REPORT_INTERVAL_MS, Type.LONG),
     /**
      * 文件头长度
      */
@@ -89,6 +105,54 @@ public enum StoreConfigKey implements PropertyDef {
     DISK_FULL_RATIO("store.disk.full.ratio", PositioningStore.Config.DEFAULT_DISK_FULL_RATIO, Type.INT),
 
     ENQUEUE_TIMEOUT("store.enqueue.timeout", StoreConfig.DEFAULT_ENQUEUE_TIMEOUT, Type.INT),
+    /**
+     * 每个分区尾部读缓存的消息条数，0为关闭，默认关闭。
+     * 每条缓存的消息最大64KB，每个分区最多占用 条数 * 64KB 的堆内存，开启时需要按分区数估算
+     */
+    READ_CACHE_SIZE("store.read.cache.size", DEFAULT_READ_CACHE_SIZE, Type.INT),
+    /**
+     * 顺序读时预读的消息条数，0为关闭
+     */
+    READ_AHEAD_SIZE("store.read.ahead.size", DEFAULT_READ_AHEAD_SIZE, Type.INT),
+    /**
+     * 未命中尾部读缓存的消息是否在读取时校验CRC
+     */
+    READ_VERIFY_CHECKSUM("store.read.verify.checksum", StoreConfig.DEFAULT_READ_VERIFY_CHECKSUM, Type.BOOLEAN),
+
+    /**
+     * 除主目录外的其它数据目录，多个目录用逗号分隔，一般每个目录对应一块磁盘。
+     * 新建的分区组放在负载最低的目录上。
+     */
+    DATA_PATHS("store.data.paths", "", Type.STRING),
+
+    /**
+     * 是否开启分层存储，把已封口的文件上传到远端
+     */
+    TIERED_ENABLE("store.tiered.enable", StoreConfig.DEFAULT_TIERED_ENABLE, Type.BOOLEAN),
+    /**
+     * 远端分段存储的类型
+     */
+    TIERED_REMOTE_TYPE("store.tiered.remote.type", StoreConfig.DEFAULT_TIERED_REMOTE_TYPE, Type.STRING),
+    /**
+     * 本地目录类型的远端分段存储路径
+     */
+    TIERED_LOCAL_PATH("store.tiered.local.path", "", Type.STRING),
+    /**
+     * 热数据窗口(ms)，已上传的文件最后一次写入超过这个时长后删除本地文件
+     */
+    TIERED_HOT_WINDOW_MS("store.tiered.hot.window", StoreConfig.DEFAULT_TIERED_HOT_WINDOW_MS, Type.LONG),
+    /**
+     * 上传已封口文件的时间间隔(ms)
+     */
+    TIERED_UPLOAD_INTERVAL_MS("store.tiered.upload.interval", StoreConfig.DEFAULT_TIERED_UPLOAD_INTERVAL_MS, Type.LONG),
+    /**
+     * 远端分段本地缓存的最大字节数
+     */
+    TIERED_CACHE_SIZE("store.tiered.cache.size", StoreConfig.DEFAULT_TIERED_CACHE_SIZE, Type.LONG),
+    /**
+     * 远端分段key的节点前缀，多个副本共享同一个远端存储时必须各不相同，为空时使用数据目录下持久化的随机ID
+     */
+    TIERED_NODE_ID("store.tiered.node.id", "", Type.STRING),
 
     PRINT_METRIC_INTERVAL_MS("print.metric.interval", StoreConfig.DEFAULT_PRINT_METRIC_INTERVAL_MS, Type.LONG);
 
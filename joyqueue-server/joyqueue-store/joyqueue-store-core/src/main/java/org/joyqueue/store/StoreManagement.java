@@ -148,15 +148,15 @@ public class StoreManagement implements StoreManagementService {
     }
 
     public long freeSpace() {
-        return store.base().getFreeSpace();
+        return store.diskBases().stream().mapToLong(File::getFreeSpace).sum();
     }
 
     public long totalSpace(){
-        return store.base().getTotalSpace();
+        return store.diskBases().stream().mapToLong(File::getTotalSpace).sum();
     }
 
     private long usableSpace(){
-        return store.base().getUsableSpace();
+        return store.diskBases().stream().mapToLong(File::getUsableSpace).sum();
     }
 
 
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store;
+
+import org.joyqueue.store.tiered.RemoteSegmentCache;
+import org.joyqueue.store.tiered.RemoteSegmentStore;
+import org.joyqueue.toolkit.concurrent.LoopThread;
+import org.joyqueue.toolkit.format.Format;
+import org.joyqueue.toolkit.service.Service;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分层存储
+ * <br>
+ * 后台线程定期把各分区组已封口、已刷盘的日志和索引文件上传到远端，
+ * 已上传并且超出热数据窗口的本地文件直接删除，之后的读取通过本地缓存下载远端分段。
+ * 本地磁盘只保留热数据窗口内的数据，复制和恢复也只涉及本地的这部分数据。
+ */
+public class TieredStorage extends Service {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredStorage.class);
+
+    private final String nodeId;
+    private final List<File> bases;
+    private final RemoteSegmentStore remoteStore;
+    private final RemoteSegmentCache cache;
+    private final long hotWindowMs;
+
+    private final Set<PartitionGroupStoreManager> stores = ConcurrentHashMap.newKeySet();
+    private final LoopThread uploadThread;
+
+    /**
+     * @param nodeId           节点ID，作为远端分段key的前缀，共享同一个远端存储的副本之间互不干扰
+     * @param bases            存储的各数据目录，远端分段的key是节点ID加上相对于所在数据目录的路径，分区组迁移目录后key不变
+     * @param remoteStore      远端分段存储
+     * @param cache            远端分段的本地缓存
+     * @param hotWindowMs      本地文件最后一次写入后保留的时长
+     * @param uploadIntervalMs 上传的时间间隔
+     */
+    public TieredStorage(String nodeId, List<File> bases, RemoteSegmentStore remoteStore, RemoteSegmentCache cache, long hotWindowMs, long uploadIntervalMs) {
+        this.nodeId = nodeId;
+        this.bases = bases;
+        this.remoteStore = remoteStore;
+        this.cache = cache;
+        this.hotWindowMs = hotWindowMs;
+        this.uploadThread = LoopThread.builder()
+                .name("TieredStorageUploadThread")
+                .doWork(this::upload)
+                .sleepTime(uploadIntervalMs, uploadIntervalMs)
+                .onException(e -> logger.warn("Upload Exception: ", e))
+                .build();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        remoteStore.start();
+        uploadThread.start();
+        logger.info("Tiered storage started, hot window: {}ms.", Format.formatWithComma(hotWindowMs));
+    }
+
+    @Override
+    protected void doStop() {
+        uploadThread.stop();
+        remoteStore.stop();
+        cache.clear();
+        logger.info("Tiered storage stopped.");
+    }
+
+    void register(PartitionGroupStoreManager store) {
+        stores.add(store);
+    }
+
+    void unregister(PartitionGroupStoreManager store) {
+        stores.remove(store);
+    }
+
+    /**
+     * 存储目录对应的远端分段key
+     */
+    public String key(File dir) {
+        Path path = dir.getAbsoluteFile().toPath();
+        Path base = bases.get(0).getAbsoluteFile().toPath();
+        for (File candidate : bases) {
+            if (path.startsWith(candidate.getAbsoluteFile().toPath())) {
+                base = candidate.getAbsoluteFile().toPath();
+                break;
+            }
+        }
+        return nodeId + "/" + base.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    public RemoteSegmentStore getRemoteStore() {
+        return remoteStore;
+    }
+
+    public RemoteSegmentCache getCache() {
+        return cache;
+    }
+
+    public long getHotWindowMs() {
+        return hotWindowMs;
+    }
+
+    private void upload() {
+        long timestamp = SystemClock.now() - hotWindowMs;
+        for (PartitionGroupStoreManager store : stores) {
+            if (!uploadThread.isStarted()) {
+                return;
+            }
+            try {
+                store.tier(timestamp);
+            } catch (Throwable t) {
+                logger.warn("Tier store {} failed!", store.getBasePath(), t);
+            }
+        }
+    }
+}
@@ -0,0 +1,412 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.file;
+
+import org.joyqueue.store.ReadException;
+import org.joyqueue.toolkit.time.SystemClock;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按Key压缩后的只读文件
+ * <br>
+ * 文件保持压缩前的起始位置和数据长度，只保存保留下来的日志，其余日志的位置不再可读。
+ * 位置表按顺序记录压缩前每条日志的相对位置，以及它在数据区中的位置，已删除的日志数据区位置为-1。
+ * 文件格式：文件头 | 数据区 | 位置表。
+ */
+class CompactedStoreFile<T> implements StoreFile<T> {
+    static final String SUFFIX = ".compacted";
+    // 文件头中实际使用的长度：时间戳(8) + MAGIC(4) + 压缩前数据长度(4) + 日志条数(4) + 数据区长度(4)
+    static final int HEADER_LENGTH = 24;
+    private static final int MAGIC = 0x434D5054;
+    private static final int ENTRY_SIZE = 8;
+
+    private final long filePosition;
+    private final File file;
+    private final int headerSize;
+    private final LogSerializer<T> serializer;
+    private final long timestamp;
+    private final int logicalLength;
+    private final int count;
+    private final int dataLength;
+    // 读取时加读锁，卸载时加写锁
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Table table = null;
+    private long lastAccessTime = SystemClock.now();
+
+    CompactedStoreFile(long filePosition, File file, int headerSize, LogSerializer<T> serializer) throws IOException {
+        this.filePosition = filePosition;
+        this.file = file;
+        this.headerSize = headerSize;
+        this.serializer = serializer;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel fileChannel = raf.getChannel()) {
+            readFully(fileChannel, header, 0L);
+        }
+        header.flip();
+        this.timestamp = header.getLong();
+        if (header.getInt() != MAGIC) {
+            throw new IOException(String.format("Invalid compacted store file: %s!", file.getAbsolutePath()));
+        }
+        this.logicalLength = header.getInt();
+        this.count = header.getInt();
+        this.dataLength = header.getInt();
+    }
+
+    @Override
+    public File file() {
+        return file;
+    }
+
+    @Override
+    public long position() {
+        return filePosition;
+    }
+
+    /**
+     * @param position 文件内的相对位置
+     * @return position处的日志是否已经被压缩删除，position不是日志的起始位置时同样返回true
+     */
+    boolean isRemoved(int position) throws IOException {
+        lock.readLock().lock();
+        try {
+            Table t = loadTable();
+            int i = Arrays.binarySearch(t.logPositions, position);
+            return i < 0 || t.dataPositions[i] < 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param position 文件内的相对位置
+     * @return 不小于position的第一条保留日志的相对位置，不存在时返回文件数据长度
+     */
+    int nextRetained(int position) throws IOException {
+        lock.readLock().lock();
+        try {
+            Table t = loadTable();
+            int i = Arrays.binarySearch(t.logPositions, position);
+            for (i = i < 0 ? -i - 1 : i; i < count; i++) {
+                if (t.dataPositions[i] >= 0) {
+                    return t.logPositions[i];
+                }
+            }
+            return logicalLength;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按顺序遍历文件中的所有日志，已删除的日志以null回调
+     */
+    void forEach(LogVisitor<T> visitor) throws IOException {
+        lock.readLock().lock();
+        try {
+            Table t = loadTable();
+            for (int i = 0; i < count; i++) {
+                visitor.visit(t.logPositions[i], t.dataPositions[i] < 0 ? null : read(t, i));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取保留下来的日志，日志长度以文件中记录的为准，忽略length参数
+     */
+    @Override
+    public T read(int position, int length) throws IOException {
+        lock.readLock().lock();
+        try {
+            Table t = loadTable();
+            int i = Arrays.binarySearch(t.logPositions, position);
+            if (i < 0 || t.dataPositions[i] < 0) {
+                throw new ReadException(String.format("Log at relative position %d has been compacted, file: %s.",
+                        position, file.getAbsolutePath()));
+            }
+            return read(t, i);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private T read(Table t, int i) throws IOException {
+        lastAccessTime = SystemClock.now();
+        int length = (i + 1 < count ? t.logPositions[i + 1] : logicalLength) - t.logPositions[i];
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(t.fileChannel, buffer, headerSize + t.dataPositions[i]);
+        buffer.flip();
+        return serializer.read(buffer, length);
+    }
+
+    private synchronized Table loadTable() throws IOException {
+        if (null == table) {
+            table = new Table(file, headerSize + (long) dataLength, count);
+        }
+        return table;
+    }
+
+    @Override
+    public boolean unload() {
+        lock.writeLock().lock();
+        try {
+            if (null != table) {
+                table.close();
+                table = null;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void forceUnload() {
+        unload();
+    }
+
+    @Override
+    public boolean hasPage() {
+        return null != table;
+    }
+
+    @Override
+    public int append(T t) {
+        throw new UnsupportedOperationException("Compacted store file is read only!");
+    }
+
+    @Override
+    public ByteBuffer readByteBuffer(int position, int length) {
+        throw new UnsupportedOperationException("Compacted store file does not support reading raw buffer!");
+    }
+
+    @Override
+    public int appendByteBuffer(ByteBuffer byteBuffer) {
+        throw new UnsupportedOperationException("Compacted store file is read only!");
+    }
+
+    @Override
+    public int flush() {
+        return 0;
+    }
+
+    @Override
+    public void rollback(int position) throws IOException {
+        throw new IOException(String.format("Can not rollback compacted store file %s to relative position %d!",
+                file.getAbsolutePath(), position));
+    }
+
+    @Override
+    public boolean isClean() {
+        return true;
+    }
+
+    @Override
+    public int writePosition() {
+        return logicalLength;
+    }
+
+    @Override
+    public int fileDataSize() {
+        return logicalLength;
+    }
+
+    /**
+     * @return 数据区实际占用的长度
+     */
+    int compactedDataSize() {
+        return dataLength;
+    }
+
+    @Override
+    public int flushPosition() {
+        return logicalLength;
+    }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void force() {
+    }
+
+    @Override
+    public void closeWrite() {
+    }
+
+    @Override
+    public int capacity() {
+        return logicalLength;
+    }
+
+    @Override
+    public long lastAccessTime() {
+        return lastAccessTime;
+    }
+
+    private static void readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = fileChannel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    interface LogVisitor<T> {
+        void visit(int position, T log) throws IOException;
+    }
+
+    /**
+     * 打开的文件和位置表，卸载时一起释放
+     */
+    private static class Table implements Closeable {
+        private final RandomAccessFile raf;
+        private final FileChannel fileChannel;
+        private final int[] logPositions;
+        private final int[] dataPositions;
+
+        private Table(File file, long tablePosition, int count) throws IOException {
+            this.raf = new RandomAccessFile(file, "r");
+            this.fileChannel = raf.getChannel();
+            this.logPositions = new int[count];
+            this.dataPositions = new int[count];
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(count * ENTRY_SIZE);
+                readFully(fileChannel, buffer, tablePosition);
+                buffer.flip();
+                for (int i = 0; i < count; i++) {
+                    logPositions[i] = buffer.getInt();
+                    dataPositions[i] = buffer.getInt();
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                raf.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 写入压缩文件，先写数据区，最后写位置表和文件头
+     */
+    static class Writer<T> implements Closeable {
+        private final File file;
+        private final int headerSize;
+        private final LogSerializer<T> serializer;
+        private final RandomAccessFile raf;
+        private final FileChannel fileChannel;
+        private int[] logPositions = new int[1024];
+        private int[] dataPositions = new int[1024];
+        private int count = 0;
+        private int dataLength = 0;
+
+        Writer(File file, int headerSize, LogSerializer<T> serializer) throws IOException {
+            this.file = file;
+            this.headerSize = headerSize;
+            this.serializer = serializer;
+            this.raf = new RandomAccessFile(file, "rw");
+            this.fileChannel = raf.getChannel();
+            raf.setLength(0L);
+        }
+
+        void retain(int position, T log) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(serializer.size(log));
+            serializer.append(log, buffer);
+            buffer.flip();
+            int length = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer, headerSize + dataLength + length - buffer.remaining());
+            }
+            add(position, dataLength);
+            dataLength += length;
+        }
+
+        void remove(int position) {
+            add(position, -1);
+        }
+
+        private void add(int position, int dataPosition) {
+            if (count == logPositions.length) {
+                logPositions = Arrays.copyOf(logPositions, count * 2);
+                dataPositions = Arrays.copyOf(dataPositions, count * 2);
+            }
+            logPositions[count] = position;
+            dataPositions[count] = dataPosition;
+            count++;
+        }
+
+        /**
+         * 写入位置表和文件头，并刷盘
+         *
+         * @param timestamp     原文件的创建时间
+         * @param logicalLength 原文件的数据长度
+         */
+        void finish(long timestamp, int logicalLength) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(count * ENTRY_SIZE);
+            for (int i = 0; i < count; i++) {
+                buffer.putInt(logPositions[i]);
+                buffer.putInt(dataPositions[i]);
+            }
+            buffer.flip();
+            long tablePosition = headerSize + (long) dataLength;
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer, tablePosition + buffer.position());
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putLong(timestamp).putInt(MAGIC).putInt(logicalLength).putInt(count).putInt(dataLength);
+            header.flip();
+            while (header.hasRemaining()) {
+                fileChannel.write(header, header.position());
+            }
+            fileChannel.force(true);
+        }
+
+        int dataLength() {
+            return dataLength;
+        }
+
+        File file() {
+            return file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            raf.close();
+        }
+    }
+}
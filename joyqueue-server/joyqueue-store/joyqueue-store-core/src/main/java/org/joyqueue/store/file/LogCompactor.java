@@ -0,0 +1,45 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.file;
+
+import java.io.IOException;
+
+/**
+ * 决定压缩时保留哪些日志
+ * <br>
+ * 压缩分两遍进行：先用scan扫描压缩范围内所有保留着的日志，再对每条日志调用retain决定是否保留。
+ *
+ * @param <T> 日志类型
+ */
+public interface LogCompactor<T> {
+
+    /**
+     * 扫描一条日志
+     *
+     * @param position 日志的全局位置
+     * @param log      日志
+     * @throws IOException 发生IO异常时抛出
+     */
+    void scan(long position, T log) throws IOException;
+
+    /**
+     * @param position 日志的全局位置
+     * @param log      日志
+     * @return 是否保留这条日志
+     * @throws IOException 发生IO异常时抛出
+     */
+    boolean retain(long position, T log) throws IOException;
+}
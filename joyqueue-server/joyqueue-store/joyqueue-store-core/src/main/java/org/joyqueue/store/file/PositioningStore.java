@@ -17,6 +17,7 @@ package org.joyqueue.store.file;
 
 import org.joyqueue.store.PositionOverflowException;
 import org.joyqueue.store.PositionUnderflowException;
+import org.joyqueue.store.TieredStorage;
 import org.joyqueue.store.WriteException;
 import org.joyqueue.store.utils.PreloadBufferPool;
 import org.joyqueue.toolkit.format.Format;
@@ -28,6 +29,8 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -71,8 +74,25 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
 
     // 正在写入的文件
     private StoreFile<T> writeStoreFile = null;
+    // 已经上传到远端的分段，未开启分层存储时为null
+    private final RemoteSegments<T> remoteSegments;
+    // 每次回滚加一，上传期间发生过回滚时放弃上传的分段
+    private final AtomicLong rollbackGeneration = new AtomicLong(0L);
+    // 最后一个压缩过的文件的结束位置，之前的位置不能再按字节读取
+    private volatile long compactedRight = 0L;
+    // 压缩节省的磁盘空间
+    private volatile long compactedSaving = 0L;
+    // 在这个时间之前不替换已经压缩过的文件，快照复制期间压缩文件的内容保持不变
+    private volatile long recompactionPausedUntil = 0L;
+    // 文件中可以删除的数据达到这个比例时才重写文件
+    private static final double MIN_COMPACTION_RATIO = 0.1d;
+    private static final String TEMP_SUFFIX = ".tmp";
 
     public PositioningStore(File base, Config config, PreloadBufferPool bufferPool, LogSerializer<T> serializer) {
+        this(base, config, bufferPool, serializer, null);
+    }
+
+    public PositioningStore(File base, Config config, PreloadBufferPool bufferPool, LogSerializer<T> serializer, TieredStorage tieredStorage) {
         this.base = base;
         this.fileHeaderSize = config.fileHeaderSize;
         this.fileDataSize = config.fileDataSize;
@@ -87,12 +107,25 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
         }
         this.bufferPool = bufferPool;
         this.serializer = serializer;
+        this.remoteSegments = null == tieredStorage ? null :
+                new RemoteSegments<>(tieredStorage.key(base), tieredStorage.getRemoteStore(), tieredStorage.getCache(),
+                        fileHeaderSize, fileDataSize, serializer, bufferPool);
     }
 
+    /**
+     * 本地文件的最小位置
+     */
     public long left() {
         return leftPosition.get();
     }
 
+    /**
+     * 包含远端分段在内的最小位置，未开启分层存储时等于left()
+     */
+    public long tieredLeft() {
+        return null == remoteSegments ? left() : remoteSegments.left(left());
+    }
+
     public long right() {
         return rightPosition.get();
     }
@@ -101,6 +134,13 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
         return flushPosition.get();
     }
 
+    /**
+     * 文件头长度
+     */
+    public int fileHeaderSize() {
+        return fileHeaderSize;
+    }
+
     public void clear(long position) {
         logger.info("Clear store, new position: {}, store: {}...",
                 Format.formatWithComma(position),
@@ -111,7 +151,9 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
             flushLock.lock();
             writeLock.lock();
             deleteLock.lock();
+            rollbackGeneration.incrementAndGet();
             clear();
+            clearRemoteSegments();
             this.leftPosition.set(position);
             this.rightPosition.set(position);
             this.flushPosition.set(position);
@@ -145,12 +187,21 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
             flushLock.lock();
             writeLock.lock();
             deleteLock.lock();
-            if (position <= left() || position > right()) {
+            rollbackGeneration.incrementAndGet();
+            // 压缩过的文件不能截断，回滚到压缩区间内时只能清空
+            if (position <= left() || position > right() || position < compactedRight) {
                 clear();
+                // 远端分段的末尾正好是新的位置时还可以继续使用，否则与本地文件不再连续
+                if (position != left()) {
+                    clearRemoteSegments();
+                }
                 this.leftPosition.set(position);
                 this.rightPosition.set(position);
                 this.flushPosition.set(position);
             } else if (position < right()) {
+                if (null != remoteSegments) {
+                    remoteSegments.truncate(position);
+                }
                 rollbackFiles(position);
                 this.rightPosition.set(position);
                 if (this.flushPosition() > position) this.flushPosition.set(position);
@@ -177,11 +228,22 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
                     writeStoreFile = null;
                 }
             }
+            updateCompacted();
         } catch (IOException e) {
             throw new RollBackException(e);
         }
     }
 
+    private void clearRemoteSegments() {
+        if (null != remoteSegments) {
+            try {
+                remoteSegments.clear();
+            } catch (IOException e) {
+                throw new RollBackException(e);
+            }
+        }
+    }
+
     /**
      * 删除指定位置position之后的所有数据。
      * position所在的文件，从position开始，截断后面的数据；
@@ -209,6 +271,7 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
                     writeStoreFile = null;
                 }
             }
+            updateCompacted();
         }
 
 
@@ -227,7 +290,20 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
     }
 
     public void recover() throws IOException {
+        recover(-1L);
+    }
+
+    /**
+     * 恢复存储，如果文件列表恢复后的最大位置与正常关闭时记录的位置一致，
+     * 说明末尾数据是完整的，跳过查找半条数据的过程。
+     *
+     * @param cleanRightPosition 正常关闭时记录的最大位置，-1表示没有记录
+     * @return 是否与记录的位置一致
+     * @throws IOException 发生IO异常时抛出
+     */
+    public boolean recover(long cleanRightPosition) throws IOException {
         logger.info("Recovering positioning store: {}...", base.getAbsolutePath());
+        boolean clean;
         try {
             // 注意锁的顺序必须一致，避免死锁。
             flushLock.lock();
@@ -242,9 +318,10 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
             flushPosition.set(recoverPosition);
             rightPosition.set(recoverPosition);
             leftPosition.set(this.storeFileMap.isEmpty() ? 0L : this.storeFileMap.firstKey());
+            clean = recoverPosition == cleanRightPosition;
 
             // 删除末尾可能存在的半条数据
-            if (recoverPosition > 0) {
+            if (recoverPosition > 0 && !clean) {
                 // 从最大位置 - 1开始，向前找，找到第一条完整的数据，
                 // 返回这条数据之后的下一条数据（下一条数据是否存在都没关系）的起始位置。
                 long lastLogTail = toLogTail(recoverPosition - 1);
@@ -261,16 +338,23 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
             }
             // 重置当前写入的文件
             resetWriteStoreFile();
+
+            // 恢复远端分段
+            if (null != remoteSegments) {
+                remoteSegments.recover(left(), right());
+            }
         } finally {
             deleteLock.unlock();
             writeLock.unlock();
             flushLock.unlock();
         }
-        logger.info("Store recovered, leftPosition: {}, rightPosition: {}, flushPosition: {},  base: {}.",
+        logger.info("Store recovered, leftPosition: {}, rightPosition: {}, flushPosition: {}, clean: {}, base: {}.",
                 Format.formatWithComma(left()),
                 Format.formatWithComma(right()),
                 Format.formatWithComma(flushPosition()),
+                clean,
                 base.getAbsolutePath());
+        return clean;
     }
 
     /**
@@ -287,6 +371,7 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
                 storeFileMap.put(filePosition, new StoreFileImpl<>(filePosition, base, fileHeaderSize, serializer, bufferPool, fileDataSize, loadOnRead, flushForce));
             }
         }
+        recoverCompactedFiles();
         // 当服务器断电时，在存储的末尾，有可能会存在没来得及刷盘的空文件，需要删掉。
 
         while (!storeFileMap.isEmpty() && storeFileMap.lastEntry().getValue().file().length() <= fileHeaderSize) {
@@ -313,7 +398,7 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
                     notContinueStartPosition = fileEntry.getKey();
                     break;
                 }
-                position += fileEntry.getValue().file().length() - fileHeaderSize;
+                position += fileEntry.getValue().fileDataSize();
             }
 
             if (notContinueStartPosition != -1) {
@@ -324,6 +409,43 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
                 }
             }
         }
+        updateCompacted();
+    }
+
+    /**
+     * 恢复压缩过的文件，压缩文件写入完成后才会重命名，同一位置的原文件以压缩文件为准。
+     */
+    private void recoverCompactedFiles() throws IOException {
+        File[] tempFiles = base.listFiles(file -> file.isFile() && file.getName().matches("\\d+\\" + CompactedStoreFile.SUFFIX + "\\" + TEMP_SUFFIX));
+        if (null != tempFiles) {
+            for (File file : tempFiles) {
+                if (!file.delete()) {
+                    throw new IOException(String.format("Delete file %s failed!", file.getAbsolutePath()));
+                }
+            }
+        }
+        File[] files = base.listFiles(file -> file.isFile() && file.getName().matches("\\d+\\" + CompactedStoreFile.SUFFIX));
+        if (null != files) {
+            for (File file : files) {
+                long filePosition = Long.parseLong(file.getName().substring(0, file.getName().length() - CompactedStoreFile.SUFFIX.length()));
+                StoreFile<T> origin = storeFileMap.put(filePosition, new CompactedStoreFile<>(filePosition, file, fileHeaderSize, serializer));
+                if (null != origin) {
+                    forceDeleteStoreFile(origin);
+                }
+            }
+        }
+    }
+
+    private void updateCompacted() {
+        long right = 0L, saving = 0L;
+        for (StoreFile<T> storeFile : storeFileMap.values()) {
+            if (storeFile instanceof CompactedStoreFile) {
+                right = storeFile.position() + storeFile.fileDataSize();
+                saving += storeFile.fileDataSize() - ((CompactedStoreFile<T>) storeFile).compactedDataSize();
+            }
+        }
+        compactedRight = right;
+        compactedSaving = saving;
     }
 
     private long toLogTail(long position) {
@@ -477,6 +599,9 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
     public T read(long position, int length) throws IOException {
         checkReadPosition(position);
         try {
+            if (isRemote(position)) {
+                return remoteSegments.read(position, (storeFile, relPosition) -> storeFile.read(relPosition, length));
+            }
             StoreFile<T> storeFile = storeFileMap.floorEntry(position).getValue();
             int relPosition = (int) (position - storeFile.position());
             return storeFile.read(relPosition, length);
@@ -495,6 +620,9 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
     private T tryRead(long position) throws IOException {
 
         checkReadPosition(position);
+        if (isRemote(position)) {
+            return remoteSegments.read(position, (storeFile, relPosition) -> storeFile.read(relPosition, -1));
+        }
         StoreFile<T> storeFile = storeFileMap.floorEntry(position).getValue();
         int relPosition = (int) (position - storeFile.position());
         return storeFile.read(relPosition, -1);
@@ -509,11 +637,39 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
         try {
             while (list.size() < count && pointer < right()) {
 
+                if (isRemote(pointer)) {
+                    // 远端分段一次读到分段末尾，减少在缓存中查找分段的次数
+                    List<T> remoteList = remoteSegments.read(pointer, (remoteFile, relPosition) -> {
+                        List<T> ts = new ArrayList<>();
+                        int rel = relPosition;
+                        while (list.size() + ts.size() < count && rel < remoteFile.writePosition()) {
+                            T t = remoteFile.read(rel, -1);
+                            ts.add(t);
+                            rel += serializer.size(t);
+                        }
+                        return ts;
+                    });
+                    for (T t : remoteList) {
+                        list.add(t);
+                        pointer += serializer.size(t);
+                    }
+                    storeFile = null;
+                    continue;
+                }
+
                 if (null == storeFile || storeFile.writePosition() + storeFile.position() <= pointer) {
                     storeFile = storeFileMap.floorEntry(pointer).getValue();
                 }
 
                 int relPosition = (int) (pointer - storeFile.position());
+                if (storeFile instanceof CompactedStoreFile) {
+                    // 跳过已经被压缩删除的日志
+                    int next = ((CompactedStoreFile<T>) storeFile).nextRetained(relPosition);
+                    if (next != relPosition) {
+                        pointer = storeFile.position() + next;
+                        continue;
+                    }
+                }
                 T t = storeFile.read(relPosition, -1);
                 list.add(t);
                 pointer += serializer.size(t);
@@ -537,9 +693,14 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
     public ByteBuffer readByteBuffer(long position, int length) throws IOException {
         checkReadPosition(position);
         try {
-            StoreFile<T> storeFile = storeFileMap.floorEntry(position).getValue();
-            int relPosition = (int) (position - storeFile.position());
-            ByteBuffer byteBuffer = storeFile.readByteBuffer(relPosition, length);
+            ByteBuffer byteBuffer;
+            if (isRemote(position)) {
+                byteBuffer = remoteSegments.read(position, (storeFile, relPosition) -> storeFile.readByteBuffer(relPosition, length));
+            } else {
+                StoreFile<T> storeFile = storeFileMap.floorEntry(position).getValue();
+                int relPosition = (int) (position - storeFile.position());
+                byteBuffer = storeFile.readByteBuffer(relPosition, length);
+            }
             byteBuffer.limit(byteBuffer.position() + serializer.trim(byteBuffer, length));
             return byteBuffer;
         } catch (Throwable t) {
@@ -555,9 +716,16 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
     }
 
 
+    /**
+     * 本地文件已删除，需要从远端分段读取
+     */
+    private boolean isRemote(long position) {
+        return null != remoteSegments && position < left();
+    }
+
     private void checkReadPosition(long position) {
         long p;
-        if ((p = left()) > position) {
+        if ((p = tieredLeft()) > position) {
             throw new PositionUnderflowException(position, p);
         } else if (position >= (p = right())) {
             throw new PositionOverflowException(position, p);
@@ -566,7 +734,7 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
     }
 
     public long physicalSize() {
-        return right() - left();
+        return right() - left() - compactedSaving;
     }
 
     /**
@@ -581,6 +749,8 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
         StoreFile<T> storeFile;
         try {
             deleteLock.lock();
+            // 先删除本地文件已经不存在的远端分段
+            deleteSize += physicalDeleteRemoteTo(position);
             while (storeFileMap.size() > 0 &&
                     (entry = storeFileMap.firstEntry()) != null &&
                     entry.getKey() +
@@ -600,6 +770,7 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
                         if (storeFileMap.remove(entry.getKey(), storeFile)) {
                             this.writeStoreFile = null;
                             forceDeleteStoreFile(storeFile);
+                            deleteRemoteSegment(entry.getKey());
                             deleteSize += fileDataSize;
                             leftPosition.addAndGet(fileDataSize);
                             if(flushPosition.get() < leftPosition.get()) {
@@ -619,12 +790,16 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
                     if (storeFileMap.remove(entry.getKey(), storeFile)) {
                         leftPosition.addAndGet(fileDataSize);
                         forceDeleteStoreFile(storeFile);
+                        deleteRemoteSegment(entry.getKey());
                         deleteSize += fileDataSize;
                     } else {
                         break;
                     }
                 }
             }
+            if (deleteSize > 0 && compactedRight > 0) {
+                updateCompacted();
+            }
         } finally {
             if(deleteLock.isHeldByCurrentThread()) {
                 deleteLock.unlock();
@@ -633,11 +808,42 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
         return deleteSize;
     }
 
+    /**
+     * 删除结束位置不大于position，并且本地文件已经不存在的远端分段
+     */
+    private long physicalDeleteRemoteTo(long position) throws IOException {
+        long deleteSize = 0L;
+        if (null != remoteSegments) {
+            Map.Entry<Long, Long> first;
+            while ((first = remoteSegments.first()) != null
+                    && first.getKey() < left() && first.getKey() + first.getValue() <= position) {
+                remoteSegments.delete(first.getKey());
+                deleteSize += first.getValue();
+            }
+        }
+        return deleteSize;
+    }
+
+    /**
+     * 本地文件删除时，一并删除已经上传的远端分段
+     */
+    private void deleteRemoteSegment(long position) throws IOException {
+        if (null != remoteSegments) {
+            remoteSegments.delete(position);
+        }
+    }
+
     public boolean isClean() {
         return flushPosition() == right();
     }
 
     public long physicalDeleteLeftFile() throws IOException {
+        if (null != remoteSegments) {
+            Map.Entry<Long, Long> first = remoteSegments.first();
+            if (null != first && first.getKey() < left()) {
+                return physicalDeleteTo(first.getKey() + first.getValue());
+            }
+        }
         if (storeFileMap.isEmpty()) return 0;
         StoreFile<T> storeFile = storeFileMap.firstEntry().getValue();
         return physicalDeleteTo(storeFile.position() + (storeFile.hasPage() ? storeFile.writePosition() : storeFile.fileDataSize()));
@@ -660,6 +866,208 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
         return false;
     }
 
+    /**
+     * 最后一个压缩过的文件的结束位置，没有压缩过的文件时返回0。
+     * 这个位置之前的日志只能按日志的起始位置读取，不能按字节读取和复制。
+     */
+    public long compactedRight() {
+        return compactedRight;
+    }
+
+    /**
+     * @param file 存储文件
+     * @return 是否是压缩过的文件
+     */
+    public boolean isCompactedFile(File file) {
+        return file.getName().endsWith(CompactedStoreFile.SUFFIX);
+    }
+
+    /**
+     * @param filePosition 文件的起始位置
+     * @return 文件的数据长度，压缩过的文件返回压缩前的长度，文件不存在时返回-1
+     */
+    public int fileDataSize(long filePosition) {
+        StoreFile<T> storeFile = storeFileMap.get(filePosition);
+        return null == storeFile ? -1 : storeFile.fileDataSize();
+    }
+
+    /**
+     * 在指定时间之前不再替换已经压缩过的文件，返回时正在进行的替换已经完成。
+     * 用于快照复制压缩文件期间保证文件内容不变。
+     *
+     * @param until 暂停的截止时间
+     */
+    public void pauseRecompaction(long until) {
+        deleteLock.lock();
+        try {
+            recompactionPausedUntil = Math.max(recompactionPausedUntil, until);
+        } finally {
+            deleteLock.unlock();
+        }
+    }
+
+    /**
+     * @param position 日志的全局位置
+     * @return position处的日志是否已经被压缩删除
+     * @throws IOException 发生IO异常时抛出
+     */
+    public boolean isCompacted(long position) throws IOException {
+        if (position >= compactedRight) {
+            return false;
+        }
+        Map.Entry<Long, StoreFile<T>> entry = storeFileMap.floorEntry(position);
+        return null != entry && entry.getValue() instanceof CompactedStoreFile
+                && ((CompactedStoreFile<T>) entry.getValue()).isRemoved((int) (position - entry.getKey()));
+    }
+
+    /**
+     * 压缩从左侧开始连续的、已封口、已刷盘、结束位置不超过bound并且最后一次写入早于timestamp的文件。
+     * 压缩后的文件保持原来的位置和长度，只保留compactor决定保留的日志，其余日志的位置不再可读。
+     * 开启分层存储时不压缩。
+     *
+     * @param bound     压缩和扫描的最大位置
+     * @param timestamp 最后一次写入早于这个时间的文件才压缩
+     * @param compactor 决定保留哪些日志
+     * @return 节省的磁盘空间
+     * @throws IOException 发生IO异常时抛出
+     */
+    public long compact(long bound, long timestamp, LogCompactor<T> compactor) throws IOException {
+        Map.Entry<Long, StoreFile<T>> lastEntry;
+        if (null != remoteSegments || fileHeaderSize < CompactedStoreFile.HEADER_LENGTH
+                || null == (lastEntry = storeFileMap.lastEntry())) {
+            return 0L;
+        }
+        long maxPosition = Math.min(bound, flushPosition());
+        List<StoreFile<T>> candidates = new ArrayList<>();
+        for (StoreFile<T> storeFile : storeFileMap.headMap(lastEntry.getKey()).values()) {
+            if (storeFile == writeStoreFile || !storeFile.isClean()
+                    || storeFile.position() + storeFile.fileDataSize() > maxPosition
+                    || storeFile.file().lastModified() >= timestamp) {
+                break;
+            }
+            candidates.add(storeFile);
+        }
+        if (candidates.isEmpty()) {
+            return 0L;
+        }
+
+        // 第一遍：扫描从第一个候选文件到maxPosition的所有日志
+        long position = candidates.get(0).position();
+        while (position < maxPosition) {
+            Map.Entry<Long, StoreFile<T>> entry = storeFileMap.floorEntry(position);
+            if (null == entry) {
+                return 0L;
+            }
+            StoreFile<T> storeFile = entry.getValue();
+            long end = Math.min(maxPosition, storeFile.position() + storeFile.fileDataSize());
+            forEachLog(storeFile, end, (pos, log) -> {
+                if (null != log) {
+                    compactor.scan(pos, log);
+                }
+            });
+            position = storeFile.position() + storeFile.fileDataSize();
+        }
+
+        // 第二遍：依次重写每个候选文件
+        long saving = 0L;
+        for (StoreFile<T> storeFile : candidates) {
+            saving += compactFile(storeFile, compactor);
+        }
+        return saving;
+    }
+
+    private long compactFile(StoreFile<T> storeFile, LogCompactor<T> compactor) throws IOException {
+        if (isRecompactionPaused(storeFile)) {
+            return 0L;
+        }
+        long generation = rollbackGeneration.get();
+        long filePosition = storeFile.position();
+        int fileDataSize = storeFile.fileDataSize();
+        long[] removed = new long[1];
+        forEachLog(storeFile, filePosition + fileDataSize, (pos, log) -> {
+            if (null != log && !compactor.retain(pos, log)) {
+                removed[0] += serializer.size(log);
+            }
+        });
+        if (removed[0] < fileDataSize * MIN_COMPACTION_RATIO) {
+            return 0L;
+        }
+
+        File temp = new File(base, filePosition + CompactedStoreFile.SUFFIX + TEMP_SUFFIX);
+        long saving;
+        try {
+            try (CompactedStoreFile.Writer<T> writer = new CompactedStoreFile.Writer<>(temp, fileHeaderSize, serializer)) {
+                forEachLog(storeFile, filePosition + fileDataSize, (pos, log) -> {
+                    int relPosition = (int) (pos - filePosition);
+                    if (null != log && compactor.retain(pos, log)) {
+                        writer.retain(relPosition, log);
+                    } else {
+                        writer.remove(relPosition);
+                    }
+                });
+                writer.finish(storeFile.timestamp(), fileDataSize);
+                saving = (storeFile instanceof CompactedStoreFile ?
+                        ((CompactedStoreFile<T>) storeFile).compactedDataSize() : fileDataSize) - writer.dataLength();
+            }
+
+            deleteLock.lock();
+            try {
+                // 压缩期间文件被回滚或者删除，或者正在复制快照，放弃压缩结果
+                if (generation != rollbackGeneration.get() || storeFileMap.get(filePosition) != storeFile
+                        || isRecompactionPaused(storeFile)) {
+                    return 0L;
+                }
+                File target = new File(base, filePosition + CompactedStoreFile.SUFFIX);
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                storeFileMap.put(filePosition, new CompactedStoreFile<>(filePosition, target, fileHeaderSize, serializer));
+                if (storeFile instanceof CompactedStoreFile) {
+                    storeFile.forceUnload();
+                } else {
+                    forceDeleteStoreFile(storeFile);
+                }
+                updateCompacted();
+            } finally {
+                deleteLock.unlock();
+            }
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                logger.warn("Delete file {} failed!", temp.getAbsolutePath());
+            }
+        }
+        logger.info("Store file compacted, position: {}, saving: {}, store: {}.",
+                Format.formatWithComma(filePosition), Format.formatWithComma(saving), base.getAbsolutePath());
+        return saving;
+    }
+
+    private boolean isRecompactionPaused(StoreFile<T> storeFile) {
+        return storeFile instanceof CompactedStoreFile && SystemClock.now() < recompactionPausedUntil;
+    }
+
+    /**
+     * 按顺序遍历文件中位置小于end的日志，压缩文件中已删除的日志以null回调
+     */
+    private void forEachLog(StoreFile<T> storeFile, long end, GlobalLogVisitor<T> visitor) throws IOException {
+        long filePosition = storeFile.position();
+        if (storeFile instanceof CompactedStoreFile) {
+            ((CompactedStoreFile<T>) storeFile).forEach((relPosition, log) -> {
+                if (filePosition + relPosition < end) {
+                    visitor.visit(filePosition + relPosition, log);
+                }
+            });
+        } else {
+            int relPosition = 0;
+            while (filePosition + relPosition < end) {
+                T log = storeFile.read(relPosition, -1);
+                visitor.visit(filePosition + relPosition, log);
+                relPosition += serializer.size(log);
+            }
+        }
+    }
+
+    private interface GlobalLogVisitor<T> {
+        void visit(long position, T log) throws IOException;
+    }
+
     /**
      * 删除文件，丢弃未刷盘的数据，用于rollback
      */
@@ -739,17 +1147,127 @@ public class PositioningStore<T /* 保存的数据类型 */> implements Closeabl
 
     public byte[] readBytes(long position, int length) throws IOException {
         checkReadPosition(position);
+        if (isRemote(position)) {
+            return remoteSegments.read(position, (storeFile, relPosition) -> storeFile.readByteBuffer(relPosition, length).array());
+        }
         StoreFile<T> storeFile = storeFileMap.floorEntry(position).getValue();
         int relPosition = (int) (position - storeFile.position());
         return storeFile.readByteBuffer(relPosition, length).array();
     }
 
+    /**
+     * 文件数量，包含本地文件已经删除的远端分段
+     */
     public int fileCount() {
-        return storeFileMap.size();
+        return storeFileMap.size() + (null == remoteSegments ? 0 : remoteSegments.count(left()));
     }
 
     public int meetMinStoreFile(long minIndexedPhysicalPosition) {
-        return storeFileMap.headMap(minIndexedPhysicalPosition).size();
+        return storeFileMap.headMap(minIndexedPhysicalPosition).size() +
+                (null == remoteSegments ? 0 : remoteSegments.count(Math.min(minIndexedPhysicalPosition, left())));
+    }
+
+    /**
+     * 上传最左侧一个已封口、已刷盘并且还没有上传的文件，正在写入的最后一个文件不上传
+     *
+     * @return 是否上传了文件
+     * @throws IOException 发生IO异常时抛出
+     */
+    public boolean uploadSealedFile() throws IOException {
+        Map.Entry<Long, StoreFile<T>> lastEntry;
+        if (null == remoteSegments || null == (lastEntry = storeFileMap.lastEntry())) {
+            return false;
+        }
+        long generation = rollbackGeneration.get();
+        StoreFile<T> storeFile = null;
+        for (StoreFile<T> sealed : storeFileMap.headMap(lastEntry.getKey()).values()) {
+            if (!sealed.isClean() || sealed.position() + sealed.fileDataSize() > flushPosition()) {
+                return false;
+            }
+            if (!remoteSegments.contains(sealed.position(), sealed.fileDataSize())) {
+                storeFile = sealed;
+                break;
+            }
+        }
+        if (null == storeFile) {
+            return false;
+        }
+
+        long position = storeFile.position();
+        int length = storeFile.fileDataSize();
+        remoteSegments.upload(position, storeFile.file());
+        try {
+            deleteLock.lock();
+            if (generation == rollbackGeneration.get() && storeFileMap.get(position) == storeFile) {
+                remoteSegments.add(position, length);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Store file uploaded: {}, length: {}.", storeFile.file().getAbsolutePath(), Format.formatWithComma(length));
+                }
+                return true;
+            }
+        } finally {
+            deleteLock.unlock();
+        }
+        // 上传期间文件被回滚或者删除，远端分段作废
+        remoteSegments.discard(position);
+        return false;
+    }
+
+    /**
+     * 删除已经上传到远端，并且最后一次写入早于timestamp的本地文件，至少保留最后一个本地文件
+     *
+     * @param timestamp 时间戳
+     * @return 删除的本地数据长度
+     * @throws IOException 发生IO异常时抛出
+     */
+    public long dropUploadedFiles(long timestamp) throws IOException {
+        if (null == remoteSegments) {
+            return 0L;
+        }
+        long dropSize = 0L;
+        try {
+            deleteLock.lock();
+            Map.Entry<Long, StoreFile<T>> entry;
+            while (storeFileMap.size() > 1 && (entry = storeFileMap.firstEntry()) != null) {
+                StoreFile<T> storeFile = entry.getValue();
+                int fileDataSize = storeFile.fileDataSize();
+                if (storeFile == writeStoreFile || !storeFile.isClean()
+                        || !remoteSegments.contains(entry.getKey(), fileDataSize)
+                        || storeFile.file().lastModified() >= timestamp
+                        || !storeFileMap.remove(entry.getKey(), storeFile)) {
+                    break;
+                }
+                leftPosition.addAndGet(fileDataSize);
+                forceDeleteStoreFile(storeFile);
+                dropSize += fileDataSize;
+            }
+        } finally {
+            deleteLock.unlock();
+        }
+        if (dropSize > 0) {
+            logger.info("Uploaded store files dropped, size: {}, left: {}, tiered left: {}, store: {}.",
+                    Format.formatWithComma(dropSize),
+                    Format.formatWithComma(left()),
+                    Format.formatWithComma(tieredLeft()),
+                    base.getAbsolutePath());
+        }
+        return dropSize;
+    }
+
+    /**
+     * 删除所有远端分段，存储被删除时调用
+     *
+     * @throws IOException 发生IO异常时抛出
+     */
+    public void deleteRemoteSegments() throws IOException {
+        if (null != remoteSegments) {
+            try {
+                deleteLock.lock();
+                remoteSegments.clear();
+            } finally {
+                deleteLock.unlock();
+            }
+        }
     }
 
     public static class Config {
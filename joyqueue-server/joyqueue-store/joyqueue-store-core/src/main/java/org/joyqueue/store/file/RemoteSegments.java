@@ -0,0 +1,201 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.file;
+
+import org.joyqueue.store.PositionUnderflowException;
+import org.joyqueue.store.tiered.RemoteSegmentCache;
+import org.joyqueue.store.tiered.RemoteSegmentStore;
+import org.joyqueue.store.utils.PreloadBufferPool;
+import org.joyqueue.toolkit.format.Format;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 一个PositioningStore已经上传到远端的分段
+ * <br>
+ * 分段与本地文件一一对应，从左到右连续，并且与本地文件首尾相接。
+ * 本地文件删除后，读取时通过缓存下载远端分段。
+ */
+class RemoteSegments<T> {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteSegments.class);
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final String key;
+    private final RemoteSegmentStore remoteStore;
+    private final RemoteSegmentCache cache;
+    private final int fileHeaderSize;
+    private final int fileDataSize;
+    private final LogSerializer<T> serializer;
+    private final PreloadBufferPool bufferPool;
+    private final NavigableMap<Long /* 文件起始位置 */, Long /* 数据长度 */> segments = new ConcurrentSkipListMap<>();
+
+    RemoteSegments(String key, RemoteSegmentStore remoteStore, RemoteSegmentCache cache,
+                   int fileHeaderSize, int fileDataSize, LogSerializer<T> serializer, PreloadBufferPool bufferPool) {
+        this.key = key;
+        this.remoteStore = remoteStore;
+        this.cache = cache;
+        this.fileHeaderSize = fileHeaderSize;
+        this.fileDataSize = fileDataSize;
+        this.serializer = serializer;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * 恢复远端分段列表，删除超出本地最大位置的分段，以及与本地文件不连续的分段
+     *
+     * @param left  本地最小位置
+     * @param right 本地最大位置
+     * @throws IOException 发生IO异常时抛出
+     */
+    void recover(long left, long right) throws IOException {
+        segments.clear();
+        long expected = left;
+        for (Map.Entry<Long, Long> entry : new TreeMap<>(remoteStore.list(key)).descendingMap().entrySet()) {
+            long position = entry.getKey();
+            long length = entry.getValue() - fileHeaderSize;
+            if (length <= 0 || position + length > right) {
+                logger.warn("Delete stale remote segment {}/{}, length: {}, right: {}.",
+                        key, position, length, Format.formatWithComma(right));
+                remoteStore.delete(key, position);
+            } else if (position >= left || position + length == expected) {
+                segments.put(position, length);
+                expected = Math.min(expected, position);
+            } else {
+                logger.warn("Delete discontinuous remote segment {}/{}, length: {}, expected end: {}.",
+                        key, position, length, Format.formatWithComma(expected));
+                remoteStore.delete(key, position);
+            }
+        }
+        if (!segments.isEmpty()) {
+            logger.info("Remote segments recovered, count: {}, left: {}, store: {}.",
+                    segments.size(), Format.formatWithComma(segments.firstKey()), key);
+        }
+    }
+
+    /**
+     * @param localLeft 本地最小位置，没有远端分段时返回该位置
+     * @return 包含远端分段在内的最小位置
+     */
+    long left(long localLeft) {
+        Map.Entry<Long, Long> first = segments.firstEntry();
+        return null == first ? localLeft : Math.min(first.getKey(), localLeft);
+    }
+
+    boolean contains(long position, long length) {
+        Long remoteLength = segments.get(position);
+        return null != remoteLength && remoteLength == length;
+    }
+
+    Map.Entry<Long, Long> first() {
+        return segments.firstEntry();
+    }
+
+    /**
+     * @return 起始位置小于position的分段数量
+     */
+    int count(long position) {
+        return segments.headMap(position).size();
+    }
+
+    /**
+     * 上传文件，上传完成后需要调用add记录
+     */
+    void upload(long position, File file) throws IOException {
+        remoteStore.upload(key, position, file);
+    }
+
+    void add(long position, long length) {
+        segments.put(position, length);
+    }
+
+    void delete(long position) throws IOException {
+        if (segments.containsKey(position)) {
+            discard(position);
+            segments.remove(position);
+        }
+    }
+
+    /**
+     * 删除没有记录的远端分段，用于上传期间发生回滚的情况
+     */
+    void discard(long position) throws IOException {
+        remoteStore.delete(key, position);
+        cache.invalidate(key, position);
+    }
+
+    /**
+     * 删除结束位置大于position的分段
+     */
+    void truncate(long position) throws IOException {
+        for (Map.Entry<Long, Long> entry : segments.descendingMap().entrySet()) {
+            if (entry.getKey() + entry.getValue() <= position) {
+                break;
+            }
+            delete(entry.getKey());
+        }
+    }
+
+    void clear() throws IOException {
+        while (!segments.isEmpty()) {
+            delete(segments.lastKey());
+        }
+    }
+
+    /**
+     * 读取position所在的远端分段
+     *
+     * @param position 全局位置
+     * @param reader   读取分段，参数为分段和position在分段内的相对位置
+     * @param <R>      读取结果类型
+     * @return 读取结果
+     * @throws IOException 发生IO异常时抛出
+     */
+    <R> R read(long position, SegmentReader<T, R> reader) throws IOException {
+        Map.Entry<Long, Long> entry = segments.floorEntry(position);
+        if (null == entry || position >= entry.getKey() + entry.getValue()) {
+            Map.Entry<Long, Long> first = segments.firstEntry();
+            throw new PositionUnderflowException(position, null == first ? position : first.getKey());
+        }
+        long segmentPosition = entry.getKey();
+        int relPosition = (int) (position - segmentPosition);
+        return cache.read(key, segmentPosition, dir -> load(dir, segmentPosition),
+                storeFile -> reader.read(storeFile, relPosition));
+    }
+
+    private StoreFile<T> load(File dir, long position) throws IOException {
+        File temp = new File(dir, position + TEMP_SUFFIX);
+        remoteStore.download(key, position, temp);
+        File file = new File(dir, String.valueOf(position));
+        if (!temp.renameTo(file)) {
+            throw new IOException(String.format("Rename file %s to %s failed!", temp.getAbsolutePath(), file.getAbsolutePath()));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Remote segment downloaded: {}/{}, cache size: {}.", key, position, Format.formatWithComma(cache.size()));
+        }
+        return new StoreFileImpl<>(position, dir, fileHeaderSize, serializer, bufferPool, fileDataSize, false, false);
+    }
+
+    interface SegmentReader<T, R> {
+        R read(StoreFile<T> storeFile, int relPosition) throws IOException;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.file;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分区组正常关闭时记录的存储末尾状态。
+ * 所有数据刷盘完成后写入，恢复时读取后立即删除，
+ * 因此只要文件存在且与磁盘上的文件一致，就可以跳过末尾数据和索引的校验。
+ */
+public class ShutdownManifest {
+    public static final int VERSION = 1;
+    private int version;
+    private long leftPosition;
+    private long rightPosition;
+    private long indexPosition;
+    private long replicationPosition;
+    private int lastEntryTerm;
+    private Map<Short, Long> partitions;
+
+    public ShutdownManifest() {}
+
+    public ShutdownManifest(long leftPosition, long rightPosition, long indexPosition, long replicationPosition,
+                            int lastEntryTerm, Map<Short, Long> partitions) {
+        this.version = VERSION;
+        this.leftPosition = leftPosition;
+        this.rightPosition = rightPosition;
+        this.indexPosition = indexPosition;
+        this.replicationPosition = replicationPosition;
+        this.lastEntryTerm = lastEntryTerm;
+        this.partitions = new HashMap<>(partitions);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public long getLeftPosition() {
+        return leftPosition;
+    }
+
+    public void setLeftPosition(long leftPosition) {
+        this.leftPosition = leftPosition;
+    }
+
+    public long getRightPosition() {
+        return rightPosition;
+    }
+
+    public void setRightPosition(long rightPosition) {
+        this.rightPosition = rightPosition;
+    }
+
+    public long getIndexPosition() {
+        return indexPosition;
+    }
+
+    public void setIndexPosition(long indexPosition) {
+        this.indexPosition = indexPosition;
+    }
+
+    public long getReplicationPosition() {
+        return replicationPosition;
+    }
+
+    public void setReplicationPosition(long replicationPosition) {
+        this.replicationPosition = replicationPosition;
+    }
+
+    public int getLastEntryTerm() {
+        return lastEntryTerm;
+    }
+
+    public void setLastEntryTerm(int lastEntryTerm) {
+        this.lastEntryTerm = lastEntryTerm;
+    }
+
+    /**
+     * @return 每个分区的索引条数
+     */
+    public Map<Short, Long> getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(Map<Short, Long> partitions) {
+        this.partitions = partitions;
+    }
+
+    @Override
+    public String toString() {
+        return "ShutdownManifest{" +
+                "version=" + version +
+                ", leftPosition=" + leftPosition +
+                ", rightPosition=" + rightPosition +
+                ", indexPosition=" + indexPosition +
+                ", replicationPosition=" + replicationPosition +
+                ", lastEntryTerm=" + lastEntryTerm +
+                ", partitions=" + partitions +
+                '}';
+    }
+}
@@ -22,7 +22,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
-import java.util.zip.CRC32;
 
 /**
  * @author liyue25
@@ -39,10 +38,7 @@ public class StoreMessageSerializer implements LogSerializer<ByteBuffer> {
     private static boolean checkCRC(ByteBuffer buffer) {
         ByteBuffer body = MessageParser.getByteBuffer(buffer, MessageParser.BODY);
         if (body.remaining() > 0) {
-            CRC32 crc32 = new CRC32();
-            crc32.update(body);
-            long crc = crc32.getValue();
-            return crc == MessageParser.getLong(buffer, MessageParser.CRC);
+            return MessageParser.checkCRC(buffer);
         }
         return false;
 
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.tiered;
+
+import com.jd.laf.extension.Extension;
+import org.apache.commons.lang3.StringUtils;
+import org.joyqueue.store.StoreConfigKey;
+import org.joyqueue.toolkit.config.PropertySupplier;
+import org.joyqueue.toolkit.config.PropertySupplierAware;
+import org.joyqueue.toolkit.service.Service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 基于本地目录的远端分段存储，用于测试或者挂载了共享文件系统的场景
+ * <br>
+ * 分段保存在 [path]/[key]/[position]，先写临时文件再重命名，避免读到写了一半的分段。
+ */
+@Extension("local")
+public class LocalRemoteSegmentStore extends Service implements RemoteSegmentStore, PropertySupplierAware {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private File base;
+
+    public LocalRemoteSegmentStore() {
+    }
+
+    public LocalRemoteSegmentStore(File base) {
+        this.base = base;
+    }
+
+    @Override
+    public void setSupplier(PropertySupplier supplier) {
+        String path = PropertySupplier.getValue(supplier, StoreConfigKey.TIERED_LOCAL_PATH);
+        if (StringUtils.isNotBlank(path)) {
+            this.base = new File(path);
+        }
+    }
+
+    @Override
+    protected void validate() throws Exception {
+        super.validate();
+        if (null == base) {
+            throw new IllegalStateException(String.format("%s is required!", StoreConfigKey.TIERED_LOCAL_PATH.getName()));
+        }
+        if (!base.isDirectory() && !base.mkdirs()) {
+            throw new IOException(String.format("Create directory: %s failed!", base.getAbsolutePath()));
+        }
+    }
+
+    @Override
+    public void upload(String key, long position, File file) throws IOException {
+        File dir = new File(base, key);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Create directory: %s failed!", dir.getAbsolutePath()));
+        }
+        File temp = new File(dir, position + TEMP_SUFFIX);
+        Files.copy(file.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temp.toPath(), new File(dir, String.valueOf(position)).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void download(String key, long position, File target) throws IOException {
+        File file = new File(new File(base, key), String.valueOf(position));
+        if (!file.isFile()) {
+            throw new FileNotFoundException(String.format("Remote segment %s not found!", file.getAbsolutePath()));
+        }
+        Files.copy(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public SortedMap<Long, Long> list(String key) {
+        SortedMap<Long, Long> segments = new TreeMap<>();
+        File[] files = new File(base, key).listFiles(file -> file.isFile() && file.getName().matches("\\d+"));
+        if (null != files) {
+            for (File file : files) {
+                segments.put(Long.parseLong(file.getName()), file.length());
+            }
+        }
+        return segments;
+    }
+
+    @Override
+    public void delete(String key, long position) throws IOException {
+        File file = new File(new File(base, key), String.valueOf(position));
+        if (file.exists() && !file.delete()) {
+            throw new IOException(String.format("Delete file %s failed!", file.getAbsolutePath()));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.tiered;
+
+import org.joyqueue.store.file.StoreFile;
+import org.joyqueue.store.utils.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 从远端下载的分段在本地的缓存
+ * <br>
+ * 按最近使用的顺序淘汰，总大小不超过capacity字节；正在被读取的分段不会被淘汰，
+ * 全部分段都在使用中时允许暂时超出容量。同一个分段并发读取时只下载一次。
+ * 每次加载使用单独的目录，失效的分段等读取结束后再删除，不会影响之后重新下载的同名分段。
+ */
+public class RemoteSegmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteSegmentCache.class);
+
+    private final File base;
+    private final long capacity;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong sequence = new AtomicLong(0L);
+    private long size = 0L;
+
+    public RemoteSegmentCache(File base, long capacity) {
+        this.base = base;
+        this.capacity = capacity;
+        // 上次运行留下的缓存文件无法确认是否完整，直接清掉
+        if (base.exists()) {
+            FileUtils.deleteFolder(base);
+        }
+    }
+
+    /**
+     * 读取缓存的分段，未命中时先加载
+     *
+     * @param key      存储目录
+     * @param position 文件起始位置
+     * @param loader   把分段下载到给定目录并打开
+     * @param reader   读取分段
+     * @return 读取结果
+     * @throws IOException 发生IO异常时抛出
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> R read(String key, long position, Loader<T> loader, Reader<T, R> reader) throws IOException {
+        String name = key + "/" + position;
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(name, n -> new Entry(new File(base, n + "." + sequence.incrementAndGet())));
+            entry.refCount++;
+        }
+        try {
+            synchronized (entry) {
+                if (null == entry.storeFile) {
+                    if (!entry.dir.isDirectory() && !entry.dir.mkdirs()) {
+                        throw new IOException(String.format("Create directory: %s failed!", entry.dir.getAbsolutePath()));
+                    }
+                    entry.storeFile = loader.load(entry.dir);
+                    entry.size = entry.storeFile.file().length();
+                    synchronized (entries) {
+                        size += entry.size;
+                    }
+                }
+            }
+            return reader.read((StoreFile<T>) entry.storeFile);
+        } finally {
+            synchronized (entries) {
+                if (--entry.refCount == 0 && entry.invalid) {
+                    release(entry);
+                }
+                evict();
+            }
+        }
+    }
+
+    /**
+     * 删除分段的缓存，远端分段被删除或者回滚时调用
+     */
+    public void invalidate(String key, long position) {
+        synchronized (entries) {
+            Entry entry = entries.remove(key + "/" + position);
+            if (null != entry) {
+                if (entry.refCount == 0) {
+                    release(entry);
+                } else {
+                    entry.invalid = true;
+                }
+            }
+        }
+    }
+
+    public long size() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.refCount == 0) {
+                    iterator.remove();
+                    release(entry);
+                }
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > capacity && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.refCount == 0) {
+                iterator.remove();
+                release(entry);
+            }
+        }
+        // 加载失败的条目
+        entries.values().removeIf(entry -> {
+            if (entry.refCount == 0 && null == entry.storeFile) {
+                release(entry);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void release(Entry entry) {
+        if (null != entry.storeFile) {
+            size -= entry.size;
+            entry.storeFile.forceUnload();
+            entry.storeFile = null;
+        }
+        if (entry.dir.exists() && !FileUtils.deleteFolder(entry.dir)) {
+            logger.warn("Delete cached segment {} failed!", entry.dir.getAbsolutePath());
+        }
+    }
+
+    private static class Entry {
+        private final File dir;
+        private StoreFile<?> storeFile;
+        private long size;
+        private int refCount;
+        // 已经从缓存中移除，读取结束后删除
+        private boolean invalid;
+
+        private Entry(File dir) {
+            this.dir = dir;
+        }
+    }
+
+    public interface Loader<T> {
+        StoreFile<T> load(File dir) throws IOException;
+    }
+
+    public interface Reader<T, R> {
+        R read(StoreFile<T> storeFile) throws IOException;
+    }
+}
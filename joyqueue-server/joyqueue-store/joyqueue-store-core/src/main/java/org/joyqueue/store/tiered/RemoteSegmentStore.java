@@ -0,0 +1,69 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.tiered;
+
+import org.joyqueue.toolkit.lang.LifeCycle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SortedMap;
+
+/**
+ * 远端分段存储，用于分层存储中保存已封口的日志文件
+ * <br>
+ * key为存储目录相对于存储根目录的路径，如：topics/order/1、topics/order/1/index/3，
+ * 同一个key下的分段以文件起始位置区分，分段内容与本地文件完全一致（包含文件头）。
+ */
+public interface RemoteSegmentStore extends LifeCycle {
+
+    /**
+     * 上传分段，已存在时覆盖
+     *
+     * @param key      存储目录
+     * @param position 文件起始位置
+     * @param file     本地文件
+     * @throws IOException 发生IO异常时抛出
+     */
+    void upload(String key, long position, File file) throws IOException;
+
+    /**
+     * 下载分段到本地文件
+     *
+     * @param key      存储目录
+     * @param position 文件起始位置
+     * @param target   目标文件
+     * @throws IOException 分段不存在或者发生IO异常时抛出
+     */
+    void download(String key, long position, File target) throws IOException;
+
+    /**
+     * 列出存储目录下所有的分段
+     *
+     * @param key 存储目录
+     * @return 文件起始位置到文件长度（包含文件头）的映射
+     * @throws IOException 发生IO异常时抛出
+     */
+    SortedMap<Long, Long> list(String key) throws IOException;
+
+    /**
+     * 删除分段，分段不存在时忽略
+     *
+     * @param key      存储目录
+     * @param position 文件起始位置
+     * @throws IOException 发生IO异常时抛出
+     */
+    void delete(String key, long position) throws IOException;
+}
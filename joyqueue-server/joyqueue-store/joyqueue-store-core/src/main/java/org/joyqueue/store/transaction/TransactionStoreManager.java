@@ -21,6 +21,7 @@ import org.joyqueue.store.StoreInitializeException;
 import org.joyqueue.store.WriteResult;
 import org.joyqueue.store.file.PositioningStore;
 import org.joyqueue.store.utils.PreloadBufferPool;
+import org.joyqueue.toolkit.concurrent.EventListener;
 import org.joyqueue.toolkit.time.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +31,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -109,6 +111,8 @@ public class TransactionStoreManager implements TransactionStore, Closeable {
                 File storeBase = new File(base, String.valueOf(id));
                 if (storeBase.exists() || storeBase.mkdir()) {
                     PositioningStore<ByteBuffer> store = new PositioningStore<>(storeBase, config, bufferPool, new TransactionMessageSerializer());
+                    // 重启后打开已存在的事务文件，恢复读写位置
+                    recover(store, storeBase);
                     storeMap.put(id, store);
                     return store;
                 } else {
@@ -120,6 +124,33 @@ public class TransactionStoreManager implements TransactionStore, Closeable {
         }
     }
 
+    /**
+     * 事务消息没有魔数，从末尾回扫查找完整消息并不可靠，
+     * 按文件长度恢复后从头逐条校验，截断末尾不完整的消息。
+     */
+    private void recover(PositioningStore<ByteBuffer> store, File storeBase) throws IOException {
+        long right = 0L;
+        File[] files = storeBase.listFiles(file -> file.isFile() && file.getName().matches("\\d+"));
+        if (files != null && files.length > 0) {
+            File last = Arrays.stream(files).max(Comparator.comparingLong(file -> Long.parseLong(file.getName()))).get();
+            right = Long.parseLong(last.getName()) + Math.max(last.length() - store.fileHeaderSize(), 0L);
+        }
+        store.recover(right);
+
+        long position = store.left();
+        while (position < store.right()) {
+            try {
+                position += store.read(position).remaining();
+            } catch (Throwable t) {
+                break;
+            }
+        }
+        if (position < store.right()) {
+            logger.warn("Truncate transaction file \"{}\" to position {}.", storeBase.getAbsolutePath(), position);
+            store.setRight(position);
+        }
+    }
+
     private WriteResult write(int id, List<ByteBuffer> messages) {
         WriteResult writeResult = new WriteResult();
         try {
@@ -194,12 +225,32 @@ public class TransactionStoreManager implements TransactionStore, Closeable {
         return writeExecutor.submit(new WriteTask(id, Arrays.asList(messages)));
     }
 
+    /**
+     * 异步写入消息，写入完成后在写入线程中回调
+     *
+     * @param eventListener 回调方法
+     * @param id            事务id
+     * @param messages      消息
+     */
+    @Override
+    public void asyncWrite(EventListener<WriteResult> eventListener, int id, ByteBuffer... messages) {
+        List<ByteBuffer> messageList = Arrays.asList(messages);
+        writeExecutor.execute(() -> eventListener.onEvent(write(id, messageList)));
+    }
+
     /**
      * 获取读取的迭代器
      */
     @Override
     public Iterator<ByteBuffer> readIterator(int id) {
         PositioningStore<ByteBuffer> store = get(id);
+        if (store == null && new File(base, String.valueOf(id)).isDirectory()) {
+            try {
+                store = getOrCreate(id);
+            } catch (IOException e) {
+                logger.warn("Load transaction file \"{}/{}\" exception: ", base.getAbsoluteFile(), id, e);
+            }
+        }
         return store == null ? null : new ReadIterator(store);
     }
 
@@ -17,13 +17,13 @@ package org.joyqueue.store.utils;
 
 import org.joyqueue.store.message.BatchMessageParser;
 import org.joyqueue.store.message.MessageParser;
+import org.joyqueue.toolkit.security.Checksums;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.zip.CRC32;
 
 public class MessageUtils {
     static byte[] b1024;
@@ -36,9 +36,7 @@ public class MessageUtils {
         byte[] body = new byte[1024];
         byte[][] varAtts = {body, bid, prop, expand, app};
         ByteBuffer byteBuffer = MessageParser.build(varAtts);
-        CRC32 crc32 = new CRC32();
-        crc32.update(body);
-        MessageParser.setLong(byteBuffer, MessageParser.CRC, crc32.getValue());
+        MessageParser.setLong(byteBuffer, MessageParser.CRC, Checksums.crc32(body));
         b1024 = byteBuffer.array();
     }
 
@@ -48,9 +46,7 @@ public class MessageUtils {
             Arrays.fill(body, (byte) (i % Byte.MAX_VALUE));
             byte[][] varAtts = {body, bid, prop, expand, app};
             ByteBuffer byteBuffer = MessageParser.build(varAtts);
-            CRC32 crc32 = new CRC32();
-            crc32.update(body);
-            MessageParser.setLong(byteBuffer, MessageParser.CRC, crc32.getValue());
+            MessageParser.setLong(byteBuffer, MessageParser.CRC, Checksums.crc32(body));
             return byteBuffer;
         }).collect(Collectors.toList());
     }
@@ -61,9 +57,7 @@ public class MessageUtils {
             Arrays.fill(body, (byte) (i % Byte.MAX_VALUE));
             byte[][] varAtts = {body, bid, prop, expand, app};
             ByteBuffer byteBuffer = MessageParser.build(varAtts);
-            CRC32 crc32 = new CRC32();
-            crc32.update(body);
-            MessageParser.setLong(byteBuffer, MessageParser.CRC, crc32.getValue());
+            MessageParser.setLong(byteBuffer, MessageParser.CRC, Checksums.crc32(body));
             MessageParser.setShort(byteBuffer, MessageParser.FLAG, count);
             return byteBuffer;
         }).collect(Collectors.toList());
@@ -24,6 +24,7 @@ import org.joyqueue.exception.JoyQueueCode;
 import org.joyqueue.store.file.Checkpoint;
 import org.joyqueue.store.file.PositioningStore;
 import org.joyqueue.store.message.MessageParser;
+import org.joyqueue.store.replication.Snapshot;
 import org.joyqueue.store.utils.MessageUtils;
 import org.joyqueue.store.utils.PreloadBufferPool;
 import org.joyqueue.toolkit.concurrent.EventFuture;
@@ -96,6 +97,21 @@ public class PartitionGroupStoreManagerTest {
 
     }
 
+    @Test
+    public void flushSchedulerTest() throws Exception {
+        FlushScheduler flushScheduler = new FlushScheduler("test", 1L, 6000L, 0L);
+        flushScheduler.start();
+        try {
+            destroyStore();
+            recoverStore(flushScheduler);
+            writeReadTest(QosLevel.PERSISTENCE);
+            Assert.assertTrue(flushScheduler.getFlushLatency().snapshot().getCount() > 0);
+        } finally {
+            destroyStore();
+            flushScheduler.stop();
+        }
+    }
+
 //    @Test
     public void batchWriteReadTest() throws Exception {
         short partition = partitions[0];
@@ -399,6 +415,123 @@ public class PartitionGroupStoreManagerTest {
             commitThread.stop();
         }
     }
+    @Test
+    public void relocateTest() throws Exception {
+        int count = 1024;
+        short partition = 4;
+        writeReadTest(QosLevel.PERSISTENCE);
+
+        File source = store.base();
+        File target = new File(base, "relocated");
+        File staging = new File(base, ".m.relocated");
+        File trash = new File(base, ".d.relocated");
+        store.relocate(target, staging, trash, null);
+        Assert.assertEquals(target, store.base());
+        Assert.assertFalse(staging.exists());
+        Assert.assertFalse(source.exists());
+        Assert.assertTrue(trash.isDirectory());
+        Assert.assertTrue(store.isStarted());
+        Assert.assertTrue(store.serviceStatus());
+
+        // 迁移前写入的消息都可以从新目录读到
+        ReadResult readResult = store.read(partition, 0, count, 0);
+        Assert.assertEquals(JoyQueueCode.SUCCESS, readResult.getCode());
+        Assert.assertTrue(readResult.getMessages().length > 0);
+        Assert.assertEquals(count, store.getRightIndex(partition));
+
+        // 迁移后继续用原来的写入线程写入
+        List<ByteBuffer> messages = MessageUtils.build(count, 1024);
+        EventFuture<WriteResult> future = new EventFuture<>();
+        store.asyncWrite(QosLevel.PERSISTENCE, future, messages.stream().map(b -> new WriteRequest(partition, b)).toArray(WriteRequest[]::new));
+        Assert.assertEquals(JoyQueueCode.SUCCESS, future.get().getCode());
+        store.commit(store.rightPosition());
+        long t0 = SystemClock.now();
+        while (SystemClock.now() - t0 < 10000L && store.getRightIndex(partition) < 2 * count) {
+            Thread.sleep(10L);
+        }
+        Assert.assertEquals(2 * count, store.getRightIndex(partition));
+        ByteBuffer writeBuffer = messages.get(0);
+        writeBuffer.clear();
+        Assert.assertEquals(writeBuffer, store.read(partition, count, 1, 0).getMessages()[0]);
+    }
+
+    @Test
+    public void snapshotTest() throws Exception {
+        int count = 40 * 1024;
+        long timeout = 500000L;
+        List<ByteBuffer> messages = MessageUtils.build(count, 1024);
+        long length = messages.stream().mapToInt(Buffer::remaining).sum();
+        WriteRequest[] writeRequests = IntStream.range(0, messages.size())
+                .mapToObj(i -> new WriteRequest(partitions[i % partitions.length], messages.get(i)))
+                .toArray(WriteRequest[]::new);
+        EventFuture<WriteResult> future = new EventFuture<>();
+        store.asyncWrite(QosLevel.PERSISTENCE, future, writeRequests);
+        Assert.assertEquals(JoyQueueCode.SUCCESS, future.get().getCode());
+        store.commit(store.rightPosition());
+        long t0 = SystemClock.now();
+        while (SystemClock.now() - t0 < timeout && (store.indexPosition() < length || store.flushPosition() < length)) {
+            Thread.sleep(10L);
+        }
+
+        // 1. LEADER 生成快照，只包含已封口的日志文件
+        Snapshot snapshot = store.snapshot();
+        Assert.assertNotNull(snapshot);
+        Assert.assertEquals(0L, snapshot.getLeft());
+        Assert.assertTrue(snapshot.getRight() > 0L && snapshot.getRight() < length);
+
+        // 2. 模拟FOLLOWER 接收并安装快照
+        File followerBase = new File(base, "follower/" + partitionGroup);
+        PartitionGroupStoreSupport.init(followerBase, partitions);
+        PartitionGroupStoreManager follower = new PartitionGroupStoreManager(topic, partitionGroup, followerBase,
+                new PartitionGroupStoreManager.Config(DEFAULT_MAX_MESSAGE_LENGTH, DEFAULT_WRITE_REQUEST_CACHE_SIZE, 1L,
+                        DEFAULT_WRITE_TIMEOUT_MS, DEFAULT_MAX_DIRTY_SIZE, 6000, DEFAULT_ENQUEUE_TIMEOUT,
+                        new PositioningStore.Config(32 * 1024 * 1024),
+                        new PositioningStore.Config(128 * 1024, true, false)),
+                bufferPool);
+        follower.recover();
+        follower.start();
+        try {
+            follower.prepareSnapshot();
+            for (Snapshot.Segment segment : snapshot.getSegments()) {
+                for (long offset = 0; offset < segment.getLength(); ) {
+                    ByteBuffer data = store.readSnapshot(segment.getPath(), offset,
+                            (int) Math.min(1024 * 1024, segment.getLength() - offset));
+                    int size = data.remaining();
+                    follower.writeSnapshot(segment.getPath(), offset, data);
+                    offset += size;
+                }
+            }
+            follower.installSnapshot(snapshot.getRight());
+            Assert.assertTrue(follower.isStarted());
+            // 临时目录和替换下来的旧目录都已删除
+            Assert.assertArrayEquals(new String[]{followerBase.getName()}, followerBase.getParentFile().list());
+            Assert.assertEquals(0, base.list((dir, name) -> name.startsWith(Store.DEL_PREFIX)).length);
+            Assert.assertEquals(snapshot.getRight(), follower.rightPosition());
+
+            // 3. 从快照末尾继续复制日志
+            long position = follower.rightPosition();
+            while (position < store.rightPosition()) {
+                ByteBuffer readBuffer = store.readEntryBuffer(position, 1024 * 1024);
+                position = follower.appendEntryBuffer(readBuffer);
+            }
+            follower.commit(follower.rightPosition());
+            t0 = SystemClock.now();
+            while (SystemClock.now() - t0 < timeout && follower.indexPosition() < length) {
+                Thread.sleep(10L);
+            }
+            for (short partition : partitions) {
+                Assert.assertEquals(store.getRightIndex(partition), follower.getRightIndex(partition));
+                for (long index : new long[]{0L, store.getRightIndex(partition) - 1}) {
+                    Assert.assertEquals(store.read(partition, index, 1, 0).getMessages()[0],
+                            follower.read(partition, index, 1, 0).getMessages()[0]);
+                }
+            }
+        } finally {
+            follower.stop();
+            follower.close();
+        }
+    }
+
     @Test
     public void rePartitionTest() throws Exception {
         int count = 1024;
@@ -756,6 +889,45 @@ public class PartitionGroupStoreManagerTest {
 
     }
 
+    @Test
+    public void cleanShutdownRecoverTest() throws Exception {
+        int count = 55;
+        long timeout = 500000L;
+        short partition = 4;
+        List<ByteBuffer> messages = MessageUtils.build(count, 1024);
+        long length = messages.stream().mapToInt(Buffer::remaining).sum();
+
+        final EventFuture<WriteResult> future = new EventFuture<>();
+        store.asyncWrite(QosLevel.RECEIVE, future, messages.stream().map(b -> new WriteRequest(partition, b)).toArray(WriteRequest[]::new));
+        Assert.assertEquals(JoyQueueCode.SUCCESS, future.get().getCode());
+
+        long t0 = SystemClock.now();
+        while (SystemClock.now() - t0 < timeout && store.indexPosition() < length) {
+            Thread.sleep(10L);
+        }
+        store.commit(store.rightPosition());
+
+        destroyStore();
+        File manifestFile = new File(groupBase, PartitionGroupStoreManager.SHUTDOWN_MANIFEST_FILE);
+        Assert.assertTrue(manifestFile.isFile());
+
+        recoverStore();
+        // 恢复后立即删除，异常退出时不会被误用
+        Assert.assertFalse(manifestFile.exists());
+        Assert.assertEquals(length, store.rightPosition());
+        Assert.assertEquals(length, store.indexPosition());
+        Assert.assertEquals(length, store.commitPosition());
+
+        for (int i = 0; i < messages.size(); i++) {
+            ByteBuffer writeBuffer = messages.get(i);
+            writeBuffer.clear();
+
+            ReadResult readResult = store.read(partition, i, 1, 0);
+            Assert.assertEquals(JoyQueueCode.SUCCESS, readResult.getCode());
+            Assert.assertEquals(writeBuffer, readResult.getMessages()[0]);
+        }
+    }
+
     @Test
     public void brokenIndexStoreTest() throws Exception{
         int count = 55;
@@ -1000,6 +1172,10 @@ public class PartitionGroupStoreManagerTest {
     }
 
     private void recoverStore() throws Exception {
+        recoverStore(null);
+    }
+
+    private void recoverStore(FlushScheduler flushScheduler) throws Exception {
         if (null == bufferPool) {
             bufferPool = PreloadBufferPool.getInstance();
             bufferPool.addPreLoad(32 * 1024 * 1024, 2, 4);
@@ -1015,7 +1191,7 @@ public class PartitionGroupStoreManagerTest {
                 new PositioningStore.Config(128 * 1024,true, false));
 
         this.store = new PartitionGroupStoreManager(topic, partitionGroup, groupBase, config,
-                bufferPool);
+                bufferPool, flushScheduler);
         this.store.recover();
         this.store.start();
         this.store.enable();
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store;
+
+import org.joyqueue.store.index.IndexItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * PartitionReadCacheTest
+ */
+public class PartitionReadCacheTest {
+
+    @Test
+    public void testPutAndGet() {
+        PartitionReadCache readCache = new PartitionReadCache(100);
+        Assert.assertEquals(128, readCache.capacity());
+
+        long generation = readCache.generation();
+        for (long index = 0; index < 200; index++) {
+            readCache.put(generation, index, new IndexItem((short) 0, index, 8, index * 8), ByteBuffer.allocate(8));
+        }
+
+        Assert.assertNull(readCache.get(10));
+        Assert.assertNotNull(readCache.get(199));
+        Assert.assertEquals(199 * 8, readCache.get(199).getIndexItem().getOffset());
+
+        Assert.assertTrue(readCache.isHot(100, 200));
+        Assert.assertFalse(readCache.isHot(50, 200));
+        Assert.assertFalse(readCache.isHot(200, 200));
+    }
+
+    @Test
+    public void testInvalidate() {
+        PartitionReadCache readCache = new PartitionReadCache(16);
+        long generation = readCache.generation();
+        readCache.put(generation, 1, new IndexItem((short) 0, 1, 8, 8), ByteBuffer.allocate(8));
+        readCache.invalidate();
+        Assert.assertNull(readCache.get(1));
+
+        // 失效前开始的读取不能再写入缓存
+        readCache.put(generation, 2, new IndexItem((short) 0, 2, 8, 16), ByteBuffer.allocate(8));
+        Assert.assertNull(readCache.get(2));
+    }
+
+    @Test
+    public void testSequential() {
+        PartitionReadCache readCache = new PartitionReadCache(16);
+        Assert.assertFalse(readCache.advance(0, 10));
+        Assert.assertTrue(readCache.advance(10, 20));
+        Assert.assertFalse(readCache.advance(5, 15));
+    }
+
+    @Test
+    public void testLargeMessage() {
+        PartitionReadCache readCache = new PartitionReadCache(16);
+        readCache.put(readCache.generation(), 1, new IndexItem((short) 0, 1, 8, 8),
+                ByteBuffer.allocate(PartitionReadCache.MAX_CACHED_MESSAGE_LENGTH + 1));
+        Assert.assertNull(readCache.get(1));
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.file;
+
+import org.joyqueue.store.utils.MessageTestUtils;
+import org.joyqueue.store.utils.PreloadBufferPool;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.joyqueue.toolkit.util.BaseDirUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * CompactedPositioningStoreTest
+ */
+public class CompactedPositioningStoreTest {
+
+    private static final int FILE_DATA_SIZE = 4 * 1024;
+    private static final int KEY_COUNT = 10;
+    private static final int MESSAGE_COUNT = 500;
+
+    private File base;
+    private final PositioningStore.Config config = new PositioningStore.Config(FILE_DATA_SIZE);
+
+    @Before
+    public void before() throws Exception {
+        base = BaseDirUtils.prepareBaseDir();
+    }
+
+    @After
+    public void after() {
+        BaseDirUtils.destroyBaseDir(base);
+    }
+
+    @Test
+    public void testCompactAndRecover() throws IOException {
+        PositioningStore<ByteBuffer> store = newStore();
+        List<String> bodyList = IntStream.range(0, MESSAGE_COUNT).mapToObj(i -> "key-" + i % KEY_COUNT).collect(Collectors.toList());
+        List<ByteBuffer> messages = MessageTestUtils.createMessages(bodyList);
+        List<Long> positions = new ArrayList<>(MESSAGE_COUNT);
+        long position = 0L;
+        for (ByteBuffer message : messages) {
+            positions.add(position);
+            position += message.remaining();
+        }
+        store.append(messages);
+        flush(store);
+        long right = store.right();
+        long physicalSize = store.physicalSize();
+        int fileCount = store.fileCount();
+
+        // 最后一次写入晚于timestamp的文件不压缩
+        Assert.assertEquals(0L, store.compact(right, 0L, new LatestBodyCompactor()));
+        Assert.assertEquals(0L, store.compactedRight());
+
+        long saving = store.compact(right, SystemClock.now() + 1000L, new LatestBodyCompactor());
+        Assert.assertTrue(saving > 0);
+        Assert.assertTrue(store.compactedRight() > 0);
+        Assert.assertEquals(physicalSize - saving, store.physicalSize());
+        Assert.assertEquals(right, store.right());
+        Assert.assertEquals(fileCount, store.fileCount());
+
+        List<String> expected = expectedBodies(bodyList, positions, store.compactedRight());
+        Assert.assertTrue(expected.size() < MESSAGE_COUNT);
+        Assert.assertEquals(expected, MessageTestUtils.getBodies(store.batchRead(0L, MESSAGE_COUNT)));
+        Assert.assertTrue(store.isCompacted(positions.get(0)));
+        Assert.assertFalse(store.isCompacted(positions.get(MESSAGE_COUNT - 1)));
+        Assert.assertEquals(bodyList.get(MESSAGE_COUNT - 1), MessageTestUtils.getBodies(
+                Collections.singletonList(store.read(positions.get(MESSAGE_COUNT - 1)))).get(0));
+
+        // 再次压缩没有可以删除的日志
+        Assert.assertEquals(0L, store.compact(right, SystemClock.now() + 1000L, new LatestBodyCompactor()));
+        store.close();
+
+        // 重启后恢复压缩过的文件
+        long compactedRight;
+        store = newStore();
+        compactedRight = store.compactedRight();
+        Assert.assertTrue(compactedRight > 0);
+        Assert.assertEquals(right, store.right());
+        Assert.assertEquals(physicalSize - saving, store.physicalSize());
+        Assert.assertEquals(expected, MessageTestUtils.getBodies(store.batchRead(0L, MESSAGE_COUNT)));
+
+        // 回滚到压缩区间内时清空
+        store.setRight(compactedRight - 1);
+        Assert.assertEquals(0L, store.compactedRight());
+        Assert.assertEquals(compactedRight - 1, store.left());
+        store.close();
+    }
+
+    @Test
+    public void testPauseRecompaction() throws IOException {
+        PositioningStore<ByteBuffer> store = newStore();
+        // 一半消息第一次压缩时删除，另一半保留到再次写入相同的消息之后
+        List<String> bodyList = IntStream.range(0, MESSAGE_COUNT).mapToObj(i -> i % 2 == 0 ? "key-" + i : "key").collect(Collectors.toList());
+        store.append(MessageTestUtils.createMessages(bodyList));
+        flush(store);
+        Assert.assertTrue(store.compact(store.right(), SystemClock.now() + 1000L, new LatestBodyCompactor()) > 0);
+        Map<File, Long> compactedFiles = store.getFiles().stream().filter(store::isCompactedFile)
+                .collect(Collectors.toMap(file -> file, File::length));
+        Assert.assertFalse(compactedFiles.isEmpty());
+
+        // 后续写入的消息使压缩过的文件中保留的消息也可以删除，暂停期间压缩过的文件保持不变
+        store.append(MessageTestUtils.createMessages(bodyList));
+        flush(store);
+        store.pauseRecompaction(SystemClock.now() + 60 * 1000L);
+        store.compact(store.right(), SystemClock.now() + 1000L, new LatestBodyCompactor());
+        for (Map.Entry<File, Long> entry : compactedFiles.entrySet()) {
+            Assert.assertEquals(entry.getValue().longValue(), entry.getKey().length());
+        }
+        store.close();
+
+        // 重启后不再暂停，压缩过的文件可以再次压缩
+        store = newStore();
+        Assert.assertTrue(store.compact(store.right(), SystemClock.now() + 1000L, new LatestBodyCompactor()) > 0);
+        Assert.assertTrue(compactedFiles.entrySet().stream().anyMatch(entry -> entry.getKey().length() < entry.getValue()));
+        store.close();
+    }
+
+    private List<String> expectedBodies(List<String> bodyList, List<Long> positions, long compactedRight) {
+        Map<String, Integer> latest = new HashMap<>();
+        for (int i = 0; i < bodyList.size(); i++) {
+            latest.put(bodyList.get(i), i);
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < bodyList.size(); i++) {
+            if (positions.get(i) >= compactedRight || latest.get(bodyList.get(i)) == i) {
+                expected.add(bodyList.get(i));
+            }
+        }
+        return expected;
+    }
+
+    private PositioningStore<ByteBuffer> newStore() throws IOException {
+        PositioningStore<ByteBuffer> store = new PositioningStore<>(base, config, PreloadBufferPool.getInstance(),
+                new StoreMessageSerializer(1024 * 1024));
+        store.recover();
+        return store;
+    }
+
+    private void flush(PositioningStore<ByteBuffer> store) throws IOException {
+        while (store.flush()) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * 消息体相同的消息只保留最后一条
+     */
+    private static class LatestBodyCompactor implements LogCompactor<ByteBuffer> {
+        private final Map<String, Long> latest = new HashMap<>();
+
+        @Override
+        public void scan(long position, ByteBuffer log) {
+            latest.put(body(log), position);
+        }
+
+        @Override
+        public boolean retain(long position, ByteBuffer log) {
+            return latest.get(body(log)) == position;
+        }
+
+        private String body(ByteBuffer log) {
+            return MessageTestUtils.getBodies(Collections.singletonList(log)).get(0);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2019 The JoyQueue Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.joyqueue.store.file;
+
+import org.joyqueue.store.TieredStorage;
+import org.joyqueue.store.tiered.LocalRemoteSegmentStore;
+import org.joyqueue.store.tiered.RemoteSegmentCache;
+import org.joyqueue.store.utils.MessageTestUtils;
+import org.joyqueue.store.utils.PreloadBufferPool;
+import org.joyqueue.toolkit.time.SystemClock;
+import org.joyqueue.toolkit.util.BaseDirUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TieredPositioningStoreTest
+ */
+public class TieredPositioningStoreTest {
+
+    private static final int FILE_DATA_SIZE = 4 * 1024;
+
+    private File base;
+    private File logBase;
+    private LocalRemoteSegmentStore remoteStore;
+    private RemoteSegmentCache cache;
+    private TieredStorage tieredStorage;
+    private final PositioningStore.Config config = new PositioningStore.Config(FILE_DATA_SIZE);
+
+    @Before
+    public void before() throws Exception {
+        base = BaseDirUtils.prepareBaseDir();
+        logBase = new File(base, "log");
+        Assert.assertTrue(logBase.mkdirs());
+        remoteStore = new LocalRemoteSegmentStore(new File(base, "remote"));
+        remoteStore.start();
+        cache = new RemoteSegmentCache(new File(base, "cache"), 2 * FILE_DATA_SIZE);
+        tieredStorage = new TieredStorage("node", Collections.singletonList(base), remoteStore, cache, 0L, 1000L);
+    }
+
+    @After
+    public void after() {
+        remoteStore.stop();
+        BaseDirUtils.destroyBaseDir(base);
+    }
+
+    @Test
+    public void testUploadAndReadRemote() throws IOException {
+        PositioningStore<ByteBuffer> store = newStore();
+        List<String> bodyList = MessageTestUtils.createBodyList("Hello, tiered storage!", 500);
+        store.append(MessageTestUtils.createMessages(bodyList));
+        flush(store);
+        int fileCount = store.fileCount();
+        Assert.assertTrue(fileCount > 3);
+
+        // 除了最后一个文件都可以上传
+        int uploaded = 0;
+        while (store.uploadSealedFile()) {
+            uploaded++;
+        }
+        Assert.assertEquals(fileCount - 1, uploaded);
+        Assert.assertEquals(fileCount - 1, remoteStore.list(tieredStorage.key(logBase)).size());
+
+        Assert.assertTrue(store.dropUploadedFiles(SystemClock.now() + 1000L) > 0);
+        Assert.assertTrue(store.left() > 0);
+        Assert.assertEquals(0L, store.tieredLeft());
+        Assert.assertEquals(fileCount, store.fileCount());
+
+        // 远端分段通过缓存读取，缓存大小不超过容量
+        Assert.assertEquals(bodyList, MessageTestUtils.getBodies(store.batchRead(0L, bodyList.size())));
+        Assert.assertTrue(cache.size() <= 2 * (FILE_DATA_SIZE + PositioningStore.Config.DEFAULT_FILE_HEADER_SIZE));
+        store.close();
+
+        // 重启后恢复远端分段
+        store = newStore();
+        Assert.assertEquals(0L, store.tieredLeft());
+        Assert.assertEquals(bodyList, MessageTestUtils.getBodies(store.batchRead(0L, bodyList.size())));
+        store.close();
+    }
+
+    @Test
+    public void testDeleteAndRollback() throws IOException {
+        PositioningStore<ByteBuffer> store = newStore();
+        store.append(MessageTestUtils.createMessages(MessageTestUtils.createBodyList("Hello, tiered storage!", 500)));
+        flush(store);
+        while (store.uploadSealedFile()) {
+            Thread.yield();
+        }
+        store.dropUploadedFiles(SystemClock.now() + 1000L);
+        int fileCount = store.fileCount();
+        String key = tieredStorage.key(logBase);
+
+        // 按文件删除时先删除最左侧的远端分段
+        long left = store.tieredLeft();
+        Assert.assertTrue(store.physicalDeleteLeftFile() > 0);
+        Assert.assertTrue(store.tieredLeft() > left);
+        Assert.assertEquals(fileCount - 1, store.fileCount());
+        Assert.assertEquals(fileCount - 2, remoteStore.list(key).size());
+
+        // 回滚到本地最小位置，远端分段仍然与本地连续
+        left = store.tieredLeft();
+        store.setRight(store.left());
+        Assert.assertEquals(left, store.tieredLeft());
+        Assert.assertEquals(fileCount - 2, remoteStore.list(key).size());
+
+        // 回滚到远端分段中间，清空所有远端分段
+        store.setRight(store.left() - 1);
+        Assert.assertTrue(remoteStore.list(key).isEmpty());
+        Assert.assertEquals(store.left(), store.tieredLeft());
+        store.close();
+    }
+
+    @Test
+    public void testReplicasShareRemoteStore() throws IOException {
+        // 两个副本的数据目录不同，相对路径相同，共享同一个远端存储
+        File replicaBase = new File(base, "replica");
+        File replicaLogBase = new File(replicaBase, "log");
+        Assert.assertTrue(replicaLogBase.mkdirs());
+        TieredStorage replicaTieredStorage = new TieredStorage("replica", Collections.singletonList(replicaBase), remoteStore,
+                new RemoteSegmentCache(new File(base, "replica-cache"), 2 * FILE_DATA_SIZE), 0L, 1000L);
+        Assert.assertNotEquals(tieredStorage.key(logBase), replicaTieredStorage.key(replicaLogBase));
+
+        List<String> bodyList = MessageTestUtils.createBodyList("Hello, tiered storage!", 500);
+        PositioningStore<ByteBuffer> store = newStore();
+        PositioningStore<ByteBuffer> replica = new PositioningStore<>(replicaLogBase, config, PreloadBufferPool.getInstance(),
+                new StoreMessageSerializer(1024 * 1024), replicaTieredStorage);
+        replica.recover();
+        for (PositioningStore<ByteBuffer> s : new PositioningStore[] {store, replica}) {
+            s.append(MessageTestUtils.createMessages(bodyList));
+            flush(s);
+            while (s.uploadSealedFile()) {
+                Thread.yield();
+            }
+            Assert.assertTrue(s.dropUploadedFiles(SystemClock.now() + 1000L) > 0);
+        }
+        int remoteCount = remoteStore.list(replicaTieredStorage.key(replicaLogBase)).size();
+        Assert.assertTrue(remoteCount > 0);
+
+        // 一个副本回滚清空远端分段，不影响另一个副本
+        store.setRight(store.left() - 1);
+        Assert.assertTrue(remoteStore.list(tieredStorage.key(logBase)).isEmpty());
+        Assert.assertEquals(remoteCount, remoteStore.list(replicaTieredStorage.key(replicaLogBase)).size());
+        Assert.assertEquals(bodyList, MessageTestUtils.getBodies(replica.batchRead(0L, bodyList.size())));
+        store.close();
+
+        // 重启恢复时也不会清理另一个副本的远端分段
+        store = newStore();
+        store.close();
+        replica.close();
+        replica = new PositioningStore<>(replicaLogBase, config, PreloadBufferPool.getInstance(),
+                new StoreMessageSerializer(1024 * 1024), replicaTieredStorage);
+        replica.recover();
+        Assert.assertEquals(bodyList, MessageTestUtils.getBodies(replica.batchRead(0L, bodyList.size())));
+        replica.close();
+    }
+
+    private PositioningStore<ByteBuffer> newStore() throws IOException {
+        PositioningStore<ByteBuffer> store = new PositioningStore<>(logBase, config, PreloadBufferPool.getInstance(),
+                new StoreMessageSerializer(1024 * 1024), tieredStorage);
+        store.recover();
+        return store;
+    }
+
+    private void flush(PositioningStore<ByteBuffer> store) throws IOException {
+        while (store.flush()) {
+            Thread.yield();
+        }
+    }
+}
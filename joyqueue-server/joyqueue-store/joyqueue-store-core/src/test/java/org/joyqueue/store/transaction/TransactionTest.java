@@ -70,6 +70,34 @@ public class TransactionTest {
     }
 
 
+    @Test
+    public void reopenTest() throws Exception {
+        int count = 128;
+        PositioningStore.Config config = new PositioningStore.Config();
+        PreloadBufferPool bufferPool = PreloadBufferPool.getInstance();
+
+        TransactionStoreManager transactionStoreManager = new TransactionStoreManager(base, config, bufferPool);
+        int tId = transactionStoreManager.next();
+        List<ByteBuffer> messages = MessageTestUtils.createMessages(MessageTestUtils.createBodyList("hahahaha", count));
+        WriteResult writeResult = transactionStoreManager.asyncWrite(tId, messages.subList(0, count / 2).stream().map(ByteBuffer::slice).toArray(ByteBuffer[]::new)).get();
+        Assert.assertEquals(JoyQueueCode.SUCCESS, writeResult.getCode());
+        transactionStoreManager.close();
+
+        // 重启后继续追加写入并读取
+        transactionStoreManager = new TransactionStoreManager(base, config, bufferPool);
+        Assert.assertNotNull(transactionStoreManager.readIterator(tId));
+        writeResult = transactionStoreManager.asyncWrite(tId, messages.subList(count / 2, count).stream().map(ByteBuffer::slice).toArray(ByteBuffer[]::new)).get();
+        Assert.assertEquals(JoyQueueCode.SUCCESS, writeResult.getCode());
+
+        Iterator<ByteBuffer> iterator = transactionStoreManager.readIterator(tId);
+        int i = 0;
+        while (iterator.hasNext()) {
+            Assert.assertEquals(messages.get(i++), iterator.next());
+        }
+        Assert.assertEquals(count, i);
+        transactionStoreManager.close();
+    }
+
     @After
     public void destroyBaseDir() {
         BaseDirUtils.destroyBaseDir(base);